@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.IData;
+import org.treetank.api.ISession;
+import org.treetank.bucket.DataBucket;
+import org.treetank.bucket.IConstants;
+import org.treetank.bucket.IndirectBucket;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+
+import com.google.common.primitives.Longs;
+
+/**
+ * <h1>BucketDiff</h1>
+ * 
+ * <p>
+ * Diff of two revisions on the level of buckets. Based on the copy-on-write semantics of the storage, all
+ * buckets not modified between two revisions are shared and referenced with the same keys. Both indirect
+ * trees referencing the data buckets are therefore walked in parallel and each reference equal in both
+ * revisions is skipped together with its entire subtree. Only the data buckets written in between are
+ * reconstructed and compared data by data.
+ * </p>
+ * 
+ * <p>
+ * The costs thereby scale with the amount of modifications and not with the size of the revisions.
+ * </p>
+ */
+public final class BucketDiff {
+
+    /** Empty references for subtrees not existing in one of the revisions. */
+    private static final long[] NO_REFERENCES = new long[IConstants.CONTENT_COUNT];
+
+    /** Transaction on the old revision. */
+    private final BucketReadTrx mOldTrx;
+
+    /** Transaction on the new revision. */
+    private final BucketReadTrx mNewTrx;
+
+    /** Keys of differing data existing in the old revision, in ascending order. */
+    private final List<Long> mOldKeys;
+
+    /** Keys of differing data existing in the new revision, in ascending order. */
+    private final List<Long> mNewKeys;
+
+    /**
+     * Constructor.
+     * 
+     * @param pOldTrx
+     *            transaction on the old revision
+     * @param pNewTrx
+     *            transaction on the new revision
+     */
+    private BucketDiff(final BucketReadTrx pOldTrx, final BucketReadTrx pNewTrx) {
+        mOldTrx = pOldTrx;
+        mNewTrx = pNewTrx;
+        mOldKeys = new ArrayList<Long>();
+        mNewKeys = new ArrayList<Long>();
+    }
+
+    /**
+     * Computing the data which differ between two revisions of the same resource. Data inserted, removed or
+     * modified between both revisions are included.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pOldRev
+     *            old revision to compare
+     * @param pNewRev
+     *            new revision to compare
+     * @return the diff holding the keys of all differing data
+     * @throws TTException
+     *             if the read of the persistent storage fails
+     */
+    public static BucketDiff diff(final ISession pSession, final long pOldRev, final long pNewRev)
+        throws TTException {
+        final IBucketReadTrx oldTrx = pSession.beginBucketRtx(pOldRev);
+        final IBucketReadTrx newTrx = pSession.beginBucketRtx(pNewRev);
+        try {
+            checkArgument(oldTrx instanceof BucketReadTrx && newTrx instanceof BucketReadTrx,
+                "Bucket diff is only supported on persistent revisions.");
+            final BucketDiff diff = new BucketDiff((BucketReadTrx)oldTrx, (BucketReadTrx)newTrx);
+            diff.diff(0, diff.mOldTrx.getDataTreeKey(), diff.mNewTrx.getDataTreeKey(), 0);
+            return diff;
+        } finally {
+            oldTrx.close();
+            newTrx.close();
+        }
+    }
+
+    /**
+     * Getting the keys of all differing data existing in the old revision. Data deleted in the old revision
+     * is represented by its deletion marker.
+     * 
+     * @return the keys in ascending order
+     */
+    public long[] getOldKeys() {
+        return Longs.toArray(mOldKeys);
+    }
+
+    /**
+     * Getting the keys of all differing data existing in the new revision. Data deleted in the new revision
+     * is represented by its deletion marker.
+     * 
+     * @return the keys in ascending order
+     */
+    public long[] getNewKeys() {
+        return Longs.toArray(mNewKeys);
+    }
+
+    /**
+     * Walking both indirect trees in parallel, skipping all references shared by both revisions.
+     * 
+     * @param pLevel
+     *            current level within the indirect tree
+     * @param pOldKey
+     *            key of the bucket within the old revision, 0 if not existing
+     * @param pNewKey
+     *            key of the bucket within the new revision, 0 if not existing
+     * @param pSeqBucketKey
+     *            sequential key of the buckets denoted by the offsets on the levels above
+     * @throws TTIOException
+     *             if the read of the persistent storage fails
+     */
+    private void diff(final int pLevel, final long pOldKey, final long pNewKey, final long pSeqBucketKey)
+        throws TTIOException {
+        // shared subtree, nothing to do
+        if (pOldKey == pNewKey) {
+            return;
+        }
+        if (pLevel == IConstants.INDIRECT_BUCKET_COUNT.length) {
+            compare(pOldKey == 0 ? null : mOldTrx.getDataBucket(pSeqBucketKey), pNewKey == 0 ? null : mNewTrx
+                .getDataBucket(pSeqBucketKey), pSeqBucketKey);
+        } else {
+            final long[] oldRefs =
+                pOldKey == 0 ? NO_REFERENCES : ((IndirectBucket)mOldTrx.readBucket(pOldKey)).getReferenceKeys();
+            final long[] newRefs =
+                pNewKey == 0 ? NO_REFERENCES : ((IndirectBucket)mNewTrx.readBucket(pNewKey)).getReferenceKeys();
+            for (int i = 0; i < IConstants.CONTENT_COUNT; i++) {
+                diff(pLevel + 1, oldRefs[i], newRefs[i], (pSeqBucketKey << IConstants.INDIRECT_BUCKET_COUNT[3])
+                    | i);
+            }
+        }
+    }
+
+    /**
+     * Comparing two complete data buckets data by data.
+     * 
+     * @param pOld
+     *            bucket of the old revision, null if not existing
+     * @param pNew
+     *            bucket of the new revision, null if not existing
+     * @param pSeqBucketKey
+     *            sequential key of both buckets
+     */
+    private void compare(final DataBucket pOld, final DataBucket pNew, final long pSeqBucketKey) {
+        for (int i = 0; i < IConstants.CONTENT_COUNT; i++) {
+            final IData oldData = pOld == null ? null : pOld.getData(i);
+            final IData newData = pNew == null ? null : pNew.getData(i);
+            if (!equal(oldData, newData)) {
+                final long key = (pSeqBucketKey << IConstants.INDIRECT_BUCKET_COUNT[3]) | i;
+                if (oldData != null) {
+                    mOldKeys.add(key);
+                }
+                if (newData != null) {
+                    mNewKeys.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Comparing two data based on their content.
+     * 
+     * @param pOld
+     *            data of the old revision, may be null
+     * @param pNew
+     *            data of the new revision, may be null
+     * @return true if both are equal, false otherwise
+     */
+    private static boolean equal(final IData pOld, final IData pNew) {
+        if (pOld == pNew) {
+            return true;
+        } else if (pOld == null || pNew == null || pOld.getClass() != pNew.getClass()) {
+            return false;
+        } else {
+            return Arrays.equals(StandardSettings.HASHFUNC.hashObject(pOld, pOld.getFunnel()).asBytes(),
+                StandardSettings.HASHFUNC.hashObject(pNew, pNew.getFunnel()).asBytes());
+        }
+    }
+
+}
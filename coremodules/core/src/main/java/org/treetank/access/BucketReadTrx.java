@@ -61,8 +61,8 @@ import com.google.common.cache.CacheBuilder;
  * 
  * <p>
  * State of a reading transaction. The only thing shared amongst transactions is the bucket cache. Everything
- * else is exclusive to this transaction. It is required that only a single thread has access to this
- * transaction.
+ * else is exclusive to this transaction. Data may be read by several threads, as done over the handles of
+ * a pinned transaction, only the reconstruction of buckets missing in the cache is serialized.
  * </p>
  * 
  * <p>
@@ -135,16 +135,7 @@ public class BucketReadTrx implements IBucketReadTrx {
         // Calculate bucket and data part for given datakey.
         final long seqBucketKey = pDataKey >> IConstants.INDIRECT_BUCKET_COUNT[3];
         final int dataBucketOffset = dataBucketOffset(pDataKey);
-        DataBucket bucket = mCache.getIfPresent(seqBucketKey);
-        if (bucket == null) {
-            final List<DataBucket> listRevs = getSnapshotBuckets(seqBucketKey);
-            final DataBucket[] revs = listRevs.toArray(new DataBucket[listRevs.size()]);
-            checkState(revs.length > 0, "Number of Buckets to reconstruct must be larger than 0");
-            // Build up the complete bucket.
-            final IRevisioning revision = mSession.getConfig().mRevision;
-            bucket = revision.combineBuckets(revs);
-            mCache.put(seqBucketKey, bucket);
-        }
+        final DataBucket bucket = getDataBucket(seqBucketKey);
         final IData returnVal = bucket.getData(dataBucketOffset);
         // root-fsys is excluded from the checkagainst deletion based on the necesssity of the data-layer to
         // reference against this data while creation of the transaction
@@ -156,6 +147,59 @@ public class BucketReadTrx implements IBucketReadTrx {
 
     }
 
+    /**
+     * Getting the complete data bucket related to the given sequential bucket key, reconstructed out of all
+     * versions necessary.
+     * 
+     * @param pSeqBucketKey
+     *            sequential key of the data bucket
+     * @return the reconstructed data bucket
+     * @throws TTIOException
+     *             if the read to the persistent storage fails
+     */
+    final DataBucket getDataBucket(final long pSeqBucketKey) throws TTIOException {
+        DataBucket bucket = mCache.getIfPresent(pSeqBucketKey);
+        if (bucket == null) {
+            // the reader is not thread-safe, cached buckets are read without locking
+            synchronized (mBucketReader) {
+                bucket = mCache.getIfPresent(pSeqBucketKey);
+                if (bucket == null) {
+                    final List<DataBucket> listRevs = getSnapshotBuckets(pSeqBucketKey);
+                    final DataBucket[] revs = listRevs.toArray(new DataBucket[listRevs.size()]);
+                    checkState(revs.length > 0, "Number of Buckets to reconstruct must be larger than 0");
+                    // Build up the complete bucket.
+                    final IRevisioning revision = mSession.getConfig().mRevision;
+                    bucket = revision.combineBuckets(revs);
+                    mCache.put(pSeqBucketKey, bucket);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Getting the key of the first indirect bucket of the data tree of this revision.
+     * 
+     * @return the key of the root of the indirect tree referencing all data buckets
+     */
+    final long getDataTreeKey() {
+        return mRootBucket.getReferenceKeys()[IReferenceBucket.GUARANTEED_INDIRECT_OFFSET];
+    }
+
+    /**
+     * Reading a bucket over the reader of this transaction.
+     * 
+     * @param pBucketKey
+     *            key of the bucket
+     * @return the bucket
+     * @throws TTIOException
+     *             if the read to the persistent storage fails
+     */
+    final IBucket readBucket(final long pBucketKey) throws TTIOException {
+        checkState(!mClose, "Transaction already closed");
+        return mBucketReader.read(pBucketKey);
+    }
+
     /**
      * Closing this Readtransaction.
      * 
@@ -199,6 +243,14 @@ public class BucketReadTrx implements IBucketReadTrx {
         return mMetaBucket;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISession getSession() {
+        return mSession;
+    }
+
     /**
      * Method to check if an {@link IData} is a deleted one.
      * 
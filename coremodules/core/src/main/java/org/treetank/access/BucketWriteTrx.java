@@ -338,6 +338,14 @@ public final class BucketWriteTrx implements IBucketWriteTrx {
         return mNewMeta;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISession getSession() {
+        return mDelegate.mSession;
+    }
+
     private LogValue prepareDataBucket(final long pDataKey) throws TTException {
 
         final long seqDataBucketKey = pDataKey >> IConstants.INDIRECT_BUCKET_COUNT[3];
@@ -32,6 +32,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
@@ -80,8 +82,14 @@ public final class Session implements ISession {
     /** Remember the write separately because of the concurrent writes. */
     private final Set<IBucketReadTrx> mBucketTrxs;
 
+    /**
+     * Pinned read transactions, one per revision, shared by all open handles from beginSharedBucketRtx and
+     * closed together with the last of them.
+     */
+    private final Map<Long, PinnedTrx> mSharedTrxs;
+
     /** Determines if session was closed. */
-    private transient boolean mClosed;
+    private transient volatile boolean mClosed;
 
     /** Check if already a Wtx is used. */
     private AtomicBoolean mWriteTransactionUsed;
@@ -109,6 +117,7 @@ public final class Session implements ISession {
         mResourceConfig = pResourceConf;
         mSessionConfig = pSessionConf;
         mBucketTrxs = new CopyOnWriteArraySet<IBucketReadTrx>();
+        mSharedTrxs = new HashMap<Long, PinnedTrx>();
         mClosed = false;
         mLastCommittedUberBucket = new AtomicReference<UberBucket>(pBucket);
         mWriteTransactionUsed = new AtomicBoolean(false);
@@ -131,6 +140,45 @@ public final class Session implements ISession {
         return trx;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IBucketReadTrx beginSharedBucketRtx(final long pRevKey) throws TTException {
+        waitForRunningCommit();
+        assertAccess(pRevKey);
+        synchronized (mSharedTrxs) {
+            PinnedTrx pinned = mSharedTrxs.get(pRevKey);
+            if (pinned == null || pinned.mTrx.isClosed()) {
+                pinned = new PinnedTrx(beginBucketRtx(pRevKey));
+                mSharedTrxs.put(pRevKey, pinned);
+            }
+            pinned.mHandles++;
+            return new SharedBucketReadTrx(this, pRevKey, pinned.mTrx);
+        }
+    }
+
+    /**
+     * Releasing a handle from {@link #beginSharedBucketRtx(long)}. The pinned transaction is closed with the
+     * last handle on its revision.
+     * 
+     * @param pRevKey
+     *            revision of the handle
+     * @param pTrx
+     *            pinned transaction of the handle
+     * @throws TTIOException
+     *             if the pinned transaction can not be closed
+     */
+    void releaseSharedBucketRtx(final long pRevKey, final IBucketReadTrx pTrx) throws TTIOException {
+        synchronized (mSharedTrxs) {
+            final PinnedTrx pinned = mSharedTrxs.get(pRevKey);
+            if (pinned != null && pinned.mTrx == pTrx && --pinned.mHandles == 0) {
+                mSharedTrxs.remove(pRevKey);
+                pTrx.close();
+            }
+        }
+    }
+
     public IBucketWriteTrx beginBucketWtx() throws TTException {
         return beginBucketWtx(mLastCommittedUberBucket.get().getRevisionNumber());
     }
@@ -165,6 +213,9 @@ public final class Session implements ISession {
             // Immediately release all resources.
             mLastCommittedUberBucket = null;
             mBucketTrxs.clear();
+            synchronized (mSharedTrxs) {
+                mSharedTrxs.clear();
+            }
             mResourceConfig.mBackend.close();
             mDatabase.mSessions.remove(mSessionConfig.getResource());
             mClosed = true;
@@ -174,6 +225,14 @@ public final class Session implements ISession {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isClosed() {
+        return mClosed;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -188,6 +247,9 @@ public final class Session implements ISession {
             // Immediately release all resources.
             mLastCommittedUberBucket = null;
             mBucketTrxs.clear();
+            synchronized (mSharedTrxs) {
+                mSharedTrxs.clear();
+            }
             mDatabase.mSessions.remove(mSessionConfig.getResource());
             mClosed = true;
             return IOUtils.recursiveDelete(new File(new File(mDatabase.getLocation(),
@@ -277,4 +339,27 @@ public final class Session implements ISession {
         mCommitRunning = pRunningCommit;
 
     }
+
+    /**
+     * Read transaction pinned for a revision together with the number of its open handles.
+     */
+    private static final class PinnedTrx {
+
+        /** Pinned transaction. */
+        private final IBucketReadTrx mTrx;
+
+        /** Number of open handles on the transaction. */
+        private int mHandles;
+
+        /**
+         * Constructor.
+         * 
+         * @param pTrx
+         *            transaction to pin
+         */
+        private PinnedTrx(final IBucketReadTrx pTrx) {
+            mTrx = pTrx;
+        }
+    }
+
 }
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkState;
+
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.IData;
+import org.treetank.api.ISession;
+import org.treetank.bucket.MetaBucket;
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>SharedBucketReadTrx</h1>
+ * 
+ * <p>
+ * Lightweight handle on a {@link BucketReadTrx} pinned by the {@link Session}. All handles on the same
+ * revision share the backend reader and the bucket cache of the pinned transaction, opening a handle
+ * therefore does not touch the backend at all. Closing a handle invalidates the handle itself, the pinned
+ * transaction is released with the last open handle on its revision or together with the session.
+ * </p>
+ * 
+ * <p>
+ * Handles can be used from different threads. Data cached by the pinned transaction is read concurrently,
+ * only the reconstruction of missing buckets over the shared reader is serialized.
+ * </p>
+ */
+final class SharedBucketReadTrx implements IBucketReadTrx {
+
+    /** Session pinning the transaction. */
+    private final Session mSession;
+
+    /** Revision of the pinned transaction. */
+    private final long mRevKey;
+
+    /** Pinned transaction shared amongst all handles. */
+    private final IBucketReadTrx mDelegate;
+
+    /** Determines if this handle was closed. */
+    private volatile boolean mClose;
+
+    /**
+     * Constructor.
+     * 
+     * @param pSession
+     *            session pinning the transaction
+     * @param pRevKey
+     *            revision of the pinned transaction
+     * @param pDelegate
+     *            pinned transaction
+     */
+    SharedBucketReadTrx(final Session pSession, final long pRevKey, final IBucketReadTrx pDelegate) {
+        mSession = pSession;
+        mRevKey = pRevKey;
+        mDelegate = pDelegate;
+        mClose = false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IData getData(final long pKey) throws TTIOException {
+        checkState(!mClose, "Transaction already closed");
+        return mDelegate.getData(pKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRevision() throws TTIOException {
+        checkState(!mClose, "Transaction already closed");
+        return mDelegate.getRevision();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean close() throws TTIOException {
+        if (!mClose) {
+            mClose = true;
+            mSession.releaseSharedBucketRtx(mRevKey, mDelegate);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isClosed() {
+        return mClose || mDelegate.isClosed();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MetaBucket getMetaBucket() {
+        checkState(!mClose, "Transaction already closed");
+        return mDelegate.getMetaBucket();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ISession getSession() {
+        return mDelegate.getSession();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("mDelegate", mDelegate).add("mClose", mClose).toString();
+    }
+
+}
@@ -19,4 +19,12 @@ public interface ConstructorProps {
 
     public static final String NUMBERTORESTORE = "treetank.numbersofrestore";
 
+    public static final String STRUCTINDEX = "treetank.structindex";
+
+    public static final String PATHSUMMARY = "treetank.pathsummary";
+
+    public static final String VALUEINDEX = "treetank.valueindex";
+
+    public static final String CHANGESETS = "treetank.changesets";
+
 }
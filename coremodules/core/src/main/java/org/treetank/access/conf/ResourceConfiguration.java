@@ -78,6 +78,8 @@ public final class ResourceConfiguration {
         Data(new File("data"), true),
         /** Folder for transaction log. */
         TransactionLog(new File("log"), true),
+        /** Folder for the change sets of the revisions. */
+        ChangeSets(new File("changes"), true),
         /** File to store the resource settings. */
         ConfigBinary(new File("ressetting.obj"), false);
 
@@ -72,4 +72,11 @@ public interface IBucketReadTrx {
      */
     MetaBucket getMetaBucket();
 
+    /**
+     * Getting the session this transaction was started on.
+     * 
+     * @return the session
+     */
+    ISession getSession();
+
 }
@@ -104,6 +104,20 @@ public interface ISession {
      */
     IBucketReadTrx beginBucketRtx(final long pRevKey) throws TTException;
 
+    /**
+     * Begin read transaction on the bucket layer sharing one pinned transaction with all other shared
+     * transactions on the same revision. The pinned transaction, including its backend reader and its cache,
+     * is created once per revision and kept as long as any handle on the revision is open. Closing the
+     * returned transaction invalidates this handle, the pinned transaction is closed with its last handle or
+     * together with this session.
+     * 
+     * @param pRevKey
+     *            revision key for the revision ask
+     * @return a {@link IBucketReadTrx} instance
+     * @throws TTException
+     */
+    IBucketReadTrx beginSharedBucketRtx(final long pRevKey) throws TTException;
+
     /**
      * Safely close session and immediately release all resources. If there are
      * running transactions, they will automatically be closed.
@@ -117,6 +131,13 @@ public interface ISession {
      */
     boolean close() throws TTException;
 
+    /**
+     * Checking if this session is closed.
+     * 
+     * @return true if the session is closed, false otherwise
+     */
+    boolean isClosed();
+
     /**
      * Truncating the resource where this {@link ISession} is bound to. Note that the session must be closed
      * first.
@@ -0,0 +1,140 @@
+/**
+ * 
+ */
+package org.treetank.access;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.IBucketWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.bucket.DumbDataFactory.DumbData;
+import org.treetank.exception.TTException;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.CoreTestHelper.Holder;
+import org.treetank.testutil.ModuleFactory;
+
+import com.google.inject.Inject;
+
+/**
+ * 
+ * Test-case for BucketDiff.
+ * 
+ */
+@Guice(moduleFactory = ModuleFactory.class)
+public class BucketDiffTest {
+
+    @Inject
+    private IResourceConfigurationFactory mResourceConfig;
+
+    private Holder mHolder;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeMethod
+    public void setUp() throws Exception {
+        CoreTestHelper.deleteEverything();
+        mHolder = CoreTestHelper.Holder.generateStorage();
+        final ResourceConfiguration config =
+            mResourceConfig.create(StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile()
+                .getAbsolutePath(), CoreTestHelper.RESOURCENAME));
+        CoreTestHelper.Holder.generateSession(mHolder, config);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @AfterMethod
+    public void tearDown() throws Exception {
+        CoreTestHelper.deleteEverything();
+    }
+
+    /**
+     * Test method for {@link org.treetank.access.BucketDiff#diff(ISession, long, long)} with inserted
+     * datas.
+     * 
+     * @throws TTException
+     */
+    @Test
+    public void testInsertedDatas() throws TTException {
+        final DumbData[][] datas = CoreTestHelper.createTestData(mHolder);
+        final ISession session = mHolder.getSession();
+        final long revision = session.getMostRecentVersion();
+
+        // same revision, everything shared
+        BucketDiff diff = BucketDiff.diff(session, revision, revision);
+        assertEquals(0, diff.getOldKeys().length);
+        assertEquals(0, diff.getNewKeys().length);
+
+        // last commit
+        diff = BucketDiff.diff(session, revision - 1, revision);
+        assertEquals(0, diff.getOldKeys().length);
+        assertTrue(Arrays.equals(getKeys(datas[datas.length - 1]), diff.getNewKeys()));
+
+        // last two commits
+        diff = BucketDiff.diff(session, revision - 2, revision);
+        assertEquals(0, diff.getOldKeys().length);
+        final long[] expected = new long[datas[datas.length - 2].length + datas[datas.length - 1].length];
+        System.arraycopy(getKeys(datas[datas.length - 2]), 0, expected, 0, datas[datas.length - 2].length);
+        System.arraycopy(getKeys(datas[datas.length - 1]), 0, expected, datas[datas.length - 2].length,
+            datas[datas.length - 1].length);
+        assertTrue(Arrays.equals(expected, diff.getNewKeys()));
+    }
+
+    /**
+     * Test method for {@link org.treetank.access.BucketDiff#diff(ISession, long, long)} with modified
+     * datas.
+     * 
+     * @throws TTException
+     */
+    @Test
+    public void testModifiedDatas() throws TTException {
+        final DumbData[][] datas = CoreTestHelper.createTestData(mHolder);
+        final ISession session = mHolder.getSession();
+        final long revision = session.getMostRecentVersion();
+
+        final IBucketWriteTrx wtx = session.beginBucketWtx();
+        final long[] modified = new long[] {
+            datas[0][5].getDataKey(), datas[4][127].getDataKey()
+        };
+        for (final long key : modified) {
+            final DumbData data = CoreTestHelper.generateOne();
+            data.setDataKey(key);
+            wtx.setData(data);
+        }
+        // rewriting a data with the same content
+        wtx.setData(datas[2][3]);
+        wtx.commit();
+        wtx.close();
+
+        final BucketDiff diff = BucketDiff.diff(session, revision, revision + 1);
+        assertTrue(Arrays.equals(modified, diff.getOldKeys()));
+        assertTrue(Arrays.equals(modified, diff.getNewKeys()));
+    }
+
+    /**
+     * Getting the keys of the given datas.
+     * 
+     * @param pDatas
+     *            to get the keys from
+     * @return the keys
+     */
+    private static long[] getKeys(final DumbData[] pDatas) {
+        final long[] keys = new long[pDatas.length];
+        for (int i = 0; i < pDatas.length; i++) {
+            keys[i] = pDatas[i].getDataKey();
+        }
+        return keys;
+    }
+
+}
@@ -7,9 +7,17 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
@@ -22,6 +30,8 @@ import org.treetank.access.conf.StandardSettings;
 import org.treetank.api.IBucketReadTrx;
 import org.treetank.api.IBucketWriteTrx;
 import org.treetank.api.ISession;
+import org.treetank.bucket.DumbDataFactory.DumbData;
+import org.treetank.bucket.MetaBucket;
 import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.testutil.CoreTestHelper;
@@ -137,6 +147,71 @@ public class SessionTest {
         }
     }
 
+    @Test
+    public void testBeginSharedBucketReadTransaction() throws TTException {
+        // generate two handles on the same pinned transaction
+        final IBucketReadTrx pRtx1 = mHolder.getSession().beginSharedBucketRtx(0);
+        final IBucketReadTrx pRtx2 = mHolder.getSession().beginSharedBucketRtx(0);
+        assertNotSame(pRtx1, pRtx2);
+        assertEquals(0, pRtx1.getRevision());
+        assertEquals(pRtx1.getMetaBucket(), pRtx2.getMetaBucket());
+        // closing one handle must not affect the other one
+        assertTrue(pRtx1.close());
+        assertFalse(pRtx1.close());
+        assertTrue(pRtx1.isClosed());
+        assertFalse(pRtx2.isClosed());
+        assertEquals(0, pRtx2.getRevision());
+        // the pinned transaction is kept as long as a handle is open
+        final IBucketReadTrx pRtx3 = mHolder.getSession().beginSharedBucketRtx(0);
+        assertSame(pRtx2.getMetaBucket(), pRtx3.getMetaBucket());
+        final MetaBucket pinnedMeta = pRtx3.getMetaBucket();
+        // and released with the last one, a new handle pins a new transaction
+        assertTrue(pRtx2.close());
+        assertTrue(pRtx3.close());
+        final IBucketReadTrx pRtx4 = mHolder.getSession().beginSharedBucketRtx(0);
+        assertNotSame(pinnedMeta, pRtx4.getMetaBucket());
+        // beginning transaction with invalid revision number
+        try {
+            mHolder.getSession().beginSharedBucketRtx(1);
+            fail();
+        } catch (IllegalArgumentException exc) {
+            // must be thrown
+        }
+        // closing the session releases the pinned transaction
+        assertTrue(mHolder.getSession().close());
+        assertTrue(pRtx4.isClosed());
+    }
+
+    @Test
+    public void testConcurrentSharedBucketReadTransactions() throws Exception {
+        final DumbData[][] datas = CoreTestHelper.createTestData(mHolder);
+        final List<DumbData> expected = CoreTestHelper.combineDatas(datas);
+        final long revision = mHolder.getSession().getMostRecentVersion();
+        // handles reading the same buckets concurrently, reconstructing them on the shared reader once
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final List<Future<Void>> readers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    final IBucketReadTrx rtx = mHolder.getSession().beginSharedBucketRtx(revision);
+                    for (int j = 0; j < 8; j++) {
+                        CoreTestHelper.checkStructure(expected, rtx, 0);
+                    }
+                    rtx.close();
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (final Future<Void> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Test
     public void testBeginBucketWriteTransaction() throws TTException {
         // generate first valid write transaction
@@ -0,0 +1,532 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.ISession;
+import org.treetank.data.ElementNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>ChangeSet</h1>
+ * 
+ * <p>
+ * Compact set of the nodes inserted, deleted and updated between two revisions, each one denoted by its key
+ * and kind in ascending key order.
+ * </p>
+ * 
+ * <p>
+ * The recording is enabled per resource with {@link ConstructorProps#CHANGESETS}. Each commit of a
+ * {@link NodeWriteTrx} computes the set of the committed revision out of the {@link BucketDiff} to its
+ * predecessor and stores it in the changes folder of the resource before it returns, a failing recording
+ * fails the commit. The changes between any two revisions are afterwards composed out of the stored sets
+ * without traversing either revision. Updated nodes include the ancestors of each modification whose hashes
+ * or structural references were adapted. Deleted nodes include the descendants of removed elements, which
+ * are not touched on the storage level but are no longer part of the tree.
+ * </p>
+ */
+public final class ChangeSet {
+
+    /** Kind of the change of a node. */
+    public enum EChange {
+        /** Node not existing in the old revision. */
+        INSERTED,
+        /** Node not existing in the new revision. */
+        DELETED,
+        /** Node existing in both revisions but differing. */
+        UPDATED
+    }
+
+    /** Keys of the changed nodes, in ascending order. */
+    private final long[] mKeys;
+
+    /** Kinds of the changes, denoted by the ordinals of {@link EChange}. */
+    private final byte[] mChanges;
+
+    /** Kinds of the changed nodes. */
+    private final int[] mKinds;
+
+    /**
+     * Constructor.
+     * 
+     * @param pKeys
+     *            keys of the changed nodes
+     * @param pChanges
+     *            kinds of the changes
+     * @param pKinds
+     *            kinds of the nodes
+     * @param pSize
+     *            number of valid entries within the arrays
+     */
+    private ChangeSet(final long[] pKeys, final byte[] pChanges, final int[] pKinds, final int pSize) {
+        mKeys = Arrays.copyOf(pKeys, pSize);
+        mChanges = Arrays.copyOf(pChanges, pSize);
+        mKinds = Arrays.copyOf(pKinds, pSize);
+    }
+
+    /**
+     * Getting the number of changed nodes.
+     * 
+     * @return the number of changes
+     */
+    public int size() {
+        return mKeys.length;
+    }
+
+    /**
+     * Getting the key of a changed node.
+     * 
+     * @param pIndex
+     *            index of the change
+     * @return the key of the node
+     */
+    public long getKey(final int pIndex) {
+        return mKeys[pIndex];
+    }
+
+    /**
+     * Getting the kind of a change.
+     * 
+     * @param pIndex
+     *            index of the change
+     * @return the kind of the change
+     */
+    public EChange getChange(final int pIndex) {
+        return EChange.values()[mChanges[pIndex]];
+    }
+
+    /**
+     * Getting the kind of a changed node, within the new revision if existing there.
+     * 
+     * @param pIndex
+     *            index of the change
+     * @return the kind of the node as defined in {@link org.treetank.data.IConstants}
+     */
+    public int getKind(final int pIndex) {
+        return mKinds[pIndex];
+    }
+
+    /**
+     * Getting the keys of all changed nodes existing in the old revision.
+     * 
+     * @return the keys of the deleted and updated nodes in ascending order
+     */
+    public long[] getOldKeys() {
+        return getKeys(EChange.INSERTED);
+    }
+
+    /**
+     * Getting the keys of all changed nodes existing in the new revision.
+     * 
+     * @return the keys of the inserted and updated nodes in ascending order
+     */
+    public long[] getNewKeys() {
+        return getKeys(EChange.DELETED);
+    }
+
+    /**
+     * Composing this set with the set of the subsequent revisions.
+     * 
+     * @param pNewer
+     *            changes starting at the new revision of this set
+     * @return the changes between the old revision of this set and the new revision of the given one
+     */
+    public ChangeSet compose(final ChangeSet pNewer) {
+        final int size = mKeys.length + pNewer.mKeys.length;
+        final long[] keys = new long[size];
+        final byte[] changes = new byte[size];
+        final int[] kinds = new int[size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < mKeys.length || j < pNewer.mKeys.length) {
+            if (j == pNewer.mKeys.length || (i < mKeys.length && mKeys[i] < pNewer.mKeys[j])) {
+                keys[count] = mKeys[i];
+                changes[count] = mChanges[i];
+                kinds[count++] = mKinds[i++];
+            } else if (i == mKeys.length || pNewer.mKeys[j] < mKeys[i]) {
+                keys[count] = pNewer.mKeys[j];
+                changes[count] = pNewer.mChanges[j];
+                kinds[count++] = pNewer.mKinds[j++];
+            } else {
+                final EChange older = getChange(i++);
+                final EChange newer = pNewer.getChange(j);
+                // inserted and deleted in between, not existing in both revisions
+                if (older != EChange.INSERTED || newer != EChange.DELETED) {
+                    final EChange change;
+                    if (older == EChange.INSERTED) {
+                        change = EChange.INSERTED;
+                    } else if (newer == EChange.DELETED) {
+                        change = EChange.DELETED;
+                    } else {
+                        change = EChange.UPDATED;
+                    }
+                    keys[count] = pNewer.mKeys[j];
+                    changes[count] = (byte)change.ordinal();
+                    kinds[count++] = pNewer.mKinds[j];
+                }
+                j++;
+            }
+        }
+        return new ChangeSet(keys, changes, kinds, count);
+    }
+
+    /**
+     * Getting the keys of all elements with the given kind of change in document order of the revision
+     * they exist in.
+     * 
+     * @param pTrx
+     *            transaction reading the old revision for deleted elements and the new revision otherwise
+     * @param pChange
+     *            kind of change
+     * @return the keys of the elements in document order
+     * @throws TTIOException
+     *             if reading the elements fails
+     */
+    public long[] getElements(final IBucketReadTrx pTrx, final EChange pChange) throws TTIOException {
+        final long[] keys = new long[mKeys.length];
+        int count = 0;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mChanges[i] == pChange.ordinal() && mKinds[i] == IConstants.ELEMENT) {
+                keys[count++] = mKeys[i];
+            }
+        }
+        return DocumentOrder.sort(pTrx, Arrays.copyOf(keys, count));
+    }
+
+    /**
+     * Getting the keys of all changes not of the given kind.
+     * 
+     * @param pExcluded
+     *            kind of changes to exclude
+     * @return the keys in ascending order
+     */
+    private long[] getKeys(final EChange pExcluded) {
+        final long[] keys = new long[mKeys.length];
+        int count = 0;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mChanges[i] != pExcluded.ordinal()) {
+                keys[count++] = mKeys[i];
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Getting the changes between two revisions, composed out of the stored sets of all revisions in
+     * between.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pOldRev
+     *            old revision
+     * @param pNewRev
+     *            new revision, greater than the old one
+     * @return the composed changes or null if a set in between is not recorded
+     * @throws TTIOException
+     *             if a stored set can not be read
+     */
+    public static ChangeSet get(final ISession pSession, final long pOldRev, final long pNewRev)
+        throws TTIOException {
+        ChangeSet changes = null;
+        for (long revision = pOldRev + 1; revision <= pNewRev; revision++) {
+            final ChangeSet set = get(pSession, revision);
+            if (set == null) {
+                return null;
+            }
+            changes = changes == null ? set : changes.compose(set);
+        }
+        return changes;
+    }
+
+    /**
+     * Getting the stored changes between a revision and its predecessor.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pRevision
+     *            revision to get the changes for
+     * @return the changes or null if not recorded
+     * @throws TTIOException
+     *             if the stored set can not be read
+     */
+    public static ChangeSet get(final ISession pSession, final long pRevision) throws TTIOException {
+        final File file = new File(getFolder(pSession), Long.toString(pRevision));
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final int size = in.readInt();
+            final long[] keys = new long[size];
+            final byte[] changes = new byte[size];
+            final int[] kinds = new int[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = in.readLong();
+                changes[i] = in.readByte();
+                kinds[i] = in.readInt();
+            }
+            return new ChangeSet(keys, changes, kinds, size);
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Checking if the recording of change sets is enabled for a resource.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @return true if enabled, false otherwise
+     */
+    static boolean isEnabled(final ISession pSession) {
+        return Boolean.parseBoolean(pSession.getConfig().mProperties
+            .getProperty(ConstructorProps.CHANGESETS));
+    }
+
+    /**
+     * Recording the changes of a committed revision.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pRevision
+     *            the committed revision
+     * @throws TTException
+     *             if the changes can not be computed or stored
+     */
+    static void record(final ISession pSession, final long pRevision) throws TTException {
+        store(pSession, pRevision, compute(pSession, pRevision));
+    }
+
+    /**
+     * Computing the changes between a committed revision and its predecessor.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pRevision
+     *            the committed revision
+     * @return the changes of the revision
+     * @throws TTException
+     *             if the read of the persistent storage fails
+     */
+    static ChangeSet compute(final ISession pSession, final long pRevision) throws TTException {
+        final BucketDiff diff = BucketDiff.diff(pSession, pRevision - 1, pRevision);
+        final long[] oldKeys = diff.getOldKeys();
+        final long[] newKeys = diff.getNewKeys();
+        final int size = oldKeys.length + newKeys.length;
+        final long[] keys = new long[size];
+        final byte[] changes = new byte[size];
+        final int[] kinds = new int[size];
+        int count = 0;
+
+        final INodeReadTrx oldRtx = new NodeReadTrx(pSession.beginBucketRtx(pRevision - 1));
+        final INodeReadTrx newRtx = new NodeReadTrx(pSession.beginBucketRtx(pRevision));
+        try {
+            int i = 0;
+            int j = 0;
+            while (i < oldKeys.length || j < newKeys.length) {
+                final long key;
+                boolean existed = false;
+                boolean exists = false;
+                if (j == newKeys.length || (i < oldKeys.length && oldKeys[i] < newKeys[j])) {
+                    key = oldKeys[i++];
+                    existed = oldRtx.moveTo(key);
+                } else if (i == oldKeys.length || newKeys[j] < oldKeys[i]) {
+                    key = newKeys[j++];
+                    exists = newRtx.moveTo(key);
+                } else {
+                    key = oldKeys[i++];
+                    j++;
+                    existed = oldRtx.moveTo(key);
+                    exists = newRtx.moveTo(key);
+                }
+                // deletion markers and data not being part of the tree are skipped
+                if (exists) {
+                    keys[count] = key;
+                    changes[count] = (byte)(existed ? EChange.UPDATED : EChange.INSERTED).ordinal();
+                    kinds[count++] = newRtx.getNode().getKind();
+                } else if (existed) {
+                    keys[count] = key;
+                    changes[count] = (byte)EChange.DELETED.ordinal();
+                    kinds[count++] = oldRtx.getNode().getKind();
+                }
+            }
+            return addRemovedDescendants(new ChangeSet(keys, changes, kinds, count), oldRtx);
+        } finally {
+            oldRtx.close();
+            newRtx.close();
+        }
+    }
+
+    /**
+     * Adding the descendants of all deleted elements as deleted. Removing an element only removes the
+     * element itself, its attributes and its namespaces on the storage level, the nodes below are no longer
+     * reachable.
+     * 
+     * @param pChanges
+     *            the changes found on the storage level
+     * @param pOldRtx
+     *            transaction reading the old revision
+     * @return the changes including the descendants
+     * @throws TTIOException
+     *             if the old revision can not be read
+     */
+    private static ChangeSet addRemovedDescendants(final ChangeSet pChanges, final INodeReadTrx pOldRtx)
+        throws TTIOException {
+        final Map<Long, Integer> removed = new TreeMap<Long, Integer>();
+        final Deque<Long> descendants = new ArrayDeque<Long>();
+        for (int i = 0; i < pChanges.size(); i++) {
+            if (pChanges.getChange(i) == EChange.DELETED && pChanges.getKind(i) == IConstants.ELEMENT
+                && pOldRtx.moveTo(pChanges.getKey(i))
+                && ((ITreeStructData)pOldRtx.getNode()).hasFirstChild()) {
+                descendants.push(((ITreeStructData)pOldRtx.getNode()).getFirstChildKey());
+            }
+            while (!descendants.isEmpty()) {
+                pOldRtx.moveTo(descendants.pop());
+                final ITreeStructData node = (ITreeStructData)pOldRtx.getNode();
+                removed.put(node.getDataKey(), node.getKind());
+                if (node.getKind() == IConstants.ELEMENT) {
+                    final ElementNode element = (ElementNode)node;
+                    for (int j = 0; j < element.getAttributeCount(); j++) {
+                        removed.put(element.getAttributeKey(j), IConstants.ATTRIBUTE);
+                    }
+                    for (int j = 0; j < element.getNamespaceCount(); j++) {
+                        removed.put(element.getNamespaceKey(j), IConstants.NAMESPACE);
+                    }
+                }
+                if (node.hasRightSibling()) {
+                    descendants.push(node.getRightSiblingKey());
+                }
+                if (node.hasFirstChild()) {
+                    descendants.push(node.getFirstChildKey());
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return pChanges;
+        }
+
+        // merging both in key order, a descendant changed before its removal is deleted as well
+        final int size = pChanges.size() + removed.size();
+        final long[] keys = new long[size];
+        final byte[] changes = new byte[size];
+        final int[] kinds = new int[size];
+        int count = 0;
+        int i = 0;
+        for (final Map.Entry<Long, Integer> entry : removed.entrySet()) {
+            while (i < pChanges.size() && pChanges.mKeys[i] <= entry.getKey()) {
+                if (pChanges.mKeys[i] < entry.getKey()) {
+                    keys[count] = pChanges.mKeys[i];
+                    changes[count] = pChanges.mChanges[i];
+                    kinds[count++] = pChanges.mKinds[i];
+                }
+                i++;
+            }
+            keys[count] = entry.getKey();
+            changes[count] = (byte)EChange.DELETED.ordinal();
+            kinds[count++] = entry.getValue();
+        }
+        for (; i < pChanges.size(); i++) {
+            keys[count] = pChanges.mKeys[i];
+            changes[count] = pChanges.mChanges[i];
+            kinds[count++] = pChanges.mKinds[i];
+        }
+        return new ChangeSet(keys, changes, kinds, count);
+    }
+
+    /**
+     * Storing the changes of a revision. The set is written to a temporary file first and renamed afterwards,
+     * so that readers never observe a partially written set.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @param pRevision
+     *            the revision of the changes
+     * @param pChanges
+     *            the changes to store
+     * @throws TTIOException
+     *             if the set can not be written
+     */
+    private static void store(final ISession pSession, final long pRevision, final ChangeSet pChanges)
+        throws TTIOException {
+        final File folder = getFolder(pSession);
+        final File temp = new File(folder, pRevision + ".tmp");
+        try {
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("Could not create " + folder);
+            }
+            try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(pChanges.mKeys.length);
+                for (int i = 0; i < pChanges.mKeys.length; i++) {
+                    out.writeLong(pChanges.mKeys[i]);
+                    out.writeByte(pChanges.mChanges[i]);
+                    out.writeInt(pChanges.mKinds[i]);
+                }
+            }
+            if (!temp.renameTo(new File(folder, Long.toString(pRevision)))) {
+                throw new IOException("Could not store " + temp);
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Getting the folder holding the change sets of a resource.
+     * 
+     * @param pSession
+     *            session on the resource
+     * @return the folder of the change sets
+     */
+    private static File getFolder(final ISession pSession) {
+        return new File(pSession.getConfig().mProperties.getProperty(ConstructorProps.RESOURCEPATH),
+            ResourceConfiguration.Paths.ChangeSets.getFile().getName());
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.LongHashSet;
+
+/**
+ * <h1>DocumentOrder</h1>
+ * 
+ * <p>
+ * Ordering keys of elements looked up in an index in document order. Keys are ascending in document order
+ * only as long as no element has been inserted in front of another one. If the resource maintains order
+ * labels, see {@link ConstructorProps#STRUCTINDEX}, the keys are ordered by the labels of the elements.
+ * Otherwise the elements are traversed in preorder until all of them are found.
+ * </p>
+ */
+final class DocumentOrder {
+
+    /** Comparing pairs of order label and key by their order label. */
+    private static final Comparator<long[]> LABEL_ORDER = new Comparator<long[]>() {
+        @Override
+        public int compare(final long[] pFirst, final long[] pSecond) {
+            return Long.compare(pFirst[0], pSecond[0]);
+        }
+    };
+
+    /**
+     * Utility class.
+     */
+    private DocumentOrder() {
+        // not used over here
+    }
+
+    /**
+     * Ordering keys of elements in document order.
+     * 
+     * @param pTrx
+     *            transaction reading the elements
+     * @param pKeys
+     *            the keys, ordered in place
+     * @return the keys
+     * @throws TTIOException
+     *             if reading the elements fails
+     */
+    static long[] sort(final IBucketReadTrx pTrx, final long[] pKeys) throws TTIOException {
+        if (pKeys.length < 2) {
+            return pKeys;
+        } else if (Boolean.parseBoolean(pTrx.getSession().getConfig().mProperties
+            .getProperty(ConstructorProps.STRUCTINDEX))) {
+            return sortByLabels(pTrx, pKeys);
+        } else {
+            return sortByTraversal(pTrx, pKeys);
+        }
+    }
+
+    /**
+     * Ordering keys of elements by their order labels.
+     * 
+     * @param pTrx
+     *            transaction reading the elements
+     * @param pKeys
+     *            the keys, ordered in place
+     * @return the keys
+     * @throws TTIOException
+     *             if reading the elements fails
+     */
+    private static long[] sortByLabels(final IBucketReadTrx pTrx, final long[] pKeys) throws TTIOException {
+        final long[][] entries = new long[pKeys.length][];
+        for (int i = 0; i < pKeys.length; i++) {
+            entries[i] = new long[] {
+                ((ITreeStructData)pTrx.getData(pKeys[i])).getOrderLabel(), pKeys[i]
+            };
+        }
+        Arrays.sort(entries, LABEL_ORDER);
+        for (int i = 0; i < pKeys.length; i++) {
+            pKeys[i] = entries[i][1];
+        }
+        return pKeys;
+    }
+
+    /**
+     * Ordering keys of elements by a preorder traversal of the elements, stopping once all are found.
+     * 
+     * @param pTrx
+     *            transaction reading the elements
+     * @param pKeys
+     *            the keys, ordered in place
+     * @return the keys
+     * @throws TTIOException
+     *             if reading the elements fails
+     */
+    private static long[] sortByTraversal(final IBucketReadTrx pTrx, final long[] pKeys)
+        throws TTIOException {
+        final LongHashSet wanted = new LongHashSet(pKeys.length);
+        for (final long key : pKeys) {
+            wanted.add(key);
+        }
+        final int count = wanted.size();
+        int size = 0;
+        final Deque<Long> keys = new ArrayDeque<Long>();
+        final ITreeStructData root = (ITreeStructData)pTrx.getData(ROOT_NODE);
+        if (root.hasFirstChild()) {
+            keys.push(root.getFirstChildKey());
+        }
+        while (!keys.isEmpty() && size < count) {
+            final ITreeStructData node = (ITreeStructData)pTrx.getData(keys.pop());
+            if (node.hasRightSibling()) {
+                keys.push(node.getRightSiblingKey());
+            }
+            if (node.getKind() == IConstants.ELEMENT) {
+                if (wanted.contains(node.getDataKey())) {
+                    pKeys[size++] = node.getDataKey();
+                }
+                if (node.hasFirstChild()) {
+                    keys.push(node.getFirstChildKey());
+                }
+            }
+        }
+        return Arrays.copyOf(pKeys, size);
+    }
+
+}
@@ -31,10 +31,15 @@ import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
 import static org.treetank.data.IConstants.NULL_NODE;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import javax.xml.namespace.QName;
 
 import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.IData;
 import org.treetank.api.INodeReadTrx;
+import org.treetank.axis.AxisContext;
 import org.treetank.data.ElementNode;
 import org.treetank.data.IConstants;
 import org.treetank.data.NodeMetaPageFactory;
@@ -61,6 +66,18 @@ public class NodeReadTrx implements INodeReadTrx {
     /** Strong reference to currently selected node. */
     private ITreeData mCurrentNode;
 
+    /** Context for all axes working on this transaction. */
+    private final AxisContext mAxisContext;
+
+    /** Path summary of the revision, loaded on first access, see {@link PathSummary#getSummary}. */
+    PathSummary mPathSummary;
+
+    /** Value index of the revision, looked up on first access, see {@link ValueIndex#getIndex}. */
+    ValueIndex mValueIndex;
+
+    /** Has {@link #mValueIndex} been looked up? */
+    boolean mValueIndexLoaded;
+
     /**
      * Constructor.
      * 
@@ -73,6 +90,7 @@ public class NodeReadTrx implements INodeReadTrx {
     public NodeReadTrx(final IBucketReadTrx pPageTrx) throws TTException {
         mPageReadTrx = pPageTrx;
         mCurrentNode = (org.treetank.data.interfaces.ITreeData)mPageReadTrx.getData(IConstants.ROOT_NODE);
+        mAxisContext = new AxisContext();
     }
 
     /**
@@ -87,14 +105,14 @@ public class NodeReadTrx implements INodeReadTrx {
             return false;
         } else {
             // Remember old node and fetch new one.
-            final ITreeData oldNode = mCurrentNode;
-            mCurrentNode = (org.treetank.data.interfaces.ITreeData)mPageReadTrx.getData(pNodeKey);
+            final IData newNode = mPageReadTrx.getData(pNodeKey);
 
-            if (mCurrentNode == null) {
-                mCurrentNode = oldNode;
-                return false;
-            } else {
+            // value chunks are not part of the tree and therefore not reachable by the cursor
+            if (newNode instanceof ITreeData) {
+                mCurrentNode = bindValueSource((ITreeData)newNode);
                 return true;
+            } else {
+                return false;
             }
         }
     }
@@ -141,6 +159,19 @@ public class NodeReadTrx implements INodeReadTrx {
         return returnVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final InputStream getValueStreamOfCurrentNode() {
+        checkState(!mPageReadTrx.isClosed(), "Transaction is already closed.");
+        if (mCurrentNode instanceof ITreeValData) {
+            return ((ITreeValData)mCurrentNode).getValueStream();
+        } else {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -213,6 +244,9 @@ public class NodeReadTrx implements INodeReadTrx {
      */
     protected final void setPageTransaction(final IBucketReadTrx pPageTrx) {
         mPageReadTrx = pPageTrx;
+        mPathSummary = null;
+        mValueIndex = null;
+        mValueIndexLoaded = false;
     }
 
     /**
@@ -232,7 +266,22 @@ public class NodeReadTrx implements INodeReadTrx {
      */
     protected final void setCurrentNode(final ITreeData paramCurrentNode) {
         checkState(!mPageReadTrx.isClosed(), "Transaction is already closed.");
-        mCurrentNode = paramCurrentNode;
+        mCurrentNode = bindValueSource(paramCurrentNode);
+    }
+
+    /**
+     * Viewing nodes whose values are stored in chunks through this transaction to fetch these chunks lazily.
+     * The node itself might be cached and is therefore left unchanged.
+     * 
+     * @param pNode
+     *            the node to view
+     * @return a view on the node bound to this transaction or the given node if its value is stored inline
+     */
+    private ITreeData bindValueSource(final ITreeData pNode) {
+        if (pNode instanceof ITreeValData && ((ITreeValData)pNode).getValueChunkKey() != NULL_NODE) {
+            return (ITreeData)((ITreeValData)pNode).bindValueSource(mPageReadTrx);
+        }
+        return pNode;
     }
 
     /**
@@ -244,6 +293,22 @@ public class NodeReadTrx implements INodeReadTrx {
         return mCurrentNode;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final AxisContext getAxisContext() {
+        return mAxisContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final INodeReadTrx getReadingTrx() {
+        return this;
+    }
+
     /**
      * Building QName out of uri and name. The name can have the prefix denoted
      * with ":";
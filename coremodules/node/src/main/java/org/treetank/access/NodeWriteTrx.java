@@ -34,13 +34,19 @@ import static com.google.common.base.Preconditions.checkState;
 import static org.treetank.data.IConstants.NULL_NODE;
 import static org.treetank.data.IConstants.ROOT_NODE;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.xml.namespace.QName;
 
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.api.IBucketWriteTrx;
+import org.treetank.api.IData;
+import org.treetank.api.INodeReadTrx;
 import org.treetank.api.INodeWriteTrx;
 import org.treetank.api.ISession;
+import org.treetank.axis.AxisContext;
 import org.treetank.data.AttributeNode;
 import org.treetank.data.DocumentRootNode;
 import org.treetank.data.ElementNode;
@@ -48,6 +54,7 @@ import org.treetank.data.IConstants;
 import org.treetank.data.NamespaceNode;
 import org.treetank.data.NodeMetaPageFactory;
 import org.treetank.data.TextNode;
+import org.treetank.data.ValueChunk;
 import org.treetank.data.delegates.NameNodeDelegate;
 import org.treetank.data.delegates.NodeDelegate;
 import org.treetank.data.delegates.StructNodeDelegate;
@@ -95,7 +102,20 @@ public class NodeWriteTrx implements INodeWriteTrx {
     }
 
     /** Prime for computing the hash. */
-    private static final int PRIME = 77081;
+    private static final int PRIME = IConstants.HASH_PRIME;
+
+    /**
+     * Distance between the order labels of consecutive appended nodes. Nodes inserted in between take the
+     * midpoint of their neighbours.
+     */
+    public static final long ORDER_LABEL_GAP = 1L << 20;
+
+    /** Number of nodes around a used up gap whose order labels are assigned anew at least. */
+    private static final int ORDER_LABEL_WINDOW = 8;
+
+    /** Key of the meta entry holding the next free key of the value chunk range, no name hashes to it. */
+    private static final NodeMetaPageFactory.MetaKey CHUNK_KEY = new NodeMetaPageFactory.MetaKey(
+        NamePageHash.generateHashForString("treetank valuechunks"));
 
     /** Hash kind of Structure. */
     private final HashKind mHashKind;
@@ -103,6 +123,26 @@ public class NodeWriteTrx implements INodeWriteTrx {
     /** Delegate for the read access. */
     private NodeReadTrx mDelegate;
 
+    /**
+     * Are descendant counts, levels and order labels maintained, see {@link ConstructorProps#STRUCTINDEX}?
+     */
+    private final boolean mStructIndex;
+
+    /** Is the path summary maintained, see {@link ConstructorProps#PATHSUMMARY}? */
+    private final boolean mPathIndex;
+
+    /** Path summary of the current state, null if it has to be loaded or built first. */
+    private PathSummary mPathSummary;
+
+    /** Has the path summary to be rebuilt since data was written bypassing this transaction? */
+    private boolean mPathSummaryStale;
+
+    /** Value index of the current state, null if not enabled, see {@link ConstructorProps#VALUEINDEX}. */
+    private ValueIndex mValueIndex;
+
+    /** Has the value index to be rebuilt since data was written bypassing this transaction? */
+    private boolean mValueIndexStale;
+
     /**
      * Constructor.
      * 
@@ -122,6 +162,10 @@ public class NodeWriteTrx implements INodeWriteTrx {
         mHashKind = kind;
         mDelegate = new NodeReadTrx(pPageWriteTrx);
         mSession = pSession;
+        mStructIndex =
+            Boolean.parseBoolean(pSession.getConfig().mProperties.getProperty(ConstructorProps.STRUCTINDEX));
+        mPathIndex = PathSummary.isEnabled(pSession);
+        mValueIndex = createValueIndex();
     }
 
     /**
@@ -239,14 +283,18 @@ public class NodeWriteTrx implements INodeWriteTrx {
         final int namespaceKey = insertName(pQName.getNamespaceURI());
         final NodeDelegate nodeDel = new NodeDelegate(getPtx().incrementDataKey(), elementKey, 0);
         final NameNodeDelegate nameDel = new NameNodeDelegate(nodeDel, nameKey, namespaceKey);
-        final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, value);
+        final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, new byte[0]);
 
         final AttributeNode node = new AttributeNode(nodeDel, nameDel, valDel);
+        storeValue(node, value);
         getPtx().setData(node);
 
         final ITreeData parentNode = (org.treetank.data.interfaces.ITreeData)getPtx().getData(node.getParentKey());
         ((ElementNode)parentNode).insertAttribute(node.getDataKey());
         getPtx().setData(parentNode);
+        if (maintainValueIndex()) {
+            mValueIndex.add(node, value);
+        }
 
         mDelegate.setCurrentNode(node);
         adaptForInsert(node, false);
@@ -292,6 +340,7 @@ public class NodeWriteTrx implements INodeWriteTrx {
 
         final int nameKey = insertName(buildName(mName));
         final int namespaceKey = insertName(mName.getNamespaceURI());
+        final PathSummary summary = getPathSummary();
 
         final NodeDelegate nodeDel = new NodeDelegate(getPtx().incrementDataKey(), parentKey, 0);
         final StructNodeDelegate structDel =
@@ -300,17 +349,24 @@ public class NodeWriteTrx implements INodeWriteTrx {
         final ElementNode node =
             new ElementNode(nodeDel, structDel, nameDel, new ArrayList<Long>(), new ArrayList<Long>());
         getPtx().setData(node);
+        if (summary != null) {
+            summary.add(parentKey, nameKey, node.getDataKey());
+        }
         return node;
     }
 
     private TextNode createTextNode(final long mParentKey, final long mLeftSibKey, final long rightSibKey,
         final byte[] mValue) throws TTException {
         final NodeDelegate nodeDel = new NodeDelegate(getPtx().incrementDataKey(), mParentKey, 0);
-        final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, mValue);
+        final ValNodeDelegate valDel = new ValNodeDelegate(nodeDel, new byte[0]);
         final StructNodeDelegate structDel =
             new StructNodeDelegate(nodeDel, NULL_NODE, rightSibKey, mLeftSibKey, 0);
         final TextNode node = new TextNode(nodeDel, structDel, valDel);
+        storeValue(node, mValue);
         getPtx().setData(node);
+        if (maintainValueIndex()) {
+            mValueIndex.add(node, mValue);
+        }
         return node;
     }
 
@@ -327,8 +383,16 @@ public class NodeWriteTrx implements INodeWriteTrx {
             if (node.getKind() == IConstants.ELEMENT) {
                 long currentKey = node.getDataKey();
                 ElementNode element = (ElementNode)node;
+                final PathSummary summary = getPathSummary();
+                if (summary != null) {
+                    summary.removeSubtree(currentKey);
+                }
+                if (maintainValueIndex()) {
+                    mValueIndex.removeSubtree(currentKey);
+                }
                 for (int i = 0; i < element.getAttributeCount(); i++) {
                     moveTo(element.getAttributeKey(i));
+                    removeValueChunks(mDelegate.getCurrentNode());
                     getPtx().removeData(mDelegate.getCurrentNode());
                 }
                 for (int i = 0; i < element.getNamespaceCount(); i++) {
@@ -336,6 +400,8 @@ public class NodeWriteTrx implements INodeWriteTrx {
                     getPtx().removeData(mDelegate.getCurrentNode());
                 }
                 moveTo(currentKey);
+            } else if (maintainValueIndex()) {
+                mValueIndex.remove((ITreeValData)node);
             }
             moveTo(node.getDataKey());
             adaptForRemove(node);
@@ -351,6 +417,11 @@ public class NodeWriteTrx implements INodeWriteTrx {
             }
         } else if (mDelegate.getCurrentNode().getKind() == IConstants.ATTRIBUTE) {
             final ITreeData treeData = mDelegate.getCurrentNode();
+            if (maintainValueIndex()) {
+                mValueIndex.remove((ITreeValData)treeData);
+            }
+
+            removeValueChunks(treeData);
 
             final ElementNode parentNode = (ElementNode)getPtx().getData(treeData.getParentKey());
             parentNode.removeAttribute(treeData.getDataKey());
@@ -378,10 +449,26 @@ public class NodeWriteTrx implements INodeWriteTrx {
             mDelegate.getCurrentNode());
 
         final long oldHash = mDelegate.getCurrentNode().hashCode();
+        final PathSummary summary =
+            mDelegate.getCurrentNode().getKind() == IConstants.ELEMENT ? getPathSummary() : null;
+        if (summary != null) {
+            summary.removeSubtree(mDelegate.getCurrentNode().getDataKey());
+        }
+        final boolean valueIndex =
+            maintainValueIndex() && mDelegate.getCurrentNode().getKind() != IConstants.NAMESPACE;
+        if (valueIndex) {
+            mValueIndex.removeSubtree(mDelegate.getCurrentNode().getDataKey());
+        }
 
         final ITreeNameData node = (ITreeNameData)getPtx().getData(mDelegate.getCurrentNode().getDataKey());
         node.setNameKey(insertName(buildName(paramName)));
         getPtx().setData(node);
+        if (summary != null) {
+            summary.addSubtree(node.getDataKey());
+        }
+        if (valueIndex) {
+            mValueIndex.addSubtree(node.getDataKey());
+        }
 
         mDelegate.setCurrentNode((ITreeData)node);
         adaptHashedWithUpdate(oldHash);
@@ -420,8 +507,15 @@ public class NodeWriteTrx implements INodeWriteTrx {
         final long oldHash = mDelegate.getCurrentNode().hashCode();
 
         final ITreeValData node = (ITreeValData)getPtx().getData(mDelegate.getCurrentNode().getDataKey());
-        node.setValue(TypedValue.getBytes(pValue));
+        final byte[] value = TypedValue.getBytes(pValue);
+        if (maintainValueIndex()) {
+            mValueIndex.remove(node);
+        }
+        storeValue(node, value);
         getPtx().setData(node);
+        if (maintainValueIndex()) {
+            mValueIndex.add(node, value);
+        }
 
         mDelegate.setCurrentNode((ITreeData)node);
         adaptHashedWithUpdate(oldHash);
@@ -442,6 +536,9 @@ public class NodeWriteTrx implements INodeWriteTrx {
         getPtx().close();
         // Reset internal transaction state to new uber page.
         mDelegate.setPageTransaction(mSession.beginBucketWtx(pRevision));
+        mPathSummary = null;
+        mPathSummaryStale = false;
+        mValueIndex = createValueIndex();
         moveTo(ROOT_NODE);
 
     }
@@ -452,8 +549,17 @@ public class NodeWriteTrx implements INodeWriteTrx {
     @Override
     public void commit() throws TTException {
         checkState(!mDelegate.isClosed(), "Transaction is already closed.");
+        final long revision = getPtx().getRevision();
+        final PathSummary summary = getPathSummary();
+        if (summary != null) {
+            summary.persist(getPtx());
+        }
+        getValueIndex();
         // ICommitStrategy uber page.
         getPtx().commit();
+        if (ChangeSet.isEnabled(mSession)) {
+            ChangeSet.record(mSession, revision);
+        }
     }
 
     /**
@@ -469,6 +575,9 @@ public class NodeWriteTrx implements INodeWriteTrx {
 
         // Reset internal transaction state to last committed uber page.
         mDelegate.setPageTransaction(mSession.beginBucketWtx(revisionToSet));
+        mPathSummary = null;
+        mPathSummaryStale = false;
+        mValueIndex = createValueIndex();
     }
 
     /**
@@ -493,7 +602,7 @@ public class NodeWriteTrx implements INodeWriteTrx {
         final int nameKey = NamePageHash.generateHashForString(string);
         NodeMetaPageFactory.MetaKey key = new NodeMetaPageFactory.MetaKey(nameKey);
         NodeMetaPageFactory.MetaValue value = new NodeMetaPageFactory.MetaValue(string);
-        getPageWtx().getMetaBucket().put(key, value);
+        getPtx().getMetaBucket().put(key, value);
         return nameKey;
     }
 
@@ -535,8 +644,176 @@ public class NodeWriteTrx implements INodeWriteTrx {
                 leftSiblingNode.setRightSiblingKey(paramNewNode.getDataKey());
                 getPtx().setData(leftSiblingNode);
             }
+
+            if (mStructIndex) {
+                strucNode.setLevel(parent.getLevel() + 1);
+                getPtx().setData(strucNode);
+                adaptDescendantCount(paramNewNode.getParentKey(), 1);
+                adaptOrderLabel(strucNode);
+            }
+        }
+
+    }
+
+    /**
+     * Assigning an order label to a new node lying between the labels of the preceding and the following
+     * node in document order. If there is no gap left, the nodes around the new one are labelled anew.
+     * 
+     * @param pNewNode
+     *            the new node, already linked with its parent and siblings
+     * @throws TTException
+     *             if anything weird happens
+     */
+    private void adaptOrderLabel(final ITreeStructData pNewNode) throws TTException {
+        final long lower = getPrecedingNode(pNewNode).getOrderLabel();
+        final ITreeStructData following = getFollowingNode(pNewNode);
+
+        final boolean gap;
+        final long label;
+        if (following != null) {
+            final long upper = following.getOrderLabel();
+            gap = upper - lower > 1;
+            label = lower + (upper - lower) / 2;
+        } else {
+            gap = lower <= Long.MAX_VALUE - ORDER_LABEL_GAP;
+            label = lower + ORDER_LABEL_GAP;
         }
 
+        if (gap) {
+            pNewNode.setOrderLabel(label);
+            getPtx().setData(pNewNode);
+        } else {
+            relabel(pNewNode);
+        }
+    }
+
+    /**
+     * Assigning the order labels of the nodes around a new node anew, spreading them evenly between the
+     * labels of the nodes enclosing them. The window starts with {@link #ORDER_LABEL_WINDOW} nodes and is
+     * doubled until the distance of its labels is at least its size, so that only the densely labelled part
+     * of the document is touched and a widened window leaves enough space for further inserts. The document
+     * root keeps its label.
+     * 
+     * @param pNewNode
+     *            the new node without a free label
+     * @throws TTException
+     *             if anything weird happens
+     */
+    private void relabel(final ITreeStructData pNewNode) throws TTException {
+        ITreeStructData first = pNewNode;
+        ITreeStructData last = pNewNode;
+        long count = 1;
+        for (long size = ORDER_LABEL_WINDOW;; size <<= 1) {
+            // widening the window to both sides, the document root is never part of it
+            boolean widened = false;
+            boolean moved = true;
+            while (count < size && moved) {
+                moved = false;
+                final ITreeStructData before = getPrecedingNode(first);
+                if (before.hasParent()) {
+                    first = before;
+                    count++;
+                    moved = true;
+                }
+                final ITreeStructData after = getFollowingNode(last);
+                if (after != null && count < size) {
+                    last = after;
+                    count++;
+                    moved = true;
+                }
+                widened |= moved;
+            }
+
+            final long lower = getPrecedingNode(first).getOrderLabel();
+            final ITreeStructData following = getFollowingNode(last);
+            final long distance;
+            if (following != null) {
+                distance = (following.getOrderLabel() - lower) / (count + 1);
+            } else {
+                distance = Math.min(ORDER_LABEL_GAP, (Long.MAX_VALUE - lower) / count);
+            }
+
+            if (distance >= size || (!widened && distance > 0)) {
+                ITreeStructData node = first;
+                for (long i = 1; i <= count; i++) {
+                    node.setOrderLabel(lower + i * distance);
+                    getPtx().setData(node);
+                    if (node.getDataKey() == pNewNode.getDataKey()) {
+                        pNewNode.setOrderLabel(node.getOrderLabel());
+                    }
+                    node = getFollowingNode(node);
+                }
+                return;
+            }
+            checkState(widened, "No order labels left.");
+        }
+    }
+
+    /**
+     * Getting the node preceding a structural node in document order: the last node within the subtree of
+     * the left sibling or the parent.
+     * 
+     * @param pNode
+     *            the node, not the document root
+     * @return the preceding node
+     * @throws TTIOException
+     *             if anything weird happens
+     */
+    private ITreeStructData getPrecedingNode(final ITreeStructData pNode) throws TTIOException {
+        ITreeStructData node;
+        if (pNode.hasLeftSibling()) {
+            node = (ITreeStructData)getPtx().getData(pNode.getLeftSiblingKey());
+            while (node.hasFirstChild()) {
+                node = (ITreeStructData)getPtx().getData(node.getFirstChildKey());
+                while (node.hasRightSibling()) {
+                    node = (ITreeStructData)getPtx().getData(node.getRightSiblingKey());
+                }
+            }
+        } else {
+            node = (ITreeStructData)getPtx().getData(pNode.getParentKey());
+        }
+        return node;
+    }
+
+    /**
+     * Getting the node following a structural node in document order: the first child or the right sibling
+     * of the node or of its nearest ancestor having one.
+     * 
+     * @param pNode
+     *            the node
+     * @return the following node, null if the node is the last one
+     * @throws TTIOException
+     *             if anything weird happens
+     */
+    private ITreeStructData getFollowingNode(final ITreeStructData pNode) throws TTIOException {
+        if (pNode.hasFirstChild()) {
+            return (ITreeStructData)getPtx().getData(pNode.getFirstChildKey());
+        }
+        ITreeStructData node = pNode;
+        while (!node.hasRightSibling() && node.hasParent()) {
+            node = (ITreeStructData)getPtx().getData(node.getParentKey());
+        }
+        return node.hasRightSibling() ? (ITreeStructData)getPtx().getData(node.getRightSiblingKey()) : null;
+    }
+
+    /**
+     * Adapting the descendant count of all nodes on the ancestor axis, starting with the given node.
+     * 
+     * @param pStartKey
+     *            key of the first node to adapt
+     * @param pDelta
+     *            number of descendants added (positive) or removed (negative)
+     * @throws TTException
+     *             if anything weird happens
+     */
+    private void adaptDescendantCount(final long pStartKey, final long pDelta) throws TTException {
+        long key = pStartKey;
+        while (key != NULL_NODE) {
+            final ITreeStructData ancestor = (ITreeStructData)getPtx().getData(key);
+            ancestor.setDescendantCount(ancestor.getDescendantCount() + pDelta);
+            getPtx().setData(ancestor);
+            key = ancestor.getParentKey();
+        }
     }
 
     // ////////////////////////////////////////////////////////////
@@ -580,10 +857,15 @@ public class NodeWriteTrx implements INodeWriteTrx {
         parent.decrementChildCount();
         getPtx().setData(parent);
 
+        if (mStructIndex) {
+            adaptDescendantCount(pOldNode.getParentKey(), -(pOldNode.getDescendantCount() + 1));
+        }
+
         if (pOldNode.getKind() == IConstants.ELEMENT) {
             // removing attributes
             for (int i = 0; i < ((ElementNode)pOldNode).getAttributeCount(); i++) {
                 moveTo(((ElementNode)pOldNode).getAttributeKey(i));
+                removeValueChunks(mDelegate.getCurrentNode());
                 getPtx().removeData(mDelegate.getCurrentNode());
             }
             // removing namespaces
@@ -595,9 +877,101 @@ public class NodeWriteTrx implements INodeWriteTrx {
         }
 
         // Remove old node.
+        removeValueChunks(pOldNode);
         getPtx().removeData(pOldNode);
     }
 
+    // ////////////////////////////////////////////////////////////
+    // value storage
+    // ////////////////////////////////////////////////////////////
+
+    /**
+     * Setting the value of a node. Values longer than {@link IConstants#VALUE_INLINE_LIMIT} are split into
+     * chained {@link ValueChunk}s with consecutive keys, the node only references the first chunk. Chunks of
+     * a former value of the node are removed.
+     * 
+     * @param pNode
+     *            the node to set the value to
+     * @param pValue
+     *            the value to be set
+     * @throws TTException
+     *             if anything weird happens
+     */
+    private void storeValue(final ITreeValData pNode, final byte[] pValue) throws TTException {
+        removeValueChunks(pNode);
+        if (pValue.length > IConstants.VALUE_INLINE_LIMIT) {
+            storeValueChunks(getPtx(), pNode, pValue);
+        } else {
+            pNode.setValue(pValue);
+        }
+    }
+
+    /**
+     * Storing a value in chained {@link ValueChunk}s and referencing them from the node. The chunks are
+     * allocated from their own key range starting at {@link IConstants#VALUE_CHUNK_KEYS} so that they fill
+     * data buckets of their own instead of sharing them with nodes. The next free key is kept in the meta
+     * bucket and thereby versioned with the revision. Also used by shredders encoding nodes themselves.
+     * 
+     * @param pWtx
+     *            bucket transaction to store the chunks with
+     * @param pNode
+     *            the node to reference the chunks from, stored by the caller
+     * @param pValue
+     *            the value
+     * @throws TTException
+     *             if the chunks could not be stored
+     */
+    public static void storeValueChunks(final IBucketWriteTrx pWtx, final ITreeValData pNode,
+        final byte[] pValue) throws TTException {
+        final int chunks = (pValue.length + IConstants.VALUE_CHUNK_SIZE - 1) / IConstants.VALUE_CHUNK_SIZE;
+        final long firstKey = reserveKeys(pWtx, chunks);
+        for (int i = 0; i < chunks; i++) {
+            final int from = i * IConstants.VALUE_CHUNK_SIZE;
+            final int to = Math.min(from + IConstants.VALUE_CHUNK_SIZE, pValue.length);
+            final long nextKey = i + 1 < chunks ? firstKey + i + 1 : NULL_NODE;
+            pWtx.setData(new ValueChunk(firstKey + i, nextKey, Arrays.copyOfRange(pValue, from, to)));
+        }
+        pNode.setValueChunks(firstKey, pValue.length, IConstants.HF.hashBytes(pValue).asInt());
+    }
+
+    /**
+     * Reserving consecutive keys from the range of the value chunks and index data starting at
+     * {@link IConstants#VALUE_CHUNK_KEYS}. The next free key is kept in the meta bucket.
+     * 
+     * @param pWtx
+     *            bucket transaction to reserve the keys with
+     * @param pCount
+     *            number of keys
+     * @return the first reserved key
+     */
+    static long reserveKeys(final IBucketWriteTrx pWtx, final int pCount) {
+        final NodeMetaPageFactory.MetaValue next =
+            (NodeMetaPageFactory.MetaValue)pWtx.getMetaBucket().get(CHUNK_KEY);
+        final long firstKey = next == null ? IConstants.VALUE_CHUNK_KEYS : Long.parseLong(next.getData());
+        pWtx.getMetaBucket().put(CHUNK_KEY,
+            new NodeMetaPageFactory.MetaValue(Long.toString(firstKey + pCount)));
+        return firstKey;
+    }
+
+    /**
+     * Removing all chunks of the value of the given node, if any.
+     * 
+     * @param pNode
+     *            node whose chunks should be removed
+     * @throws TTException
+     *             if anything weird happens
+     */
+    private void removeValueChunks(final IData pNode) throws TTException {
+        if (pNode instanceof ITreeValData) {
+            long chunkKey = ((ITreeValData)pNode).getValueChunkKey();
+            while (chunkKey != NULL_NODE) {
+                final ValueChunk chunk = (ValueChunk)getPtx().getData(chunkKey);
+                getPtx().removeData(chunk);
+                chunkKey = chunk.getNextKey();
+            }
+        }
+    }
+
     // ////////////////////////////////////////////////////////////
     // end of remove operation
     // ////////////////////////////////////////////////////////////
@@ -787,8 +1161,9 @@ public class NodeWriteTrx implements INodeWriteTrx {
             synchronized (mDelegate.getCurrentNode()) {
                 getPtx().getData(mDelegate.getCurrentNode().getDataKey());
                 if (mDelegate.getCurrentNode().getDataKey() == startNode.getDataKey()) {
-                    // the begin node is always null
-                    newHash = 0;
+                    // the begin node is always null and already removed, writing it would restore it
+                    hashToAdd = 0;
+                    continue;
                 } else if (mDelegate.getCurrentNode().getDataKey() == startNode.getParentKey()) {
                     // the parent node is just removed
                     newHash = mDelegate.getCurrentNode().getHash() - (hashToRemove * PRIME);
@@ -880,6 +1255,14 @@ public class NodeWriteTrx implements INodeWriteTrx {
         return mDelegate.getValueOfCurrentNode();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStreamOfCurrentNode() {
+        return mDelegate.getValueStreamOfCurrentNode();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -912,6 +1295,22 @@ public class NodeWriteTrx implements INodeWriteTrx {
         return mDelegate.getNode();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AxisContext getAxisContext() {
+        return mDelegate.getAxisContext();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public INodeReadTrx getReadingTrx() {
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -925,9 +1324,86 @@ public class NodeWriteTrx implements INodeWriteTrx {
      */
     @Override
     public IBucketWriteTrx getPageWtx() throws TTException {
+        // data might be written bypassing this transaction, the path summary is rebuilt on next access and
+        // the value index on commit or on next access
+        mPathSummary = null;
+        mPathSummaryStale = mPathIndex;
+        mValueIndexStale = mValueIndex != null;
         return getPtx();
     }
 
+    /**
+     * Getting the value index of the current state, rebuilding it if data was written bypassing this
+     * transaction.
+     * 
+     * @return the value index, null if it is not enabled, see {@link ConstructorProps#VALUEINDEX}
+     * @throws TTException
+     *             if rebuilding the index fails
+     */
+    ValueIndex getValueIndex() throws TTException {
+        if (mValueIndexStale) {
+            mValueIndex.rebuild();
+            mValueIndexStale = false;
+        }
+        return mValueIndex;
+    }
+
+    /**
+     * Getting the configured paths of the value index without rebuilding it.
+     * 
+     * @return the paths, null if it is not enabled, see {@link ConstructorProps#VALUEINDEX}
+     */
+    String getValueIndexPaths() {
+        return mValueIndex == null ? null : mValueIndex.getConfiguredPaths();
+    }
+
+    /**
+     * Checking if modifications have to be applied to the value index. While the index is stale, it is
+     * rebuilt as a whole later on.
+     * 
+     * @return true if the value index is enabled and not stale
+     */
+    private boolean maintainValueIndex() {
+        return mValueIndex != null && !mValueIndexStale;
+    }
+
+    /**
+     * Creating the value index bound to the current bucket transaction.
+     * 
+     * @return the value index, null if it is not enabled
+     */
+    private ValueIndex createValueIndex() {
+        final String paths = ValueIndex.getPaths(getPtx());
+        mValueIndexStale = false;
+        return paths == null ? null : new ValueIndex(getPtx(), paths);
+    }
+
+    /**
+     * Getting the path summary of the current state, loading the one stored with the last revision or
+     * building it if there is none or data was written bypassing this transaction.
+     * 
+     * @return the path summary, null if it is not enabled, see {@link ConstructorProps#PATHSUMMARY}
+     * @throws TTIOException
+     *             if building the summary fails
+     */
+    PathSummary getPathSummary() throws TTIOException {
+        if (mPathIndex && mPathSummary == null) {
+            final PathSummary summary = mPathSummaryStale ? null : PathSummary.load(getPtx());
+            mPathSummary = summary == null ? PathSummary.build(getPtx()) : summary;
+            mPathSummaryStale = false;
+        }
+        return mPathSummary;
+    }
+
+    /**
+     * Checking if the path summary is maintained.
+     * 
+     * @return true if it is enabled, see {@link ConstructorProps#PATHSUMMARY}
+     */
+    boolean isPathSummaryEnabled() {
+        return mPathIndex;
+    }
+
     /**
      * Building name consisting out of prefix and name. NamespaceUri is not used
      * over here.
@@ -954,7 +1430,7 @@ public class NodeWriteTrx implements INodeWriteTrx {
      */
     @Override
     public String toString() {
-        return toStringHelper(this).add("mSession", mSession).add("mHashKind", mHashKind).add("mDelegate",
-            mDelegate).toString();
+        return toStringHelper(this).add("mSession", mSession).add("mHashKind", mHashKind).add("mStructIndex",
+            mStructIndex).add("mDelegate", mDelegate).toString();
     }
 }
@@ -0,0 +1,939 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import static org.treetank.data.IConstants.NULL_NODE;
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.IBucketWriteTrx;
+import org.treetank.api.IData;
+import org.treetank.api.IMetaEntry;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.ISession;
+import org.treetank.data.IConstants;
+import org.treetank.data.NodeMetaPageFactory;
+import org.treetank.data.PathSummaryKeys;
+import org.treetank.data.PathSummaryPath;
+import org.treetank.data.interfaces.ITreeData;
+import org.treetank.data.interfaces.ITreeNameData;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.NamePageHash;
+
+/**
+ * <h1>PathSummary</h1>
+ * 
+ * <p>
+ * Summary of all distinct root-to-element label paths of one revision (a dataguide). Each path holds the
+ * keys of the elements reachable over it, so a location path consisting of child and descendant name tests
+ * is answered by a walk over the paths instead of the whole tree.
+ * </p>
+ * 
+ * <p>
+ * The summary is enabled per resource with {@link ConstructorProps#PATHSUMMARY}. The {@link NodeWriteTrx}
+ * maintains it with every structural change and stores the changed paths as {@link PathSummaryPath}s with
+ * each commit, the key of the root path is kept in the meta bucket. A reading transaction loads the paths of
+ * its revision on demand. A revision without stored paths is summarized by one traversal on first access.
+ * </p>
+ * 
+ * <p>
+ * The keys of a path are kept in ascending order and stored in {@link PathSummaryKeys} chunks of disjoint
+ * key ranges, so a change only rewrites the chunk holding the changed key. As long as no element has been
+ * inserted in front of another one, ascending order is document order as well. Otherwise the keys are
+ * brought in document order by {@link DocumentOrder}.
+ * </p>
+ */
+public final class PathSummary {
+
+    /** Number of resolved element keys cached while maintaining the summary. */
+    private static final int MAX_CACHED = 1024;
+
+    /** Maximal number of element keys per stored {@link PathSummaryKeys} chunk. */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** Empty key array. */
+    private static final long[] EMPTY = new long[0];
+
+    /** Key of the meta entry referencing the root path, no valid name or uri hashes to it. */
+    private static final NodeMetaPageFactory.MetaKey ROOT_KEY = new NodeMetaPageFactory.MetaKey(NamePageHash
+        .generateHashForString("treetank pathsummary"));
+
+    /** Key of the meta entry telling if the keys ascend in document order, no valid name hashes to it. */
+    private static final NodeMetaPageFactory.MetaKey ORDER_KEY = new NodeMetaPageFactory.MetaKey(NamePageHash
+        .generateHashForString("treetank pathsummary order"));
+
+    /** Transaction reading the paths and elements. */
+    private final IBucketReadTrx mTrx;
+
+    /** Path of the document root. */
+    private final Path mRoot;
+
+    /** Paths of recently resolved element keys. */
+    private final Map<Long, Path> mResolved;
+
+    /** Do the keys of the elements ascend in document order? */
+    private boolean mKeyOrder;
+
+    /**
+     * Constructor.
+     * 
+     * @param pTrx
+     *            transaction reading the paths and elements
+     * @param pRootKey
+     *            key of the stored root path, {@link IConstants#NULL_NODE} for a new summary
+     * @param pKeyOrder
+     *            do the keys of the elements ascend in document order?
+     */
+    private PathSummary(final IBucketReadTrx pTrx, final long pRootKey, final boolean pKeyOrder) {
+        mTrx = pTrx;
+        mRoot = new Path(0, pRootKey);
+        mKeyOrder = pKeyOrder;
+        mResolved = new LinkedHashMap<Long, Path>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Entry<Long, Path> pEldest) {
+                return size() > MAX_CACHED;
+            }
+        };
+    }
+
+    /**
+     * Getting the summary for the state a transaction is reading.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return the summary, null if the resource has no path summary enabled
+     * @throws TTIOException
+     *             if the summary has to be built and reading fails
+     */
+    public static PathSummary getSummary(final INodeReadTrx pRtx) throws TTIOException {
+        final INodeReadTrx rtx = pRtx.getReadingTrx();
+        if (rtx instanceof NodeWriteTrx) {
+            return ((NodeWriteTrx)rtx).getPathSummary();
+        } else if (isAvailable(rtx)) {
+            final NodeReadTrx reader = (NodeReadTrx)rtx;
+            if (reader.mPathSummary == null) {
+                final PathSummary summary = load(reader.mPageReadTrx);
+                reader.mPathSummary = summary == null ? build(reader.mPageReadTrx) : summary;
+            }
+            return reader.mPathSummary;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Checking if a summary is available for the state a transaction is reading, without building it.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return true if {@link #getSummary(INodeReadTrx)} returns a summary
+     */
+    public static boolean isAvailable(final INodeReadTrx pRtx) {
+        final INodeReadTrx rtx = pRtx.getReadingTrx();
+        if (rtx instanceof NodeWriteTrx) {
+            return ((NodeWriteTrx)rtx).isPathSummaryEnabled();
+        } else if (rtx instanceof NodeReadTrx) {
+            final IBucketReadTrx trx = ((NodeReadTrx)rtx).mPageReadTrx;
+            return !(trx instanceof IBucketWriteTrx) && isEnabled(trx.getSession());
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Checking if the path summary is enabled for the resource of a session.
+     * 
+     * @param pSession
+     *            the session
+     * @return true if the summary is maintained, see {@link ConstructorProps#PATHSUMMARY}
+     */
+    static boolean isEnabled(final ISession pSession) {
+        return Boolean.parseBoolean(pSession.getConfig().mProperties
+            .getProperty(ConstructorProps.PATHSUMMARY));
+    }
+
+    /**
+     * Loading the summary stored with a revision. The paths are read on demand.
+     * 
+     * @param pTrx
+     *            transaction reading the revision
+     * @return the summary, null if none is stored with the revision
+     */
+    static PathSummary load(final IBucketReadTrx pTrx) {
+        final IMetaEntry root = pTrx.getMetaBucket().get(ROOT_KEY);
+        if (root == null) {
+            return null;
+        }
+        final IMetaEntry order = pTrx.getMetaBucket().get(ORDER_KEY);
+        return new PathSummary(pTrx, Long.parseLong(((NodeMetaPageFactory.MetaValue)root).getData()),
+            Boolean.parseBoolean(((NodeMetaPageFactory.MetaValue)order).getData()));
+    }
+
+    /**
+     * Building the summary of a revision by one preorder traversal. Paths stored with the revision are
+     * reused and rewritten when the summary is persisted.
+     * 
+     * @param pTrx
+     *            transaction reading the revision
+     * @return the summary
+     * @throws TTIOException
+     *             if reading fails
+     */
+    static PathSummary build(final IBucketReadTrx pTrx) throws TTIOException {
+        PathSummary summary = load(pTrx);
+        if (summary == null) {
+            summary = new PathSummary(pTrx, NULL_NODE, true);
+        } else {
+            summary.mRoot.clear();
+            summary.mKeyOrder = true;
+        }
+        final IData root = pTrx.getData(ROOT_NODE);
+        if (root instanceof ITreeStructData && ((ITreeStructData)root).hasFirstChild()) {
+            final Deque<Long> keys = new ArrayDeque<Long>();
+            final Deque<Path> paths = new ArrayDeque<Path>();
+            keys.push(((ITreeStructData)root).getFirstChildKey());
+            paths.push(summary.mRoot);
+            long lastKey = ROOT_NODE;
+            while (!keys.isEmpty()) {
+                final ITreeStructData node = (ITreeStructData)pTrx.getData(keys.pop());
+                final Path parent = paths.pop();
+                if (node.hasRightSibling()) {
+                    keys.push(node.getRightSiblingKey());
+                    paths.push(parent);
+                }
+                if (node.getKind() == IConstants.ELEMENT) {
+                    if (node.getDataKey() < lastKey) {
+                        summary.mKeyOrder = false;
+                    }
+                    lastKey = node.getDataKey();
+                    final Path path = parent.getChild(((ITreeNameData)node).getNameKey(), true);
+                    path.append(node.getDataKey());
+                    if (node.hasFirstChild()) {
+                        keys.push(node.getFirstChildKey());
+                        paths.push(path);
+                    }
+                }
+            }
+            summary.mRoot.sort();
+        }
+        return summary;
+    }
+
+    /**
+     * Storing all changed paths with the revision written by a transaction.
+     * 
+     * @param pWtx
+     *            transaction writing the revision, the one this summary reads with
+     * @throws TTException
+     *             if writing fails
+     */
+    void persist(final IBucketWriteTrx pWtx) throws TTException {
+        mRoot.persist(pWtx);
+        final String rootKey = Long.toString(mRoot.mRecordKey);
+        final IMetaEntry root = pWtx.getMetaBucket().get(ROOT_KEY);
+        if (root == null || !rootKey.equals(((NodeMetaPageFactory.MetaValue)root).getData())) {
+            pWtx.getMetaBucket().put(ROOT_KEY, new NodeMetaPageFactory.MetaValue(rootKey));
+        }
+        final String keyOrder = Boolean.toString(mKeyOrder);
+        final IMetaEntry order = pWtx.getMetaBucket().get(ORDER_KEY);
+        if (order == null || !keyOrder.equals(((NodeMetaPageFactory.MetaValue)order).getData())) {
+            pWtx.getMetaBucket().put(ORDER_KEY, new NodeMetaPageFactory.MetaValue(keyOrder));
+        }
+    }
+
+    /**
+     * Adding a new element.
+     * 
+     * @param pParentKey
+     *            key of the parent of the element
+     * @param pNameKey
+     *            name key of the element
+     * @param pKey
+     *            key of the element
+     * @throws TTIOException
+     *             if reading the ancestors fails
+     */
+    void add(final long pParentKey, final int pNameKey, final long pKey) throws TTIOException {
+        final Path path = resolve(pParentKey).getChild(pNameKey, true);
+        path.insert(pKey);
+        mResolved.put(pKey, path);
+        if (mKeyOrder && isFollowed(pKey)) {
+            mKeyOrder = false;
+        }
+    }
+
+    /**
+     * Adding all elements of a subtree.
+     * 
+     * @param pKey
+     *            key of the root of the subtree
+     * @throws TTIOException
+     *             if reading fails
+     */
+    void addSubtree(final long pKey) throws TTIOException {
+        mResolved.clear();
+        walk(pKey, resolve(pKey), true);
+        if (mKeyOrder && isFollowed(pKey)) {
+            mKeyOrder = false;
+        }
+    }
+
+    /**
+     * Removing all elements of a subtree.
+     * 
+     * @param pKey
+     *            key of the root of the subtree
+     * @throws TTIOException
+     *             if reading fails
+     */
+    void removeSubtree(final long pKey) throws TTIOException {
+        final Path path = resolve(pKey);
+        mResolved.clear();
+        walk(pKey, path, false);
+    }
+
+    /**
+     * Getting the keys of all elements reached by a location path of name tests starting at the document
+     * root.
+     * 
+     * @param pNameKeys
+     *            name keys of the steps
+     * @param pDescendant
+     *            for each step, true if it is a descendant step, false if it is a child step
+     * @return the keys in document order
+     * @throws TTIOException
+     *             if reading the paths or elements fails
+     */
+    public long[] getKeys(final int[] pNameKeys, final boolean[] pDescendant) throws TTIOException {
+        Collection<Path> current = Collections.singleton(mRoot);
+        for (int i = 0; i < pNameKeys.length && !current.isEmpty(); i++) {
+            final Collection<Path> next = new LinkedHashSet<Path>();
+            for (final Path path : current) {
+                if (pDescendant[i]) {
+                    path.collect(pNameKeys[i], next);
+                } else {
+                    final Path child = path.getChild(pNameKeys[i], false);
+                    if (child != null) {
+                        next.add(child);
+                    }
+                }
+            }
+            current = next;
+        }
+
+        int size = 0;
+        for (final Path path : current) {
+            size += path.size();
+        }
+        final long[] keys = new long[size];
+        int offset = 0;
+        for (final Path path : current) {
+            offset = path.copyKeys(keys, offset);
+        }
+        if (mKeyOrder) {
+            if (current.size() > 1) {
+                Arrays.sort(keys);
+            }
+            return keys;
+        } else {
+            return DocumentOrder.sort(mTrx, keys);
+        }
+    }
+
+    /**
+     * Checking if an element or one of its ancestors is followed by an element sibling, i.e. if an element
+     * follows it in document order.
+     * 
+     * @param pKey
+     *            key of the element
+     * @return true if an element follows
+     * @throws TTIOException
+     *             if reading fails
+     */
+    private boolean isFollowed(final long pKey) throws TTIOException {
+        ITreeStructData node = (ITreeStructData)mTrx.getData(pKey);
+        while (node.getKind() != IConstants.ROOT) {
+            long siblingKey = node.hasRightSibling() ? node.getRightSiblingKey() : NULL_NODE;
+            while (siblingKey != NULL_NODE) {
+                final ITreeStructData sibling = (ITreeStructData)mTrx.getData(siblingKey);
+                if (sibling.getKind() == IConstants.ELEMENT) {
+                    return true;
+                }
+                siblingKey = sibling.hasRightSibling() ? sibling.getRightSiblingKey() : NULL_NODE;
+            }
+            node = (ITreeStructData)mTrx.getData(node.getParentKey());
+        }
+        return false;
+    }
+
+    /**
+     * Resolving the path of an element or the document root.
+     * 
+     * @param pKey
+     *            key of the element
+     * @return the path
+     * @throws TTIOException
+     *             if reading the ancestors fails
+     */
+    private Path resolve(final long pKey) throws TTIOException {
+        Path path = mResolved.get(pKey);
+        if (path == null) {
+            final ITreeData node = (ITreeData)mTrx.getData(pKey);
+            if (node.getKind() == IConstants.ROOT) {
+                return mRoot;
+            }
+            path = resolve(node.getParentKey()).getChild(((ITreeNameData)node).getNameKey(), true);
+            mResolved.put(pKey, path);
+        }
+        return path;
+    }
+
+    /**
+     * Adding or removing the elements of a subtree.
+     * 
+     * @param pKey
+     *            key of the root of the subtree
+     * @param pPath
+     *            path of the root of the subtree
+     * @param pAdd
+     *            true if the elements are added, false if they are removed
+     * @throws TTIOException
+     *             if reading fails
+     */
+    private void walk(final long pKey, final Path pPath, final boolean pAdd) throws TTIOException {
+        final Deque<Long> keys = new ArrayDeque<Long>();
+        final Deque<Path> paths = new ArrayDeque<Path>();
+        keys.push(pKey);
+        paths.push(pPath);
+        while (!keys.isEmpty()) {
+            final long key = keys.pop();
+            final Path path = paths.pop();
+            final ITreeStructData node = (ITreeStructData)mTrx.getData(key);
+            if (pAdd) {
+                path.insert(key);
+            } else {
+                path.delete(key);
+            }
+            long childKey = node.hasFirstChild() ? node.getFirstChildKey() : NULL_NODE;
+            while (childKey != NULL_NODE) {
+                final ITreeStructData child = (ITreeStructData)mTrx.getData(childKey);
+                if (child.getKind() == IConstants.ELEMENT) {
+                    keys.push(childKey);
+                    paths.push(path.getChild(((ITreeNameData)child).getNameKey(), true));
+                }
+                childKey = child.hasRightSibling() ? child.getRightSiblingKey() : NULL_NODE;
+            }
+        }
+    }
+
+    /**
+     * One distinct label path, identified by the name key of its last step below its parent. A stored path
+     * is read on first access, a changed one is stored again with the next commit. The keys of the elements
+     * are split into {@link KeyChunk}s of disjoint key ranges, which are read and stored on their own.
+     */
+    private final class Path {
+
+        /** Name key of the last step, 0 for the document root. */
+        private final int mNameKey;
+
+        /** Key of the stored path, {@link IConstants#NULL_NODE} if not stored yet. */
+        private long mRecordKey;
+
+        /** Paths extending this one by one step, null until the stored path is read. */
+        private Map<Integer, Path> mChildren;
+
+        /** Chunks of the keys of the elements on this path in ascending key ranges, never empty ones. */
+        private List<KeyChunk> mChunks;
+
+        /** Keys of stored chunks that became empty, to be removed with the next commit. */
+        private final List<Long> mRemoved;
+
+        /** Have the children or chunks of this path changed since it was stored? */
+        private boolean mDirty;
+
+        /**
+         * Constructor.
+         * 
+         * @param pNameKey
+         *            name key of the last step
+         * @param pRecordKey
+         *            key of the stored path, {@link IConstants#NULL_NODE} for a new path
+         */
+        Path(final int pNameKey, final long pRecordKey) {
+            mNameKey = pNameKey;
+            mRecordKey = pRecordKey;
+            mRemoved = new ArrayList<Long>();
+            if (pRecordKey == NULL_NODE) {
+                mChildren = new LinkedHashMap<Integer, Path>();
+                mChunks = new ArrayList<KeyChunk>();
+                mDirty = true;
+            }
+        }
+
+        /**
+         * Reading the stored path if not done yet. The chunks are read on demand.
+         * 
+         * @throws TTIOException
+         *             if reading fails
+         */
+        void load() throws TTIOException {
+            if (mChildren == null) {
+                final PathSummaryPath record = (PathSummaryPath)mTrx.getData(mRecordKey);
+                mChildren = new LinkedHashMap<Integer, Path>();
+                final int[] names = record.getChildNames();
+                final long[] keys = record.getChildKeys();
+                for (int i = 0; i < names.length; i++) {
+                    mChildren.put(names[i], new Path(names[i], keys[i]));
+                }
+                final long[] chunkKeys = record.getChunkKeys();
+                final long[] chunkLows = record.getChunkLows();
+                mChunks = new ArrayList<KeyChunk>(chunkKeys.length);
+                for (int i = 0; i < chunkKeys.length; i++) {
+                    mChunks.add(new KeyChunk(chunkKeys[i], chunkLows[i]));
+                }
+            }
+        }
+
+        /**
+         * Getting the path extending this one by one step.
+         * 
+         * @param pNameKey
+         *            name key of the step
+         * @param pCreate
+         *            should the path be created if it does not exist?
+         * @return the path, null if it does not exist and is not created
+         * @throws TTIOException
+         *             if reading the stored path fails
+         */
+        Path getChild(final int pNameKey, final boolean pCreate) throws TTIOException {
+            load();
+            Path child = mChildren.get(pNameKey);
+            if (child == null && pCreate) {
+                child = new Path(pNameKey, NULL_NODE);
+                mChildren.put(pNameKey, child);
+                mDirty = true;
+            }
+            return child;
+        }
+
+        /**
+         * Collecting all paths below this one ending with a name.
+         * 
+         * @param pNameKey
+         *            name key of the last step
+         * @param pPaths
+         *            collection to add the paths to
+         * @throws TTIOException
+         *             if reading the stored paths fails
+         */
+        void collect(final int pNameKey, final Collection<Path> pPaths) throws TTIOException {
+            load();
+            for (final Path child : mChildren.values()) {
+                if (child.mNameKey == pNameKey) {
+                    pPaths.add(child);
+                }
+                child.collect(pNameKey, pPaths);
+            }
+        }
+
+        /**
+         * Getting the number of keys, reading all chunks.
+         * 
+         * @return the number of keys
+         * @throws TTIOException
+         *             if reading the stored path or chunks fails
+         */
+        int size() throws TTIOException {
+            load();
+            int size = 0;
+            for (final KeyChunk chunk : mChunks) {
+                chunk.load();
+                size += chunk.mSize;
+            }
+            return size;
+        }
+
+        /**
+         * Copying the keys in ascending order, see {@link #size()}.
+         * 
+         * @param pKeys
+         *            array to copy the keys to
+         * @param pOffset
+         *            position of the first key in the array
+         * @return position behind the last copied key
+         */
+        int copyKeys(final long[] pKeys, final int pOffset) {
+            int offset = pOffset;
+            for (final KeyChunk chunk : mChunks) {
+                System.arraycopy(chunk.mKeys, 0, pKeys, offset, chunk.mSize);
+                offset += chunk.mSize;
+            }
+            return offset;
+        }
+
+        /**
+         * Removing all keys of this path and all paths below.
+         * 
+         * @throws TTIOException
+         *             if reading the stored paths fails
+         */
+        void clear() throws TTIOException {
+            load();
+            for (final KeyChunk chunk : mChunks) {
+                if (chunk.mRecordKey != NULL_NODE) {
+                    mRemoved.add(chunk.mRecordKey);
+                }
+            }
+            mChunks.clear();
+            mDirty = true;
+            for (final Path child : mChildren.values()) {
+                child.clear();
+            }
+        }
+
+        /**
+         * Appending a key without keeping the order, see {@link #sort()}. A full last chunk is not split
+         * but followed by a new one, so ascending keys fill their chunks.
+         * 
+         * @param pKey
+         *            the key
+         * @throws TTIOException
+         *             if reading the stored path fails
+         */
+        void append(final long pKey) throws TTIOException {
+            load();
+            KeyChunk last = mChunks.isEmpty() ? null : mChunks.get(mChunks.size() - 1);
+            if (last != null) {
+                last.load();
+            }
+            if (last == null || last.mSize >= CHUNK_SIZE) {
+                last = new KeyChunk(NULL_NODE, pKey);
+                mChunks.add(last);
+                mDirty = true;
+            }
+            last.ensureCapacity(last.mSize + 1);
+            last.mKeys[last.mSize++] = pKey;
+            last.mDirty = true;
+        }
+
+        /**
+         * Sorting the keys of this path and all paths below that have been read. The keys are split into
+         * new chunks afterwards, hence only used on paths that have been cleared before.
+         */
+        void sort() {
+            if (mChildren != null) {
+                int size = 0;
+                for (final KeyChunk chunk : mChunks) {
+                    size += chunk.mSize;
+                }
+                final long[] keys = new long[size];
+                copyKeys(keys, 0);
+                Arrays.sort(keys);
+                mChunks.clear();
+                for (int from = 0; from < size; from += CHUNK_SIZE) {
+                    final KeyChunk chunk = new KeyChunk(NULL_NODE, keys[from]);
+                    chunk.mKeys = Arrays.copyOfRange(keys, from, Math.min(from + CHUNK_SIZE, size));
+                    chunk.mSize = chunk.mKeys.length;
+                    mChunks.add(chunk);
+                }
+                for (final Path child : mChildren.values()) {
+                    child.sort();
+                }
+            }
+        }
+
+        /**
+         * Inserting a key into the chunk covering it. New keys are mostly the greatest ones and are
+         * appended, a chunk overflowing otherwise is split in halves.
+         * 
+         * @param pKey
+         *            the key
+         * @throws TTIOException
+         *             if reading the stored path or chunk fails
+         */
+        void insert(final long pKey) throws TTIOException {
+            load();
+            if (mChunks.isEmpty()) {
+                append(pKey);
+                return;
+            }
+            final int index = getChunk(pKey);
+            final KeyChunk chunk = mChunks.get(index);
+            chunk.load();
+            if (index == mChunks.size() - 1 && chunk.mKeys[chunk.mSize - 1] < pKey) {
+                append(pKey);
+            } else if (chunk.insert(pKey)) {
+                if (pKey < chunk.mLow) {
+                    chunk.mLow = pKey;
+                    mDirty = true;
+                }
+                if (chunk.mSize > CHUNK_SIZE) {
+                    final int half = chunk.mSize / 2;
+                    final KeyChunk split = new KeyChunk(NULL_NODE, chunk.mKeys[half]);
+                    split.mKeys = Arrays.copyOfRange(chunk.mKeys, half, chunk.mSize);
+                    split.mSize = split.mKeys.length;
+                    chunk.mSize = half;
+                    mChunks.add(index + 1, split);
+                    mDirty = true;
+                }
+            }
+        }
+
+        /**
+         * Deleting a key from the chunk covering it. An emptied chunk is dropped.
+         * 
+         * @param pKey
+         *            the key
+         * @throws TTIOException
+         *             if reading the stored path or chunk fails
+         */
+        void delete(final long pKey) throws TTIOException {
+            load();
+            if (!mChunks.isEmpty()) {
+                final int index = getChunk(pKey);
+                final KeyChunk chunk = mChunks.get(index);
+                chunk.load();
+                if (chunk.delete(pKey)) {
+                    if (chunk.mSize == 0) {
+                        mChunks.remove(index);
+                        if (chunk.mRecordKey != NULL_NODE) {
+                            mRemoved.add(chunk.mRecordKey);
+                        }
+                        mDirty = true;
+                    } else if (chunk.mLow != chunk.mKeys[0]) {
+                        chunk.mLow = chunk.mKeys[0];
+                        mDirty = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Finding the chunk covering a key, the last one whose smallest key is not greater.
+         * 
+         * @param pKey
+         *            the key
+         * @return index of the chunk, 0 if the key is smaller than all keys
+         */
+        private int getChunk(final long pKey) {
+            int low = 0;
+            int high = mChunks.size() - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (mChunks.get(mid).mLow <= pKey) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Storing this path and all paths below that have changed. Paths that have not been read are
+         * unchanged, of a changed path only the changed chunks are stored.
+         * 
+         * @param pWtx
+         *            transaction writing the revision
+         * @throws TTException
+         *             if writing fails
+         */
+        void persist(final IBucketWriteTrx pWtx) throws TTException {
+            if (mChildren != null) {
+                final int[] names = new int[mChildren.size()];
+                final long[] keys = new long[mChildren.size()];
+                int i = 0;
+                for (final Path child : mChildren.values()) {
+                    child.persist(pWtx);
+                    names[i] = child.mNameKey;
+                    keys[i++] = child.mRecordKey;
+                }
+                final long[] chunkKeys = new long[mChunks.size()];
+                final long[] chunkLows = new long[mChunks.size()];
+                i = 0;
+                for (final KeyChunk chunk : mChunks) {
+                    if (chunk.mDirty) {
+                        if (chunk.mRecordKey == NULL_NODE) {
+                            chunk.mRecordKey = NodeWriteTrx.reserveKeys(pWtx, 1);
+                            mDirty = true;
+                        }
+                        pWtx.setData(new PathSummaryKeys(chunk.mRecordKey, Arrays.copyOf(chunk.mKeys,
+                            chunk.mSize)));
+                        chunk.mDirty = false;
+                    }
+                    chunkKeys[i] = chunk.mRecordKey;
+                    chunkLows[i++] = chunk.mLow;
+                }
+                for (final long removed : mRemoved) {
+                    pWtx.removeData(pWtx.getData(removed));
+                }
+                mRemoved.clear();
+                if (mDirty) {
+                    if (mRecordKey == NULL_NODE) {
+                        mRecordKey = NodeWriteTrx.reserveKeys(pWtx, 1);
+                    }
+                    pWtx.setData(new PathSummaryPath(mRecordKey, mNameKey, names, keys, chunkKeys,
+                        chunkLows));
+                    mDirty = false;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Chunk of the keys of a path. A stored chunk is read on first access, a changed one is stored again
+     * with the next commit.
+     */
+    private final class KeyChunk {
+
+        /** Key of the stored chunk, {@link IConstants#NULL_NODE} if not stored yet. */
+        private long mRecordKey;
+
+        /** Smallest key as referenced by the path. */
+        private long mLow;
+
+        /** Sorted keys, only the first {@link #mSize} are valid, null until the stored chunk is read. */
+        private long[] mKeys;
+
+        /** Number of keys. */
+        private int mSize;
+
+        /** Is the key array shared with the stored chunk and must be copied before it is changed? */
+        private boolean mShared;
+
+        /** Has this chunk changed since it was stored? */
+        private boolean mDirty;
+
+        /**
+         * Constructor.
+         * 
+         * @param pRecordKey
+         *            key of the stored chunk, {@link IConstants#NULL_NODE} for a new chunk
+         * @param pLow
+         *            smallest key of the chunk
+         */
+        KeyChunk(final long pRecordKey, final long pLow) {
+            mRecordKey = pRecordKey;
+            mLow = pLow;
+            if (pRecordKey == NULL_NODE) {
+                mKeys = EMPTY;
+                mDirty = true;
+            }
+        }
+
+        /**
+         * Reading the stored chunk if not done yet.
+         * 
+         * @throws TTIOException
+         *             if reading fails
+         */
+        void load() throws TTIOException {
+            if (mKeys == null) {
+                mKeys = ((PathSummaryKeys)mTrx.getData(mRecordKey)).getKeys();
+                mSize = mKeys.length;
+                mShared = true;
+            }
+        }
+
+        /**
+         * Inserting a key into the read chunk.
+         * 
+         * @param pKey
+         *            the key
+         * @return true if the key was inserted, false if it was contained already
+         */
+        boolean insert(final long pKey) {
+            final int index = Arrays.binarySearch(mKeys, 0, mSize, pKey);
+            if (index >= 0) {
+                return false;
+            }
+            final int insert = -index - 1;
+            ensureCapacity(mSize + 1);
+            System.arraycopy(mKeys, insert, mKeys, insert + 1, mSize - insert);
+            mKeys[insert] = pKey;
+            mSize++;
+            mDirty = true;
+            return true;
+        }
+
+        /**
+         * Deleting a key from the read chunk.
+         * 
+         * @param pKey
+         *            the key
+         * @return true if the key was deleted, false if it was not contained
+         */
+        boolean delete(final long pKey) {
+            final int index = Arrays.binarySearch(mKeys, 0, mSize, pKey);
+            if (index < 0) {
+                return false;
+            }
+            ensureCapacity(mSize);
+            System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+            mSize--;
+            mDirty = true;
+            return true;
+        }
+
+        /**
+         * Making sure that the key array is not shared and can hold the given number of keys.
+         * 
+         * @param pCapacity
+         *            number of keys
+         */
+        private void ensureCapacity(final int pCapacity) {
+            if (pCapacity > mKeys.length) {
+                mKeys = Arrays.copyOf(mKeys, Math.max(pCapacity, mKeys.length * 2));
+                mShared = false;
+            } else if (mShared) {
+                mKeys = mKeys.clone();
+                mShared = false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,795 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.access;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.treetank.data.IConstants.NULL_NODE;
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.api.IBucketWriteTrx;
+import org.treetank.api.IData;
+import org.treetank.api.IMetaEntry;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.data.ElementNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.NodeMetaPageFactory;
+import org.treetank.data.ValueIndexNode;
+import org.treetank.data.interfaces.ITreeData;
+import org.treetank.data.interfaces.ITreeNameData;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.data.interfaces.ITreeValData;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.NamePageHash;
+
+/**
+ * <h1>ValueIndex</h1>
+ * 
+ * <p>
+ * Secondary index mapping the hashes of text and attribute values to the keys of the nodes carrying them.
+ * The index is a B+-tree of {@link ValueIndexNode}s ordered by hash and node key, the key of its root is
+ * stored in the meta bucket. Nodes overflowing {@link #MAX_ENTRIES} are split, so each modification writes
+ * the nodes along one root-to-leaf path only. Emptied leaves are kept until the index is rebuilt. Since the
+ * tree nodes are ordinary data, the index is persisted and versioned together with the nodes of each
+ * revision.
+ * </p>
+ * 
+ * <p>
+ * The index is enabled per resource with {@link ConstructorProps#VALUEINDEX} listing the paths of the values
+ * to index, separated by whitespace or commas. A path consists of child (<code>/</code>) and descendant (
+ * <code>//</code>) steps with name tests or <code>*</code>, the last one might be an attribute step. E.g.
+ * <code>//@id</code> indexes all id attributes and <code>/a//b</code> all text children of b elements below
+ * the root element a. The {@link NodeWriteTrx} maintains the index with every modification.
+ * </p>
+ */
+public final class ValueIndex {
+
+    /** Maximal number of entries per node of the tree. */
+    static final int MAX_ENTRIES = 256;
+
+    /** Key of the meta entry referencing the root of the tree, no valid name or uri hashes to it. */
+    private static final NodeMetaPageFactory.MetaKey META_KEY = new NodeMetaPageFactory.MetaKey(NamePageHash
+        .generateHashForString("treetank valueindex"));
+
+    /** Transaction reading or writing the index. */
+    private final IBucketReadTrx mTrx;
+
+    /** Paths of the indexed values. */
+    private final List<IndexPath> mPaths;
+
+    /** The configured paths, see {@link ConstructorProps#VALUEINDEX}. */
+    private final String mConfiguredPaths;
+
+    /** Key of the root of the tree, {@link IConstants#NULL_NODE} if the index was not created yet. */
+    private long mRootKey;
+
+    /** Parent key whose label path was resolved last. */
+    private long mLastParent;
+
+    /** Label path of {@link #mLastParent}. */
+    private int[] mLastPath;
+
+    /**
+     * Constructor.
+     * 
+     * @param pTrx
+     *            transaction reading or writing the index
+     * @param pPaths
+     *            the paths of the indexed values, see {@link ConstructorProps#VALUEINDEX}
+     */
+    ValueIndex(final IBucketReadTrx pTrx, final String pPaths) {
+        mTrx = pTrx;
+        mConfiguredPaths = pPaths;
+        mPaths = new ArrayList<IndexPath>();
+        for (final String path : pPaths.trim().split("[\\s,]+")) {
+            mPaths.add(new IndexPath(path));
+        }
+        final IMetaEntry root = pTrx.getMetaBucket().get(META_KEY);
+        mRootKey =
+            root == null ? NULL_NODE : Long.parseLong(((NodeMetaPageFactory.MetaValue)root).getData());
+        mLastParent = NULL_NODE;
+    }
+
+    /**
+     * Getting the index of the state a transaction is reading.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return the index, null if the resource has no value index enabled
+     * @throws TTException
+     *             if the index has to be rebuilt and this fails
+     */
+    public static ValueIndex getIndex(final INodeReadTrx pRtx) throws TTException {
+        final INodeReadTrx rtx = pRtx.getReadingTrx();
+        if (rtx instanceof NodeWriteTrx) {
+            return ((NodeWriteTrx)rtx).getValueIndex();
+        } else {
+            return lookup(rtx);
+        }
+    }
+
+    /**
+     * Getting the configured paths of the index of the state a transaction is reading, without rebuilding
+     * the index of a writing transaction.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return the paths, null if {@link #getIndex(INodeReadTrx)} returns no index
+     */
+    public static String getIndexedPaths(final INodeReadTrx pRtx) {
+        final INodeReadTrx rtx = pRtx.getReadingTrx();
+        if (rtx instanceof NodeWriteTrx) {
+            return ((NodeWriteTrx)rtx).getValueIndexPaths();
+        } else {
+            final ValueIndex index = lookup(rtx);
+            return index == null ? null : index.mConfiguredPaths;
+        }
+    }
+
+    /**
+     * Looking up the index of the revision a reading transaction is reading. The index is looked up once
+     * and kept with the transaction.
+     * 
+     * @param pRtx
+     *            the reading transaction
+     * @return the index, null if the resource has no value index enabled
+     */
+    private static ValueIndex lookup(final INodeReadTrx pRtx) {
+        if (!(pRtx instanceof NodeReadTrx)) {
+            return null;
+        }
+        final NodeReadTrx reader = (NodeReadTrx)pRtx;
+        if (!reader.mValueIndexLoaded) {
+            final IBucketReadTrx trx = reader.mPageReadTrx;
+            final String paths = getPaths(trx);
+            if (!(trx instanceof IBucketWriteTrx) && paths != null) {
+                final ValueIndex index = new ValueIndex(trx, paths);
+                reader.mValueIndex = index.mRootKey == NULL_NODE ? null : index;
+            }
+            reader.mValueIndexLoaded = true;
+        }
+        return reader.mValueIndex;
+    }
+
+    /**
+     * Getting the configured paths of the indexed values.
+     * 
+     * @param pTrx
+     *            transaction on the resource
+     * @return the paths, null if the index is not enabled
+     */
+    static String getPaths(final IBucketReadTrx pTrx) {
+        final String paths =
+            pTrx.getSession().getConfig().mProperties.getProperty(ConstructorProps.VALUEINDEX);
+        return paths == null || paths.trim().isEmpty() ? null : paths;
+    }
+
+    /**
+     * Getting the configured paths of the indexed values.
+     * 
+     * @return the paths, see {@link ConstructorProps#VALUEINDEX}
+     */
+    public String getConfiguredPaths() {
+        return mConfiguredPaths;
+    }
+
+    /**
+     * Hashing a value.
+     * 
+     * @param pValue
+     *            the raw value
+     * @return the hash the value is indexed with
+     */
+    public static int hash(final byte[] pValue) {
+        return Arrays.hashCode(pValue);
+    }
+
+    /**
+     * Checking if all attributes with a name are indexed, i.e. a path <code>//@name</code> or
+     * <code>//@*</code> is configured.
+     * 
+     * @param pNameKey
+     *            name key of the attribute
+     * @return true if all attributes with the name are indexed
+     */
+    public boolean coversAttributes(final int pNameKey) {
+        for (final IndexPath path : mPaths) {
+            if (path.coversAttributes(pNameKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getting the keys of all indexed nodes whose values have the same hash as the given value. Callers have
+     * to compare the values of the nodes, since different values might share a hash.
+     * 
+     * @param pValue
+     *            the raw value
+     * @return the keys of the candidates in ascending order
+     * @throws TTIOException
+     *             if reading the tree fails
+     */
+    public long[] getCandidates(final byte[] pValue) throws TTIOException {
+        if (mRootKey == NULL_NODE) {
+            return new long[0];
+        }
+        final int hash = hash(pValue);
+        ValueIndexNode leaf = getLeaf(hash, Long.MIN_VALUE, null, null);
+        int index = leaf.find(hash, Long.MIN_VALUE);
+        long[] keys = new long[4];
+        int size = 0;
+        while (true) {
+            while (index < leaf.getSize() && leaf.getHash(index) == hash) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size++] = leaf.getKey(index++);
+            }
+            // the entries of a hash might continue within the next leaf
+            if (index < leaf.getSize() || leaf.getNextKey() == NULL_NODE) {
+                return Arrays.copyOf(keys, size);
+            }
+            leaf = getNode(leaf.getNextKey());
+            index = 0;
+        }
+    }
+
+    /**
+     * Ordering keys of elements in document order, by their order labels if the resource maintains them,
+     * see {@link ConstructorProps#STRUCTINDEX}, and by a traversal otherwise.
+     * 
+     * @param pKeys
+     *            keys of elements, ordered in place
+     * @return the keys
+     * @throws TTIOException
+     *             if reading the elements fails
+     */
+    public long[] toDocumentOrder(final long[] pKeys) throws TTIOException {
+        return DocumentOrder.sort(mTrx, pKeys);
+    }
+
+    /**
+     * Adding a text or attribute node.
+     * 
+     * @param pNode
+     *            the node, already linked to its parent
+     * @param pValue
+     *            the value of the node
+     * @throws TTException
+     *             if writing the index fails
+     */
+    void add(final ITreeValData pNode, final byte[] pValue) throws TTException {
+        if (isIndexed(pNode)) {
+            if (mRootKey == NULL_NODE) {
+                create();
+            }
+            insert(hash(pValue), pNode.getDataKey());
+        }
+    }
+
+    /**
+     * Removing a text or attribute node with its current value.
+     * 
+     * @param pNode
+     *            the node, still linked to its parent
+     * @throws TTException
+     *             if writing the index fails
+     */
+    void remove(final ITreeValData pNode) throws TTException {
+        if (mRootKey != NULL_NODE && isIndexed(pNode)) {
+            final int hash = hash(getValue(pNode));
+            final ValueIndexNode leaf = getLeaf(hash, pNode.getDataKey(), null, null);
+            if (leaf.remove(hash, pNode.getDataKey())) {
+                getWtx().setData(leaf);
+            }
+        }
+    }
+
+    /**
+     * Adding all attribute and text values within a subtree.
+     * 
+     * @param pKey
+     *            key of the element, text or attribute at the root of the subtree
+     * @throws TTException
+     *             if writing the index fails
+     */
+    void addSubtree(final long pKey) throws TTException {
+        mLastParent = NULL_NODE;
+        for (final ITreeValData node : getValueNodes(pKey)) {
+            add(node, getValue(node));
+        }
+    }
+
+    /**
+     * Removing all attribute and text values within a subtree.
+     * 
+     * @param pKey
+     *            key of the element, text or attribute at the root of the subtree
+     * @throws TTException
+     *             if writing the index fails
+     */
+    void removeSubtree(final long pKey) throws TTException {
+        mLastParent = NULL_NODE;
+        for (final ITreeValData node : getValueNodes(pKey)) {
+            remove(node);
+        }
+    }
+
+    /**
+     * Rebuilding the whole index by one traversal of the document. The old tree is removed and the new one
+     * is loaded bottom-up out of the sorted entries.
+     * 
+     * @throws TTException
+     *             if writing the index fails
+     */
+    void rebuild() throws TTException {
+        final IBucketWriteTrx wtx = getWtx();
+        if (mRootKey != NULL_NODE) {
+            final Deque<Long> keys = new ArrayDeque<Long>();
+            keys.push(mRootKey);
+            while (!keys.isEmpty()) {
+                final ValueIndexNode node = getNode(keys.pop());
+                if (!node.isLeaf()) {
+                    for (int i = 0; i < node.getSize(); i++) {
+                        keys.push(node.getChildKey(i));
+                    }
+                }
+                wtx.removeData(node);
+            }
+        }
+
+        int[] hashes = new int[16];
+        long[] keys = new long[16];
+        int size = 0;
+        for (final ITreeValData node : getValueNodes(ROOT_NODE)) {
+            if (isIndexed(node)) {
+                if (size == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, size * 2);
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                hashes[size] = hash(getValue(node));
+                keys[size++] = node.getDataKey();
+            }
+        }
+        // ordering by hash first and by key second, the keys of the traversal are not ascending
+        final long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (long)hashes[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        final int[] sortedHashes = new int[size];
+        final long[] sortedKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            final int index = (int)order[i];
+            sortedHashes[i] = hashes[index];
+            sortedKeys[i] = keys[index];
+        }
+        for (int from = 0, to = 0; from < size; from = to) {
+            while (to < size && sortedHashes[to] == sortedHashes[from]) {
+                to++;
+            }
+            Arrays.sort(sortedKeys, from, to);
+        }
+
+        // leaves linked in order, followed by the levels of inner nodes up to a single root
+        final int leaves = Math.max(1, (size + MAX_ENTRIES - 1) / MAX_ENTRIES);
+        long[] level = new long[leaves];
+        int[] firstHashes = new int[leaves];
+        long[] firstKeys = new long[leaves];
+        for (int i = 0; i < leaves; i++) {
+            level[i] = NodeWriteTrx.reserveKeys(wtx, 1);
+        }
+        for (int i = 0; i < leaves; i++) {
+            final int from = i * MAX_ENTRIES;
+            final int to = Math.min(from + MAX_ENTRIES, size);
+            firstHashes[i] = from < to ? sortedHashes[from] : 0;
+            firstKeys[i] = from < to ? sortedKeys[from] : Long.MIN_VALUE;
+            wtx.setData(new ValueIndexNode(level[i], Arrays.copyOfRange(sortedHashes, from, to), Arrays
+                .copyOfRange(sortedKeys, from, to), null, i + 1 < leaves ? level[i + 1] : NULL_NODE));
+        }
+        while (level.length > 1) {
+            final int nodes = (level.length + MAX_ENTRIES - 1) / MAX_ENTRIES;
+            final long[] parents = new long[nodes];
+            for (int i = 0; i < nodes; i++) {
+                final int from = i * MAX_ENTRIES;
+                final int to = Math.min(from + MAX_ENTRIES, level.length);
+                parents[i] = NodeWriteTrx.reserveKeys(wtx, 1);
+                wtx.setData(new ValueIndexNode(parents[i], Arrays.copyOfRange(firstHashes, from, to), Arrays
+                    .copyOfRange(firstKeys, from, to), Arrays.copyOfRange(level, from, to), NULL_NODE));
+                firstHashes[i] = firstHashes[from];
+                firstKeys[i] = firstKeys[from];
+            }
+            level = parents;
+        }
+        setRoot(level[0]);
+    }
+
+    /**
+     * Creating an empty tree and referencing it in the meta bucket.
+     * 
+     * @throws TTException
+     *             if writing the tree fails
+     */
+    private void create() throws TTException {
+        final IBucketWriteTrx wtx = getWtx();
+        final long rootKey = NodeWriteTrx.reserveKeys(wtx, 1);
+        wtx.setData(new ValueIndexNode(rootKey));
+        setRoot(rootKey);
+    }
+
+    /**
+     * Referencing a new root in the meta bucket.
+     * 
+     * @param pRootKey
+     *            key of the root
+     */
+    private void setRoot(final long pRootKey) {
+        getWtx().getMetaBucket().put(META_KEY, new NodeMetaPageFactory.MetaValue(Long.toString(pRootKey)));
+        mRootKey = pRootKey;
+    }
+
+    /**
+     * Inserting an entry, splitting the nodes overflowing on the way back to the root.
+     * 
+     * @param pHash
+     *            hash of the value
+     * @param pKey
+     *            key of the node carrying the value
+     * @throws TTException
+     *             if writing the tree fails
+     */
+    private void insert(final int pHash, final long pKey) throws TTException {
+        final IBucketWriteTrx wtx = getWtx();
+        final Deque<ValueIndexNode> path = new ArrayDeque<ValueIndexNode>();
+        final Deque<Integer> indexes = new ArrayDeque<Integer>();
+        ValueIndexNode node = getLeaf(pHash, pKey, path, indexes);
+        if (!node.add(pHash, pKey)) {
+            return;
+        }
+        while (node.getSize() > MAX_ENTRIES) {
+            final ValueIndexNode right = node.split(NodeWriteTrx.reserveKeys(wtx, 1));
+            wtx.setData(right);
+            wtx.setData(node);
+            if (path.isEmpty()) {
+                node = new ValueIndexNode(NodeWriteTrx.reserveKeys(wtx, 1), new int[] {
+                    node.getHash(0), right.getHash(0)
+                }, new long[] {
+                    node.getKey(0), right.getKey(0)
+                }, new long[] {
+                    node.getDataKey(), right.getDataKey()
+                }, NULL_NODE);
+                setRoot(node.getDataKey());
+            } else {
+                node = path.pop();
+                node.addChild(indexes.pop() + 1, right.getHash(0), right.getKey(0), right.getDataKey());
+            }
+        }
+        wtx.setData(node);
+    }
+
+    /**
+     * Descending to the leaf an entry belongs to.
+     * 
+     * @param pHash
+     *            hash of the entry
+     * @param pKey
+     *            key of the entry
+     * @param pPath
+     *            receiving the inner nodes on the way, the lowest one on top, might be null
+     * @param pIndexes
+     *            receiving the indexes of the children taken, might be null
+     * @return the leaf
+     * @throws TTIOException
+     *             if reading the tree fails
+     */
+    private ValueIndexNode getLeaf(final int pHash, final long pKey, final Deque<ValueIndexNode> pPath,
+        final Deque<Integer> pIndexes) throws TTIOException {
+        ValueIndexNode node = getNode(mRootKey);
+        while (!node.isLeaf()) {
+            final int index = node.findChild(pHash, pKey);
+            if (pPath != null) {
+                pPath.push(node);
+                pIndexes.push(index);
+            }
+            node = getNode(node.getChildKey(index));
+        }
+        return node;
+    }
+
+    /**
+     * Getting a node of the tree.
+     * 
+     * @param pKey
+     *            key of the node
+     * @return the node
+     * @throws TTIOException
+     *             if reading the node fails
+     */
+    private ValueIndexNode getNode(final long pKey) throws TTIOException {
+        return (ValueIndexNode)mTrx.getData(pKey);
+    }
+
+    /**
+     * Getting the transaction for modifying the index.
+     * 
+     * @return the write transaction
+     */
+    private IBucketWriteTrx getWtx() {
+        checkArgument(mTrx instanceof IBucketWriteTrx, "The index can only be modified within a write trx.");
+        return (IBucketWriteTrx)mTrx;
+    }
+
+    /**
+     * Getting the value of a node, fetching chunked values.
+     * 
+     * @param pNode
+     *            the node
+     * @return the raw value
+     */
+    private byte[] getValue(final ITreeValData pNode) {
+        return pNode.bindValueSource(mTrx).getRawValue();
+    }
+
+    /**
+     * Checking if the value of a node is covered by one of the configured paths.
+     * 
+     * @param pNode
+     *            text or attribute node
+     * @return true if the value is to be indexed
+     * @throws TTIOException
+     *             if reading the ancestors fails
+     */
+    private boolean isIndexed(final ITreeValData pNode) throws TTIOException {
+        final ITreeData node = (ITreeData)pNode;
+        final int[] path = getLabelPath(node.getParentKey());
+        final boolean attribute = node.getKind() == IConstants.ATTRIBUTE;
+        final int nameKey = attribute ? ((ITreeNameData)node).getNameKey() : 0;
+        for (final IndexPath indexPath : mPaths) {
+            if (indexPath.matches(path, attribute, nameKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Getting the name keys of an element and its ancestor elements.
+     * 
+     * @param pKey
+     *            key of the element or of the document root
+     * @return the name keys starting with the outermost element
+     * @throws TTIOException
+     *             if reading the ancestors fails
+     */
+    private int[] getLabelPath(final long pKey) throws TTIOException {
+        if (pKey != mLastParent) {
+            final Deque<Integer> names = new ArrayDeque<Integer>();
+            ITreeData node = (ITreeData)mTrx.getData(pKey);
+            while (node.getKind() == IConstants.ELEMENT) {
+                names.push(((ITreeNameData)node).getNameKey());
+                node = (ITreeData)mTrx.getData(node.getParentKey());
+            }
+            mLastPath = new int[names.size()];
+            int i = 0;
+            for (final int name : names) {
+                mLastPath[i++] = name;
+            }
+            mLastParent = pKey;
+        }
+        return mLastPath;
+    }
+
+    /**
+     * Collecting all attribute and text nodes within a subtree in preorder.
+     * 
+     * @param pKey
+     *            key of the node at the root of the subtree
+     * @return the nodes
+     * @throws TTIOException
+     *             if reading fails
+     */
+    private List<ITreeValData> getValueNodes(final long pKey) throws TTIOException {
+        final List<ITreeValData> nodes = new ArrayList<ITreeValData>();
+        final IData root = mTrx.getData(pKey);
+        if (root == null) {
+            return nodes;
+        }
+        final Deque<Long> keys = new ArrayDeque<Long>();
+        keys.push(pKey);
+        while (!keys.isEmpty()) {
+            final ITreeData node = (ITreeData)mTrx.getData(keys.pop());
+            if (node instanceof ElementNode) {
+                final ElementNode element = (ElementNode)node;
+                for (int i = 0; i < element.getAttributeCount(); i++) {
+                    nodes.add((ITreeValData)mTrx.getData(element.getAttributeKey(i)));
+                }
+            } else if (node instanceof ITreeValData) {
+                nodes.add((ITreeValData)node);
+            }
+            if (node instanceof ITreeStructData) {
+                final ITreeStructData struct = (ITreeStructData)node;
+                if (node.getDataKey() != pKey && struct.hasRightSibling()) {
+                    keys.push(struct.getRightSiblingKey());
+                }
+                if (struct.hasFirstChild()) {
+                    keys.push(struct.getFirstChildKey());
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * One configured path of indexed values.
+     */
+    private static final class IndexPath {
+
+        /** Name key of the wildcard <code>*</code>. */
+        private static final int WILDCARD = NamePageHash.generateHashForString("*");
+
+        /** Name keys of the element steps. */
+        private final int[] mNames;
+
+        /** Is the element step a descendant step? */
+        private final boolean[] mDescendant;
+
+        /** Name key of the final attribute step, null if text values are indexed. */
+        private final Integer mAttribute;
+
+        /** Is the final attribute step a descendant step? */
+        private final boolean mAttributeDescendant;
+
+        /**
+         * Constructor.
+         * 
+         * @param pPath
+         *            the path, e.g. <code>//a/@b</code>
+         */
+        IndexPath(final String pPath) {
+            final List<String> steps = new ArrayList<String>();
+            final List<Boolean> descendant = new ArrayList<Boolean>();
+            int index = 0;
+            while (index < pPath.length()) {
+                checkArgument(pPath.charAt(index) == '/', "Paths must be absolute, but was %s", pPath);
+                final boolean desc = pPath.startsWith("//", index);
+                index += desc ? 2 : 1;
+                int end = pPath.indexOf('/', index);
+                end = end < 0 ? pPath.length() : end;
+                checkArgument(end > index, "Steps must have a name test, but was %s", pPath);
+                steps.add(pPath.substring(index, end));
+                descendant.add(desc);
+                index = end;
+            }
+            checkArgument(!steps.isEmpty(), "Paths must have a step, but was %s", pPath);
+            final String last = steps.get(steps.size() - 1);
+            if (last.startsWith("@")) {
+                mAttribute = NamePageHash.generateHashForString(last.substring(1));
+                mAttributeDescendant = descendant.remove(steps.size() - 1);
+                steps.remove(steps.size() - 1);
+            } else {
+                mAttribute = null;
+                mAttributeDescendant = false;
+            }
+            mNames = new int[steps.size()];
+            mDescendant = new boolean[steps.size()];
+            for (int i = 0; i < mNames.length; i++) {
+                checkArgument(!steps.get(i).startsWith("@"), "Only the last step can be an attribute step.");
+                mNames[i] = NamePageHash.generateHashForString(steps.get(i));
+                mDescendant[i] = descendant.get(i);
+            }
+        }
+
+        /**
+         * Checking if the path covers all attributes with a name.
+         * 
+         * @param pNameKey
+         *            name key of the attribute
+         * @return true if the path is <code>//@name</code> or <code>//@*</code>
+         */
+        boolean coversAttributes(final int pNameKey) {
+            return mNames.length == 0 && mAttributeDescendant && mAttribute != null
+                && (mAttribute == pNameKey || mAttribute == WILDCARD);
+        }
+
+        /**
+         * Checking if a value is selected by this path.
+         * 
+         * @param pPath
+         *            name keys of the element carrying the value and its ancestors, outermost first
+         * @param pAttribute
+         *            is the value an attribute value?
+         * @param pNameKey
+         *            name key of the attribute
+         * @return true if the value is selected
+         */
+        boolean matches(final int[] pPath, final boolean pAttribute, final int pNameKey) {
+            if (pAttribute != (mAttribute != null)) {
+                return false;
+            }
+            if (!pAttribute) {
+                return matches(pPath, 0, 0, pPath.length);
+            }
+            if (mAttribute != pNameKey && mAttribute != WILDCARD) {
+                return false;
+            }
+            if (!mAttributeDescendant) {
+                return matches(pPath, 0, 0, pPath.length);
+            }
+            // the attribute step might skip any number of elements
+            for (int end = pPath.length; end >= 0; end--) {
+                if (matches(pPath, 0, 0, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Matching the element steps against a prefix of a label path.
+         * 
+         * @param pPath
+         *            the label path
+         * @param pStep
+         *            first step to match
+         * @param pFrom
+         *            first label to match
+         * @param pTo
+         *            end of the prefix to match
+         * @return true if the steps match the labels exactly
+         */
+        private boolean matches(final int[] pPath, final int pStep, final int pFrom, final int pTo) {
+            if (pStep == mNames.length) {
+                return pFrom == pTo;
+            }
+            if (mDescendant[pStep]) {
+                for (int i = pFrom; i < pTo; i++) {
+                    if ((mNames[pStep] == WILDCARD || mNames[pStep] == pPath[i])
+                        && matches(pPath, pStep + 1, i + 1, pTo)) {
+                        return true;
+                    }
+                }
+                return false;
+            } else {
+                return pFrom < pTo && (mNames[pStep] == WILDCARD || mNames[pStep] == pPath[pFrom])
+                    && matches(pPath, pStep + 1, pFrom + 1, pTo);
+            }
+        }
+
+    }
+
+}
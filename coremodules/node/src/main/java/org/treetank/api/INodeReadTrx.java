@@ -27,8 +27,11 @@
 
 package org.treetank.api;
 
+import java.io.InputStream;
+
 import javax.xml.namespace.QName;
 
+import org.treetank.axis.AxisContext;
 import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
 
@@ -83,6 +86,14 @@ public interface INodeReadTrx {
      */
     String getValueOfCurrentNode();
 
+    /**
+     * Getting the value of the current node as stream. Large values are fetched lazily while reading instead
+     * of being materialized at once.
+     * 
+     * @return a stream over the current value of the node, empty if the node has no value
+     */
+    InputStream getValueStreamOfCurrentNode();
+
     /**
      * Getting the name of a current node.
      * 
@@ -113,6 +124,22 @@ public interface INodeReadTrx {
      */
     org.treetank.data.interfaces.ITreeData getNode();
 
+    /**
+     * Getting the context shared by all axes working on this transaction.
+     * 
+     * @return the {@link AxisContext} of this transaction
+     */
+    AxisContext getAxisContext();
+
+    /**
+     * Getting the transaction actually reading the data. A transaction delegating to another one, e.g. the
+     * transaction a compiled query is bound to, returns the one it delegates to. Indexes like the path
+     * summary are looked up for the returned transaction.
+     * 
+     * @return the reading transaction, this transaction if it does not delegate
+     */
+    INodeReadTrx getReadingTrx();
+
     /**
      * Close shared read transaction and immediately release all resources.
      * 
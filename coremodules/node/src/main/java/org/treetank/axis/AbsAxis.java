@@ -31,8 +31,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Iterator;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.AtomicValue;
@@ -72,12 +70,8 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
     /** Include self? */
     private final boolean mIncludeSelf;
 
-    /** Map with ItemList to each transaction. */
-    private final static Map<INodeReadTrx, ItemList> atomics =
-        new ConcurrentHashMap<INodeReadTrx, ItemList>();
-
-    /** Map with ItemList to each transaction. */
-    private final static Map<INodeReadTrx, Long> lastPointer = new ConcurrentHashMap<INodeReadTrx, Long>();
+    /** Context shared by all axes of the transaction. */
+    private final AxisContext mContext;
 
     /**
      * Bind axis step to transaction.
@@ -100,6 +94,7 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
     public AbsAxis(final INodeReadTrx paramRtx, final boolean paramIncludeSelf) {
         checkNotNull(paramRtx);
         mRTX = paramRtx;
+        mContext = paramRtx.getAxisContext();
         mIncludeSelf = paramIncludeSelf;
         reset(paramRtx.getNode().getDataKey());
     }
@@ -117,6 +112,15 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      */
     @Override
     public final Long next() {
+        return nextKey();
+    }
+
+    /**
+     * Primitive variant of {@link #next()} without boxing the key of the current node.
+     * 
+     * @return the key of the node the axis points to
+     */
+    public final long nextKey() {
         checkState(mNext, "IAxis.next() must be called exactely once after hasNext()" + " evaluated to true.");
         mKey = mRTX.getNode().getDataKey();
         mNext = false;
@@ -141,7 +145,19 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
         mStartKey = paramNodeKey;
         mKey = paramNodeKey;
         mNext = false;
-        lastPointer.remove(mRTX);
+        mContext.resetLastKey();
+    }
+
+    /**
+     * Resetting the axis to the next context node of an enclosing axis, e.g. of a {@link NestedAxis},
+     * within the same evaluation. Axes keeping state over all context nodes of an evaluation override it,
+     * by default it is the same as {@link #reset(long)}.
+     * 
+     * @param paramNodeKey
+     *            the nodekey of the context node
+     */
+    public void resetContext(final long paramNodeKey) {
+        reset(paramNodeKey);
     }
 
     /**
@@ -154,7 +170,7 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
     public boolean moveTo(final long pKey) {
         try {
             if (pKey < 0 || mRTX.moveTo(pKey)) {
-                lastPointer.put(mRTX, pKey);
+                mContext.setLastKey(pKey);
                 return true;
             } else {
                 return false;
@@ -170,8 +186,7 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      * @throws TTException
      */
     public void close() throws TTException {
-        atomics.remove(mRTX);
-        lastPointer.remove(mRTX);
+        mContext.clear();
         mRTX.close();
     }
 
@@ -181,8 +196,9 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      * @return Getting the node.
      */
     public ITreeData getNode() {
-        if (lastPointer.get(mRTX) != null && lastPointer.get(mRTX) < 0) {
-            return atomics.get(mRTX).getItem(lastPointer.get(mRTX));
+        final ITreeData item = mContext.getItem();
+        if (item != null) {
+            return item;
         } else {
             return mRTX.getNode();
         }
@@ -230,7 +246,7 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      * 
      * @return True if self is included. False else.
      */
-    protected final boolean isSelfIncluded() {
+    public final boolean isSelfIncluded() {
         return mIncludeSelf;
     }
 
@@ -246,14 +262,11 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      * @return the Itemlist
      */
     public ItemList getItemList() {
-        if (!atomics.containsKey(mRTX)) {
-            atomics.put(mRTX, new ItemList());
-        }
-        return atomics.get(mRTX);
+        return mContext.getItemList();
     }
 
     /**
-     * Adding any AtomicVal to any ItemList staticly.
+     * Adding any AtomicVal to the ItemList of the given transaction.
      * 
      * @param pRtx
      *            as key
@@ -262,10 +275,7 @@ public abstract class AbsAxis implements Iterator<Long>, Iterable<Long> {
      * @return the index in the ItemList
      */
     public static int addAtomicToItemList(final INodeReadTrx pRtx, final AtomicValue pVal) {
-        if (!atomics.containsKey(pRtx)) {
-            atomics.put(pRtx, new ItemList());
-        }
-        return atomics.get(pRtx).addItem(pVal);
+        return pRtx.getAxisContext().getItemList().addItem(pVal);
 
     }
 }
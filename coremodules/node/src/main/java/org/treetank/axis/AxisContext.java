@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.axis;
+
+import org.treetank.api.INodeReadTrx;
+import org.treetank.data.interfaces.ITreeData;
+
+/**
+ * <h1>AxisContext</h1>
+ * 
+ * <p>
+ * State shared by all axes iterating over one {@link INodeReadTrx}. It holds the {@link ItemList} containing
+ * the atomic values created while evaluating a query as well as the key of the item the axes currently point
+ * to. Since atomic values are denoted by negative keys, the transaction itself is only bypassed if the last
+ * key is negative.
+ * </p>
+ * 
+ * <p>
+ * The context is owned by the transaction and follows its single-threaded semantics, no synchronization
+ * takes place.
+ * </p>
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class AxisContext {
+
+    /** Atomic values of the transaction, created on demand. */
+    private ItemList mItemList;
+
+    /** Key the axes moved to lastly, negative for items of the {@link ItemList}. */
+    private long mLastKey;
+
+    /**
+     * Getting the {@link ItemList}, creating it if not existing.
+     * 
+     * @return the {@link ItemList} of this context
+     */
+    public ItemList getItemList() {
+        if (mItemList == null) {
+            mItemList = new ItemList();
+        }
+        return mItemList;
+    }
+
+    /**
+     * Setting the key the axes moved to lastly.
+     * 
+     * @param pKey
+     *            key of a node or, if negative, of an item
+     */
+    public void setLastKey(final long pKey) {
+        mLastKey = pKey;
+    }
+
+    /**
+     * Resetting the last key so that the axes point to the node of the transaction.
+     */
+    public void resetLastKey() {
+        mLastKey = 0;
+    }
+
+    /**
+     * Getting the item denoted by the last key.
+     * 
+     * @return the item of the {@link ItemList} if the last key is negative, null otherwise
+     */
+    public ITreeData getItem() {
+        if (mLastKey < 0) {
+            return getItemList().getItem(mLastKey);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Removing all items and resetting the last key.
+     */
+    public void clear() {
+        mItemList = null;
+        mLastKey = 0;
+    }
+
+}
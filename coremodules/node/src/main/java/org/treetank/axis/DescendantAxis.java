@@ -29,10 +29,9 @@ package org.treetank.axis;
 
 import static org.treetank.data.IConstants.NULL_NODE;
 
-import java.util.Stack;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.utils.LongStack;
 
 /**
  * <h1>DescendantAxis</h1>
@@ -44,7 +43,7 @@ import org.treetank.data.interfaces.ITreeStructData;
 public final class DescendantAxis extends AbsAxis {
 
     /** Stack for remembering next nodeKey in document order. */
-    private Stack<Long> mRightSiblingKeyStack;
+    private LongStack mRightSiblingKeyStack;
 
     /** The nodeKey of the next node to visit. */
     private long mNextKey;
@@ -77,7 +76,11 @@ public final class DescendantAxis extends AbsAxis {
     @Override
     public void reset(final long mNodeKey) {
         super.reset(mNodeKey);
-        mRightSiblingKeyStack = new Stack<Long>();
+        if (mRightSiblingKeyStack == null) {
+            mRightSiblingKeyStack = new LongStack();
+        } else {
+            mRightSiblingKeyStack.clear();
+        }
         if (isSelfIncluded()) {
             mNextKey = getNode().getDataKey();
         } else {
@@ -122,7 +125,7 @@ public final class DescendantAxis extends AbsAxis {
         }
 
         // Then follow right sibling on stack.
-        if (mRightSiblingKeyStack.size() > 0) {
+        if (!mRightSiblingKeyStack.isEmpty()) {
             mNextKey = mRightSiblingKeyStack.pop();
             return true;
         }
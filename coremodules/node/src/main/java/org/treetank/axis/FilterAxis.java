@@ -77,7 +77,7 @@ public class FilterAxis extends AbsAxis {
     public final boolean hasNext() {
         resetToLastKey();
         while (mAxis.hasNext()) {
-            mAxis.next();
+            mAxis.nextKey();
             boolean filterResult = true;
             for (final AbsFilter filter : mAxisFilter) {
                 filterResult = filterResult && filter.filter();
@@ -99,4 +99,13 @@ public class FilterAxis extends AbsAxis {
         return mAxis;
     }
 
+    /**
+     * Returns the filters applied to the inner axis.
+     * 
+     * @return the filters
+     */
+    public final AbsFilter[] getFilters() {
+        return mAxisFilter;
+    }
+
 }
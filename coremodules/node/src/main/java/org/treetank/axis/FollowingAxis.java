@@ -27,11 +27,11 @@
 
 package org.treetank.axis;
 
-import java.util.Stack;
 
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.IConstants;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.utils.LongStack;
 
 /**
  * <h1>FollowingAxis</h1>
@@ -44,7 +44,7 @@ public class FollowingAxis extends AbsAxis {
 
     private boolean mIsFirst;
 
-    private Stack<Long> mRightSiblingStack;
+    private LongStack mRightSiblingStack;
 
     /**
      * Constructor initializing internal state.
@@ -56,7 +56,6 @@ public class FollowingAxis extends AbsAxis {
 
         super(rtx);
         mIsFirst = true;
-        mRightSiblingStack = new Stack<Long>();
 
     }
 
@@ -68,7 +67,11 @@ public class FollowingAxis extends AbsAxis {
 
         super.reset(mNodeKey);
         mIsFirst = true;
-        mRightSiblingStack = new Stack<Long>();
+        if (mRightSiblingStack == null) {
+            mRightSiblingStack = new LongStack();
+        } else {
+            mRightSiblingStack.clear();
+        }
 
     }
 
@@ -130,7 +133,7 @@ public class FollowingAxis extends AbsAxis {
 
             return true;
         }
-        if (mRightSiblingStack.empty()) {
+        if (mRightSiblingStack.isEmpty()) {
 
             // Try to find the right sibling of one of the ancestors.
             while (getNode().hasParent()) {
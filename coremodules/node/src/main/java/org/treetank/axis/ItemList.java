@@ -102,6 +102,26 @@ public final class ItemList {
         return mList.get(index);
     }
 
+    /**
+     * Getting the number of items in this list.
+     * 
+     * @return the number of items
+     */
+    public int size() {
+        return mList.size();
+    }
+
+    /**
+     * Removing all items added after the list had the given size. The keys of the remaining items stay
+     * valid.
+     * 
+     * @param pSize
+     *            the number of items to keep
+     */
+    public void truncate(final int pSize) {
+        mList.subList(pSize, mList.size()).clear();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -28,12 +28,10 @@ package org.treetank.axis;
 
 import static org.treetank.data.IConstants.NULL_NODE;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.AtomicValue;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.utils.LongQueue;
 
 /**
  * Iterates over {@link AtomicValue}s in a breath first traversal.
@@ -43,8 +41,8 @@ import org.treetank.data.interfaces.ITreeStructData;
  */
 public final class LevelOrderAxis extends AbsAxis {
 
-    /** {@link List} for remembering next nodeKey in document order. */
-    private List<Long> mFirstChildKeyList;
+    /** {@link LongQueue} for remembering next nodeKey in level order. */
+    private LongQueue mFirstChildKeyList;
 
     /** The nodeKey of the next node to visit. */
     private long mNextKey;
@@ -77,7 +75,11 @@ public final class LevelOrderAxis extends AbsAxis {
     @Override
     public void reset(final long paramNodeKey) {
         super.reset(paramNodeKey);
-        mFirstChildKeyList = new LinkedList<Long>();
+        if (mFirstChildKeyList == null) {
+            mFirstChildKeyList = new LongQueue();
+        } else {
+            mFirstChildKeyList.clear();
+        }
         if (isSelfIncluded()) {
             mNextKey = getNode().getDataKey();
         } else {
@@ -115,8 +117,8 @@ public final class LevelOrderAxis extends AbsAxis {
         }
 
         // Then follow first child on stack.
-        if (mFirstChildKeyList.size() > 0) {
-            mNextKey = mFirstChildKeyList.remove(0);
+        if (!mFirstChildKeyList.isEmpty()) {
+            mNextKey = mFirstChildKeyList.poll();
             return true;
         }
 
@@ -88,7 +88,7 @@ public class NestedAxis extends AbsAxis {
         if (mIsFirst) {
             mIsFirst = false;
             if (mParentAxis.hasNext()) {
-                mChildAxis.reset(mParentAxis.next());
+                mChildAxis.resetContext(mParentAxis.next());
             } else {
                 resetToStartKey();
                 return false;
@@ -99,13 +99,13 @@ public class NestedAxis extends AbsAxis {
         boolean hasNext = false;
         while (!(hasNext = mChildAxis.hasNext())) {
             if (mParentAxis.hasNext()) {
-                mChildAxis.reset(mParentAxis.next());
+                mChildAxis.resetContext(mParentAxis.next());
             } else {
                 break;
             }
         }
         if (hasNext) {
-            mChildAxis.next();
+            mChildAxis.nextKey();
             return true;
         }
 
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.axis;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.treetank.access.PathSummary;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>PathSummaryAxis</h1>
+ * 
+ * <p>
+ * Iterate over all elements reached by a location path of child and descendant name tests starting at the
+ * document root, e.g. <code>/a//b/c</code>, by looking up the keys in the {@link PathSummary} instead of
+ * traversing the tree. The elements are returned in document order, also after elements have been inserted
+ * in front of existing ones, see {@link PathSummary#getKeys(int[], boolean[])}.
+ * </p>
+ */
+public class PathSummaryAxis extends AbsAxis {
+
+    /** Transaction to look up the summary for. */
+    private final INodeReadTrx mRtx;
+
+    /** Name keys of the steps. */
+    private final int[] mNameKeys;
+
+    /** Descendant (true) or child (false) steps. */
+    private final boolean[] mDescendant;
+
+    /** Keys of the matching elements, null if not looked up yet. */
+    private long[] mKeys;
+
+    /** Index of the next key. */
+    private int mIndex;
+
+    /**
+     * Constructor initializing internal state.
+     * 
+     * @param rtx
+     *            Exclusive (immutable) trx to iterate with, the resource must maintain a
+     *            {@link PathSummary}.
+     * @param pNameKeys
+     *            name keys of the steps
+     * @param pDescendant
+     *            for each step, true if it is a descendant step, false if it is a child step
+     */
+    public PathSummaryAxis(final INodeReadTrx rtx, final int[] pNameKeys, final boolean[] pDescendant) {
+        super(rtx);
+        checkArgument(pNameKeys.length == pDescendant.length, "Each step must have a name key.");
+        mRtx = rtx;
+        mNameKeys = pNameKeys;
+        mDescendant = pDescendant;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void reset(final long mNodeKey) {
+        super.reset(mNodeKey);
+        mKeys = null;
+        mIndex = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean hasNext() {
+        resetToLastKey();
+        if (mKeys == null) {
+            try {
+                mKeys = PathSummary.getSummary(mRtx).getKeys(mNameKeys, mDescendant);
+            } catch (final TTIOException exc) {
+                throw new RuntimeException(exc);
+            }
+        }
+        if (mIndex < mKeys.length) {
+            moveTo(mKeys[mIndex++]);
+            return true;
+        } else {
+            resetToStartKey();
+            return false;
+        }
+    }
+
+}
@@ -29,10 +29,9 @@ package org.treetank.axis;
 
 import static org.treetank.data.IConstants.NULL_NODE;
 
-import java.util.Stack;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.utils.LongStack;
 
 /**
  * <h1>PostOrder</h1>
@@ -44,7 +43,7 @@ import org.treetank.data.interfaces.ITreeStructData;
 public class PostOrderAxis extends AbsAxis {
 
     /** For remembering last parent. */
-    private Stack<Long> mLastParent;
+    private LongStack mLastParent;
 
     /** The nodeKey of the next node to visit. */
     private long mNextKey;
@@ -65,7 +64,11 @@ public class PostOrderAxis extends AbsAxis {
     @Override
     public final void reset(final long mNodeKey) {
         super.reset(mNodeKey);
-        mLastParent = new Stack<Long>();
+        if (mLastParent == null) {
+            mLastParent = new LongStack();
+        } else {
+            mLastParent.clear();
+        }
         mLastParent.push(NULL_NODE);
         mNextKey = mNodeKey;
     }
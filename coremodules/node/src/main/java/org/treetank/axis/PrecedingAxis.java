@@ -27,11 +27,11 @@
 
 package org.treetank.axis;
 
-import java.util.Stack;
 
 import org.treetank.api.INodeReadTrx;
 import org.treetank.data.IConstants;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.utils.LongStack;
 
 /**
  * <h1>PrecedingAxis</h1>
@@ -44,7 +44,7 @@ public class PrecedingAxis extends AbsAxis {
 
     private boolean mIsFirst;
 
-    private Stack<Long> mStack;
+    private LongStack mStack;
 
     /**
      * Constructor initializing internal state.
@@ -56,7 +56,6 @@ public class PrecedingAxis extends AbsAxis {
 
         super(rtx);
         mIsFirst = true;
-        mStack = new Stack<Long>();
 
     }
 
@@ -68,7 +67,11 @@ public class PrecedingAxis extends AbsAxis {
 
         super.reset(mNodeKey);
         mIsFirst = true;
-        mStack = new Stack<Long>();
+        if (mStack == null) {
+            mStack = new LongStack();
+        } else {
+            mStack.clear();
+        }
 
     }
 
@@ -92,7 +95,7 @@ public class PrecedingAxis extends AbsAxis {
 
         resetToLastKey();
 
-        if (!mStack.empty()) {
+        if (!mStack.isEmpty()) {
             // return all nodes of the current subtree in reverse document order
             moveTo(mStack.pop());
             return true;
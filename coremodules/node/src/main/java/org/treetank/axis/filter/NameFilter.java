@@ -69,4 +69,13 @@ public class NameFilter extends AbsFilter {
         }
         return returnVal;
     }
+    /**
+     * Getting the key of the name to test.
+     * 
+     * @return the name key
+     */
+    public final int getNameKey() {
+        return mLocalPartKey;
+    }
+
 }
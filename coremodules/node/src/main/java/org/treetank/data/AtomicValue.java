@@ -30,7 +30,11 @@ package org.treetank.data;
 import static com.google.common.base.Objects.toStringHelper;
 import static org.treetank.data.IConstants.NULL_NODE;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataOutput;
+import java.io.InputStream;
+
+import org.treetank.api.IBucketReadTrx;
 
 import org.treetank.data.interfaces.ITreeData;
 import org.treetank.data.interfaces.ITreeValData;
@@ -297,6 +301,39 @@ public class AtomicValue implements ITreeData, ITreeValData {
         mValue = paramVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStream() {
+        return new ByteArrayInputStream(mValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValueChunkKey() {
+        return NULL_NODE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValueChunks(long pChunkKey, int pLength, int pValueHash) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicValue bindValueSource(IBucketReadTrx pSource) {
+        // atomic values are always stored inline
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -31,7 +31,9 @@ import static com.google.common.base.Objects.toStringHelper;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.treetank.api.IBucketReadTrx;
 import org.treetank.data.delegates.NameNodeDelegate;
 import org.treetank.data.delegates.NodeDelegate;
 import org.treetank.data.delegates.StructNodeDelegate;
@@ -242,6 +244,41 @@ public final class AttributeNode implements ITreeData, ITreeValData, ITreeNameDa
         mValDel.setValue(pVal);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStream() {
+        return mValDel.getValueStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValueChunkKey() {
+        return mValDel.getValueChunkKey();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValueChunks(final long pChunkKey, final int pLength, final int pValueHash) {
+        mValDel.setValueChunks(pChunkKey, pLength, pValueHash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AttributeNode bindValueSource(final IBucketReadTrx pSource) {
+        if (mValDel.getValueChunkKey() == IConstants.NULL_NODE) {
+            return this;
+        }
+        return new AttributeNode(mDel, mNameDel, mValDel.bindValueSource(pSource));
+    }
+
     /**
      * Getting the inlying {@link NodeDelegate}.
      * 
@@ -253,6 +253,62 @@ public final class DocumentRootNode implements ITreeData, ITreeStructData {
         mStrucDel.incrementChildCount();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDescendantCount() {
+        return mStrucDel.getDescendantCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDescendantCount(final long pDescendantCount) {
+        mStrucDel.setDescendantCount(pDescendantCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLevel() {
+        return mStrucDel.getLevel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLevel(final long pLevel) {
+        mStrucDel.setLevel(pLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOrderLabel() {
+        return mStrucDel.getOrderLabel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIndexed() {
+        return mStrucDel.isIndexed();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOrderLabel(final long pOrderLabel) {
+        mStrucDel.setOrderLabel(pOrderLabel);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -283,7 +339,8 @@ public final class DocumentRootNode implements ITreeData, ITreeStructData {
     @Override
     public void serialize(final DataOutput pOutput) throws TTIOException {
         try {
-            pOutput.writeInt(IConstants.ROOT);
+            pOutput.writeInt(mStrucDel.isIndexed() ? IConstants.ROOT | IConstants.STRUCT_INDEXED
+                : IConstants.ROOT);
             mDel.serialize(pOutput);
             mStrucDel.serialize(pOutput);
         } catch (final IOException exc) {
@@ -390,6 +390,62 @@ public final class ElementNode implements ITreeData, ITreeStructData, ITreeNameD
         mStrucDel.incrementChildCount();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDescendantCount() {
+        return mStrucDel.getDescendantCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDescendantCount(final long pDescendantCount) {
+        mStrucDel.setDescendantCount(pDescendantCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLevel() {
+        return mStrucDel.getLevel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLevel(final long pLevel) {
+        mStrucDel.setLevel(pLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOrderLabel() {
+        return mStrucDel.getOrderLabel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIndexed() {
+        return mStrucDel.isIndexed();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOrderLabel(final long pOrderLabel) {
+        mStrucDel.setOrderLabel(pOrderLabel);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -429,7 +485,8 @@ public final class ElementNode implements ITreeData, ITreeStructData, ITreeNameD
     @Override
     public void serialize(final DataOutput pOutput) throws TTIOException {
         try {
-            pOutput.writeInt(IConstants.ELEMENT);
+            pOutput.writeInt(mStrucDel.isIndexed() ? IConstants.ELEMENT | IConstants.STRUCT_INDEXED
+                : IConstants.ELEMENT);
             mDel.serialize(pOutput);
             mStrucDel.serialize(pOutput);
             mNameDel.serialize(pOutput);
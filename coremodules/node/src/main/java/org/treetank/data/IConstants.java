@@ -29,6 +29,15 @@ public interface IConstants {
     public final static int COMMENT = 8;
     public final static int ROOT = 9;
     public final static int NAMESPACE = 13;
+    public final static int VALUECHUNK = 14;
+    public final static int VALUEINDEX = 15;
+    public final static int PATHSUMMARY = 16;
+    public final static int PATHSUMMARYKEYS = 17;
+    /**
+     * Flag added to the serialized kind of structural nodes which persist descendant count, level and
+     * order label.
+     */
+    public final static int STRUCT_INDEXED = 1 << 8;
 
     // --- Fixed Key Nodes
     // ----------------------------------------------------------
@@ -37,9 +46,24 @@ public interface IConstants {
     /** Static to determine key for null node. */
     public static final long NULL_NODE = -1;
 
+    // --- Value Storage
+    // ----------------------------------------------------------
+    /** Values longer than this are stored in chained {@link ValueChunk}s. */
+    public static final int VALUE_INLINE_LIMIT = 4096;
+    /** Maximal number of bytes per {@link ValueChunk}. */
+    public static final int VALUE_CHUNK_SIZE = 65536;
+    /**
+     * First key of the range value chunks and index data are allocated from, disjoint from the keys of the
+     * nodes. Data keys address up to 2^42 data, the upper half is left to the chunks and indexes.
+     */
+    public static final long VALUE_CHUNK_KEYS = 1L << 41;
+
     /** Hashing function for nodes. */
     public static final HashFunction HF = Hashing.md5();
 
+    /** Prime for rolling hashes, the hash of a subtree adds the hashes of the children multiplied by it. */
+    public static final int HASH_PRIME = 77081;
+
     /** Static type key for normal txpes. */
     public static final int TYPE_KEY = NamePageHash.generateHashForString("xs:untyped");
 
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.data;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.treetank.api.IData;
+import org.treetank.exception.TTIOException;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+/**
+ * <h1>PathSummaryKeys</h1>
+ * 
+ * <p>
+ * Chunk of the ascending keys of the elements reachable over one {@link PathSummaryPath}. The keys of a
+ * path are split into chunks covering disjoint key ranges, so a change of the path only rewrites the chunk
+ * holding the changed key instead of all keys of the path.
+ * </p>
+ */
+public final class PathSummaryKeys implements IData {
+
+    /**
+     * Enum for PathSummaryKeysFunnel.
+     * 
+     * @author Sebastian Graf, University of Konstanz
+     * 
+     */
+    enum PathSummaryKeysFunnel implements Funnel<IData> {
+        INSTANCE;
+        public void funnel(IData data, PrimitiveSink into) {
+            final PathSummaryKeys from = (PathSummaryKeys)data;
+            into.putLong(from.mDataKey);
+            for (final long key : from.mKeys) {
+                into.putLong(key);
+            }
+        }
+    }
+
+    /** Key of this chunk. */
+    private final long mDataKey;
+
+    /** Keys of the elements, ascending. */
+    private final long[] mKeys;
+
+    /**
+     * Constructor.
+     * 
+     * @param pDataKey
+     *            key of this chunk
+     * @param pKeys
+     *            keys of the elements, ascending
+     */
+    public PathSummaryKeys(final long pDataKey, final long[] pKeys) {
+        mDataKey = pDataKey;
+        mKeys = pKeys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDataKey() {
+        return mDataKey;
+    }
+
+    /**
+     * Getting the keys of the elements in this chunk.
+     * 
+     * @return the keys in ascending order
+     */
+    public long[] getKeys() {
+        return mKeys;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialize(final DataOutput pOutput) throws TTIOException {
+        try {
+            pOutput.writeInt(IConstants.PATHSUMMARYKEYS);
+            pOutput.writeLong(mDataKey);
+            pOutput.writeInt(mKeys.length);
+            for (final long key : mKeys) {
+                pOutput.writeLong(key);
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Funnel<IData> getFunnel() {
+        return PathSummaryKeysFunnel.INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("mDataKey", mDataKey).add("mKeys", mKeys.length).toString();
+    }
+
+}
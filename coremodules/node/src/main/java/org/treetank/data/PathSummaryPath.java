@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.data;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.treetank.api.IData;
+import org.treetank.exception.TTIOException;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+/**
+ * <h1>PathSummaryPath</h1>
+ * 
+ * <p>
+ * One label path of the persisted path summary of a resource. The path references the paths extending it
+ * by one step together with their name keys and the {@link PathSummaryKeys} chunks holding the ascending
+ * keys of the elements reachable over it, together with the smallest key of each chunk. The paths and
+ * chunks are allocated from the key range of the value chunks, hence they end up in buckets of their own,
+ * which are versioned like all other buckets.
+ * </p>
+ */
+public final class PathSummaryPath implements IData {
+
+    /**
+     * Enum for PathSummaryPathFunnel.
+     * 
+     * @author Sebastian Graf, University of Konstanz
+     * 
+     */
+    enum PathSummaryPathFunnel implements Funnel<IData> {
+        INSTANCE;
+        public void funnel(IData data, PrimitiveSink into) {
+            final PathSummaryPath from = (PathSummaryPath)data;
+            into.putLong(from.mDataKey).putInt(from.mNameKey);
+            for (int i = 0; i < from.mChildNames.length; i++) {
+                into.putInt(from.mChildNames[i]).putLong(from.mChildKeys[i]);
+            }
+            for (int i = 0; i < from.mChunkKeys.length; i++) {
+                into.putLong(from.mChunkKeys[i]).putLong(from.mChunkLows[i]);
+            }
+        }
+    }
+
+    /** Key of this path. */
+    private final long mDataKey;
+
+    /** Name key of the last step, 0 for the document root. */
+    private final int mNameKey;
+
+    /** Name keys of the paths extending this one. */
+    private final int[] mChildNames;
+
+    /** Keys of the paths extending this one. */
+    private final long[] mChildKeys;
+
+    /** Keys of the chunks holding the keys of the elements on this path, in ascending key ranges. */
+    private final long[] mChunkKeys;
+
+    /** Smallest element key of each chunk. */
+    private final long[] mChunkLows;
+
+    /**
+     * Constructor.
+     * 
+     * @param pDataKey
+     *            key of this path
+     * @param pNameKey
+     *            name key of the last step
+     * @param pChildNames
+     *            name keys of the paths extending this one
+     * @param pChildKeys
+     *            keys of the paths extending this one
+     * @param pChunkKeys
+     *            keys of the chunks holding the element keys, in ascending key ranges
+     * @param pChunkLows
+     *            smallest element key of each chunk
+     */
+    public PathSummaryPath(final long pDataKey, final int pNameKey, final int[] pChildNames,
+        final long[] pChildKeys, final long[] pChunkKeys, final long[] pChunkLows) {
+        mDataKey = pDataKey;
+        mNameKey = pNameKey;
+        mChildNames = pChildNames;
+        mChildKeys = pChildKeys;
+        mChunkKeys = pChunkKeys;
+        mChunkLows = pChunkLows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDataKey() {
+        return mDataKey;
+    }
+
+    /**
+     * Getting the name key of the last step.
+     * 
+     * @return the name key, 0 for the document root
+     */
+    public int getNameKey() {
+        return mNameKey;
+    }
+
+    /**
+     * Getting the name keys of the paths extending this one.
+     * 
+     * @return the name keys, in the order of {@link #getChildKeys()}
+     */
+    public int[] getChildNames() {
+        return mChildNames;
+    }
+
+    /**
+     * Getting the keys of the paths extending this one.
+     * 
+     * @return the keys of the paths
+     */
+    public long[] getChildKeys() {
+        return mChildKeys;
+    }
+
+    /**
+     * Getting the keys of the chunks holding the keys of the elements on this path.
+     * 
+     * @return the keys of the chunks, in ascending key ranges
+     */
+    public long[] getChunkKeys() {
+        return mChunkKeys;
+    }
+
+    /**
+     * Getting the smallest element key of each chunk.
+     * 
+     * @return the smallest keys, in the order of {@link #getChunkKeys()}
+     */
+    public long[] getChunkLows() {
+        return mChunkLows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialize(final DataOutput pOutput) throws TTIOException {
+        try {
+            pOutput.writeInt(IConstants.PATHSUMMARY);
+            pOutput.writeLong(mDataKey);
+            pOutput.writeInt(mNameKey);
+            pOutput.writeInt(mChildNames.length);
+            for (int i = 0; i < mChildNames.length; i++) {
+                pOutput.writeInt(mChildNames[i]);
+                pOutput.writeLong(mChildKeys[i]);
+            }
+            pOutput.writeInt(mChunkKeys.length);
+            for (int i = 0; i < mChunkKeys.length; i++) {
+                pOutput.writeLong(mChunkKeys[i]);
+                pOutput.writeLong(mChunkLows[i]);
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Funnel<IData> getFunnel() {
+        return PathSummaryPathFunnel.INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("mDataKey", mDataKey).add("mNameKey", mNameKey).add("mChildren",
+            mChildKeys.length).add("mChunks", mChunkKeys.length).toString();
+    }
+
+}
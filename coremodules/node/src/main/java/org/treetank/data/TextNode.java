@@ -31,7 +31,9 @@ import static com.google.common.base.Objects.toStringHelper;
 
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.treetank.api.IBucketReadTrx;
 import org.treetank.data.delegates.NodeDelegate;
 import org.treetank.data.delegates.StructNodeDelegate;
 import org.treetank.data.delegates.ValNodeDelegate;
@@ -117,6 +119,41 @@ public final class TextNode implements ITreeStructData, ITreeValData, ITreeData
         mValDel.setValue(pVal);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStream() {
+        return mValDel.getValueStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValueChunkKey() {
+        return mValDel.getValueChunkKey();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValueChunks(final long pChunkKey, final int pLength, final int pValueHash) {
+        mValDel.setValueChunks(pChunkKey, pLength, pValueHash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TextNode bindValueSource(final IBucketReadTrx pSource) {
+        if (mValDel.getValueChunkKey() == IConstants.NULL_NODE) {
+            return this;
+        }
+        return new TextNode(mDel, mStrucDel, mValDel.bindValueSource(pSource));
+    }
+
     /** {@inheritDoc} */
     @Override
     public long getFirstChildKey() {
@@ -275,6 +312,62 @@ public final class TextNode implements ITreeStructData, ITreeValData, ITreeData
         mStrucDel.incrementChildCount();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDescendantCount() {
+        return mStrucDel.getDescendantCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDescendantCount(final long pDescendantCount) {
+        mStrucDel.setDescendantCount(pDescendantCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLevel() {
+        return mStrucDel.getLevel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLevel(final long pLevel) {
+        mStrucDel.setLevel(pLevel);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOrderLabel() {
+        return mStrucDel.getOrderLabel();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIndexed() {
+        return mStrucDel.isIndexed();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOrderLabel(final long pOrderLabel) {
+        mStrucDel.setOrderLabel(pOrderLabel);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -290,7 +383,8 @@ public final class TextNode implements ITreeStructData, ITreeValData, ITreeData
     @Override
     public void serialize(final DataOutput pOutput) throws TTIOException {
         try {
-            pOutput.writeInt(IConstants.TEXT);
+            pOutput.writeInt(mStrucDel.isIndexed() ? IConstants.TEXT | IConstants.STRUCT_INDEXED
+                : IConstants.TEXT);
             mDel.serialize(pOutput);
             mStrucDel.serialize(pOutput);
             mValDel.serialize(pOutput);
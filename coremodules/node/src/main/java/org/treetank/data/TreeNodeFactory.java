@@ -32,7 +32,12 @@ public class TreeNodeFactory implements IDataFactory {
     @Override
     public IData deserializeData(DataInput input) throws TTIOException {
         try {
-            final int kind = input.readInt();
+            int kind = input.readInt();
+            boolean indexed = false;
+            if (kind > 0 && (kind & IConstants.STRUCT_INDEXED) != 0) {
+                kind &= ~IConstants.STRUCT_INDEXED;
+                indexed = true;
+            }
 
             NodeDelegate nodeDel;
             StructNodeDelegate strucDel;
@@ -43,9 +48,7 @@ public class TreeNodeFactory implements IDataFactory {
             switch (kind) {
             case IConstants.ELEMENT:
                 nodeDel = new NodeDelegate(input.readLong(), input.readLong(), input.readLong());
-                strucDel =
-                    new StructNodeDelegate(nodeDel, input.readLong(), input.readLong(), input.readLong(),
-                        input.readLong());
+                strucDel = deserializeStruct(nodeDel, input, indexed);
                 nameDel = new NameNodeDelegate(nodeDel, input.readInt(), input.readInt());
 
                 final List<Long> attrKeys = new ArrayList<Long>();
@@ -67,22 +70,16 @@ public class TreeNodeFactory implements IDataFactory {
                 break;
             case IConstants.TEXT:
                 nodeDel = new NodeDelegate(input.readLong(), input.readLong(), input.readLong());
-                // Struct Node are 4*8 bytes (+4 (kind) + 24 (nodedel))
-                strucDel =
-                    new StructNodeDelegate(nodeDel, input.readLong(), input.readLong(), input.readLong(),
-                        input.readLong());
+                // Struct Node are 4*8 bytes, 7*8 if indexed (+4 (kind) + 24 (nodedel))
+                strucDel = deserializeStruct(nodeDel, input, indexed);
                 // Val is the rest
-                byte[] rawValText = new byte[input.readInt()];
-                input.readFully(rawValText);
-                valDel = new ValNodeDelegate(nodeDel, rawValText);
+                valDel = deserializeValDelegate(nodeDel, input);
                 returnVal = new TextNode(nodeDel, strucDel, valDel);
                 break;
             case IConstants.ROOT:
                 nodeDel = new NodeDelegate(input.readLong(), input.readLong(), input.readLong());
-                // Struct Node are 4*8 bytes
-                strucDel =
-                    new StructNodeDelegate(nodeDel, input.readLong(), input.readLong(), input.readLong(),
-                        input.readLong());
+                // Struct Node are 4*8 bytes, 7*8 if indexed
+                strucDel = deserializeStruct(nodeDel, input, indexed);
                 returnVal = new DocumentRootNode(nodeDel, strucDel);
                 break;
             case IConstants.ATTRIBUTE:
@@ -90,9 +87,7 @@ public class TreeNodeFactory implements IDataFactory {
                 // Name Node are 2*4 bytes (+4 (kind) + 24 (nodedel))
                 nameDel = new NameNodeDelegate(nodeDel, input.readInt(), input.readInt());
                 // Val is the rest
-                byte[] rawValAttr = new byte[input.readInt()];
-                input.readFully(rawValAttr);
-                valDel = new ValNodeDelegate(nodeDel, rawValAttr);
+                valDel = deserializeValDelegate(nodeDel, input);
                 returnVal = new AttributeNode(nodeDel, nameDel, valDel);
                 break;
             case IConstants.NAMESPACE:
@@ -101,6 +96,55 @@ public class TreeNodeFactory implements IDataFactory {
                 nameDel = new NameNodeDelegate(nodeDel, input.readInt(), input.readInt());
                 returnVal = new NamespaceNode(nodeDel, nameDel);
                 break;
+            case IConstants.VALUECHUNK:
+                final long chunkKey = input.readLong();
+                final long nextKey = input.readLong();
+                final byte[] chunk = new byte[input.readInt()];
+                input.readFully(chunk);
+                returnVal = new ValueChunk(chunkKey, nextKey, chunk);
+                break;
+            case IConstants.VALUEINDEX:
+                final long indexKey = input.readLong();
+                final boolean leaf = input.readBoolean();
+                final long nextLeaf = input.readLong();
+                final int[] hashes = new int[input.readInt()];
+                final long[] keys = new long[hashes.length];
+                final long[] children = leaf ? null : new long[hashes.length];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = input.readInt();
+                    keys[i] = input.readLong();
+                    if (!leaf) {
+                        children[i] = input.readLong();
+                    }
+                }
+                returnVal = new ValueIndexNode(indexKey, hashes, keys, children, nextLeaf);
+                break;
+            case IConstants.PATHSUMMARY:
+                final long pathKey = input.readLong();
+                final int pathName = input.readInt();
+                final int[] childNames = new int[input.readInt()];
+                final long[] childKeys = new long[childNames.length];
+                for (int i = 0; i < childNames.length; i++) {
+                    childNames[i] = input.readInt();
+                    childKeys[i] = input.readLong();
+                }
+                final long[] chunkKeys = new long[input.readInt()];
+                final long[] chunkLows = new long[chunkKeys.length];
+                for (int i = 0; i < chunkKeys.length; i++) {
+                    chunkKeys[i] = input.readLong();
+                    chunkLows[i] = input.readLong();
+                }
+                returnVal =
+                    new PathSummaryPath(pathKey, pathName, childNames, childKeys, chunkKeys, chunkLows);
+                break;
+            case IConstants.PATHSUMMARYKEYS:
+                final long keysKey = input.readLong();
+                final long[] elementKeys = new long[input.readInt()];
+                for (int i = 0; i < elementKeys.length; i++) {
+                    elementKeys[i] = input.readLong();
+                }
+                returnVal = new PathSummaryKeys(keysKey, elementKeys);
+                break;
             case org.treetank.bucket.IConstants.DELETEDDATA:
                 returnVal = new DeletedData(input.readLong());
                 break;
@@ -114,4 +158,50 @@ public class TreeNodeFactory implements IDataFactory {
         }
     }
 
+    /**
+     * Deserializing a {@link StructNodeDelegate}, including the structural index if persisted.
+     * 
+     * @param pNodeDel
+     *            the common data
+     * @param pInput
+     *            to read from
+     * @param pIndexed
+     *            if descendant count, level and order label follow the pointers
+     * @return the deserialized delegate
+     * @throws IOException
+     */
+    private static StructNodeDelegate deserializeStruct(final NodeDelegate pNodeDel, final DataInput pInput,
+        final boolean pIndexed) throws IOException {
+        if (pIndexed) {
+            return new StructNodeDelegate(pNodeDel, pInput.readLong(), pInput.readLong(), pInput.readLong(),
+                pInput.readLong(), pInput.readLong(), pInput.readLong(), pInput.readLong());
+        } else {
+            return new StructNodeDelegate(pNodeDel, pInput.readLong(), pInput.readLong(), pInput.readLong(),
+                pInput.readLong());
+        }
+    }
+
+    /**
+     * Deserializing a {@link ValNodeDelegate}, either with an inline value or referencing the chunks of the
+     * value.
+     * 
+     * @param pNodeDel
+     *            the common data
+     * @param pInput
+     *            to read from
+     * @return the deserialized delegate
+     * @throws IOException
+     */
+    private static ValNodeDelegate deserializeValDelegate(final NodeDelegate pNodeDel, final DataInput pInput)
+        throws IOException {
+        final int length = pInput.readInt();
+        if (length < 0) {
+            return new ValNodeDelegate(pNodeDel, pInput.readLong(), pInput.readInt(), pInput.readInt());
+        } else {
+            final byte[] rawVal = new byte[length];
+            pInput.readFully(rawVal);
+            return new ValNodeDelegate(pNodeDel, rawVal);
+        }
+    }
+
 }
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.data;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.treetank.api.IData;
+import org.treetank.exception.TTIOException;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+/**
+ * <h1>ValueChunk</h1>
+ * 
+ * <p>
+ * Part of a value too large to be stored inline within its {@link TextNode} or {@link AttributeNode}. The
+ * chunks of one value get consecutive data keys and are chained over their next keys, the owning node
+ * only references the first chunk. Large values thereby end up in buckets of their own and are not copied
+ * with every modification of the surrounding nodes.
+ * </p>
+ */
+public final class ValueChunk implements IData {
+
+    /**
+     * Enum for ValueChunkFunnel.
+     * 
+     * @author Sebastian Graf, University of Konstanz
+     * 
+     */
+    enum ValueChunkFunnel implements Funnel<IData> {
+        INSTANCE;
+        public void funnel(IData data, PrimitiveSink into) {
+            final ValueChunk from = (ValueChunk)data;
+            into.putLong(from.mDataKey).putLong(from.mNextKey).putBytes(from.mData);
+        }
+    }
+
+    /** Key of this chunk. */
+    private final long mDataKey;
+
+    /** Key of the next chunk of the same value, {@link IConstants#NULL_NODE} if this is the last one. */
+    private final long mNextKey;
+
+    /** Content of this chunk. */
+    private final byte[] mData;
+
+    /**
+     * Constructor.
+     * 
+     * @param pDataKey
+     *            key of this chunk
+     * @param pNextKey
+     *            key of the next chunk, {@link IConstants#NULL_NODE} if none
+     * @param pData
+     *            content of this chunk
+     */
+    public ValueChunk(final long pDataKey, final long pNextKey, final byte[] pData) {
+        mDataKey = pDataKey;
+        mNextKey = pNextKey;
+        mData = pData;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDataKey() {
+        return mDataKey;
+    }
+
+    /**
+     * Getting the key of the next chunk.
+     * 
+     * @return the next key, {@link IConstants#NULL_NODE} if this is the last chunk
+     */
+    public long getNextKey() {
+        return mNextKey;
+    }
+
+    /**
+     * Getting the content of this chunk.
+     * 
+     * @return the content
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialize(final DataOutput pOutput) throws TTIOException {
+        try {
+            pOutput.writeInt(IConstants.VALUECHUNK);
+            pOutput.writeLong(mDataKey);
+            pOutput.writeLong(mNextKey);
+            pOutput.writeInt(mData.length);
+            pOutput.write(mData);
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Funnel<IData> getFunnel() {
+        return ValueChunkFunnel.INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("mDataKey", mDataKey).add("mNextKey", mNextKey).add("mData.length",
+            mData.length).toString();
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.data;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.treetank.api.IBucketReadTrx;
+import org.treetank.exception.TTIOException;
+
+/**
+ * <h1>ValueChunkInputStream</h1>
+ * 
+ * <p>
+ * Stream over a value stored in chained {@link ValueChunk}s. Only the current chunk is held in memory, the
+ * next one is fetched from the bucket transaction as soon as the current one is consumed.
+ * </p>
+ */
+public final class ValueChunkInputStream extends InputStream {
+
+    /** Transaction to read the chunks from. */
+    private final IBucketReadTrx mTrx;
+
+    /** Key of the next chunk to fetch. */
+    private long mNextKey;
+
+    /** Content of the current chunk. */
+    private byte[] mCurrent;
+
+    /** Position within the current chunk. */
+    private int mPos;
+
+    /**
+     * Constructor.
+     * 
+     * @param pTrx
+     *            to read the chunks from
+     * @param pFirstKey
+     *            key of the first chunk
+     */
+    public ValueChunkInputStream(final IBucketReadTrx pTrx, final long pFirstKey) {
+        mTrx = pTrx;
+        mNextKey = pFirstKey;
+        mCurrent = new byte[0];
+        mPos = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return mCurrent[mPos++] & 0xff;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] pBuffer, final int pOffset, final int pLength) throws IOException {
+        if (pLength == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        final int length = Math.min(pLength, mCurrent.length - mPos);
+        System.arraycopy(mCurrent, mPos, pBuffer, pOffset, length);
+        mPos += length;
+        return length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() {
+        return mCurrent.length - mPos;
+    }
+
+    /**
+     * Fetching the next chunk if the current one is consumed.
+     * 
+     * @return true if there are bytes left, false if the end of the value is reached
+     * @throws IOException
+     *             if the chunk could not be read
+     */
+    private boolean ensureAvailable() throws IOException {
+        while (mPos == mCurrent.length) {
+            if (mNextKey == IConstants.NULL_NODE) {
+                return false;
+            }
+            try {
+                final ValueChunk chunk = (ValueChunk)mTrx.getData(mNextKey);
+                checkState(chunk != null, "Value chunk %s not existing.", mNextKey);
+                mCurrent = chunk.getData();
+                mNextKey = chunk.getNextKey();
+                mPos = 0;
+            } catch (final TTIOException exc) {
+                throw new IOException(exc);
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,382 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.data;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.treetank.api.IData;
+import org.treetank.exception.TTIOException;
+
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+
+/**
+ * <h1>ValueIndexNode</h1>
+ * 
+ * <p>
+ * One node of the B+-tree forming the secondary value index of a resource. The entries of the tree are
+ * pairs of the hash of a value and the key of the {@link TextNode} or {@link AttributeNode} carrying it,
+ * ordered by hash and key. A leaf holds the entries themselves and references the next leaf. An inner node
+ * holds the keys of its children together with the smallest entry of each child, the first entry only
+ * bounds the child at creation time and is not used for searching. The nodes are ordinary data and thereby
+ * versioned like all other buckets.
+ * </p>
+ */
+public final class ValueIndexNode implements IData {
+
+    /**
+     * Enum for ValueIndexNodeFunnel.
+     * 
+     * @author Sebastian Graf, University of Konstanz
+     * 
+     */
+    enum ValueIndexNodeFunnel implements Funnel<IData> {
+        INSTANCE;
+        public void funnel(IData data, PrimitiveSink into) {
+            final ValueIndexNode from = (ValueIndexNode)data;
+            into.putLong(from.mDataKey).putLong(from.mNextKey);
+            for (int i = 0; i < from.mSize; i++) {
+                into.putInt(from.mHashes[i]).putLong(from.mKeys[i]);
+                if (from.mChildren != null) {
+                    into.putLong(from.mChildren[i]);
+                }
+            }
+        }
+    }
+
+    /** Key of this node. */
+    private final long mDataKey;
+
+    /** Hashes of the entries, ascending. */
+    private int[] mHashes;
+
+    /** Keys of the entries, ascending per hash. */
+    private long[] mKeys;
+
+    /** Keys of the children, null for a leaf. */
+    private long[] mChildren;
+
+    /** Key of the next leaf, {@link IConstants#NULL_NODE} for the last leaf and for inner nodes. */
+    private long mNextKey;
+
+    /** Number of entries. */
+    private int mSize;
+
+    /**
+     * Constructor for an empty leaf.
+     * 
+     * @param pDataKey
+     *            key of this node
+     */
+    public ValueIndexNode(final long pDataKey) {
+        this(pDataKey, new int[0], new long[0], null, IConstants.NULL_NODE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param pDataKey
+     *            key of this node
+     * @param pHashes
+     *            hashes of the entries, ascending
+     * @param pKeys
+     *            keys of the entries, ascending per hash
+     * @param pChildren
+     *            keys of the children, null for a leaf
+     * @param pNextKey
+     *            key of the next leaf
+     */
+    public ValueIndexNode(final long pDataKey, final int[] pHashes, final long[] pKeys,
+        final long[] pChildren, final long pNextKey) {
+        mDataKey = pDataKey;
+        mHashes = pHashes;
+        mKeys = pKeys;
+        mChildren = pChildren;
+        mNextKey = pNextKey;
+        mSize = pHashes.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDataKey() {
+        return mDataKey;
+    }
+
+    /**
+     * Checking if this node is a leaf.
+     * 
+     * @return true if the node holds entries, false if it holds children
+     */
+    public boolean isLeaf() {
+        return mChildren == null;
+    }
+
+    /**
+     * Getting the number of entries, i.e. of children for an inner node.
+     * 
+     * @return the number of entries
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Getting the hash of an entry.
+     * 
+     * @param pIndex
+     *            index of the entry
+     * @return the hash
+     */
+    public int getHash(final int pIndex) {
+        return mHashes[pIndex];
+    }
+
+    /**
+     * Getting the key of an entry.
+     * 
+     * @param pIndex
+     *            index of the entry
+     * @return the key of the node carrying the value
+     */
+    public long getKey(final int pIndex) {
+        return mKeys[pIndex];
+    }
+
+    /**
+     * Getting the key of a child of an inner node.
+     * 
+     * @param pIndex
+     *            index of the child
+     * @return the key of the child
+     */
+    public long getChildKey(final int pIndex) {
+        return mChildren[pIndex];
+    }
+
+    /**
+     * Getting the key of the next leaf.
+     * 
+     * @return the key, {@link IConstants#NULL_NODE} if this is the last leaf
+     */
+    public long getNextKey() {
+        return mNextKey;
+    }
+
+    /**
+     * Searching the first entry not smaller than the given one.
+     * 
+     * @param pHash
+     *            hash of the entry
+     * @param pKey
+     *            key of the entry
+     * @return index of the entry or of the position it would be inserted at
+     */
+    public int find(final int pHash, final long pKey) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mHashes[mid] < pHash || mHashes[mid] == pHash && mKeys[mid] < pKey) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Searching the child of an inner node an entry belongs to.
+     * 
+     * @param pHash
+     *            hash of the entry
+     * @param pKey
+     *            key of the entry
+     * @return index of the last child whose smallest entry is not greater than the given one, 0 if none
+     */
+    public int findChild(final int pHash, final long pKey) {
+        final int index = find(pHash, pKey);
+        if (index < mSize && mHashes[index] == pHash && mKeys[index] == pKey) {
+            return index;
+        }
+        return Math.max(0, index - 1);
+    }
+
+    /**
+     * Adding an entry to a leaf if it is not contained yet.
+     * 
+     * @param pHash
+     *            hash of the value
+     * @param pKey
+     *            key of the node carrying the value
+     * @return true if the entry was added
+     */
+    public boolean add(final int pHash, final long pKey) {
+        final int index = find(pHash, pKey);
+        if (index < mSize && mHashes[index] == pHash && mKeys[index] == pKey) {
+            return false;
+        }
+        insert(index, pHash, pKey, IConstants.NULL_NODE);
+        return true;
+    }
+
+    /**
+     * Adding a child to an inner node.
+     * 
+     * @param pIndex
+     *            index of the new child
+     * @param pHash
+     *            hash of the smallest entry of the child
+     * @param pKey
+     *            key of the smallest entry of the child
+     * @param pChildKey
+     *            key of the child
+     */
+    public void addChild(final int pIndex, final int pHash, final long pKey, final long pChildKey) {
+        insert(pIndex, pHash, pKey, pChildKey);
+    }
+
+    /**
+     * Removing an entry from a leaf.
+     * 
+     * @param pHash
+     *            hash of the value
+     * @param pKey
+     *            key of the node carrying the value
+     * @return true if the entry was contained
+     */
+    public boolean remove(final int pHash, final long pKey) {
+        final int index = find(pHash, pKey);
+        if (index < mSize && mHashes[index] == pHash && mKeys[index] == pKey) {
+            System.arraycopy(mHashes, index + 1, mHashes, index, mSize - index - 1);
+            System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+            mSize--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moving the upper half of the entries to a new node following this one.
+     * 
+     * @param pDataKey
+     *            key of the new node
+     * @return the new node
+     */
+    public ValueIndexNode split(final long pDataKey) {
+        final int half = mSize / 2;
+        final long[] children = mChildren == null ? null : Arrays.copyOfRange(mChildren, half, mSize);
+        final ValueIndexNode right =
+            new ValueIndexNode(pDataKey, Arrays.copyOfRange(mHashes, half, mSize), Arrays.copyOfRange(mKeys,
+                half, mSize), children, mNextKey);
+        if (mChildren == null) {
+            mNextKey = pDataKey;
+        }
+        mSize = half;
+        return right;
+    }
+
+    /**
+     * Inserting an entry at a position.
+     * 
+     * @param pIndex
+     *            the position
+     * @param pHash
+     *            hash of the entry
+     * @param pKey
+     *            key of the entry
+     * @param pChildKey
+     *            key of the child, ignored for a leaf
+     */
+    private void insert(final int pIndex, final int pHash, final long pKey, final long pChildKey) {
+        if (mSize == mHashes.length) {
+            final int capacity = Math.max(4, mSize * 2);
+            mHashes = Arrays.copyOf(mHashes, capacity);
+            mKeys = Arrays.copyOf(mKeys, capacity);
+            if (mChildren != null) {
+                mChildren = Arrays.copyOf(mChildren, capacity);
+            }
+        }
+        System.arraycopy(mHashes, pIndex, mHashes, pIndex + 1, mSize - pIndex);
+        System.arraycopy(mKeys, pIndex, mKeys, pIndex + 1, mSize - pIndex);
+        mHashes[pIndex] = pHash;
+        mKeys[pIndex] = pKey;
+        if (mChildren != null) {
+            System.arraycopy(mChildren, pIndex, mChildren, pIndex + 1, mSize - pIndex);
+            mChildren[pIndex] = pChildKey;
+        }
+        mSize++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialize(final DataOutput pOutput) throws TTIOException {
+        try {
+            pOutput.writeInt(IConstants.VALUEINDEX);
+            pOutput.writeLong(mDataKey);
+            pOutput.writeBoolean(mChildren == null);
+            pOutput.writeLong(mNextKey);
+            pOutput.writeInt(mSize);
+            for (int i = 0; i < mSize; i++) {
+                pOutput.writeInt(mHashes[i]);
+                pOutput.writeLong(mKeys[i]);
+                if (mChildren != null) {
+                    pOutput.writeLong(mChildren[i]);
+                }
+            }
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Funnel<IData> getFunnel() {
+        return ValueIndexNodeFunnel.INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("mDataKey", mDataKey).add("mLeaf", mChildren == null).add("mSize",
+            mSize).add("mNextKey", mNextKey).toString();
+    }
+
+}
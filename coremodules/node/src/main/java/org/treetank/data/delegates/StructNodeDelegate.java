@@ -75,6 +75,14 @@ public class StructNodeDelegate implements ITreeStructData {
     private long mLeftSibling;
     /** Pointer to the number of children. */
     private long mChildCount;
+    /** Number of all descendants, only maintained if the structural index is enabled. */
+    private long mDescendantCount;
+    /** Depth of the node within the tree, only maintained if the structural index is enabled. */
+    private long mLevel;
+    /** Position in document order, only maintained if the structural index is enabled. */
+    private long mOrderLabel;
+    /** Whether descendant count, level and order label are maintained and persisted. */
+    private boolean mIndexed;
     /** Delegate for common node information. */
     private final NodeDelegate mDelegate;
 
@@ -101,6 +109,40 @@ public class StructNodeDelegate implements ITreeStructData {
         mChildCount = pChildCount;
     }
 
+    /**
+     * Constructor including the structural index.
+     * 
+     * @param pDel
+     *            to be set
+     * @param pFirstChild
+     *            to be set
+     * @param pRightSib
+     *            to be set
+     * @param pLeftSib
+     *            to be set
+     * @param pChildCount
+     *            to be set
+     * @param pDescendantCount
+     *            to be set
+     * @param pLevel
+     *            to be set
+     * @param pOrderLabel
+     *            to be set
+     */
+    public StructNodeDelegate(final NodeDelegate pDel, final long pFirstChild, final long pRightSib,
+        final long pLeftSib, final long pChildCount, final long pDescendantCount, final long pLevel,
+        final long pOrderLabel) {
+        mDelegate = pDel;
+        mFirstChild = pFirstChild;
+        mRightSibling = pRightSib;
+        mLeftSibling = pLeftSib;
+        mChildCount = pChildCount;
+        mDescendantCount = pDescendantCount;
+        mLevel = pLevel;
+        mOrderLabel = pOrderLabel;
+        mIndexed = true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -205,6 +247,67 @@ public class StructNodeDelegate implements ITreeStructData {
         mChildCount++;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDescendantCount() {
+        return mDescendantCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDescendantCount(final long pDescendantCount) {
+        mDescendantCount = pDescendantCount;
+        mIndexed = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLevel(final long pLevel) {
+        mLevel = pLevel;
+        mIndexed = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getOrderLabel() {
+        return mOrderLabel;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setOrderLabel(final long pOrderLabel) {
+        mOrderLabel = pOrderLabel;
+        mIndexed = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only indexed nodes persist these fields, nodes of resources without structural index keep their
+     * former serialized form.
+     */
+    @Override
+    public boolean isIndexed() {
+        return mIndexed;
+    }
+
     /**
      * Delegate method for getNodeKey.
      * 
@@ -308,6 +411,11 @@ public class StructNodeDelegate implements ITreeStructData {
             pOutput.writeLong(getRightSiblingKey());
             pOutput.writeLong(getLeftSiblingKey());
             pOutput.writeLong(getChildCount());
+            if (mIndexed) {
+                pOutput.writeLong(getDescendantCount());
+                pOutput.writeLong(getLevel());
+                pOutput.writeLong(getOrderLabel());
+            }
         } catch (final IOException exc) {
             throw new TTIOException(exc);
         }
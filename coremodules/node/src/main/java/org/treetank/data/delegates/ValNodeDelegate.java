@@ -28,11 +28,19 @@ package org.treetank.data.delegates;
 
 import static com.google.common.base.Objects.toStringHelper;
 
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.treetank.api.IBucketReadTrx;
 import org.treetank.api.IData;
 import org.treetank.data.IConstants;
+import org.treetank.data.ValueChunk;
+import org.treetank.data.ValueChunkInputStream;
 import org.treetank.data.interfaces.ITreeValData;
 import org.treetank.exception.TTIOException;
 
@@ -60,14 +68,26 @@ public class ValNodeDelegate implements ITreeValData {
         INSTANCE;
         public void funnel(org.treetank.api.IData data, PrimitiveSink into) {
             final ITreeValData from = (ITreeValData)data;
-            into.putBytes(from.getRawValue());
+            if (from.getValueChunkKey() == IConstants.NULL_NODE) {
+                into.putBytes(from.getRawValue());
+            } else {
+                into.putLong(from.getValueChunkKey());
+            }
         }
     }
 
     /** Delegate for common node information. */
     private NodeDelegate mDelegate;
-    /** Storing the value. */
+    /** Storing the value, null if the value is stored in chunks. */
     private byte[] mVal;
+    /** Key of the first chunk of the value, {@link IConstants#NULL_NODE} if stored inline. */
+    private long mChunkKey;
+    /** Length of a value stored in chunks. */
+    private int mLength;
+    /** Hash of a value stored in chunks. */
+    private int mValueHash;
+    /** Transaction to fetch the chunks from, only set on views for a reading transaction. */
+    private final IBucketReadTrx mSource;
 
     /**
      * Constructor
@@ -80,6 +100,41 @@ public class ValNodeDelegate implements ITreeValData {
     public ValNodeDelegate(final NodeDelegate pNodeDel, final byte[] pVal) {
         this.mDelegate = pNodeDel;
         mVal = pVal;
+        mChunkKey = IConstants.NULL_NODE;
+        mSource = null;
+    }
+
+    /**
+     * Constructor for values stored in chunks.
+     * 
+     * @param pNodeDel
+     *            the common data.
+     * @param pChunkKey
+     *            key of the first {@link ValueChunk}.
+     * @param pLength
+     *            length of the value.
+     * @param pValueHash
+     *            hash of the value.
+     */
+    public ValNodeDelegate(final NodeDelegate pNodeDel, final long pChunkKey, final int pLength,
+        final int pValueHash) {
+        this.mDelegate = pNodeDel;
+        setValueChunks(pChunkKey, pLength, pValueHash);
+        mSource = null;
+    }
+
+    /**
+     * Constructor for a view on a value stored in chunks, reading the chunks from the given transaction.
+     * 
+     * @param pOther
+     *            the delegate to view
+     * @param pSource
+     *            transaction to fetch the chunks from
+     */
+    private ValNodeDelegate(final ValNodeDelegate pOther, final IBucketReadTrx pSource) {
+        this.mDelegate = pOther.mDelegate;
+        setValueChunks(pOther.mChunkKey, pOther.mLength, pOther.mValueHash);
+        mSource = pSource;
     }
 
     /**
@@ -157,7 +212,20 @@ public class ValNodeDelegate implements ITreeValData {
      */
     @Override
     public byte[] getRawValue() {
-        return mVal;
+        if (mChunkKey == IConstants.NULL_NODE) {
+            return mVal;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(mLength);
+        final byte[] buffer = new byte[8192];
+        try (final InputStream in = getValueStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (final IOException exc) {
+            throw new IllegalStateException(exc);
+        }
+        return out.toByteArray();
     }
 
     /**
@@ -166,7 +234,52 @@ public class ValNodeDelegate implements ITreeValData {
     @Override
     public void setValue(final byte[] pVal) {
         mVal = pVal;
+        mChunkKey = IConstants.NULL_NODE;
+        mLength = 0;
+        mValueHash = 0;
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getValueStream() {
+        if (mChunkKey == IConstants.NULL_NODE) {
+            return new ByteArrayInputStream(mVal);
+        }
+        checkState(mSource != null,
+            "Value of node %s is stored in chunks but was not read through a transaction.", getDataKey());
+        return new ValueChunkInputStream(mSource, mChunkKey);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValueChunkKey() {
+        return mChunkKey;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValueChunks(final long pChunkKey, final int pLength, final int pValueHash) {
+        mVal = null;
+        mChunkKey = pChunkKey;
+        mLength = pLength;
+        mValueHash = pValueHash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ValNodeDelegate bindValueSource(final IBucketReadTrx pSource) {
+        if (mChunkKey == IConstants.NULL_NODE) {
+            return this;
+        }
+        return new ValNodeDelegate(this, pSource);
     }
 
     /**
@@ -174,6 +287,9 @@ public class ValNodeDelegate implements ITreeValData {
      */
     @Override
     public int hashCode() {
+        if (mChunkKey != IConstants.NULL_NODE) {
+            return mValueHash;
+        }
         Hasher hc = IConstants.HF.newHasher();
         hc.putBytes(mVal);
         return hc.hash().asInt();
@@ -192,7 +308,8 @@ public class ValNodeDelegate implements ITreeValData {
      */
     @Override
     public String toString() {
-        return toStringHelper(this).add("mDelegate", mDelegate).add("mVal", mVal).toString();
+        return toStringHelper(this).add("mDelegate", mDelegate).add("mVal", mVal).add("mChunkKey", mChunkKey)
+            .add("mLength", mLength).toString();
     }
 
     /**
@@ -204,8 +321,16 @@ public class ValNodeDelegate implements ITreeValData {
      */
     public void serialize(final DataOutput pOutput) throws TTIOException {
         try {
-            pOutput.writeInt(getRawValue().length);
-            pOutput.write(getRawValue());
+            if (mChunkKey == IConstants.NULL_NODE) {
+                pOutput.writeInt(mVal.length);
+                pOutput.write(mVal);
+            } else {
+                // negative length marks values stored in chunks
+                pOutput.writeInt(-1);
+                pOutput.writeLong(mChunkKey);
+                pOutput.writeInt(mLength);
+                pOutput.writeInt(mValueHash);
+            }
         } catch (final IOException exc) {
             throw new TTIOException(exc);
         }
@@ -116,4 +116,61 @@ public interface ITreeStructData extends ITreeData {
      * Incrementing the child count.
      */
     void incrementChildCount();
+
+    /**
+     * Gets the number of all descendants of the item. Only maintained if the structural index is enabled for
+     * the resource.
+     * 
+     * @return item's number of descendants
+     */
+    long getDescendantCount();
+
+    /**
+     * Setting the number of descendants of this node.
+     * 
+     * @param pDescendantCount
+     *            the new count to be set.
+     */
+    void setDescendantCount(long pDescendantCount);
+
+    /**
+     * Gets the depth of the item, the document root being on level 0. Only maintained if the structural
+     * index is enabled for the resource.
+     * 
+     * @return item's level
+     */
+    long getLevel();
+
+    /**
+     * Setting the level of this node.
+     * 
+     * @param pLevel
+     *            the new level to be set.
+     */
+    void setLevel(long pLevel);
+
+    /**
+     * Gets the order label of the item. Labels grow in document order, so comparing the labels of two items
+     * compares their position in the document. Only maintained if the structural index is enabled for the
+     * resource.
+     * 
+     * @return item's order label
+     */
+    long getOrderLabel();
+
+    /**
+     * Setting the order label of this node.
+     * 
+     * @param pOrderLabel
+     *            the new label to be set.
+     */
+    void setOrderLabel(long pOrderLabel);
+
+    /**
+     * Checking if descendant count, level and order label are maintained for this item.
+     * 
+     * @return true if the structural index fields are set, false otherwise
+     */
+    boolean isIndexed();
+
 }
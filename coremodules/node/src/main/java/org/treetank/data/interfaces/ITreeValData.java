@@ -29,6 +29,10 @@
  */
 package org.treetank.data.interfaces;
 
+import java.io.InputStream;
+
+import org.treetank.api.IBucketReadTrx;
+
 /**
  * @author Sebastian Graf, University of Konstanz
  * 
@@ -50,4 +54,43 @@ public interface ITreeValData extends org.treetank.api.IData {
      */
     void setValue(byte[] pValue);
 
+    /**
+     * Getting the value as stream. Values stored in chunks are fetched lazily while reading.
+     * 
+     * @return a stream over the value of the item
+     */
+    InputStream getValueStream();
+
+    /**
+     * Getting the key of the first chunk if the value is stored in chunks.
+     * 
+     * @return the key of the first chunk, {@link org.treetank.data.IConstants#NULL_NODE} if the value is
+     *         stored inline
+     */
+    long getValueChunkKey();
+
+    /**
+     * Referencing a value stored in chunks instead of an inline value.
+     * 
+     * @param pChunkKey
+     *            key of the first chunk
+     * @param pLength
+     *            length of the complete value
+     * @param pValueHash
+     *            hash of the complete value
+     */
+    void setValueChunks(long pChunkKey, int pLength, int pValueHash);
+
+    /**
+     * Getting a view on this item whose value is read through the given transaction. Items are shared
+     * between transactions and cached, they therefore never reference a transaction themselves; the view
+     * only lives as long as the reading transaction hands it out.
+     * 
+     * @param pSource
+     *            transaction to read the chunks from
+     * @return a view on this item fetching its chunks from the given transaction, the item itself if its
+     *         value is stored inline
+     */
+    ITreeValData bindValueSource(IBucketReadTrx pSource);
+
 }
@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.utils;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive <code>long</code> values based on open addressing with linear probing. Used for duplicate
+ * elimination of node keys without boxing them into {@link Long}s.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class LongHashSet {
+
+    /** Marker for free slots, stored separately if used as value. */
+    private static final long FREE = Long.MIN_VALUE;
+
+    /** Initial capacity of the set, must be a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Maximal capacity kept when the set is cleared, must be a power of two. */
+    private static final int RETAINED_CAPACITY = 1 << 12;
+
+    /** Slots of the set. */
+    private long[] mSlots;
+
+    /** Number of values stored in the slots. */
+    private int mSize;
+
+    /** Is the value used as marker for free slots contained? */
+    private boolean mContainsFree;
+
+    /**
+     * Constructor.
+     */
+    public LongHashSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param pExpectedSize
+     *            number of values expected to be stored
+     */
+    public LongHashSet(final int pExpectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < pExpectedSize << 1) {
+            capacity <<= 1;
+        }
+        mSlots = new long[capacity];
+        Arrays.fill(mSlots, FREE);
+    }
+
+    /**
+     * Adding a value to the set.
+     * 
+     * @param pValue
+     *            to be added
+     * @return true if the value was not contained before, false otherwise
+     */
+    public boolean add(final long pValue) {
+        if (pValue == FREE) {
+            final boolean added = !mContainsFree;
+            mContainsFree = true;
+            return added;
+        }
+        final int mask = mSlots.length - 1;
+        int index = mix(pValue) & mask;
+        while (mSlots[index] != FREE) {
+            if (mSlots[index] == pValue) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        mSlots[index] = pValue;
+        if (++mSize << 1 > mSlots.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Checking if a value is contained in the set.
+     * 
+     * @param pValue
+     *            to be checked
+     * @return true if the value is contained, false otherwise
+     */
+    public boolean contains(final long pValue) {
+        if (pValue == FREE) {
+            return mContainsFree;
+        }
+        final int mask = mSlots.length - 1;
+        int index = mix(pValue) & mask;
+        while (mSlots[index] != FREE) {
+            if (mSlots[index] == pValue) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Getting the number of values in the set.
+     * 
+     * @return the size of the set
+     */
+    public int size() {
+        return mContainsFree ? mSize + 1 : mSize;
+    }
+
+    /**
+     * Checking if the set is empty.
+     * 
+     * @return true if no values are stored, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removing all values, the allocated memory is reused up to {@link #RETAINED_CAPACITY} slots. Larger
+     * slots are released since a set used for one large evaluation must not keep its memory while idle.
+     */
+    public void clear() {
+        if (mSlots.length > RETAINED_CAPACITY) {
+            mSlots = new long[RETAINED_CAPACITY];
+        }
+        Arrays.fill(mSlots, FREE);
+        mSize = 0;
+        mContainsFree = false;
+    }
+
+    /**
+     * Doubling the number of slots and reinserting all values.
+     */
+    private void rehash() {
+        final long[] oldSlots = mSlots;
+        mSlots = new long[oldSlots.length << 1];
+        Arrays.fill(mSlots, FREE);
+        final int mask = mSlots.length - 1;
+        for (final long value : oldSlots) {
+            if (value != FREE) {
+                int index = mix(value) & mask;
+                while (mSlots[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                mSlots[index] = value;
+            }
+        }
+    }
+
+    /**
+     * Spreading the bits of a value since node keys are mostly dense.
+     * 
+     * @param pValue
+     *            to be spread
+     * @return the hash of the value
+     */
+    private static int mix(final long pValue) {
+        final long hash = pValue * 0x9E3779B97F4A7C15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.utils;
+
+/**
+ * Growable FIFO queue of primitive <code>long</code> values based on a ring buffer. Used by the axis
+ * implementations for remembering node keys without boxing them into {@link Long}s.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class LongQueue {
+
+    /** Initial capacity of the queue, must be a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Values of the queue. */
+    private long[] mValues;
+
+    /** Position of the head of the queue. */
+    private int mHead;
+
+    /** Number of elements in the queue. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     */
+    public LongQueue() {
+        mValues = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Appending a value to the tail of the queue.
+     * 
+     * @param pValue
+     *            to be added
+     */
+    public void add(final long pValue) {
+        if (mSize == mValues.length) {
+            final long[] values = new long[mValues.length << 1];
+            final int firstPart = mValues.length - mHead;
+            System.arraycopy(mValues, mHead, values, 0, firstPart);
+            System.arraycopy(mValues, 0, values, firstPart, mHead);
+            mValues = values;
+            mHead = 0;
+        }
+        mValues[(mHead + mSize) & (mValues.length - 1)] = pValue;
+        mSize++;
+    }
+
+    /**
+     * Removing the value at the head of the queue.
+     * 
+     * @return the head of the queue
+     */
+    public long poll() {
+        if (mSize == 0) {
+            throw new IllegalStateException("Queue is empty.");
+        }
+        final long value = mValues[mHead];
+        mHead = (mHead + 1) & (mValues.length - 1);
+        mSize--;
+        return value;
+    }
+
+    /**
+     * Checking if the queue is empty.
+     * 
+     * @return true if no values are stored, false otherwise
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Getting the number of values in the queue.
+     * 
+     * @return the size of the queue
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removing all values, the allocated memory is reused.
+     */
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable stack of primitive <code>long</code> values. Used by the axis implementations for remembering node
+ * keys without boxing them into {@link Long}s.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class LongStack {
+
+    /** Initial capacity of the stack. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Values of the stack. */
+    private long[] mValues;
+
+    /** Number of elements on the stack. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     */
+    public LongStack() {
+        mValues = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Pushing a value on the stack.
+     * 
+     * @param pValue
+     *            to be pushed
+     */
+    public void push(final long pValue) {
+        if (mSize == mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize << 1);
+        }
+        mValues[mSize++] = pValue;
+    }
+
+    /**
+     * Removing the topmost value from the stack.
+     * 
+     * @return the topmost value
+     */
+    public long pop() {
+        if (mSize == 0) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return mValues[--mSize];
+    }
+
+    /**
+     * Getting the topmost value without removing it.
+     * 
+     * @return the topmost value
+     */
+    public long peek() {
+        if (mSize == 0) {
+            throw new IllegalStateException("Stack is empty.");
+        }
+        return mValues[mSize - 1];
+    }
+
+    /**
+     * Checking if the stack is empty.
+     * 
+     * @return true if no values are stored, false otherwise
+     */
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * Getting the number of values on the stack.
+     * 
+     * @return the size of the stack
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removing all values, the allocated memory is reused.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+}
@@ -28,10 +28,20 @@
 package org.treetank.access;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
 import static org.treetank.data.IConstants.ROOT_NODE;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.xml.namespace.QName;
 
@@ -40,19 +50,30 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
 import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
 import org.treetank.api.IBucketReadTrx;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.INodeWriteTrx;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.axis.FilterAxis;
+import org.treetank.axis.PathSummaryAxis;
+import org.treetank.axis.filter.ElementFilter;
+import org.treetank.axis.filter.NameFilter;
+import org.treetank.data.IConstants;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.data.interfaces.ITreeValData;
 import org.treetank.exception.TTException;
 import org.treetank.testutil.CoreTestHelper;
 import org.treetank.testutil.Holder;
 import org.treetank.testutil.ModuleFactory;
 import org.treetank.testutil.NodeElementTestHelper;
+import org.treetank.utils.NamePageHash;
+import org.treetank.utils.TypedValue;
 
+import com.google.common.io.ByteStreams;
 import com.google.inject.Inject;
 
 @Guice(moduleFactory = ModuleFactory.class)
@@ -265,4 +286,668 @@ public class UpdateTest {
         assertEquals(13, pRtx.getNode().getDataKey());
     }
 
+    @Test
+    public void testStructIndex() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        assertStructIndex(wtx, ROOT_NODE, 10, 0);
+        assertStructIndex(wtx, 1L, 9, 1);
+        assertStructIndex(wtx, 5L, 2, 2);
+        assertStructIndex(wtx, 7L, 0, 3);
+        assertStructIndex(wtx, 12L, 0, 3);
+
+        wtx.moveTo(5L);
+        wtx.remove();
+        assertStructIndex(wtx, ROOT_NODE, 7, 0);
+        assertStructIndex(wtx, 1L, 6, 1);
+
+        wtx.moveTo(9L);
+        wtx.insertTextAsFirstChild("baz");
+        assertStructIndex(wtx, wtx.getNode().getDataKey(), 0, 3);
+        assertStructIndex(wtx, 9L, 3, 2);
+        assertStructIndex(wtx, ROOT_NODE, 8, 0);
+        wtx.commit();
+        wtx.close();
+
+        final INodeReadTrx rtx =
+            new NodeReadTrx(holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion()));
+        assertStructIndex(rtx, ROOT_NODE, 8, 0);
+        assertStructIndex(rtx, 9L, 3, 2);
+        rtx.close();
+    }
+
+    @Test
+    public void testPathSummary() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.PATHSUMMARY, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        assertPathSummary(wtx, "/p:a/b", 5L, 9L);
+        assertPathSummary(wtx, "//c", 7L, 11L);
+        assertPathSummary(wtx, "/p:a//c", 7L, 11L);
+        assertPathSummary(wtx, "/b");
+
+        wtx.moveTo(5L);
+        wtx.remove();
+        assertPathSummary(wtx, "//c", 11L);
+
+        wtx.moveTo(9L);
+        wtx.setQName(new QName("d"));
+        assertPathSummary(wtx, "/p:a/b");
+        assertPathSummary(wtx, "/p:a/d/c", 11L);
+
+        wtx.moveTo(11L);
+        final long key = wtx.insertElementAsFirstChild(new QName("c"));
+        assertPathSummary(wtx, "//c", 11L, key);
+        assertPathSummary(wtx, "//c/c", key);
+        wtx.commit();
+        wtx.close();
+
+        final long revision = holder.getSession().getMostRecentVersion();
+        final INodeReadTrx rtx = new NodeReadTrx(holder.getSession().beginBucketRtx(revision));
+        assertPathSummary(rtx, "//c", 11L, key);
+        assertPathSummary(rtx, "/p:a/d/c", 11L);
+        rtx.close();
+
+        // summary built from scratch matches the maintained one
+        final IBucketReadTrx bucketRtx = holder.getSession().beginBucketRtx(revision);
+        final PathSummary summary = PathSummary.build(bucketRtx);
+        assertEquals(Arrays.toString(new long[] {
+            11L, key
+        }), Arrays.toString(summary.getKeys(new int[] {
+            NamePageHash.generateHashForString("c")
+        }, new boolean[] {
+            true
+        })));
+        bucketRtx.close();
+    }
+
+    @Test
+    public void testPathSummaryOrder() throws TTException {
+        // once with order labels and once with a traversal ordering the keys
+        for (final boolean labels : new boolean[] {
+            false, true
+        }) {
+            holder.close();
+            CoreTestHelper.deleteEverything();
+            final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+            final Properties props =
+                StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                    CoreTestHelper.RESOURCENAME);
+            props.setProperty(ConstructorProps.PATHSUMMARY, Boolean.TRUE.toString());
+            props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.toString(labels));
+            final ResourceConfiguration resource = mResourceConfig.create(props);
+            NodeElementTestHelper.createTestDocument(resource);
+            holder = Holder.generateWtx(coreHolder, resource);
+
+            // inserting in front of existing elements, the new keys are the greatest ones
+            final INodeWriteTrx wtx = holder.getNWtx();
+            wtx.moveTo(1L);
+            wtx.insertElementAsFirstChild(new QName("b"));
+            wtx.insertElementAsFirstChild(new QName("c"));
+            wtx.moveTo(7L);
+            wtx.insertElementAsRightSibling(new QName("c"));
+            wtx.moveTo(5L);
+            wtx.insertElementAsFirstChild(new QName("c"));
+            assertPathSummaryAxis(wtx, "b");
+            assertPathSummaryAxis(wtx, "c");
+            wtx.commit();
+            wtx.close();
+
+            final long revision = holder.getSession().getMostRecentVersion();
+            final INodeReadTrx rtx = new NodeReadTrx(holder.getSession().beginBucketRtx(revision));
+            assertPathSummaryAxis(rtx, "b");
+            assertPathSummaryAxis(rtx, "c");
+            rtx.close();
+        }
+    }
+
+    @Test
+    public void testPathSummaryChunks() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.PATHSUMMARY, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        // enough elements on one path to fill several chunks
+        final INodeWriteTrx wtx = holder.getNWtx();
+        final long[] keys = new long[2500];
+        wtx.moveTo(1L);
+        keys[0] = wtx.insertElementAsFirstChild(new QName("e"));
+        for (int i = 1; i < keys.length; i++) {
+            keys[i] = wtx.insertElementAsRightSibling(new QName("e"));
+        }
+        wtx.commit();
+        final long filled = holder.getSession().getMostRecentVersion();
+
+        // renaming moves keys between paths, renamed back they are inserted within the chunks and split them
+        for (int i = 0; i < keys.length; i += 2) {
+            wtx.moveTo(keys[i]);
+            wtx.setQName(new QName("f"));
+        }
+        assertPathSummaryAxis(wtx, "e");
+        assertPathSummaryAxis(wtx, "f");
+        wtx.commit();
+        for (int i = 0; i < keys.length; i += 2) {
+            wtx.moveTo(keys[i]);
+            wtx.setQName(new QName("e"));
+        }
+        for (int i = 1; i < keys.length; i += 8) {
+            wtx.moveTo(keys[i]);
+            wtx.remove();
+        }
+        assertPathSummaryAxis(wtx, "e");
+        assertPathSummaryAxis(wtx, "f");
+        wtx.commit();
+        wtx.close();
+
+        final long revision = holder.getSession().getMostRecentVersion();
+        INodeReadTrx rtx = new NodeReadTrx(holder.getSession().beginBucketRtx(revision));
+        assertPathSummaryAxis(rtx, "e");
+        assertPathSummaryAxis(rtx, "f");
+        rtx.close();
+
+        // chunks of former revisions stay untouched
+        rtx = new NodeReadTrx(holder.getSession().beginBucketRtx(filled));
+        assertPathSummaryAxis(rtx, "e");
+        assertPathSummaryAxis(rtx, "f");
+        rtx.close();
+    }
+
+    @Test
+    public void testValueIndex() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.VALUEINDEX, "//@*, /p:a/b");
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        assertValueIndex(wtx, "j", 2L);
+        assertValueIndex(wtx, "y", 10L);
+        assertValueIndex(wtx, "foo", 6L);
+        assertValueIndex(wtx, "bar", 12L);
+        assertValueIndex(wtx, "oops1");
+
+        wtx.moveTo(6L);
+        wtx.setValue("baz");
+        assertValueIndex(wtx, "foo");
+        assertValueIndex(wtx, "baz", 6L);
+
+        wtx.moveTo(9L);
+        wtx.setQName(new QName("d"));
+        assertValueIndex(wtx, "bar");
+        assertValueIndex(wtx, "y", 10L);
+
+        wtx.moveTo(5L);
+        wtx.remove();
+        assertValueIndex(wtx, "baz");
+
+        wtx.moveTo(1L);
+        final long key = wtx.insertAttribute(new QName("k"), "j");
+        assertValueIndex(wtx, "j", 2L, key);
+        wtx.commit();
+        wtx.close();
+
+        final INodeReadTrx rtx =
+            new NodeReadTrx(holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion()));
+        assertValueIndex(rtx, "j", 2L, key);
+        assertValueIndex(rtx, "y", 10L);
+        assertValueIndex(rtx, "bar");
+        // the index of the revision is looked up once
+        assertTrue(ValueIndex.getIndex(rtx) == ValueIndex.getIndex(rtx));
+        assertEquals("//@*, /p:a/b", ValueIndex.getIndexedPaths(rtx));
+        rtx.close();
+    }
+
+    @Test
+    public void testValueIndexSplits() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.VALUEINDEX, "//@*");
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        // enough values to split the leaves below an inner root
+        final int values = ValueIndex.MAX_ENTRIES * 8;
+        final INodeWriteTrx wtx = holder.getNWtx();
+        final long[] keys = new long[values / 4];
+        wtx.moveTo(1L);
+        final long element = wtx.insertElementAsFirstChild(new QName("d"));
+        for (int i = 0; i < values; i++) {
+            final long key = wtx.insertAttribute(new QName("v" + i), "v" + i % 4);
+            if (i % 4 == 1) {
+                keys[i / 4] = key;
+            }
+            wtx.moveTo(element);
+        }
+        assertValueIndex(wtx, "v1", keys);
+        assertValueIndex(wtx, "j", 2L);
+
+        // data written bypassing the transaction, the index is loaded anew on commit
+        wtx.getPageWtx();
+        wtx.commit();
+        wtx.close();
+
+        final INodeReadTrx rtx =
+            new NodeReadTrx(holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion()));
+        assertValueIndex(rtx, "v1", keys);
+        assertValueIndex(rtx, "j", 2L);
+        assertValueIndex(rtx, "v4");
+        rtx.close();
+    }
+
+    @Test
+    public void testChangeSets() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.CHANGESETS, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+        final long first = holder.getSession().getMostRecentVersion();
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        wtx.moveTo(5L);
+        wtx.remove();
+        wtx.moveTo(9L);
+        final long key = wtx.insertElementAsFirstChild(new QName("d"));
+        wtx.moveTo(1L);
+        final long front = wtx.insertElementAsFirstChild(new QName("e"));
+        wtx.commit();
+        wtx.close();
+
+        final INodeWriteTrx wtx2 =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        wtx2.moveTo(key);
+        wtx2.remove();
+        wtx2.commit();
+        wtx2.close();
+
+        final ChangeSet second = ChangeSet.get(holder.getSession(), first + 1);
+        assertChange(second, 5L, ChangeSet.EChange.DELETED, IConstants.ELEMENT);
+        assertChange(second, 6L, ChangeSet.EChange.DELETED, IConstants.TEXT);
+        assertChange(second, 7L, ChangeSet.EChange.DELETED, IConstants.ELEMENT);
+        assertChange(second, key, ChangeSet.EChange.INSERTED, IConstants.ELEMENT);
+        assertChange(second, 9L, ChangeSet.EChange.UPDATED, IConstants.ELEMENT);
+        assertChange(second, 1L, ChangeSet.EChange.UPDATED, IConstants.ELEMENT);
+        assertChange(ChangeSet.get(holder.getSession(), first + 2), key, ChangeSet.EChange.DELETED,
+            IConstants.ELEMENT);
+
+        // elements are handed out in document order of the revision they exist in instead of key order
+        final IBucketReadTrx newRtx = holder.getSession().beginBucketRtx(first + 1);
+        assertTrue(Arrays.equals(new long[] {
+            front, key
+        }, second.getElements(newRtx, ChangeSet.EChange.INSERTED)));
+        newRtx.close();
+        final IBucketReadTrx oldRtx = holder.getSession().beginBucketRtx(first);
+        assertTrue(Arrays.equals(new long[] {
+            5L, 7L
+        }, second.getElements(oldRtx, ChangeSet.EChange.DELETED)));
+        oldRtx.close();
+
+        // the element inserted and removed in between is not part of the composed changes
+        final ChangeSet composed = ChangeSet.get(holder.getSession(), first, first + 2);
+        assertChange(composed, 5L, ChangeSet.EChange.DELETED, IConstants.ELEMENT);
+        assertChange(composed, 9L, ChangeSet.EChange.UPDATED, IConstants.ELEMENT);
+        assertEquals(-1, indexOf(composed, key));
+        assertTrue(Arrays.equals(composed.getNewKeys(), second.compose(
+            ChangeSet.get(holder.getSession(), first + 2)).getNewKeys()));
+
+        // sets not recorded can not be composed
+        assertEquals(null, ChangeSet.get(holder.getSession(), first, first + 3));
+    }
+
+    @Test
+    public void testLargeValue() throws TTException, IOException {
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() <= 3 * IConstants.VALUE_CHUNK_SIZE) {
+            builder.append("large value ").append(builder.length());
+        }
+        final String value = builder.toString();
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        wtx.moveTo(1L);
+        final long textKey = wtx.insertTextAsFirstChild(value);
+        final long chunkKey = ((ITreeValData)wtx.getNode()).getValueChunkKey();
+        assertTrue(chunkKey != IConstants.NULL_NODE);
+        assertEquals(value, wtx.getValueOfCurrentNode());
+        wtx.moveTo(1L);
+        wtx.insertAttribute(new QName("large"), value);
+        final long attributeKey = wtx.getNode().getDataKey();
+        // chunks are allocated from their own key range, the node keys stay dense
+        assertTrue(chunkKey >= IConstants.VALUE_CHUNK_KEYS);
+        assertEquals(textKey + 1, attributeKey);
+        assertTrue(((ITreeValData)wtx.getNode()).getValueChunkKey() > chunkKey);
+        wtx.commit();
+        wtx.close();
+
+        // the stored nodes do not reference any transaction, only the cursor views them through one
+        final IBucketReadTrx bucketRtx =
+            holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion());
+        try {
+            ((ITreeValData)bucketRtx.getData(textKey)).getValueStream();
+            fail();
+        } catch (IllegalStateException exc) {
+            // must be thrown
+        }
+        assertEquals(value, new String(((ITreeValData)bucketRtx.getData(textKey)).bindValueSource(bucketRtx)
+            .getRawValue(), "UTF-8"));
+        bucketRtx.close();
+
+        final INodeReadTrx rtx =
+            new NodeReadTrx(holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion()));
+        assertTrue(rtx.moveTo(textKey));
+        assertEquals(value, rtx.getValueOfCurrentNode());
+        assertEquals(value, new String(ByteStreams.toByteArray(rtx.getValueStreamOfCurrentNode()), "UTF-8"));
+        assertTrue(rtx.moveTo(attributeKey));
+        assertEquals(value, rtx.getValueOfCurrentNode());
+        // chunks are not reachable as nodes
+        assertFalse(rtx.moveTo(chunkKey));
+        assertEquals(attributeKey, rtx.getNode().getDataKey());
+        rtx.close();
+
+        // replacing the large value with a small one removes the chunks
+        final INodeWriteTrx wtx2 =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        wtx2.moveTo(textKey);
+        wtx2.setValue("small");
+        assertEquals(IConstants.NULL_NODE, ((ITreeValData)wtx2.getNode()).getValueChunkKey());
+        assertEquals("small", wtx2.getValueOfCurrentNode());
+        assertFalse(wtx2.moveTo(chunkKey));
+        wtx2.commit();
+        wtx2.close();
+    }
+
+    /**
+     * Testmethod for {@link UpdateTest#testStructIndex()} checking descendant count and level of one node.
+     * 
+     * @param pRtx
+     *            to test with
+     * @param pKey
+     *            key of the node to check
+     * @param pDescendants
+     *            expected number of descendants
+     * @param pLevel
+     *            expected level
+     * @throws TTException
+     */
+    private final static void assertStructIndex(final INodeReadTrx pRtx, final long pKey,
+        final long pDescendants, final long pLevel) throws TTException {
+        assertTrue(pRtx.moveTo(pKey));
+        assertEquals(pDescendants, ((ITreeStructData)pRtx.getNode()).getDescendantCount());
+        assertEquals(pLevel, ((ITreeStructData)pRtx.getNode()).getLevel());
+    }
+
+    /**
+     * Checking the keys the value index returns for a value.
+     * 
+     * @param pRtx
+     *            to test with
+     * @param pValue
+     *            the value
+     * @param pKeys
+     *            expected keys in ascending order
+     * @throws TTException
+     */
+    private final static void assertValueIndex(final INodeReadTrx pRtx, final String pValue,
+        final long... pKeys) throws TTException {
+        assertEquals(Arrays.toString(pKeys), Arrays.toString(ValueIndex.getIndex(pRtx).getCandidates(
+            TypedValue.getBytes(pValue))));
+    }
+
+    /**
+     * Testmethod for {@link UpdateTest#testChangeSets()} checking one recorded change.
+     * 
+     * @param pChanges
+     *            the changes to check
+     * @param pKey
+     *            key of the changed node
+     * @param pChange
+     *            expected kind of the change
+     * @param pKind
+     *            expected kind of the node
+     */
+    private final static void assertChange(final ChangeSet pChanges, final long pKey,
+        final ChangeSet.EChange pChange, final int pKind) {
+        final int index = indexOf(pChanges, pKey);
+        assertTrue(index >= 0);
+        assertEquals(pChange, pChanges.getChange(index));
+        assertEquals(pKind, pChanges.getKind(index));
+    }
+
+    /**
+     * Searching the change of a node.
+     * 
+     * @param pChanges
+     *            the changes to search
+     * @param pKey
+     *            key of the node
+     * @return the index of the change, -1 if the node is not changed
+     */
+    private final static int indexOf(final ChangeSet pChanges, final long pKey) {
+        for (int i = 0; i < pChanges.size(); i++) {
+            if (pChanges.getKey(i) == pKey) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checking the keys the path summary returns for a path like <code>/a//b</code>.
+     * 
+     * @param pRtx
+     *            to test with
+     * @param pPath
+     *            absolute path of child and descendant name tests
+     * @param pKeys
+     *            expected keys in document order
+     * @throws TTException
+     */
+    private final static void assertPathSummary(final INodeReadTrx pRtx, final String pPath,
+        final long... pKeys) throws TTException {
+        final Matcher matcher = Pattern.compile("(//?)([^/]+)").matcher(pPath);
+        final List<Integer> names = new ArrayList<Integer>();
+        final List<Boolean> descendant = new ArrayList<Boolean>();
+        while (matcher.find()) {
+            descendant.add(matcher.group(1).length() == 2);
+            names.add(NamePageHash.generateHashForString(matcher.group(2)));
+        }
+        final int[] nameKeys = new int[names.size()];
+        final boolean[] descendantSteps = new boolean[names.size()];
+        for (int i = 0; i < nameKeys.length; i++) {
+            nameKeys[i] = names.get(i);
+            descendantSteps[i] = descendant.get(i);
+        }
+        assertEquals(Arrays.toString(pKeys), Arrays.toString(PathSummary.getSummary(pRtx).getKeys(nameKeys,
+            descendantSteps)));
+    }
+
+    /**
+     * Checking that the {@link PathSummaryAxis} returns the same elements in the same order as a
+     * descendant axis for a path like <code>//b</code>.
+     * 
+     * @param pRtx
+     *            to test with
+     * @param pName
+     *            name of the elements
+     * @throws TTException
+     */
+    private final static void assertPathSummaryAxis(final INodeReadTrx pRtx, final String pName)
+        throws TTException {
+        final List<Long> expected = new ArrayList<Long>();
+        pRtx.moveTo(ROOT_NODE);
+        for (final long key : new FilterAxis(new DescendantAxis(pRtx), pRtx, new ElementFilter(pRtx),
+            new NameFilter(pRtx, pName))) {
+            expected.add(key);
+        }
+        final List<Long> produced = new ArrayList<Long>();
+        pRtx.moveTo(ROOT_NODE);
+        for (final long key : new PathSummaryAxis(pRtx, new int[] {
+            NamePageHash.generateHashForString(pName)
+        }, new boolean[] {
+            true
+        })) {
+            produced.add(key);
+        }
+        assertEquals(expected, produced);
+    }
+
+    @Test
+    public void testOrderLabels() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        final INodeWriteTrx wtx = holder.getNWtx();
+        assertOrderLabels(wtx, 11);
+
+        // inserting at the same position until the gap is used up and the nodes around are labelled anew
+        for (int i = 0; i < 30; i++) {
+            wtx.moveTo(5L);
+            wtx.insertElementAsFirstChild(new QName("first" + i));
+        }
+        wtx.moveTo(9L);
+        wtx.insertElementAsRightSibling(new QName("last"));
+        wtx.insertTextAsFirstChild("baz");
+        wtx.moveTo(5L);
+        wtx.remove();
+        assertOrderLabels(wtx, 10);
+        wtx.commit();
+        wtx.close();
+
+        final INodeReadTrx rtx =
+            new NodeReadTrx(holder.getSession().beginBucketRtx(holder.getSession().getMostRecentVersion()));
+        assertOrderLabels(rtx, 10);
+        rtx.close();
+    }
+
+    @Test
+    public void testOrderLabelsLocal() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateWtx(coreHolder, resource);
+
+        // appending nodes spread over several data buckets
+        final int appended = 1024;
+        final INodeWriteTrx wtx = holder.getNWtx();
+        wtx.moveTo(13L);
+        long gapKey = 0;
+        for (int i = 0; i < appended; i++) {
+            final long key = wtx.insertElementAsRightSibling(new QName("append" + i));
+            if (i == appended / 2) {
+                gapKey = key;
+            }
+        }
+        wtx.commit();
+
+        // inserting far more nodes into one gap than its labels can take
+        final int inserted = 256;
+        long lastKey = 0;
+        for (int i = 0; i < inserted; i++) {
+            wtx.moveTo(gapKey);
+            lastKey = wtx.insertElementAsRightSibling(new QName("gap" + i));
+        }
+        assertOrderLabels(wtx, 11 + appended + inserted);
+        wtx.commit();
+        wtx.close();
+
+        // only the labels around the gap are assigned anew, besides the ones of the new nodes
+        final long revision = holder.getSession().getMostRecentVersion();
+        final INodeReadTrx oldRtx = new NodeReadTrx(holder.getSession().beginBucketRtx(revision - 1));
+        final INodeReadTrx rtx = new NodeReadTrx(holder.getSession().beginBucketRtx(revision));
+        final Set<Long> buckets = new HashSet<Long>();
+        for (long key = 0; key <= lastKey; key++) {
+            assertTrue(rtx.moveTo(key));
+            if (key > lastKey - inserted) {
+                buckets.add(key >> org.treetank.bucket.IConstants.INDIRECT_BUCKET_COUNT[3]);
+            } else if (rtx.getNode() instanceof ITreeStructData && oldRtx.moveTo(key)
+                && ((ITreeStructData)rtx.getNode()).getOrderLabel() != ((ITreeStructData)oldRtx.getNode())
+                    .getOrderLabel()) {
+                buckets.add(key >> org.treetank.bucket.IConstants.INDIRECT_BUCKET_COUNT[3]);
+            }
+        }
+        assertTrue(buckets.size() <= 4);
+        assertOrderLabels(rtx, 11 + appended + inserted);
+        oldRtx.close();
+        rtx.close();
+    }
+
+    /**
+     * Testmethod for {@link UpdateTest#testOrderLabels()} checking that the order labels grow in document
+     * order.
+     * 
+     * @param pRtx
+     *            to test with
+     * @param pNodes
+     *            expected number of structural nodes
+     * @throws TTException
+     */
+    private final static void assertOrderLabels(final INodeReadTrx pRtx, final int pNodes)
+        throws TTException {
+        pRtx.moveTo(ROOT_NODE);
+        long label = -1;
+        int nodes = 0;
+        for (final DescendantAxis axis = new DescendantAxis(pRtx, true); axis.hasNext(); axis.next()) {
+            final long next = ((ITreeStructData)pRtx.getNode()).getOrderLabel();
+            assertTrue(next > label);
+            label = next;
+            nodes++;
+        }
+        assertEquals(pNodes, nodes);
+    }
+
 }
@@ -1,6 +1,7 @@
 package org.treetank.data;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.ArrayList;
@@ -93,6 +94,42 @@ public class INodeTest {
         }
     }
 
+    /**
+     * Test that descendant count, level and order label are only persisted for nodes of the structural
+     * index, keeping the serialized form of other nodes unchanged.
+     * 
+     * @throws TTIOException
+     */
+    @Test
+    public void testStructIndexSerialization() throws TTIOException {
+        final IDataFactory fac = new TreeNodeFactory();
+        final NodeDelegate del = new NodeDelegate(99, 13, 0);
+        final ValNodeDelegate valDel = new ValNodeDelegate(del, new byte[] {
+            (byte)17
+        });
+        final TextNode plain = new TextNode(del, new StructNodeDelegate(del, 24, 36, 48, 0), valDel);
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+        plain.serialize(output);
+        byte[] serialized = output.toByteArray();
+        // kind + node delegate + 4 pointers + value length + value
+        assertEquals(4 + 3 * 8 + 4 * 8 + 4 + 1, serialized.length);
+        assertEquals(IConstants.TEXT, ByteStreams.newDataInput(serialized).readInt());
+        assertFalse(((ITreeStructData)fac.deserializeData(ByteStreams.newDataInput(serialized))).isIndexed());
+
+        final TextNode indexed =
+            new TextNode(del, new StructNodeDelegate(del, 24, 36, 48, 0, 0, 3, 1 << 20), valDel);
+        output = ByteStreams.newDataOutput();
+        indexed.serialize(output);
+        serialized = output.toByteArray();
+        assertEquals(4 + 3 * 8 + 7 * 8 + 4 + 1, serialized.length);
+        final ITreeStructData deserialized =
+            (ITreeStructData)fac.deserializeData(ByteStreams.newDataInput(serialized));
+        assertTrue(deserialized.isIndexed());
+        assertEquals(IConstants.TEXT, deserialized.getKind());
+        assertEquals(3L, deserialized.getLevel());
+        assertEquals(1L << 20, deserialized.getOrderLabel());
+    }
+
     /**
      * Providing different implementations of the {@link ITreeData} as Dataprovider to the test class.
      * 
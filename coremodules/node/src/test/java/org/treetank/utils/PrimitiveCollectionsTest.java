@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.utils;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class PrimitiveCollectionsTest {
+
+    private static final int ELEMENTS = 10000;
+
+    @Test
+    public void testLongStack() {
+        final LongStack stack = new LongStack();
+        assertTrue(stack.isEmpty());
+        for (long i = 0; i < ELEMENTS; i++) {
+            stack.push(i);
+        }
+        assertEquals(ELEMENTS, stack.size());
+        assertEquals(ELEMENTS - 1, stack.peek());
+        for (long i = ELEMENTS - 1; i >= 0; i--) {
+            assertEquals(i, stack.pop());
+        }
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void testLongQueue() {
+        final LongQueue queue = new LongQueue();
+        assertTrue(queue.isEmpty());
+        // interleaving to force wrapping of the ring buffer while growing
+        long expected = 0;
+        for (long i = 0; i < ELEMENTS; i++) {
+            queue.add(i);
+            if (i % 3 == 0) {
+                assertEquals(expected++, queue.poll());
+            }
+        }
+        while (!queue.isEmpty()) {
+            assertEquals(expected++, queue.poll());
+        }
+        assertEquals(ELEMENTS, expected);
+    }
+
+    @Test
+    public void testLongHashSet() {
+        final LongHashSet set = new LongHashSet();
+        for (long i = -ELEMENTS; i < ELEMENTS; i++) {
+            assertTrue(set.add(i));
+        }
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertEquals(2 * ELEMENTS + 1, set.size());
+        for (long i = -ELEMENTS; i < ELEMENTS; i++) {
+            assertTrue(set.contains(i));
+            assertFalse(set.add(i));
+        }
+        assertFalse(set.contains(ELEMENTS));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+    }
+
+}
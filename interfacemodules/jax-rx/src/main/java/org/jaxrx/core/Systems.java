@@ -123,6 +123,22 @@ public final class Systems {
         return SYSTEMSIMPLS;
     }
 
+    /**
+     * Registers an already created implementation, e.g. one configured by an
+     * embedding application, under the specified system name. Has to be
+     * called before the server is started.
+     * 
+     * @param name
+     *            system name
+     * @param impl
+     *            implementation
+     */
+    public static void register(final String name, final JaxRx impl) {
+        final String path = impl.getClass().getName();
+        SYSTEMSIMPLS.put(name, path);
+        INSTANCES.put(path, impl);
+    }
+
     /**
      * Returns the instance for the specified implementation. If the system is
      * unknown, throws an exception.
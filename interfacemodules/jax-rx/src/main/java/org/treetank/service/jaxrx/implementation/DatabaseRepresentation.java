@@ -34,8 +34,6 @@ import static org.treetank.data.IConstants.ROOT_NODE;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
@@ -47,12 +45,15 @@ import javax.ws.rs.core.StreamingOutput;
 
 import org.jaxrx.core.JaxRxException;
 import org.jaxrx.core.QueryParameter;
+import org.treetank.access.ChangeSet;
+import org.treetank.access.ChangeSet.EChange;
 import org.treetank.access.NodeReadTrx;
 import org.treetank.access.NodeWriteTrx;
 import org.treetank.access.NodeWriteTrx.HashKind;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.SessionConfiguration;
 import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.IBucketReadTrx;
 import org.treetank.api.IBucketWriteTrx;
 import org.treetank.api.IDataFactory;
 import org.treetank.api.IMetaEntryFactory;
@@ -75,6 +76,8 @@ import org.treetank.service.xml.serialize.XMLSerializer.XMLSerializerBuilder;
 import org.treetank.service.xml.shredder.EShredderInsert;
 import org.treetank.service.xml.shredder.XMLShredder;
 import org.treetank.service.xml.xpath.XPathAxis;
+import org.treetank.utils.LongHashSet;
+import org.treetank.utils.LongQueue;
 
 /**
  * This class is the TreeTank DB connection for RESTful Web Services processing.
@@ -276,6 +279,11 @@ public class DatabaseRepresentation {
     public void deleteResource(final String resourceName) throws WebApplicationException {
         synchronized (resourceName) {
             try {
+                // sessions are left open by reading requests
+                if (mDatabase.existsResource(resourceName)) {
+                    mDatabase.getSession(new SessionConfiguration(resourceName, StandardSettings.KEY))
+                        .close();
+                }
                 mDatabase.truncateResource(new SessionConfiguration(resourceName, null));
             } catch (TTException e) {
                 throw new WebApplicationException(e);
@@ -380,14 +388,13 @@ public class DatabaseRepresentation {
 
         long lastRevision;
         if (mDatabase.existsResource(resourceName)) {
-            ISession session = null;
             try {
-                session = mDatabase.getSession(new SessionConfiguration(resourceName, StandardSettings.KEY));
+                // the session is shared with concurrent requests and stays open
+                final ISession session =
+                    mDatabase.getSession(new SessionConfiguration(resourceName, StandardSettings.KEY));
                 lastRevision = session.getMostRecentVersion();
             } catch (final Exception globExcep) {
                 throw new JaxRxException(globExcep);
-            } finally {
-                session.close();
             }
         } else {
             throw new JaxRxException(404, "Resource not found");
@@ -429,114 +436,110 @@ public class DatabaseRepresentation {
 
         if (revision1 < revision2 && revision2 <= getLastRevision(resourceName)) {
 
-            // variables for highest rest-id in respectively revision
-            long maxRestidRev1 = 0;
-            long maxRestidRev2 = 0;
-
             // Connection to treetank, creating a session
             AbsAxis axis = null;
             INodeReadTrx rtx = null;
             ISession session = null;
-            // List for all restIds of modifications
-            final List<Long> modificRestids = new LinkedList<Long>();
+            // restIds of all modifications of revision 2, in document order
+            final LongQueue modificRestids = new LongQueue();
 
-            // List of all restIds of revision 1
-            final List<Long> restIdsRev1 = new LinkedList<Long>();
+            // restIds of all nodes of revision 1 missing in revision 2, in document order
+            final LongQueue deletedRestids = new LongQueue();
+            final LongHashSet deletedSet = new LongHashSet();
 
             try {
                 session = mDatabase.getSession(new SessionConfiguration(resourceName, StandardSettings.KEY));
 
-                // get highest rest-id from given revision 1
-                rtx = new NodeReadTrx(session.beginBucketRtx(revision1));
-                axis = new XPathAxis(rtx, ".//*");
-
-                while (axis.hasNext()) {
-                    if (rtx.getNode().getDataKey() > maxRestidRev1) {
-                        maxRestidRev1 = rtx.getNode().getDataKey();
+                // recorded change sets are composed without traversing both revisions
+                final ChangeSet changes = ChangeSet.get(session, revision1, revision2);
+                if (changes == null) {
+                    // get highest rest-id from given revision 1 and all its restIds
+                    long maxRestidRev1 = 0;
+                    final LongQueue restIdsRev1 = new LongQueue();
+                    rtx = new NodeReadTrx(session.beginBucketRtx(revision1));
+                    axis = new XPathAxis(rtx, ".//*");
+                    while (axis.hasNext()) {
+                        final long nodeKey = rtx.getNode().getDataKey();
+                        if (nodeKey > maxRestidRev1) {
+                            maxRestidRev1 = nodeKey;
+                        }
+                        restIdsRev1.add(nodeKey);
                     }
-                    // stores all restids from revision 1 into a list
-                    restIdsRev1.add(rtx.getNode().getDataKey());
-                }
-                rtx.moveTo(ROOT_NODE);
-                rtx.close();
-
-                // get highest rest-id from given revision 2
-                rtx = new NodeReadTrx(session.beginBucketRtx(revision2));
-                axis = new XPathAxis(rtx, ".//*");
-
-                while (axis.hasNext()) {
-                    final Long nodeKey = rtx.getNode().getDataKey();
-                    if (nodeKey > maxRestidRev2) {
-                        maxRestidRev2 = rtx.getNode().getDataKey();
+                    rtx.close();
+
+                    // all restIds of revision 2 higher than the highest restId of revision 1 are new
+                    final LongHashSet restIdsRev2 = new LongHashSet();
+                    rtx = new NodeReadTrx(session.beginBucketRtx(revision2));
+                    axis = new XPathAxis(rtx, ".//*");
+                    while (axis.hasNext()) {
+                        final long nodeKey = rtx.getNode().getDataKey();
+                        if (nodeKey > maxRestidRev1) {
+                            modificRestids.add(nodeKey);
+                        }
+                        restIdsRev2.add(nodeKey);
+                    }
+                    rtx.close();
+
+                    // all restIds of revision 1 not appearing in revision 2 are deleted
+                    while (!restIdsRev1.isEmpty()) {
+                        final long nodeKey = restIdsRev1.poll();
+                        if (!restIdsRev2.contains(nodeKey)) {
+                            deletedRestids.add(nodeKey);
+                            deletedSet.add(nodeKey);
+                        }
                     }
-                    if (nodeKey > maxRestidRev1) {
-                        /*
-                         * writes all restids of revision 2 higher than the
-                         * highest restid of revision 1 into the list
-                         */
+                } else {
+                    // inserted elements are ordered within revision 2, deleted ones within revision 1
+                    IBucketReadTrx bucketRtx = session.beginBucketRtx(revision2);
+                    rtx = new NodeReadTrx(bucketRtx);
+                    for (final long nodeKey : changes.getElements(bucketRtx, EChange.INSERTED)) {
                         modificRestids.add(nodeKey);
                     }
-                    /*
-                     * removes all restids from restIdsRev1 that appears in
-                     * revision 2 all remaining restids in the list can be seen
-                     * as deleted nodes
-                     */
-                    restIdsRev1.remove(nodeKey);
-                }
-                rtx.moveTo(ROOT_NODE);
-                rtx.close();
-
-                rtx = new NodeReadTrx(session.beginBucketRtx(revision1));
-
-                // linked list for holding unique restids from revision 1
-                final List<Long> restIdsRev1New = new LinkedList<Long>();
-
-                /*
-                 * Checks if a deleted node has a parent node that was deleted
-                 * too. If so, only the parent node is stored in new list to
-                 * avoid double print of node modification
-                 */
-                for (Long nodeKey : restIdsRev1) {
-                    rtx.moveTo(nodeKey);
-                    final long parentKey = rtx.getNode().getParentKey();
-                    if (!restIdsRev1.contains(parentKey)) {
-                        restIdsRev1New.add(nodeKey);
+                    rtx.close();
+                    bucketRtx = session.beginBucketRtx(revision1);
+                    rtx = new NodeReadTrx(bucketRtx);
+                    for (final long nodeKey : changes.getElements(bucketRtx, EChange.DELETED)) {
+                        deletedRestids.add(nodeKey);
+                        deletedSet.add(nodeKey);
                     }
+                    rtx.close();
                 }
-                rtx.moveTo(ROOT_NODE);
-                rtx.close();
 
                 if (wrap) {
                     output.write(beginResult.getBytes());
                 }
+                // all modifications are streamed through one serializer
+                final XMLSerializer serializer = WorkerHelper.serializeItems(session, output, nodeid);
+
                 /*
                  * Shred modified restids from revision 2 to xml fragment Just
                  * modifications done by post commands
                  */
                 rtx = new NodeReadTrx(session.beginBucketRtx(revision2));
-
-                for (Long nodeKey : modificRestids) {
-                    rtx.moveTo(nodeKey);
-                    WorkerHelper.serializeXML(session, output, false, nodeid, nodeKey, revision2).call();
+                while (!modificRestids.isEmpty()) {
+                    serializer.serializeItem(rtx, modificRestids.poll());
                 }
-                rtx.moveTo(ROOT_NODE);
                 rtx.close();
 
                 /*
                  * Shred modified restids from revision 1 to xml fragment Just
-                 * modifications done by put and deletes
+                 * modifications done by put and deletes. A deleted node whose
+                 * parent was deleted too is part of the subtree of the parent
+                 * and therefore skipped to avoid double print of the modification.
                  */
                 rtx = new NodeReadTrx(session.beginBucketRtx(revision1));
-                for (Long nodeKey : restIdsRev1New) {
+                while (!deletedRestids.isEmpty()) {
+                    final long nodeKey = deletedRestids.poll();
                     rtx.moveTo(nodeKey);
-                    WorkerHelper.serializeXML(session, output, false, nodeid, nodeKey, revision1).call();
+                    if (!deletedSet.contains(rtx.getNode().getParentKey())) {
+                        serializer.serializeItem(rtx, nodeKey);
+                    }
                 }
+                serializer.flush();
                 if (wrap) {
                     output.write(endResult.getBytes());
                 }
 
-                rtx.moveTo(ROOT_NODE);
-
             } catch (final Exception globExcep) {
                 throw new JaxRxException(globExcep);
             } finally {
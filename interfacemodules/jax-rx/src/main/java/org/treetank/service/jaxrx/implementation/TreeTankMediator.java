@@ -93,6 +93,27 @@ public final class TreeTankMediator implements JaxRx {
         nodeIdResource = new NodeIdRepresentation(db);
     }
 
+    /**
+     * 
+     * Constructor for an already opened storage.
+     * 
+     * @param pStorage
+     *            the storage holding the resources
+     * @param pStorageFac
+     *            backend of new resources
+     * @param pRevision
+     *            revisioning of new resources
+     * @throws TTException
+     *             if the storage can not be accessed
+     */
+    public TreeTankMediator(final IStorage pStorage, final IBackendFactory pStorageFac,
+        final IRevisioning pRevision) throws TTException {
+        mStorageFac = pStorageFac;
+        mRevision = pRevision;
+        database = new DatabaseRepresentation(pStorage, mStorageFac, mRevision);
+        nodeIdResource = new NodeIdRepresentation(pStorage);
+    }
+
     /**
      * Not allowed message string.
      */
@@ -42,9 +42,10 @@ import org.treetank.access.conf.StandardSettings;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.ISession;
 import org.treetank.api.IStorage;
-import org.treetank.axis.AbsAxis;
 import org.treetank.exception.TTException;
-import org.treetank.service.xml.xpath.XPathAxis;
+import org.treetank.service.xml.serialize.XMLSerializer;
+import org.treetank.service.xml.xpath.CompiledXPath;
+import org.treetank.service.xml.xpath.XPathCache;
 
 /**
  * This class is responsible to offer XPath processing functions for REST.
@@ -64,6 +65,12 @@ public class RestXPathProcessor {
      */
     private static transient String endResult = "</jaxrx:result>";
 
+    /**
+     * Compiled queries, shared by all requests. Idle queries hold neither a transaction nor the state of
+     * their last evaluation.
+     */
+    private static final XPathCache QUERIES = new XPathCache(256);
+
     /**
      * Path to storage.
      */
@@ -163,29 +170,17 @@ public class RestXPathProcessor {
                 session = mDatabase.getSession(new SessionConfiguration(resourceName, StandardSettings.KEY));
                 // Creating a transaction
 
-                if (doRevision == null) {
-                    rtx = new NodeReadTrx(session.beginBucketRtx(session.getMostRecentVersion()));
-                } else {
-                    rtx = new NodeReadTrx(session.beginBucketRtx(doRevision));
-                }
+                final long version = doRevision == null ? session.getMostRecentVersion() : doRevision;
+                rtx = new NodeReadTrx(session.beginBucketRtx(version));
 
                 final boolean exist = rtx.moveTo(rId);
                 if (exist) {
-                    final AbsAxis axis = new XPathAxis(rtx, qQuery);
                     if (doWrap) {
                         output.write(beginResult.getBytes());
-                        for (final long key : axis) {
-                            WorkerHelper.serializeXML(session, output, false, doNodeId, key, doRevision)
-                                .call();
-                        }
-
+                        writeResults(session, rtx, version, output, doNodeId, qQuery);
                         output.write(endResult.getBytes());
                     } else {
-                        for (final long key : axis) {
-                            WorkerHelper.serializeXML(session, output, false, doNodeId, key, doRevision)
-                                .call();
-                        }
-
+                        writeResults(session, rtx, version, output, doNodeId, qQuery);
                     }
                 } else {
                     throw new WebApplicationException(404);
@@ -194,6 +189,8 @@ public class RestXPathProcessor {
 
         } catch (final Exception globExcep) {
             throw new WebApplicationException(globExcep, Response.Status.INTERNAL_SERVER_ERROR);
+        } finally {
+            WorkerHelper.closeRTX(rtx, session);
         }
     }
 
@@ -222,16 +219,10 @@ public class RestXPathProcessor {
             if (mDatabase.existsResource(resource)) {
                 session = mDatabase.getSession(new SessionConfiguration(resource, StandardSettings.KEY));
                 // Creating a transaction
-                if (revision == null) {
-                    rtx = new NodeReadTrx(session.beginBucketRtx(session.getMostRecentVersion()));
-                } else {
-                    rtx = new NodeReadTrx(session.beginBucketRtx(revision));
-                }
+                final long version = revision == null ? session.getMostRecentVersion() : revision;
+                rtx = new NodeReadTrx(session.beginBucketRtx(version));
 
-                final AbsAxis axis = new XPathAxis(rtx, xpath);
-                for (final long key : axis) {
-                    WorkerHelper.serializeXML(session, output, false, nodeid, key, revision).call();
-                }
+                writeResults(session, rtx, version, output, nodeid, xpath);
             }
         } catch (final Exception globExcep) {
             throw new WebApplicationException(globExcep, Response.Status.INTERNAL_SERVER_ERROR);
@@ -240,4 +231,43 @@ public class RestXPathProcessor {
 
         }
     }
+
+    /**
+     * This method evaluates an XPath expression and streams the subtrees of all results through one
+     * serializer over one additional transaction, since the transaction of the query is moved by the
+     * evaluation.
+     * 
+     * @param session
+     *            The session of the resource.
+     * @param rtx
+     *            The transaction located at the context node of the query.
+     * @param version
+     *            The revision the transaction reads.
+     * @param output
+     *            The output stream where the results are written.
+     * @param nodeid
+     *            <code>true</code> if node id's have to be delivered. <code>false</code> otherwise.
+     * @param xpath
+     *            The XPath expression.
+     * @throws TTException
+     */
+    private void writeResults(final ISession session, final INodeReadTrx rtx, final long version,
+        final OutputStream output, final boolean nodeid, final String xpath) throws TTException {
+        final XMLSerializer serializer = WorkerHelper.serializeItems(session, output, nodeid);
+        final CompiledXPath compiled = QUERIES.acquire(rtx, xpath);
+        try {
+            final INodeReadTrx serializeRtx = new NodeReadTrx(session.beginBucketRtx(version));
+            try {
+                for (final long key : compiled.bind(rtx)) {
+                    serializer.serializeItem(serializeRtx, key);
+                }
+                serializer.flush();
+            } finally {
+                serializeRtx.close();
+            }
+        } finally {
+            // releasing before the transaction of the query is closed
+            QUERIES.release(compiled);
+        }
+    }
 }
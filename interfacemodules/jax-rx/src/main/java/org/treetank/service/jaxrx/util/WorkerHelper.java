@@ -171,6 +171,25 @@ public final class WorkerHelper {
         return serializer;
     }
 
+    /**
+     * This method creates a new XMLSerializer reference for streaming the subtrees of all nodes of one
+     * request, see {@link XMLSerializer#serializeItem(INodeReadTrx, long)}. The output has to be
+     * finished with {@link XMLSerializer#flush()}.
+     * 
+     * @param session
+     *            Associated session.
+     * @param out
+     *            OutputStream
+     * @param serializeRest
+     *            specifies whether node id should be shown
+     * 
+     * @return new XMLSerializer reference
+     */
+    public static XMLSerializer serializeItems(final ISession session, final OutputStream out,
+        final boolean serializeRest) {
+        return serializeXML(session, out, false, serializeRest, null, null);
+    }
+
     /**
      * This method creates a new StringBuilder reference
      * 
@@ -181,40 +200,42 @@ public final class WorkerHelper {
     }
 
     /**
-     * This method closes all open treetank connections concerning a
-     * NodeWriteTrx.
+     * This method closes the treetank connections concerning a NodeWriteTrx. Like in
+     * {@link #closeRTX(INodeReadTrx, ISession)}, the session stays open since it is shared with the
+     * transactions of concurrent requests on the resource.
      * 
      * @param abortTransaction
      *            <code>true</code> if the transaction has to be aborted, <code>false</code> otherwise.
      * @param wtx
-     *            INodeWriteTrx to be closed
+     *            INodeWriteTrx to be closed, may be <code>null</code>
      * @param ses
-     *            ISession to be closed
-     * @throws TreetankException
+     *            ISession the transaction belongs to
+     * @throws TTException
      */
     public static void closeWTX(final boolean abortTransaction, final INodeWriteTrx wtx, final ISession ses)
         throws TTException {
-        synchronized (ses) {
+        if (wtx != null && !wtx.isClosed()) {
             if (abortTransaction) {
                 wtx.abort();
             }
-            ses.close();
+            wtx.close();
         }
     }
 
     /**
-     * This method closes all open treetank connections concerning a
-     * NodeReadTrx.
+     * This method closes the treetank connections concerning a NodeReadTrx. The session is shared by all
+     * requests on the resource and therefore stays open, closing it would close the transactions of
+     * concurrent requests as well.
      * 
      * @param rtx
-     *            INodeReadTrx to be closed
+     *            INodeReadTrx to be closed, may be <code>null</code>
      * @param ses
-     *            ISession to be closed
+     *            ISession the transaction belongs to
      * @throws TTException
      */
     public static void closeRTX(final INodeReadTrx rtx, final ISession ses) throws TTException {
-        synchronized (ses) {
-            ses.close();
+        if (rtx != null) {
+            rtx.close();
         }
     }
 
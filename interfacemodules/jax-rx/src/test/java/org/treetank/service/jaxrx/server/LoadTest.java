@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.jaxrx.server;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jaxrx.JettyServer;
+import org.jaxrx.core.Systems;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.api.IStorage;
+import org.treetank.io.IBackend.IBackendFactory;
+import org.treetank.revisioning.IRevisioning;
+import org.treetank.service.jaxrx.implementation.DatabaseRepresentation;
+import org.treetank.service.jaxrx.implementation.TreeTankMediator;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.ModuleFactory;
+
+import com.google.inject.Inject;
+
+/**
+ * Load test firing concurrent clients against the embedded {@link JettyServer}. Every response has to be
+ * streamed chunked and has to equal the response of a single client, even while another client keeps
+ * writing to the resource.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+@Guice(moduleFactory = ModuleFactory.class)
+public class LoadTest {
+
+    /** Port of the embedded server. */
+    private static final int PORT = 8094;
+
+    /** Name the mediator is registered with. */
+    private static final String SYSTEM = "treetank";
+
+    /** Number of concurrent clients. */
+    private static final int CLIENTS = 8;
+
+    /** Number of requests per client. */
+    private static final int REQUESTS = 20;
+
+    /** Number of writes of the concurrent writer. */
+    private static final int WRITES = 10;
+
+    /** Node the writer inserts its subtrees under. */
+    private static final long WRITE_NODE = 17;
+
+    /** Requested paths, relative to the resource, to be completed with the read revision. */
+    private static final String[] QUERIES = {
+        "?", "?query=//country&wrap=yes&", "?query=//city/name&wrap=yes&"
+    };
+
+    @Inject
+    public IBackendFactory mStorageFac;
+
+    @Inject
+    public IRevisioning mRevisioning;
+
+    /** Embedded server. */
+    private JettyServer mServer;
+
+    /** Revision read by the clients, fixed while the writer commits new ones. */
+    private long mRevision;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        CoreTestHelper.deleteEverything();
+        final IStorage storage = CoreTestHelper.getStorage(CoreTestHelper.PATHS.PATH1.getFile());
+        final InputStream input = LoadTest.class.getResourceAsStream("/factbook.xml");
+        final DatabaseRepresentation database =
+            new DatabaseRepresentation(storage, mStorageFac, mRevisioning);
+        database.shred(input, CoreTestHelper.RESOURCENAME);
+        input.close();
+        mRevision = database.getLastRevision(CoreTestHelper.RESOURCENAME);
+        Systems.register(SYSTEM, new TreeTankMediator(storage, mStorageFac, mRevisioning));
+        mServer = new JettyServer(PORT);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        mServer.stop();
+        CoreTestHelper.deleteEverything();
+    }
+
+    @Test
+    public void testConcurrentClients() throws Exception {
+        final String[] expected = new String[QUERIES.length];
+        for (int i = 0; i < QUERIES.length; i++) {
+            expected[i] = get(QUERIES[i] + "revision=" + mRevision);
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(CLIENTS + 1);
+        final List<Future<Void>> clients = new ArrayList<Future<Void>>();
+        // the writer commits new revisions while the readers are still streaming the fixed one
+        clients.add(pool.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (int j = 0; j < WRITES; j++) {
+                    post(WRITE_NODE, "<load>" + j + "</load>");
+                }
+                return null;
+            }
+        }));
+        for (int i = 0; i < CLIENTS; i++) {
+            final int offset = i;
+            clients.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int j = 0; j < REQUESTS; j++) {
+                        final int query = (offset + j) % QUERIES.length;
+                        assertEquals(expected[query], get(QUERIES[query] + "revision=" + mRevision));
+                    }
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (final Future<Void> client : clients) {
+                client.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        final String written = get("?query=//load&wrap=yes");
+        for (int j = 0; j < WRITES; j++) {
+            assertTrue(written.contains("<load>" + j + "</load>"));
+        }
+    }
+
+    /**
+     * Requests the resource and checks that the answer is streamed chunked.
+     * 
+     * @param pQuery
+     *            query part of the url
+     * @return the body of the response
+     * @throws IOException
+     *             if the request fails
+     */
+    private static String get(final String pQuery) throws IOException {
+        final URL url =
+            new URL("http://localhost:" + PORT + "/" + SYSTEM + "/jax-rx/" + CoreTestHelper.RESOURCENAME
+                + pQuery);
+        final HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+        try {
+            assertEquals(200, conn.getResponseCode());
+            assertEquals("chunked", conn.getHeaderField("Transfer-Encoding"));
+            final InputStream in = conn.getInputStream();
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            in.close();
+            assertTrue(body.size() > 0);
+            return body.toString("UTF-8");
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Inserts a subtree as first child of a node and checks that the request succeeds.
+     * 
+     * @param pNodeKey
+     *            key of the parent node
+     * @param pSubtree
+     *            the subtree to insert
+     * @throws IOException
+     *             if the request fails
+     */
+    private static void post(final long pNodeKey, final String pSubtree) throws IOException {
+        final URL url =
+            new URL("http://localhost:" + PORT + "/" + SYSTEM + "/jax-rx/" + CoreTestHelper.RESOURCENAME
+                + "/" + pNodeKey);
+        final HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/xml");
+            conn.setDoOutput(true);
+            final OutputStream out = conn.getOutputStream();
+            out.write(pSubtree.getBytes("UTF-8"));
+            out.close();
+            assertEquals(HttpURLConnection.HTTP_CREATED, conn.getResponseCode());
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+}
@@ -0,0 +1,316 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.saxon.evaluator;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.stream.StreamSource;
+
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XPathExecutable;
+import net.sf.saxon.s9api.XQueryExecutable;
+import net.sf.saxon.s9api.XsltExecutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.api.ISession;
+import org.treetank.exception.TTException;
+import org.treetank.saxon.wrapper.DocumentWrapper;
+
+/**
+ * <h1>SaxonCache</h1>
+ * 
+ * <p>
+ * Saxon state shared by all evaluators working on one storage: a single {@link Processor}, bounded caches
+ * of the compiled queries and stylesheets and of the wrapped documents per session and revision. Repeated
+ * evaluations thereby only pay for the evaluation itself.
+ * </p>
+ * 
+ * <p>
+ * Wrapped documents pin their revision with their idle cursors and are closed once evicted. Documents of
+ * closed sessions are evicted with the next access of any cache, caches left without documents are dropped
+ * together with their compiled expressions.
+ * </p>
+ */
+final class SaxonCache {
+
+    /** Logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaxonCache.class);
+
+    /** Number of compiled expressions kept per kind. */
+    private static final int MAX_EXECUTABLES = 64;
+
+    /** Number of wrapped documents kept. */
+    private static final int MAX_DOCUMENTS = 8;
+
+    /** Caches per storage path. */
+    private static final ConcurrentMap<String, SaxonCache> CACHES =
+        new ConcurrentHashMap<String, SaxonCache>();
+
+    /** Processor shared by all evaluations on the storage. */
+    private final Processor mProcessor;
+
+    /** Compiled XQuery expressions. */
+    private final Map<String, XQueryExecutable> mXQueries;
+
+    /** Compiled XPath expressions. */
+    private final Map<String, XPathExecutable> mXPaths;
+
+    /** Compiled stylesheets, keyed by path and modification time. */
+    private final Map<String, XsltExecutable> mStylesheets;
+
+    /** Wrapped documents. */
+    private final Map<DocumentKey, DocumentWrapper> mDocuments;
+
+    /**
+     * Constructor.
+     */
+    private SaxonCache() {
+        mProcessor = new Processor(false);
+        mXQueries = lru(MAX_EXECUTABLES);
+        mXPaths = lru(MAX_EXECUTABLES);
+        mStylesheets = lru(MAX_EXECUTABLES);
+        mDocuments = Collections.synchronizedMap(new LinkedHashMap<DocumentKey, DocumentWrapper>(16, 0.75f,
+            true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Entry<DocumentKey, DocumentWrapper> pEldest) {
+                if (size() > MAX_DOCUMENTS) {
+                    close(pEldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Getting the cache of the storage a session belongs to.
+     * 
+     * @param pSession
+     *            Treetank session.
+     * @return the cache
+     */
+    static SaxonCache get(final ISession pSession) {
+        final String storage =
+            String.valueOf(pSession.getConfig().mProperties.getProperty(ConstructorProps.STORAGEPATH));
+        for (final Entry<String, SaxonCache> entry : CACHES.entrySet()) {
+            if (entry.getValue().evictClosed() && !entry.getKey().equals(storage)) {
+                CACHES.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        SaxonCache cache = CACHES.get(storage);
+        if (cache == null) {
+            CACHES.putIfAbsent(storage, new SaxonCache());
+            cache = CACHES.get(storage);
+        }
+        return cache;
+    }
+
+    /**
+     * Getting the shared processor.
+     * 
+     * @return the processor
+     */
+    Processor getProcessor() {
+        return mProcessor;
+    }
+
+    /**
+     * Getting the wrapped most recent revision of a session.
+     * 
+     * @param pSession
+     *            Treetank session.
+     * @return the document wrapper
+     * @throws TTException
+     */
+    DocumentWrapper getDocument(final ISession pSession) throws TTException {
+        final DocumentKey key = new DocumentKey(pSession, pSession.getMostRecentVersion());
+        synchronized (mDocuments) {
+            DocumentWrapper doc = mDocuments.get(key);
+            if (doc == null) {
+                doc = new DocumentWrapper(pSession, key.mRevision, mProcessor.getUnderlyingConfiguration());
+                mDocuments.put(key, doc);
+            }
+            return doc;
+        }
+    }
+
+    /**
+     * Evicting and closing the wrapped documents of closed sessions.
+     * 
+     * @return true if no documents are left, false otherwise
+     */
+    private boolean evictClosed() {
+        synchronized (mDocuments) {
+            final Iterator<Entry<DocumentKey, DocumentWrapper>> it = mDocuments.entrySet().iterator();
+            while (it.hasNext()) {
+                final Entry<DocumentKey, DocumentWrapper> entry = it.next();
+                if (entry.getKey().mSession.isClosed()) {
+                    close(entry.getValue());
+                    it.remove();
+                }
+            }
+            return mDocuments.isEmpty();
+        }
+    }
+
+    /**
+     * Closing an evicted document, failures are only logged since the document is not used by the cache
+     * anymore.
+     * 
+     * @param pDocument
+     *            the evicted document
+     */
+    private static void close(final DocumentWrapper pDocument) {
+        try {
+            pDocument.close();
+        } catch (final TTException exc) {
+            LOGGER.error("Closing evicted document failed: " + exc.getMessage(), exc);
+        }
+    }
+
+    /**
+     * Getting a compiled XQuery expression.
+     * 
+     * @param pExpression
+     *            XQuery expression.
+     * @return the executable
+     * @throws SaxonApiException
+     *             if the expression can not be compiled
+     */
+    XQueryExecutable compileXQuery(final String pExpression) throws SaxonApiException {
+        XQueryExecutable exp = mXQueries.get(pExpression);
+        if (exp == null) {
+            exp = mProcessor.newXQueryCompiler().compile(pExpression);
+            mXQueries.put(pExpression, exp);
+        }
+        return exp;
+    }
+
+    /**
+     * Getting a compiled XPath expression.
+     * 
+     * @param pExpression
+     *            XPath expression.
+     * @return the executable
+     * @throws SaxonApiException
+     *             if the expression can not be compiled
+     */
+    XPathExecutable compileXPath(final String pExpression) throws SaxonApiException {
+        XPathExecutable exp = mXPaths.get(pExpression);
+        if (exp == null) {
+            exp = mProcessor.newXPathCompiler().compile(pExpression);
+            mXPaths.put(pExpression, exp);
+        }
+        return exp;
+    }
+
+    /**
+     * Getting a compiled stylesheet. A stylesheet modified since its compilation is compiled again.
+     * 
+     * @param pStylesheet
+     *            Stylesheet file.
+     * @return the executable
+     * @throws SaxonApiException
+     *             if the stylesheet can not be compiled
+     */
+    XsltExecutable compileStylesheet(final File pStylesheet) throws SaxonApiException {
+        final String key = pStylesheet.getAbsolutePath() + "@" + pStylesheet.lastModified();
+        XsltExecutable exp = mStylesheets.get(key);
+        if (exp == null) {
+            exp = mProcessor.newXsltCompiler().compile(new StreamSource(pStylesheet));
+            mStylesheets.put(key, exp);
+        }
+        return exp;
+    }
+
+    /**
+     * Creating a synchronized map evicting the least recently used entry once full.
+     * 
+     * @param pMaxSize
+     *            Maximum number of entries.
+     * @return the map
+     */
+    private static <K, V> Map<K, V> lru(final int pMaxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Entry<K, V> pEldest) {
+                return size() > pMaxSize;
+            }
+        });
+    }
+
+    /**
+     * Key of a wrapped document, denoting the session by identity.
+     */
+    private static final class DocumentKey {
+
+        /** Treetank session. */
+        private final ISession mSession;
+
+        /** Wrapped revision. */
+        private final long mRevision;
+
+        /**
+         * Constructor.
+         * 
+         * @param pSession
+         *            Treetank session.
+         * @param pRevision
+         *            Wrapped revision.
+         */
+        private DocumentKey(final ISession pSession, final long pRevision) {
+            mSession = pSession;
+            mRevision = pRevision;
+        }
+
+        @Override
+        public boolean equals(final Object pObj) {
+            return pObj instanceof DocumentKey && ((DocumentKey)pObj).mSession == mSession
+                && ((DocumentKey)pObj).mRevision == mRevision;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mSession) + (int)(mRevision ^ (mRevision >>> 32));
+        }
+    }
+}
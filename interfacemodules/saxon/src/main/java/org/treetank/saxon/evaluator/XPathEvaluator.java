@@ -29,19 +29,15 @@ package org.treetank.saxon.evaluator;
 
 import java.util.concurrent.Callable;
 
-import net.sf.saxon.Configuration;
 import net.sf.saxon.om.NodeInfo;
 import net.sf.saxon.s9api.DocumentBuilder;
-import net.sf.saxon.s9api.Processor;
 import net.sf.saxon.s9api.SaxonApiException;
-import net.sf.saxon.s9api.XPathCompiler;
 import net.sf.saxon.s9api.XPathSelector;
 import net.sf.saxon.s9api.XdmItem;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.treetank.api.ISession;
-import org.treetank.saxon.wrapper.DocumentWrapper;
 
 /**
  * <h1>XPath Evaluator</h1>
@@ -85,16 +81,14 @@ public final class XPathEvaluator implements Callable<XPathSelector> {
      */
     @Override
     public XPathSelector call() throws Exception {
-        final Processor proc = new Processor(false);
-        final Configuration config = proc.getUnderlyingConfiguration();
-        final NodeInfo doc = new DocumentWrapper(mSession, config);
-        final XPathCompiler xpath = proc.newXPathCompiler();
-        final DocumentBuilder builder = proc.newDocumentBuilder();
+        final SaxonCache cache = SaxonCache.get(mSession);
+        final NodeInfo doc = cache.getDocument(mSession);
+        final DocumentBuilder builder = cache.getProcessor().newDocumentBuilder();
         XPathSelector selector = null;
 
         try {
             final XdmItem booksDoc = builder.build(doc);
-            selector = xpath.compile(mExpression).load();
+            selector = cache.compileXPath(mExpression).load();
             selector.setContextItem(booksDoc);
         } catch (final SaxonApiException e) {
             LOGGER.error("Saxon Exception: " + e.getMessage(), e);
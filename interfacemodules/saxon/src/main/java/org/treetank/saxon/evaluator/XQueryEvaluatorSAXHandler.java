@@ -29,18 +29,14 @@ package org.treetank.saxon.evaluator;
 
 import java.util.concurrent.Callable;
 
-import net.sf.saxon.Configuration;
 import net.sf.saxon.om.NodeInfo;
-import net.sf.saxon.s9api.Processor;
 import net.sf.saxon.s9api.SAXDestination;
 import net.sf.saxon.s9api.SaxonApiException;
-import net.sf.saxon.s9api.XQueryCompiler;
 import net.sf.saxon.s9api.XQueryExecutable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.treetank.api.ISession;
-import org.treetank.saxon.wrapper.DocumentWrapper;
 import org.xml.sax.ContentHandler;
 
 /**
@@ -88,11 +84,9 @@ public final class XQueryEvaluatorSAXHandler implements Callable<Void> {
     @Override
     public Void call() throws Exception {
         try {
-            final Processor proc = new Processor(false);
-            final Configuration config = proc.getUnderlyingConfiguration();
-            final NodeInfo doc = new DocumentWrapper(mSession, config);
-            final XQueryCompiler comp = proc.newXQueryCompiler();
-            final XQueryExecutable exp = comp.compile(mExpression);
+            final SaxonCache cache = SaxonCache.get(mSession);
+            final NodeInfo doc = cache.getDocument(mSession);
+            final XQueryExecutable exp = cache.compileXQuery(mExpression);
             final net.sf.saxon.s9api.XQueryEvaluator exe = exp.load();
             exe.setSource(doc);
             exe.run(new SAXDestination(mHandler));
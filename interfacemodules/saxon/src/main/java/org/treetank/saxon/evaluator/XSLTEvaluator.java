@@ -31,15 +31,10 @@ import java.io.File;
 import java.io.OutputStream;
 import java.util.concurrent.Callable;
 
-import javax.xml.transform.stream.StreamSource;
-
-import net.sf.saxon.Configuration;
 import net.sf.saxon.om.NodeInfo;
-import net.sf.saxon.s9api.Processor;
 import net.sf.saxon.s9api.SaxonApiException;
 import net.sf.saxon.s9api.Serializer;
 import net.sf.saxon.s9api.XdmNode;
-import net.sf.saxon.s9api.XsltCompiler;
 import net.sf.saxon.s9api.XsltExecutable;
 import net.sf.saxon.s9api.XsltTransformer;
 
@@ -47,7 +42,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.treetank.api.ISession;
 import org.treetank.exception.TTException;
-import org.treetank.saxon.wrapper.DocumentWrapper;
 
 /**
  * <h1>XSLT Evaluator</h1>
@@ -120,16 +114,14 @@ public final class XSLTEvaluator implements Callable<OutputStream> {
      */
     @Override
     public OutputStream call() {
-        final Processor proc = new Processor(false);
-        final XsltCompiler comp = proc.newXsltCompiler();
+        final SaxonCache cache = SaxonCache.get(mSession);
         XsltExecutable exp;
         XdmNode source;
 
         try {
-            final Configuration config = proc.getUnderlyingConfiguration();
-            final NodeInfo doc = new DocumentWrapper(mSession, config);
-            exp = comp.compile(new StreamSource(mStylesheet));
-            source = proc.newDocumentBuilder().build(doc);
+            final NodeInfo doc = cache.getDocument(mSession);
+            exp = cache.compileStylesheet(mStylesheet);
+            source = cache.getProcessor().newDocumentBuilder().build(doc);
 
             if (mSerializer == null) {
                 final Serializer out = new Serializer();
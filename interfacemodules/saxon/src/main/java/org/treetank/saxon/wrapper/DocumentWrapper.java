@@ -27,9 +27,15 @@
 
 package org.treetank.saxon.wrapper;
 
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 
+import javax.xml.namespace.QName;
+
 import net.sf.saxon.Configuration;
 import net.sf.saxon.event.Receiver;
 import net.sf.saxon.om.DocumentInfo;
@@ -47,12 +53,14 @@ import net.sf.saxon.value.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.treetank.access.NodeReadTrx;
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.ISession;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.DescendantAxis;
 import org.treetank.data.ElementNode;
 import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeNameData;
 import org.treetank.exception.TTException;
 
 /**
@@ -64,6 +72,11 @@ import org.treetank.exception.TTException;
  * <tt>NodeWrapper</tt>.
  * </p>
  * 
+ * <p>
+ * The document is pinned to one revision. All wrapped nodes read over cursors on this revision which are
+ * pooled by the document instead of beginning a transaction per access.
+ * </p>
+ * 
  * @author Johannes Lichtenberger, University of Konstanz
  * @author Sebastian Graf, University of Konstanz
  * 
@@ -75,9 +88,15 @@ public final class DocumentWrapper implements DocumentInfo {
      */
     protected static final Logger LOGGER = LoggerFactory.getLogger(DocumentWrapper.class);
 
+    /** Number of idle cursors kept for reuse. */
+    private static final int MAX_CURSORS = 16;
+
     /** Treetank database. */
     protected transient final ISession mSession;
 
+    /** Revision the document is pinned to. */
+    protected transient final long mRevision;
+
     /** Base URI of the document. */
     protected transient String mBaseURI;
 
@@ -92,8 +111,20 @@ public final class DocumentWrapper implements DocumentInfo {
      */
     private final NodeWrapper mNodeWrapper;
 
+    /** Idle cursors on the pinned revision. */
+    private final Deque<INodeReadTrx> mCursors;
+
+    /** Is the wrapper closed, cursors handed back are closed instead of kept? */
+    private boolean mClosed;
+
+    /** Name codes of the names resolved so far. */
+    private final NameCodeMap mNameCodes;
+
+    /** Are the order labels of the nodes maintained, see {@link ConstructorProps#STRUCTINDEX}? */
+    private final boolean mOrderLabels;
+
     /**
-     * Wrap a Treetank document.
+     * Wrap the most recent revision of a Treetank document.
      * 
      * @param pSession
      *            Treetank database.
@@ -102,12 +133,100 @@ public final class DocumentWrapper implements DocumentInfo {
      * @throws TTException
      */
     public DocumentWrapper(final ISession pSession, final Configuration pConfig) throws TTException {
+        this(pSession, pSession.getMostRecentVersion(), pConfig);
+    }
+
+    /**
+     * Wrap a Treetank document.
+     * 
+     * @param pSession
+     *            Treetank database.
+     * @param pRevision
+     *            Revision to wrap.
+     * @param pConfig
+     *            Configuration used.
+     * @throws TTException
+     */
+    public DocumentWrapper(final ISession pSession, final long pRevision, final Configuration pConfig)
+        throws TTException {
         this.mSession = pSession;
+        mRevision = pRevision;
+        mCursors = new ArrayDeque<INodeReadTrx>();
+        mNameCodes = new NameCodeMap();
+        mOrderLabels =
+            Boolean.parseBoolean(pSession.getConfig().mProperties.getProperty(ConstructorProps.STRUCTINDEX));
         mBaseURI = pSession.toString();
         setConfiguration(pConfig);
         mNodeWrapper = new NodeWrapper(this, 0);
     }
 
+    /**
+     * Getting a cursor on the pinned revision, either an idle one or a new one. The cursor must be handed
+     * back with {@link #releaseCursor(INodeReadTrx)} and must not be used afterwards.
+     * 
+     * @param pKey
+     *            Key of the node to move the cursor to.
+     * @return the cursor
+     * @throws TTException
+     */
+    INodeReadTrx borrowCursor(final long pKey) throws TTException {
+        INodeReadTrx rtx;
+        synchronized (mCursors) {
+            rtx = mCursors.pollFirst();
+        }
+        if (rtx == null) {
+            rtx = new NodeReadTrx(mSession.beginSharedBucketRtx(mRevision));
+        }
+        rtx.moveTo(pKey);
+        return rtx;
+    }
+
+    /**
+     * Can nodes of this document be compared by their order labels?
+     * 
+     * @return true if the order labels are maintained for the resource
+     */
+    boolean hasOrderLabels() {
+        return mOrderLabels;
+    }
+
+    /**
+     * Handing back a cursor for reuse.
+     * 
+     * @param pRtx
+     *            The cursor borrowed with {@link #borrowCursor(long)}.
+     * @throws TTException
+     */
+    void releaseCursor(final INodeReadTrx pRtx) throws TTException {
+        pRtx.getAxisContext().clear();
+        synchronized (mCursors) {
+            if (!mClosed && mCursors.size() < MAX_CURSORS) {
+                mCursors.addFirst(pRtx);
+                return;
+            }
+        }
+        pRtx.close();
+    }
+
+    /**
+     * Closing all idle cursors, releasing the pinned revision once the cursors still borrowed are handed
+     * back, which axis iterators do once exhausted or closed. The wrapper stays usable, cursors borrowed
+     * afterwards are closed on their release.
+     * 
+     * @throws TTException
+     */
+    public void close() throws TTException {
+        final INodeReadTrx[] cursors;
+        synchronized (mCursors) {
+            mClosed = true;
+            cursors = mCursors.toArray(new INodeReadTrx[mCursors.size()]);
+            mCursors.clear();
+        }
+        for (final INodeReadTrx rtx : cursors) {
+            rtx.close();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,8 +251,7 @@ public final class DocumentWrapper implements DocumentInfo {
     @Override
     public NodeInfo selectID(final String ID, final boolean getParent) {
         try {
-            final INodeReadTrx rtx =
-                new NodeReadTrx(mSession.beginBucketRtx(mSession.getMostRecentVersion()));
+            final INodeReadTrx rtx = borrowCursor(mNodeWrapper.mKey);
             final AbsAxis axis = new DescendantAxis(rtx, true);
             while (axis.hasNext()) {
                 if (rtx.getNode().getKind() == IConstants.ELEMENT) {
@@ -150,21 +268,53 @@ public final class DocumentWrapper implements DocumentInfo {
                                 if (getParent) {
                                     rtx.moveTo(rtx.getNode().getParentKey());
                                 }
-                                return new NodeWrapper(this, rtx.getNode().getDataKey());
+                                final NodeWrapper node = new NodeWrapper(this, rtx.getNode());
+                                releaseCursor(rtx);
+                                return node;
                             }
                             rtx.moveTo(nodeKey);
                         }
                     }
                 }
-                axis.next();
+                axis.nextKey();
             }
-            rtx.close();
+            releaseCursor(rtx);
         } catch (final TTException exc) {
             LOGGER.error(exc.toString());
         }
         return null;
     }
 
+    /**
+     * Getting the code of a name within the name pool. Each distinct pair of name and URI key is resolved
+     * and allocated once per document, afterwards the code is looked up without any read.
+     * 
+     * @param pNode
+     *            Named node.
+     * @return the name code
+     * @throws TTException
+     */
+    int getNameCode(final ITreeNameData pNode) throws TTException {
+        final long key = NameCodeMap.pack(pNode.getNameKey(), pNode.getURIKey());
+        int nameCode;
+        synchronized (mNameCodes) {
+            nameCode = mNameCodes.get(key);
+        }
+        if (nameCode == NameCodeMap.ABSENT) {
+            final INodeReadTrx rtx = borrowCursor(ROOT_NODE);
+            final QName name =
+                NodeReadTrx.buildQName(rtx.nameForKey(pNode.getURIKey()), rtx.nameForKey(pNode.getNameKey()));
+            releaseCursor(rtx);
+            // the URI of unprefixed names is not bound, see NodeWrapper#getURI()
+            final String uri = "".equals(name.getPrefix()) ? "" : name.getNamespaceURI();
+            nameCode = getNamePool().allocate(name.getPrefix(), uri, name.getLocalPart());
+            synchronized (mNameCodes) {
+                mNameCodes.put(key, nameCode);
+            }
+        }
+        return nameCode;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.saxon.wrapper;
+
+import java.util.Arrays;
+
+/**
+ * <h1>NameCodeMap</h1>
+ * 
+ * <p>
+ * Maps the Treetank name and URI keys of named nodes to the codes of Saxon's name pool. The entries are
+ * stored in two parallel arrays with open addressing and linear probing, neither the keys nor the codes
+ * are boxed.
+ * </p>
+ */
+final class NameCodeMap {
+
+    /** Code returned for unknown keys, never allocated by the name pool. */
+    static final int ABSENT = -1;
+
+    /** Initial capacity, must be a power of two. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Packed name and URI keys. */
+    private long[] mKeys;
+
+    /** Name codes at the same slots as their keys, {@link #ABSENT} denotes a free slot. */
+    private int[] mCodes;
+
+    /** Number of entries. */
+    private int mSize;
+
+    /**
+     * Constructor.
+     */
+    NameCodeMap() {
+        mKeys = new long[INITIAL_CAPACITY];
+        mCodes = new int[INITIAL_CAPACITY];
+        Arrays.fill(mCodes, ABSENT);
+    }
+
+    /**
+     * Packing the name and the URI key of a node into one key.
+     * 
+     * @param pNameKey
+     *            the name key
+     * @param pURIKey
+     *            the URI key
+     * @return the packed key
+     */
+    static long pack(final int pNameKey, final int pURIKey) {
+        return ((long)pNameKey << 32) | (pURIKey & 0xffffffffL);
+    }
+
+    /**
+     * Associating a name code with a packed key.
+     * 
+     * @param pKey
+     *            the packed key
+     * @param pCode
+     *            the name code, not negative
+     */
+    void put(final long pKey, final int pCode) {
+        int slot = slot(pKey, mKeys.length);
+        while (mCodes[slot] != ABSENT && mKeys[slot] != pKey) {
+            slot = (slot + 1) & (mKeys.length - 1);
+        }
+        if (mCodes[slot] == ABSENT) {
+            mKeys[slot] = pKey;
+            mSize++;
+        }
+        mCodes[slot] = pCode;
+        // Keeping the load factor below 0.5.
+        if (mSize << 1 > mKeys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Getting the name code associated with a packed key.
+     * 
+     * @param pKey
+     *            the packed key
+     * @return the name code or {@link #ABSENT} if the key is unknown
+     */
+    int get(final long pKey) {
+        int slot = slot(pKey, mKeys.length);
+        while (mCodes[slot] != ABSENT) {
+            if (mKeys[slot] == pKey) {
+                return mCodes[slot];
+            }
+            slot = (slot + 1) & (mKeys.length - 1);
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Doubling the capacity and reinserting all entries.
+     */
+    private void resize() {
+        final long[] keys = mKeys;
+        final int[] codes = mCodes;
+        mKeys = new long[keys.length << 1];
+        mCodes = new int[keys.length << 1];
+        Arrays.fill(mCodes, ABSENT);
+        for (int i = 0; i < keys.length; i++) {
+            if (codes[i] != ABSENT) {
+                int slot = slot(keys[i], mKeys.length);
+                while (mCodes[slot] != ABSENT) {
+                    slot = (slot + 1) & (mKeys.length - 1);
+                }
+                mKeys[slot] = keys[i];
+                mCodes[slot] = codes[i];
+            }
+        }
+    }
+
+    /**
+     * Computing the home slot of a key.
+     * 
+     * @param pKey
+     *            the packed key
+     * @param pCapacity
+     *            capacity of the table, a power of two
+     * @return the home slot
+     */
+    private static int slot(final long pKey, final int pCapacity) {
+        final long spread = pKey * 0x9E3779B97F4A7C15L;
+        return (int)(spread ^ (spread >>> 32)) & (pCapacity - 1);
+    }
+}
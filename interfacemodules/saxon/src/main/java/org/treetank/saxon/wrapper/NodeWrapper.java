@@ -67,7 +67,6 @@ import net.sf.saxon.value.Value;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.treetank.access.NodeReadTrx;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.AncestorAxis;
@@ -84,6 +83,7 @@ import org.treetank.axis.filter.TextFilter;
 import org.treetank.data.ElementNode;
 import org.treetank.data.IConstants;
 import org.treetank.data.interfaces.ITreeData;
+import org.treetank.data.interfaces.ITreeNameData;
 import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTException;
 
@@ -107,11 +107,23 @@ import org.treetank.exception.TTException;
  * siblings.</dd>
  * </dl>
  * 
+ * <p>
+ * A wrapper is a lightweight view on one node of the revision pinned by its {@link DocumentWrapper}, holding
+ * the key, the kind and the node itself. The name is resolved on first access and all navigation is done
+ * over the cursors pooled by the document.
+ * </p>
+ * 
  * @author Johannes Lichtenberger, University of Konstanz
  * 
  */
 public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
 
+    /** Marker of a name code not resolved yet. */
+    private static final int UNRESOLVED = -2;
+
+    /** Marker of an order label not resolved yet, labels are never negative. */
+    private static final long NO_LABEL = -1;
+
     /** Kind of current treeData. */
     protected transient final int nodeKind;
 
@@ -129,8 +141,14 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     /** Treetank treeData. */
     protected transient final ITreeData treeData;
 
-    /** QName of current treeData. */
-    protected transient final QName qName;
+    /** QName of current treeData, resolved lazily. */
+    private transient QName qName;
+
+    /** Name code of current treeData within the name pool, resolved lazily. */
+    private transient int mNameCode = UNRESOLVED;
+
+    /** Order label of current treeData or of its element for attributes and namespaces, resolved lazily. */
+    private transient long mOrderLabel = NO_LABEL;
 
     /**
      * A treeData in the XML parse tree. Wrap a Treetank treeData.
@@ -142,22 +160,54 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
      * @throws TTException
      */
     protected NodeWrapper(final DocumentWrapper pDocWrapper, final long pNodekeyToStart) throws TTException {
+        this(pDocWrapper, pDocWrapper.borrowCursor(pNodekeyToStart));
+    }
 
-        this.mDocWrapper = pDocWrapper;
+    /**
+     * Wrap the node a borrowed cursor is located at and hand the cursor back.
+     * 
+     * @param pDocWrapper
+     *            Document wrapper
+     * @param pRtx
+     *            Cursor borrowed from the document wrapper.
+     * @throws TTException
+     */
+    private NodeWrapper(final DocumentWrapper pDocWrapper, final INodeReadTrx pRtx) throws TTException {
+        this(pDocWrapper, pRtx.getNode());
+        pDocWrapper.releaseCursor(pRtx);
+    }
 
-        final INodeReadTrx rtx =
-            new NodeReadTrx(mDocWrapper.mSession.beginBucketRtx(mDocWrapper.mSession.getMostRecentVersion()));
-        rtx.moveTo(pNodekeyToStart);
-        this.nodeKind = rtx.getNode().getKind();
-        this.mKey = rtx.getNode().getDataKey();
-        this.treeData = rtx.getNode();
+    /**
+     * Wrap an already read treeData.
+     * 
+     * @param pDocWrapper
+     *            Document wrapper
+     * @param pNode
+     *            The treeData to wrap.
+     */
+    NodeWrapper(final DocumentWrapper pDocWrapper, final ITreeData pNode) {
+        this.mDocWrapper = pDocWrapper;
+        this.nodeKind = pNode.getKind();
+        this.mKey = pNode.getDataKey();
+        this.treeData = pNode;
+    }
 
-        if (nodeKind == ELEMENT || nodeKind == ATTRIBUTE) {
-            this.qName = rtx.getQNameOfCurrentNode();
-        } else {
-            this.qName = null;
+    /**
+     * Getting the QName of the treeData, resolving it on first access.
+     * 
+     * @return the QName or null if the treeData is not named
+     */
+    private QName getQName() {
+        if (qName == null && (nodeKind == ELEMENT || nodeKind == ATTRIBUTE || nodeKind == NAMESPACE)) {
+            try {
+                final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
+                qName = rtx.getQNameOfCurrentNode();
+                mDocWrapper.releaseCursor(rtx);
+            } catch (final TTException exc) {
+                LOGGER.error(exc.toString());
+            }
         }
-        rtx.close();
+        return qName;
     }
 
     /**
@@ -186,24 +236,74 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
      */
     @Override
     public int compareOrder(final NodeInfo node) {
-        int retVal;
-
         // Should be in the same document.
         if (getDocumentNumber() != node.getDocumentNumber()) {
-            retVal = -2;
+            return -2;
         }
 
-        // FIXME fix the key order, this can result in errors related to
-        // different version of a file.
-        else if (((NodeWrapper)node).mKey > mKey) {
-            retVal = -1;
-        } else if (((NodeWrapper)node).mKey == mKey) {
-            retVal = 0;
-        } else {
-            retVal = 1;
+        final NodeWrapper other =
+            node instanceof DocumentWrapper ? ((DocumentWrapper)node).getNodeWrapper() : (NodeWrapper)node;
+        if (other.mKey == mKey) {
+            return 0;
         }
 
-        return retVal;
+        // Without order labels only the keys are left, which match the document order as long as no node
+        // has been inserted in between.
+        if (!mDocWrapper.hasOrderLabels()) {
+            return mKey < other.mKey ? -1 : 1;
+        }
+
+        final long label = getOrderLabel();
+        final long otherLabel = other.getOrderLabel();
+        if (label != otherLabel) {
+            return label < otherLabel ? -1 : 1;
+        }
+
+        // Same element: the element precedes its namespaces, which precede its attributes.
+        final int rank = getOrderRank();
+        final int otherRank = other.getOrderRank();
+        if (rank != otherRank) {
+            return rank < otherRank ? -1 : 1;
+        }
+        return mKey < other.mKey ? -1 : 1;
+    }
+
+    /**
+     * Getting the order label of the treeData, for attributes and namespaces the one of their element.
+     * 
+     * @return the order label
+     */
+    private long getOrderLabel() {
+        if (mOrderLabel == NO_LABEL) {
+            if (treeData instanceof ITreeStructData) {
+                mOrderLabel = ((ITreeStructData)treeData).getOrderLabel();
+            } else {
+                try {
+                    final INodeReadTrx rtx = mDocWrapper.borrowCursor(treeData.getParentKey());
+                    mOrderLabel = ((ITreeStructData)rtx.getNode()).getOrderLabel();
+                    mDocWrapper.releaseCursor(rtx);
+                } catch (final TTException exc) {
+                    LOGGER.error(exc.toString());
+                }
+            }
+        }
+        return mOrderLabel;
+    }
+
+    /**
+     * Getting the rank of the treeData among the nodes sharing its order label.
+     * 
+     * @return 0 for structural nodes, 1 for namespaces and 2 for attributes
+     */
+    private int getOrderRank() {
+        switch (nodeKind) {
+        case NAMESPACE:
+            return 1;
+        case ATTRIBUTE:
+            return 2;
+        default:
+            return 0;
+        }
     }
 
     /**
@@ -363,7 +463,7 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
         switch (nodeKind) {
         case ELEMENT:
         case ATTRIBUTE:
-            localPart = qName.getLocalPart();
+            localPart = getNamePool().getLocalName(getNameCode());
             break;
         default:
             // Do nothing.
@@ -377,20 +477,29 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
      */
     @Override
     public int getNameCode() {
-        int nameCode = -1;
+        if (mNameCode == UNRESOLVED) {
+            int nameCode = -1;
 
-        switch (nodeKind) {
-        case ELEMENT:
-        case ATTRIBUTE:
-        case PROCESSING:
-            // case NAMESPACE_KIND:
-            nameCode = mDocWrapper.getNamePool().allocate(getPrefix(), getURI(), getLocalPart());
-            break;
-        default:
-            // text, comment, document and namespace nodes.
+            switch (nodeKind) {
+            case ELEMENT:
+            case ATTRIBUTE:
+                try {
+                    nameCode = mDocWrapper.getNameCode((ITreeNameData)treeData);
+                } catch (final TTException exc) {
+                    LOGGER.error(exc.toString());
+                }
+                break;
+            case PROCESSING:
+                // case NAMESPACE_KIND:
+                nameCode = mDocWrapper.getNamePool().allocate(getPrefix(), getURI(), getLocalPart());
+                break;
+            default:
+                // text, comment, document and namespace nodes.
+            }
+            mNameCode = nameCode;
         }
 
-        return nameCode;
+        return mNameCode;
     }
 
     /**
@@ -416,12 +525,10 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     public NodeInfo getParent() {
         try {
             NodeInfo parent = null;
-            final INodeReadTrx rtx = createRtxAndMove();
-            if (rtx.getNode().hasParent()) {
+            if (treeData.hasParent()) {
                 // Parent transaction.
-                parent = new NodeWrapper(mDocWrapper, rtx.getNode().getParentKey());
+                parent = new NodeWrapper(mDocWrapper, treeData.getParentKey());
             }
-            rtx.close();
             return parent;
         } catch (final TTException exc) {
             LOGGER.error(exc.toString());
@@ -440,7 +547,7 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
         switch (nodeKind) {
         case ELEMENT:
         case ATTRIBUTE:
-            prefix = qName.getPrefix();
+            prefix = getNamePool().getPrefix(getNameCode());
             break;
         default:
             /*
@@ -476,12 +583,12 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     public final CharSequence getStringValueCS() {
         String mValue = "";
         try {
-            final INodeReadTrx rtx = createRtxAndMove();
+            final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
 
             switch (nodeKind) {
             case ROOT:
             case ELEMENT:
-                mValue = expandString();
+                mValue = expandString(rtx);
                 break;
             case ATTRIBUTE:
                 mValue = emptyIfNull(rtx.getValueOfCurrentNode());
@@ -496,6 +603,7 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
             default:
                 mValue = "";
             }
+            mDocWrapper.releaseCursor(rtx);
         } catch (final TTException exc) {
             LOGGER.error(exc.toString());
         }
@@ -506,21 +614,21 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     /**
      * Filter text nodes.
      * 
+     * @param rtx
+     *            Cursor located at this treeData.
      * @return concatenated String of text treeData values.
      */
-    private String expandString() {
+    private String expandString(final INodeReadTrx rtx) {
         final FastStringBuffer fsb = new FastStringBuffer(FastStringBuffer.SMALL);
         try {
-            final INodeReadTrx rtx = createRtxAndMove();
             final FilterAxis axis = new FilterAxis(new DescendantAxis(rtx), rtx, new TextFilter(rtx));
 
             while (axis.hasNext()) {
                 if (rtx.getNode().getKind() == TEXT) {
                     fsb.append(rtx.getValueOfCurrentNode());
                 }
-                axis.next();
+                axis.nextKey();
             }
-            rtx.close();
         } catch (final TTException exc) {
             LOGGER.error(exc.toString());
         }
@@ -560,9 +668,11 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
         switch (nodeKind) {
         case ELEMENT:
         case ATTRIBUTE:
+            URI = getNamePool().getURI(getNameCode());
+            break;
         case NAMESPACE:
-            if (!"".equals(qName.getPrefix())) {
-                URI = qName.getNamespaceURI();
+            if (!"".equals(getQName().getPrefix())) {
+                URI = getQName().getNamespaceURI();
             }
             break;
         default:
@@ -579,14 +689,8 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     @Override
     public boolean hasChildNodes() {
         boolean hasChildNodes = false;
-        try {
-            final INodeReadTrx rtx = createRtxAndMove();
-            if (((ITreeStructData)rtx.getNode()).getChildCount() > 0) {
-                hasChildNodes = true;
-            }
-            rtx.close();
-        } catch (final TTException exc) {
-            LOGGER.error(exc.toString());
+        if (treeData instanceof ITreeStructData && ((ITreeStructData)treeData).getChildCount() > 0) {
+            hasChildNodes = true;
         }
         return hasChildNodes;
     }
@@ -646,120 +750,127 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
      */
     @Override
     public AxisIterator iterateAxis(final byte axisNumber, final NodeTest nodeTest) {
-        AxisIterator returnVal = null;
-        try {
-            final INodeReadTrx rtx = createRtxAndMove();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("NODE TEST: " + nodeTest);
+        }
 
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("NODE TEST: " + nodeTest);
+        switch (axisNumber) {
+        case Axis.ANCESTOR_OR_SELF:
+            if (getNodeKind() == IConstants.ROOT) {
+                return Navigator.filteredSingleton(this, nodeTest);
             }
+            break;
+        case Axis.SELF:
+            return Navigator.filteredSingleton(this, nodeTest);
+        case Axis.PRECEDING_OR_ANCESTOR:
+            return new Navigator.AxisFilter(new Navigator.PrecedingEnumeration(this, true), nodeTest);
+        default:
+            break;
+        }
 
-            switch (axisNumber) {
-            case Axis.ANCESTOR:
-                if (getNodeKind() == IConstants.ROOT) {
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                } else {
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new AncestorAxis(rtx)), nodeTest);
-                }
-                break;
-            case Axis.ANCESTOR_OR_SELF:
-                if (getNodeKind() == IConstants.ROOT) {
-                    returnVal = Navigator.filteredSingleton(this, nodeTest);
-                } else {
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new AncestorAxis(rtx, true)), nodeTest);
-                }
-                break;
-            case Axis.ATTRIBUTE:
-                if (getNodeKind() != IConstants.ELEMENT) {
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                } else {
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new AttributeAxis(rtx)), nodeTest);
-                }
-                break;
-            case Axis.CHILD:
-                if (hasChildNodes()) {
-                    returnVal = new Navigator.AxisFilter(new SaxonEnumeration(new ChildAxis(rtx)), nodeTest);
-                } else {
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                }
-                break;
-            case Axis.DESCENDANT:
-                if (hasChildNodes()) {
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new DescendantAxis(rtx)), nodeTest);
-                } else {
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                }
-                break;
-            case Axis.DESCENDANT_OR_SELF:
-                returnVal =
-                    new Navigator.AxisFilter(new SaxonEnumeration(new DescendantAxis(rtx, true)), nodeTest);
-                break;
-            case Axis.FOLLOWING:
-                returnVal = new Navigator.AxisFilter(new SaxonEnumeration(new FollowingAxis(rtx)), nodeTest);
-                break;
-            case Axis.FOLLOWING_SIBLING:
-                switch (nodeKind) {
-                case ROOT:
-                case ATTRIBUTE:
-                case NAMESPACE:
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                    break;
-                default:
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new FollowingSiblingAxis(rtx)),
-                            nodeTest);
-                    break;
-                }
-
-            case Axis.NAMESPACE:
-                // if (getNodeKind() != IConstants.ELEMENT) {
+        AxisIterator returnVal = null;
+        try {
+            final SaxonEnumeration enumeration = iterateTreetankAxis(axisNumber);
+            if (enumeration == null) {
                 returnVal = EmptyAxisIterator.emptyAxisIterator();
-                // } else {
-                // returnVal = NamespaceIterator.iterateNamespaces(this);
-                // }
-                break;
-            case Axis.PARENT:
-                if (rtx.getNode().getParentKey() == IConstants.ROOT) {
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                } else {
-                    returnVal = new Navigator.AxisFilter(new SaxonEnumeration(new ParentAxis(rtx)), nodeTest);
-                }
-            case Axis.PRECEDING:
-                returnVal = new Navigator.AxisFilter(new SaxonEnumeration(new PrecedingAxis(rtx)), nodeTest);
-                break;
-            case Axis.PRECEDING_SIBLING:
-                switch (nodeKind) {
-                case ROOT:
-                case ATTRIBUTE:
-                case NAMESPACE:
-                    returnVal = EmptyAxisIterator.emptyAxisIterator();
-                    break;
-                default:
-                    returnVal =
-                        new Navigator.AxisFilter(new SaxonEnumeration(new PrecedingSiblingAxis(rtx)),
-                            nodeTest);
-                    break;
-                }
+            } else {
+                returnVal = new Navigator.AxisFilter(enumeration, nodeTest);
+            }
+        } catch (final TTException exc) {
+            LOGGER.error(exc.toString());
+        }
+        return returnVal;
+    }
 
-            case Axis.SELF:
-                returnVal = Navigator.filteredSingleton(this, nodeTest);
+    /**
+     * Creating an enumeration over a Treetank axis starting at this node on a cursor of its own.
+     * 
+     * @param axisNumber
+     *            the axis to iterate
+     * @return the enumeration, null if the axis is empty
+     * @throws TTException
+     *             if the cursor could not be borrowed
+     */
+    private SaxonEnumeration iterateTreetankAxis(final byte axisNumber) throws TTException {
+        final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
+        AbsAxis axis = null;
+
+        switch (axisNumber) {
+        case Axis.ANCESTOR:
+            if (getNodeKind() != IConstants.ROOT) {
+                axis = new AncestorAxis(rtx);
+            }
+            break;
+        case Axis.ANCESTOR_OR_SELF:
+            axis = new AncestorAxis(rtx, true);
+            break;
+        case Axis.ATTRIBUTE:
+            if (getNodeKind() == IConstants.ELEMENT) {
+                axis = new AttributeAxis(rtx);
+            }
+            break;
+        case Axis.CHILD:
+            if (hasChildNodes()) {
+                axis = new ChildAxis(rtx);
+            }
+            break;
+        case Axis.DESCENDANT:
+            if (hasChildNodes()) {
+                axis = new DescendantAxis(rtx);
+            }
+            break;
+        case Axis.DESCENDANT_OR_SELF:
+            axis = new DescendantAxis(rtx, true);
+            break;
+        case Axis.FOLLOWING:
+            axis = new FollowingAxis(rtx);
+            break;
+        case Axis.FOLLOWING_SIBLING:
+            switch (nodeKind) {
+            case ROOT:
+            case ATTRIBUTE:
+            case NAMESPACE:
                 break;
-
-            case Axis.PRECEDING_OR_ANCESTOR:
-                returnVal =
-                    new Navigator.AxisFilter(new Navigator.PrecedingEnumeration(this, true), nodeTest);
+            default:
+                axis = new FollowingSiblingAxis(rtx);
+                break;
+            }
+            break;
+        case Axis.NAMESPACE:
+            // if (getNodeKind() == IConstants.ELEMENT) {
+            // returnVal = NamespaceIterator.iterateNamespaces(this);
+            // }
+            break;
+        case Axis.PARENT:
+            if (treeData.hasParent()) {
+                axis = new ParentAxis(rtx);
+            }
+            break;
+        case Axis.PRECEDING:
+            axis = new PrecedingAxis(rtx);
+            break;
+        case Axis.PRECEDING_SIBLING:
+            switch (nodeKind) {
+            case ROOT:
+            case ATTRIBUTE:
+            case NAMESPACE:
                 break;
             default:
-                throw new IllegalArgumentException("Unknown axis number " + axisNumber);
+                axis = new PrecedingSiblingAxis(rtx);
+                break;
             }
-        } catch (final TTException exc) {
-            LOGGER.error(exc.toString());
+            break;
+        default:
+            mDocWrapper.releaseCursor(rtx);
+            throw new IllegalArgumentException("Unknown axis number " + axisNumber);
         }
-        return returnVal;
+
+        if (axis == null) {
+            mDocWrapper.releaseCursor(rtx);
+            return null;
+        }
+        // the cursor is handed back by the enumeration once exhausted or closed
+        return new SaxonEnumeration(axisNumber, axis, rtx);
     }
 
     /**
@@ -801,25 +912,18 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
     public int getSiblingPosition() {
         int index = 0;
         try {
-            final INodeReadTrx rtx = createRtxAndMove();
+            final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
             while (((ITreeStructData)rtx.getNode()).hasLeftSibling()) {
                 rtx.moveTo(((ITreeStructData)rtx.getNode()).getLeftSiblingKey());
                 index++;
             }
-            rtx.close();
+            mDocWrapper.releaseCursor(rtx);
         } catch (final TTException exc) {
             LOGGER.error(exc.toString());
         }
         return index;
     }
 
-    private final INodeReadTrx createRtxAndMove() throws TTException {
-        final INodeReadTrx rtx =
-            new NodeReadTrx(mDocWrapper.mSession.beginBucketRtx(mDocWrapper.mSession.getMostRecentVersion()));
-        rtx.moveTo(mKey);
-        return rtx;
-    }
-
     /**
      * Treat a treeData value of null as an empty string.
      * 
@@ -840,17 +944,30 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
      */
     public final class SaxonEnumeration extends Navigator.BaseEnumeration {
 
+        /** Number of the iterated axis, to rebuild the axis for further iterations. */
+        private final byte mAxisNumber;
+
         /** Treetank axis iterator. */
         private final AbsAxis mAxis;
 
+        /** Cursor borrowed for the axis, null once handed back. */
+        private INodeReadTrx mCursor;
+
         /**
          * Constructor.
          * 
+         * @param paramAxisNumber
+         *            Number of the iterated axis.
          * @param paramAxis
          *            TreeTank axis iterator.
+         * @param paramCursor
+         *            Cursor of the axis borrowed from the document wrapper.
          */
-        public SaxonEnumeration(final AbsAxis paramAxis) {
+        private SaxonEnumeration(final byte paramAxisNumber, final AbsAxis paramAxis,
+            final INodeReadTrx paramCursor) {
+            mAxisNumber = paramAxisNumber;
             mAxis = paramAxis;
+            mCursor = paramCursor;
         }
 
         /**
@@ -858,20 +975,30 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
          */
         @Override
         public void advance() {
-            if (mAxis.hasNext()) {
-                final long nextKey = mAxis.next();
-                try {
-                    current = new NodeWrapper(mDocWrapper, nextKey);
-                } catch (final TTException exc) {
-                    current = null;
-                }
+            if (mCursor != null && mAxis.hasNext()) {
+                mAxis.next();
+                // the axis is located at the next node, no further read needed
+                current = new NodeWrapper(mDocWrapper, mAxis.getNode());
             } else {
+                close();
+                current = null;
+            }
+        }
+
+        /**
+         * Handing back the cursor of the axis if not already done, the enumeration is exhausted
+         * afterwards.
+         */
+        @Override
+        public void close() {
+            if (mCursor != null) {
+                final INodeReadTrx cursor = mCursor;
+                mCursor = null;
                 try {
-                    mAxis.close();
-                } catch (TTException exc) {
+                    mDocWrapper.releaseCursor(cursor);
+                } catch (final TTException exc) {
                     LOGGER.error(exc.toString());
                 }
-                current = null;
             }
         }
 
@@ -880,7 +1007,16 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
          */
         @Override
         public AxisIterator<NodeInfo> getAnother() {
-            return new SaxonEnumeration(mAxis);
+            // a further iteration gets an axis and cursor of its own, the state of this one is not shared
+            try {
+                final SaxonEnumeration another = iterateTreetankAxis(mAxisNumber);
+                if (another != null) {
+                    return another;
+                }
+            } catch (final TTException exc) {
+                LOGGER.error(exc.toString());
+            }
+            return EmptyAxisIterator.emptyAxisIterator();
         }
     }
 
@@ -894,16 +1030,17 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
             } else {
 
                 try {
-                    final INodeReadTrx rtx = createRtxAndMove();
-                    for (int i = 0; i < count; i++) {
+                    final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
+                    String value = null;
+                    for (int i = 0; i < count && value == null; i++) {
                         rtx.moveTo(((ElementNode)treeData).getAttributeKey(i));
                         QName name = rtx.getQNameOfCurrentNode();
                         if (name.getNamespaceURI().equals(arg0) && name.getLocalPart().equals(arg1)) {
-                            rtx.close();
-                            return rtx.getValueOfCurrentNode();
+                            value = rtx.getValueOfCurrentNode();
                         }
                     }
-                    rtx.close();
+                    mDocWrapper.releaseCursor(rtx);
+                    return value;
                 } catch (final TTException exc) {
                     LOGGER.error(exc.toString());
                 }
@@ -926,7 +1063,7 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
                 final NamespaceBinding[] returnVal = new NamespaceBinding[count];
 
                 try {
-                    final INodeReadTrx rtx = createRtxAndMove();
+                    final INodeReadTrx rtx = mDocWrapper.borrowCursor(mKey);
                     for (int i = 0; i < count; i++) {
                         rtx.moveTo(((ElementNode)treeData).getNamespaceKey(i));
                         final String prefix = getPrefix();
@@ -934,7 +1071,7 @@ public class NodeWrapper implements NodeInfo, VirtualNode, SiblingCountingNode {
                         rtx.moveTo(mKey);
                         returnVal[i] = new NamespaceBinding(prefix, uri);
                     }
-                    rtx.close();
+                    mDocWrapper.releaseCursor(rtx);
                 } catch (final TTException exc) {
                     LOGGER.error(exc.toString());
                 }
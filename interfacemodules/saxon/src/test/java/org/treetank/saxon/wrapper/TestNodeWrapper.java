@@ -28,10 +28,13 @@
 package org.treetank.saxon.wrapper;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.File;
 import java.util.Properties;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
 
 import net.sf.saxon.Configuration;
@@ -52,11 +55,13 @@ import org.testng.annotations.Test;
 import org.treetank.access.NodeWriteTrx;
 import org.treetank.access.NodeWriteTrx.HashKind;
 import org.treetank.access.Storage;
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.SessionConfiguration;
 import org.treetank.access.conf.StandardSettings;
 import org.treetank.access.conf.StorageConfiguration;
+import org.treetank.api.INodeReadTrx;
 import org.treetank.api.INodeWriteTrx;
 import org.treetank.api.ISession;
 import org.treetank.api.IStorage;
@@ -141,6 +146,42 @@ public class TestNodeWrapper {
 
     }
 
+    @Test
+    public void testCompareOrderAfterInsert() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        final Holder wtxHolder = Holder.generateWtx(coreHolder, resource);
+        final INodeWriteTrx wtx = wtxHolder.getNWtx();
+        wtx.moveTo(1);
+        final long inserted = wtx.insertElementAsFirstChild(new QName("first"));
+        wtx.commit();
+        wtx.close();
+
+        final Processor proc = new Processor(false);
+        final DocumentWrapper doc =
+            new DocumentWrapper(wtxHolder.getSession(), proc.getUnderlyingConfiguration());
+        final NodeInfo element = new NodeWrapper(doc, 1);
+        final NodeInfo namespace = new NodeWrapper(doc, 2);
+        final NodeInfo attribute = new NodeWrapper(doc, 3);
+        final NodeInfo text = new NodeWrapper(doc, 4);
+        final NodeInfo first = new NodeWrapper(doc, inserted);
+
+        // the inserted node has the highest key but precedes the former first child
+        assertEquals(-1, first.compareOrder(text));
+        assertEquals(1, first.compareOrder(attribute));
+        assertEquals(-1, element.compareOrder(namespace));
+        assertEquals(-1, namespace.compareOrder(attribute));
+        assertEquals(1, text.compareOrder(element));
+        assertEquals(0, first.compareOrder(new NodeWrapper(doc, inserted)));
+    }
+
     @Test
     public void testGetAttributeValue() throws TTException {
         final Processor proc = new Processor(false);
@@ -290,4 +331,71 @@ public class TestNodeWrapper {
         node = (NodeWrapper)iterator.next();
         assertEquals(4, node.getSiblingPosition());
     }
+
+    @Test
+    public void testIterateFollowingSibling() throws TTException {
+        final Processor proc = new Processor(false);
+        node =
+            new NodeWrapper(new DocumentWrapper(holder.getSession(), proc.getUnderlyingConfiguration()), 5);
+
+        final AxisIterator iterator = node.iterateAxis(Axis.FOLLOWING_SIBLING);
+        assertEquals("oops2", ((NodeInfo)iterator.next()).getStringValue());
+        assertEquals("b", ((NodeInfo)iterator.next()).getLocalPart());
+    }
+
+    @Test
+    public void testGetFingerprint() throws TTException {
+        final Processor proc = new Processor(false);
+        final DocumentWrapper doc =
+            new DocumentWrapper(holder.getSession(), proc.getUnderlyingConfiguration());
+        final NodeInfo first = new NodeWrapper(doc, 7);
+        final NodeInfo second = new NodeWrapper(doc, 11);
+
+        assertEquals(doc.getNamePool().allocate("", "", "c") & 0xfffff, first.getFingerprint());
+        assertEquals(first.getFingerprint(), second.getFingerprint());
+        assertEquals("c", second.getLocalPart());
+
+        final NodeInfo root = new NodeWrapper(doc, 1);
+        assertEquals("p", root.getPrefix());
+        assertEquals("ns", root.getURI());
+        assertEquals("a", root.getLocalPart());
+        assertEquals(-1, new NodeWrapper(doc, 4).getFingerprint());
+    }
+
+    @Test
+    public void testPinnedRevision() throws TTException {
+        final ISession session = holder.getSession();
+        final INodeWriteTrx wtx = new NodeWriteTrx(session, session.beginBucketWtx(), HashKind.Rolling);
+        wtx.moveTo(4);
+        wtx.setValue("oops0");
+        wtx.commit();
+        wtx.close();
+
+        // the wrapper created before the commit still reads its revision
+        assertEquals("oops1foooops2baroops3", node.getStringValueCS());
+        final Processor proc = new Processor(false);
+        final NodeInfo doc = new DocumentWrapper(session, proc.getUnderlyingConfiguration());
+        assertEquals("oops0foooops2baroops3", doc.getStringValueCS());
+    }
+
+    @Test
+    public void testClose() throws TTException {
+        final Processor proc = new Processor(false);
+        final DocumentWrapper doc =
+            new DocumentWrapper(holder.getSession(), proc.getUnderlyingConfiguration());
+        final INodeReadTrx idle = doc.borrowCursor(1);
+        final INodeReadTrx borrowed = doc.borrowCursor(1);
+        doc.releaseCursor(idle);
+        assertFalse(idle.isClosed());
+
+        // idle cursors are closed at once, borrowed ones with their release
+        doc.close();
+        assertTrue(idle.isClosed());
+        assertFalse(borrowed.isClosed());
+        doc.releaseCursor(borrowed);
+        assertTrue(borrowed.isClosed());
+
+        // the closed wrapper is still readable
+        assertEquals("oops1foooops2baroops3", doc.getStringValueCS());
+    }
 }
@@ -31,6 +31,8 @@ import static org.testng.AssertJUnit.assertEquals;
 
 import java.util.Properties;
 
+import javax.xml.namespace.QName;
+
 import net.sf.saxon.s9api.XPathSelector;
 import net.sf.saxon.s9api.XdmItem;
 
@@ -40,9 +42,13 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
 import org.treetank.exception.TTException;
 import org.treetank.saxon.evaluator.XPathEvaluator;
 import org.treetank.testutil.CoreTestHelper;
@@ -169,4 +175,27 @@ public final class TestNodeWrapperS9ApiXPath {
         AssertJUnit.assertEquals("2", sb.toString());
     }
 
+    @Test
+    public void testRepeatedEvaluation() throws Exception {
+        final ISession session = holder.getSession();
+        AssertJUnit.assertEquals("2", evaluate("count(//b)", session));
+        AssertJUnit.assertEquals("2", evaluate("count(//b)", session));
+
+        // the next evaluation reads the newly committed revision
+        final INodeWriteTrx wtx = new NodeWriteTrx(session, session.beginBucketWtx(), HashKind.Rolling);
+        wtx.moveTo(9);
+        wtx.insertElementAsRightSibling(new QName("b"));
+        wtx.commit();
+        wtx.close();
+        AssertJUnit.assertEquals("3", evaluate("count(//b)", session));
+    }
+
+    private static String evaluate(final String pExpression, final ISession pSession) throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (final XdmItem item : new XPathEvaluator(pExpression, pSession).call()) {
+            sb.append(item.getStringValue());
+        }
+        return sb.toString();
+    }
+
 }
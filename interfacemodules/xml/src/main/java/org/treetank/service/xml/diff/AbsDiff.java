@@ -32,6 +32,19 @@ import static org.treetank.data.IConstants.ROOT;
 import static org.treetank.data.IConstants.ROOT_NODE;
 import static org.treetank.data.IConstants.TEXT;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import javax.xml.namespace.QName;
 
 import org.treetank.access.NodeReadTrx;
@@ -44,6 +57,9 @@ import org.treetank.service.xml.diff.DiffFactory.Builder;
 import org.treetank.service.xml.diff.DiffFactory.EDiff;
 import org.treetank.service.xml.diff.DiffFactory.EDiffOptimized;
 
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.Futures;
+
 /**
  * Abstract diff class which implements common functionality.
  * 
@@ -71,6 +87,9 @@ abstract class AbsDiff extends AbsDiffObservable {
         NEW;
     }
 
+    /** Pool diffing subtrees, shared by all diffs and sized by the available processors. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     /**
      * Kind of hash method.
      * 
@@ -94,6 +113,21 @@ abstract class AbsDiff extends AbsDiffObservable {
     /** Key of "root" node in new revision. */
     private transient long mRootKey;
 
+    /**
+     * Keys of nodes in the new revision whose subtrees contain changes on the storage level, null if the
+     * hashes are used instead.
+     */
+    private transient Set<Long> mNewChanged;
+
+    /**
+     * Keys of nodes in the old revision whose subtrees contain changes on the storage level, null if the
+     * hashes are used instead.
+     */
+    private transient Set<Long> mOldChanged;
+
+    /** {@link Builder} this diff was created with. */
+    private final transient Builder mBuilder;
+
     /**
      * Constructor.
      * 
@@ -105,12 +139,17 @@ abstract class AbsDiff extends AbsDiffObservable {
     AbsDiff(final Builder paramBuilder) throws TTException {
         assert paramBuilder != null;
 
+        mBuilder = paramBuilder;
         mDiffKind = paramBuilder.mKind;
         synchronized (paramBuilder.mSession) {
             mNewRtx = new NodeReadTrx(paramBuilder.mSession.beginBucketRtx(paramBuilder.mNewRev));
             mOldRtx = new NodeReadTrx(paramBuilder.mSession.beginBucketRtx(paramBuilder.mOldRev));
             mHashKind = HashKind.Postorder;
         }
+        if (paramBuilder.mNewChanges != null) {
+            mNewChanged = markChanges(mNewRtx, paramBuilder.mNewChanges);
+            mOldChanged = markChanges(mOldRtx, paramBuilder.mOldChanges);
+        }
         mNewRtx.moveTo(paramBuilder.mKey);
         mOldRtx.moveTo(paramBuilder.mKey);
         mRootKey = paramBuilder.mKey;
@@ -128,6 +167,33 @@ abstract class AbsDiff extends AbsDiffObservable {
         // mNewRtx.getRevisionNumber());
     }
 
+    /**
+     * Mark all nodes whose subtrees contain changed data. These are the nodes changed themselves together
+     * with all of their ancestors.
+     * 
+     * @param paramRtx
+     *            {@link INodeReadTrx} on the revision
+     * @param paramKeys
+     *            keys of the changed data
+     * @return {@link Set} of keys of all nodes which can't be skipped
+     * @throws TTIOException
+     *             if moving the cursor fails
+     */
+    private static Set<Long> markChanges(final INodeReadTrx paramRtx, final long[] paramKeys)
+        throws TTIOException {
+        final Set<Long> changed = new HashSet<Long>();
+        for (final long key : paramKeys) {
+            // data not being part of the tree or deleted in this revision is skipped
+            if (paramRtx.moveTo(key)) {
+                while (changed.add(paramRtx.getNode().getDataKey())
+                    && paramRtx.moveTo(paramRtx.getNode().getParentKey())) {
+                    // Move up until an already marked ancestor is reached.
+                }
+            }
+        }
+        return changed;
+    }
+
     /**
      * Do the diff.
      * 
@@ -141,6 +207,12 @@ abstract class AbsDiff extends AbsDiffObservable {
         assert mDiff != null;
         assert mDiffKind != null;
 
+        if (mBuilder.mThreads > 1 && mDiffKind == EDiffOptimized.HASHED && mHashKind != HashKind.None
+            && diffSubtrees()) {
+            done();
+            return;
+        }
+
         // Check first nodes.
         if (mNewRtx.getNode().getKind() != ROOT) {
             if (mHashKind == HashKind.None || mDiffKind == EDiffOptimized.NO) {
@@ -182,6 +254,138 @@ abstract class AbsDiff extends AbsDiffObservable {
         done();
     }
 
+    /**
+     * Diff the subtrees of the children of the compared root in parallel. This is only possible if the
+     * compared root has the same children in both revisions, since the subtrees are diffed independently
+     * then. Subtrees without changes are not diffed at all. The diffs of each subtree are buffered and
+     * fired in document order.
+     * 
+     * @return true if the diff was done, false if the subtrees can't be diffed independently and nothing
+     *         was fired
+     * @throws TTException
+     *             if diffing a subtree fails
+     */
+    private boolean diffSubtrees() throws TTException {
+        final long newStart = mNewRtx.getNode().getDataKey();
+        final long oldStart = mOldRtx.getNode().getDataKey();
+        // The document root itself is not compared, the sequential diff starts with its child.
+        final boolean descend = mNewRtx.getNode().getKind() == ROOT;
+        if (descend && !(moveToDocumentElement(mNewRtx) && moveToDocumentElement(mOldRtx))
+            || mNewRtx.getNode().getKind() != ELEMENT || mOldRtx.getNode().getKind() != ELEMENT
+            || mNewRtx.getNode().getDataKey() != mOldRtx.getNode().getDataKey()) {
+            mNewRtx.moveTo(newStart);
+            mOldRtx.moveTo(oldStart);
+            return false;
+        }
+        final long[] children = getChildKeys(mNewRtx);
+        if (!Arrays.equals(children, getChildKeys(mOldRtx))) {
+            mNewRtx.moveTo(newStart);
+            mOldRtx.moveTo(oldStart);
+            return false;
+        }
+        if (descend) {
+            mDepth.incrementNewDepth();
+            mDepth.incrementOldDepth();
+        }
+
+        mDiff = optimizedDiff(mNewRtx, mOldRtx, mDepth, EFireDiff.TRUE);
+        if (mDiff == EDiff.SAMEHASH) {
+            return true;
+        }
+
+        final DiffDepth depth = new DiffDepth(mDepth.getNewDepth() + 1, mDepth.getOldDepth() + 1);
+        final int threads = mBuilder.mThreads;
+        final Deque<Future<DiffBuffer>> pending = new ArrayDeque<Future<DiffBuffer>>();
+        try {
+            for (final long child : children) {
+                if (pending.size() == threads) {
+                    fireBuffer(pending.poll());
+                }
+                mNewRtx.moveTo(child);
+                mOldRtx.moveTo(child);
+                if (containsChanges(mNewRtx, mOldRtx)) {
+                    pending.add(POOL.submit(new Subtree(child, depth)));
+                } else {
+                    // Same as skipping an unchanged subtree within the sequential diff.
+                    final DiffBuffer buffer = new DiffBuffer();
+                    buffer.diffListener(EDiff.SAME, (ITreeStructData)mNewRtx.getNode(),
+                        (ITreeStructData)mOldRtx.getNode(), depth);
+                    pending.add(Futures.immediateFuture(buffer));
+                }
+            }
+            while (!pending.isEmpty()) {
+                fireBuffer(pending.poll());
+            }
+        } finally {
+            // Only left if a subtree failed, the others must not keep the shared pool busy.
+            for (final Future<DiffBuffer> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Move from the document root to the document element.
+     * 
+     * @param paramRtx
+     *            the {@link IReadTransaction} to use
+     * @return true if the document root has exactly one child, false otherwise
+     * @throws TTIOException
+     */
+    private static boolean moveToDocumentElement(final INodeReadTrx paramRtx) throws TTIOException {
+        final ITreeStructData root = (ITreeStructData)paramRtx.getNode();
+        return root.getKind() == ROOT && root.hasFirstChild() && paramRtx.moveTo(root.getFirstChildKey())
+            && !((ITreeStructData)paramRtx.getNode()).hasRightSibling();
+    }
+
+    /**
+     * Get the keys of all children of the current node. The cursor is moved back afterwards.
+     * 
+     * @param paramRtx
+     *            the {@link IReadTransaction} to use
+     * @return the keys of the children in document order
+     * @throws TTIOException
+     */
+    private static long[] getChildKeys(final INodeReadTrx paramRtx) throws TTIOException {
+        final long key = paramRtx.getNode().getDataKey();
+        final List<Long> children = new ArrayList<Long>();
+        long child = ((ITreeStructData)paramRtx.getNode()).getFirstChildKey();
+        while (paramRtx.moveTo(child)) {
+            children.add(child);
+            child = ((ITreeStructData)paramRtx.getNode()).getRightSiblingKey();
+        }
+        paramRtx.moveTo(key);
+        return Longs.toArray(children);
+    }
+
+    /**
+     * Wait for the diff of a subtree and fire its buffered diffs.
+     * 
+     * @param paramBuffer
+     *            the pending subtree
+     * @throws TTIOException
+     *             if diffing the subtree failed
+     */
+    private void fireBuffer(final Future<DiffBuffer> paramBuffer) throws TTIOException {
+        try {
+            paramBuffer.get().fire(this);
+        } catch (final InterruptedException | ExecutionException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Create a diff of the same kind.
+     * 
+     * @param paramBuilder
+     *            {@link Builder} reference
+     * @return the new diff
+     * @throws TTException
+     *             if setting up transactions failes
+     */
+    abstract AbsDiff newDiff(final Builder paramBuilder) throws TTException;
+
     /**
      * Move cursor one node forward in pre order.
      * 
@@ -340,7 +544,7 @@ abstract class AbsDiff extends AbsDiffObservable {
         case TEXT:
         case ELEMENT:
             if (paramNewRtx.getNode().getDataKey() != paramOldRtx.getNode().getDataKey()
-                || paramNewRtx.getNode().getHash() != paramOldRtx.getNode().getHash()) {
+                || containsChanges(paramNewRtx, paramOldRtx)) {
                 // Check if nodes are the same (even if subtrees may vary).
                 if (checkNodes(paramNewRtx, paramOldRtx)) {
                     diff = EDiff.SAME;
@@ -365,6 +569,25 @@ abstract class AbsDiff extends AbsDiffObservable {
         return diff;
     }
 
+    /**
+     * Check if the subtrees of two nodes with the same key may differ. If the diff was seeded with the changes
+     * on the storage level, these are taken, otherwise the hashes of both nodes are compared.
+     * 
+     * @param paramNewRtx
+     *            {@link IReadTransaction} on new revision
+     * @param paramOldRtx
+     *            {@link IReadTransaction} on old revision
+     * @return true if the subtrees may differ, false if they are the same
+     */
+    private boolean containsChanges(final INodeReadTrx paramNewRtx, final INodeReadTrx paramOldRtx) {
+        if (mNewChanged == null) {
+            return paramNewRtx.getNode().getHash() != paramOldRtx.getNode().getHash();
+        } else {
+            return mNewChanged.contains(paramNewRtx.getNode().getDataKey())
+                || mOldChanged.contains(paramOldRtx.getNode().getDataKey());
+        }
+    }
+
     /**
      * Main algorithm to compute diffs between two nodes.
      * 
@@ -488,4 +711,94 @@ abstract class AbsDiff extends AbsDiffObservable {
         }
         return updated;
     }
+
+    /**
+     * Diff of a subtree of a child of the compared root.
+     */
+    private final class Subtree implements Callable<DiffBuffer> {
+
+        /** Key of the child in both revisions. */
+        private final long mKey;
+
+        /** Depth of the child in both revisions. */
+        private final DiffDepth mChildDepth;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramKey
+         *            key of the child
+         * @param paramDepth
+         *            depth of the child
+         */
+        Subtree(final long paramKey, final DiffDepth paramDepth) {
+            mKey = paramKey;
+            mChildDepth = paramDepth;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public DiffBuffer call() throws TTException {
+            final DiffBuffer buffer = new DiffBuffer();
+            final Builder builder =
+                new Builder(mBuilder.mSession, mKey, mBuilder.mNewRev, mBuilder.mOldRev, mDiffKind, Collections
+                    .<IDiffObserver> singleton(buffer));
+            builder.mNewDepth = mChildDepth.getNewDepth();
+            builder.mOldDepth = mChildDepth.getOldDepth();
+            final AbsDiff diff = newDiff(builder);
+            // The marks of the changes are shared, they are only read.
+            diff.mNewChanged = mNewChanged;
+            diff.mOldChanged = mOldChanged;
+            diff.diffMovement();
+            return buffer;
+        }
+    }
+
+    /**
+     * Observer buffering the diffs of a subtree until they are fired in document order.
+     */
+    private static final class DiffBuffer implements IDiffObserver {
+
+        /** Kinds of the diffs. */
+        private final List<EDiff> mDiffs = new ArrayList<EDiff>();
+
+        /** Nodes in the new revision. */
+        private final List<ITreeStructData> mNewNodes = new ArrayList<ITreeStructData>();
+
+        /** Nodes in the old revision. */
+        private final List<ITreeStructData> mOldNodes = new ArrayList<ITreeStructData>();
+
+        /** Depths of the nodes. */
+        private final List<DiffDepth> mDepths = new ArrayList<DiffDepth>();
+
+        /** {@inheritDoc} */
+        @Override
+        public void diffListener(final EDiff paramDiff, final ITreeStructData paramNewNode,
+            final ITreeStructData paramOldNode, final DiffDepth paramDepth) {
+            mDiffs.add(paramDiff);
+            mNewNodes.add(paramNewNode);
+            mOldNodes.add(paramOldNode);
+            mDepths.add(paramDepth);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void diffDone() {
+            // Only the diff of the whole tree is done.
+        }
+
+        /**
+         * Fire all buffered diffs.
+         * 
+         * @param paramObservable
+         *            the diff notifying its observers
+         */
+        void fire(final AbsDiffObservable paramObservable) {
+            for (int i = 0; i < mDiffs.size(); i++) {
+                paramObservable.fireDiff(mDiffs.get(i), mNewNodes.get(i), mOldNodes.get(i), mDepths.get(i));
+            }
+        }
+    }
 }
@@ -27,10 +27,13 @@
 
 package org.treetank.service.xml.diff;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import java.util.Set;
 
+import org.treetank.access.BucketDiff;
+import org.treetank.access.ChangeSet;
 import org.treetank.api.ISession;
 import org.treetank.exception.TTException;
 
@@ -136,6 +139,15 @@ public final class DiffFactory {
         /** Diff kind. */
         final EDiffOptimized mKind;
 
+        /** Keys of the data differing in the new revision, null if not computed. */
+        transient long[] mNewChanges;
+
+        /** Keys of the data differing in the old revision, null if not computed. */
+        transient long[] mOldChanges;
+
+        /** Number of threads diffing the subtrees of the compared root. */
+        transient int mThreads = 1;
+
         /** {@link Set} of {@link IDiffObserver}s. */
         final Set<IDiffObserver> mObservers;
 
@@ -166,6 +178,22 @@ public final class DiffFactory {
             mObservers = paramObservers;
         }
 
+        /**
+         * Diffing the subtrees of the children of the compared root in parallel if more than one thread is
+         * given. This is only done for hashed diffs, the observers still receive all diffs in document
+         * order. The subtrees are diffed on a pool shared by all diffs and sized by the available
+         * processors.
+         * 
+         * @param paramThreads
+         *            maximal number of subtrees diffed at once, 1 for a sequential diff
+         * @return this builder
+         */
+        public Builder setThreads(final int paramThreads) {
+            checkArgument(paramThreads > 0, "Number of threads must be positive!");
+            mThreads = paramThreads;
+            return this;
+        }
+
     }
 
     /**
@@ -177,31 +205,60 @@ public final class DiffFactory {
     }
 
     /**
-     * Do a full diff.
+     * Do a full diff. Diffs are not serialized: they share no static state and each one reads with
+     * transactions of its own, which are opened under the lock of the session.
      * 
      * @param paramBuilder
      *            {@link Builder} reference
      * @throws TTException
      */
-    public static synchronized void invokeFullDiff(final Builder paramBuilder) throws TTException {
+    public static void invokeFullDiff(final Builder paramBuilder) throws TTException {
         checkParams(paramBuilder);
+        seedChanges(paramBuilder);
         DiffKind.FULL.invoke(paramBuilder);
     }
 
     /**
-     * Do a structural diff.
+     * Do a structural diff. Like {@link #invokeFullDiff(Builder)}, diffs are not serialized.
      * 
      * @param paramBuilder
      *            {@link Builder} reference
      * @throws TTException
      */
-    public static synchronized void invokeStructuralDiff(final Builder paramBuilder) throws TTException {
+    public static void invokeStructuralDiff(final Builder paramBuilder) throws TTException {
         checkParams(paramBuilder);
+        seedChanges(paramBuilder);
         DiffKind.STRUCTURAL.invoke(paramBuilder);
     }
 
     /**
-     * Check parameters for validity and assign global static variables.
+     * Seed the optimized diff with the data changed between both revisions on the storage level. Subtrees
+     * not containing any of these are skipped without being compared. Recorded {@link ChangeSet}s are
+     * composed if available, otherwise the buckets of both revisions are compared.
+     * 
+     * @param paramBuilder
+     *            {@link Builder} reference
+     * @throws TTException
+     *             if the buckets of the revisions can't be read
+     */
+    private static void seedChanges(final Builder paramBuilder) throws TTException {
+        if (paramBuilder.mKind == EDiffOptimized.HASHED) {
+            final ChangeSet changes =
+                ChangeSet.get(paramBuilder.mSession, paramBuilder.mOldRev, paramBuilder.mNewRev);
+            if (changes == null) {
+                final BucketDiff diff =
+                    BucketDiff.diff(paramBuilder.mSession, paramBuilder.mOldRev, paramBuilder.mNewRev);
+                paramBuilder.mNewChanges = diff.getNewKeys();
+                paramBuilder.mOldChanges = diff.getOldKeys();
+            } else {
+                paramBuilder.mNewChanges = changes.getNewKeys();
+                paramBuilder.mOldChanges = changes.getOldKeys();
+            }
+        }
+    }
+
+    /**
+     * Check parameters for validity.
      * 
      * @param paramBuilder
      *            {@link Builder} reference
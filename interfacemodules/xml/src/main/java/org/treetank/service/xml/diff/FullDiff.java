@@ -120,4 +120,10 @@ final class FullDiff extends AbsDiff {
 
         return found;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    AbsDiff newDiff(final Builder paramBuilder) throws TTException {
+        return new FullDiff(paramBuilder);
+    }
 }
@@ -74,4 +74,10 @@ final class StructuralDiff extends AbsDiff {
         }
         return found;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    AbsDiff newDiff(final Builder paramBuilder) throws TTException {
+        return new StructuralDiff(paramBuilder);
+    }
 }
@@ -26,28 +26,38 @@
  */
 package org.treetank.service.xml.diff.algorithm.fmes;
 
-import java.util.IdentityHashMap;
-import java.util.Map;
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.treetank.data.IConstants.NULL_NODE;
+
+import java.util.Arrays;
 
 /**
- * Stores whether two objects have a (unidirectional) connection. /!\ The
- * identities of the objects are used, not equals()!
+ * Stores whether two nodes have a (unidirectional) connection. The
+ * connections are stored as pairs of node keys in two parallel arrays with
+ * open addressing and linear probing.
  * 
- * @param <T>
  */
-public final class ConnectionMap<T> {
+public final class ConnectionMap {
 
-    /**
-     * First, we search the first node in the map, then the second in the
-     * returned IdentityHashMap.
-     */
-    private final Map<T, IdentityHashMap<T, Boolean>> mMap;
+    /** Initial capacity, must be a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Origins of the connections, {@link org.treetank.data.IConstants#NULL_NODE} denotes a free slot. */
+    private long[] mOrigins;
+
+    /** Destinations at the same slots as their origins. */
+    private long[] mDestinations;
+
+    /** Number of connections. */
+    private int mSize;
 
     /**
      * Creates a new connection map.
      */
     public ConnectionMap() {
-        mMap = new IdentityHashMap<T, IdentityHashMap<T, Boolean>>();
+        mOrigins = new long[INITIAL_CAPACITY];
+        mDestinations = new long[INITIAL_CAPACITY];
+        Arrays.fill(mOrigins, NULL_NODE);
     }
 
     /**
@@ -56,49 +66,123 @@ public final class ConnectionMap<T> {
      * @param paramMap
      *            the original {@link ConnectionMap}
      */
-    public ConnectionMap(final ConnectionMap<T> paramMap) {
+    public ConnectionMap(final ConnectionMap paramMap) {
         assert paramMap != null;
-        mMap = new IdentityHashMap<T, IdentityHashMap<T, Boolean>>(paramMap.mMap);
+        mOrigins = paramMap.mOrigins.clone();
+        mDestinations = paramMap.mDestinations.clone();
+        mSize = paramMap.mSize;
     }
 
     /**
      * Sets the connection between a and b.
      * 
      * @param paramOrigin
-     *            origin object
+     *            key of the origin node
      * @param paramDestination
-     *            destination object
+     *            key of the destination node
      * @param paramBool
      *            if connection is established or not
      */
-    public void set(final T paramOrigin, final T paramDestination, final boolean paramBool) {
-        assert paramOrigin != null;
-        assert paramDestination != null;
-        if (!mMap.containsKey(paramOrigin)) {
-            mMap.put(paramOrigin, new IdentityHashMap<T, Boolean>());
+    public void set(final long paramOrigin, final long paramDestination, final boolean paramBool) {
+        checkArgument(paramOrigin >= 0 && paramDestination >= 0, "Node keys must not be negative.");
+        int slot = KeyMap.slot(hash(paramOrigin, paramDestination), mOrigins.length);
+        while (mOrigins[slot] != NULL_NODE
+            && (mOrigins[slot] != paramOrigin || mDestinations[slot] != paramDestination)) {
+            slot = (slot + 1) & (mOrigins.length - 1);
+        }
+        if (paramBool && mOrigins[slot] == NULL_NODE) {
+            mOrigins[slot] = paramOrigin;
+            mDestinations[slot] = paramDestination;
+            mSize++;
+            // Keeping the load factor below 0.5.
+            if (mSize << 1 > mOrigins.length) {
+                resize();
+            }
+        } else if (!paramBool && mOrigins[slot] != NULL_NODE) {
+            remove(slot);
         }
-
-        mMap.get(paramOrigin).put(paramDestination, paramBool);
     }
 
     /**
-     * Returns whether there is a connection between a and b. Unknown objects do
+     * Returns whether there is a connection between a and b. Unknown nodes do
      * never have a connection.
      * 
      * @param paramOrigin
-     *            origin object
+     *            key of the origin node
      * @param paramDestination
-     *            destination object
+     *            key of the destination node
      * @return true, iff there is a connection from a to b
      */
-    public boolean get(final T paramOrigin, final T paramDestination) {
-        assert paramOrigin != null;
-        assert paramDestination != null;
-        if (!mMap.containsKey(paramOrigin)) {
+    public boolean get(final long paramOrigin, final long paramDestination) {
+        if (paramOrigin < 0 || paramDestination < 0) {
             return false;
         }
+        int slot = KeyMap.slot(hash(paramOrigin, paramDestination), mOrigins.length);
+        while (mOrigins[slot] != NULL_NODE) {
+            if (mOrigins[slot] == paramOrigin && mDestinations[slot] == paramDestination) {
+                return true;
+            }
+            slot = (slot + 1) & (mOrigins.length - 1);
+        }
+        return false;
+    }
+
+    /**
+     * Removes the connection at a slot, shifting back all following
+     * connections of the same probe sequence.
+     * 
+     * @param paramSlot
+     *            slot to free
+     */
+    private void remove(final int paramSlot) {
+        final int mask = mOrigins.length - 1;
+        int free = paramSlot;
+        int slot = (free + 1) & mask;
+        while (mOrigins[slot] != NULL_NODE) {
+            final int home = KeyMap.slot(hash(mOrigins[slot], mDestinations[slot]), mOrigins.length);
+            // Move the connection if its home slot is not within (free, slot].
+            if (((slot - home) & mask) >= ((slot - free) & mask)) {
+                mOrigins[free] = mOrigins[slot];
+                mDestinations[free] = mDestinations[slot];
+                free = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        mOrigins[free] = NULL_NODE;
+        mSize--;
+    }
 
-        final Boolean bool = mMap.get(paramOrigin).get(paramDestination);
-        return bool != null && bool;
+    /**
+     * Doubles the capacity and reinserts all connections.
+     */
+    private void resize() {
+        final long[] origins = mOrigins;
+        final long[] destinations = mDestinations;
+        mOrigins = new long[origins.length << 1];
+        mDestinations = new long[origins.length << 1];
+        Arrays.fill(mOrigins, NULL_NODE);
+        for (int i = 0; i < origins.length; i++) {
+            if (origins[i] != NULL_NODE) {
+                int slot = KeyMap.slot(hash(origins[i], destinations[i]), mOrigins.length);
+                while (mOrigins[slot] != NULL_NODE) {
+                    slot = (slot + 1) & (mOrigins.length - 1);
+                }
+                mOrigins[slot] = origins[i];
+                mDestinations[slot] = destinations[i];
+            }
+        }
+    }
+
+    /**
+     * Combines the keys of a connection.
+     * 
+     * @param paramOrigin
+     *            key of the origin node
+     * @param paramDestination
+     *            key of the destination node
+     * @return hash of the connection
+     */
+    private static long hash(final long paramOrigin, final long paramDestination) {
+        return paramOrigin * 31 + paramDestination;
     }
 }
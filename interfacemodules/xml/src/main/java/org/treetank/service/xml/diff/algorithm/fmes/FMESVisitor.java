@@ -26,20 +26,22 @@
  */
 package org.treetank.service.xml.diff.algorithm.fmes;
 
-import java.util.Map;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.BitSet;
 
 import org.treetank.access.NodeReadTrx;
 import org.treetank.api.INodeReadTrx;
 import org.treetank.api.ISession;
 import org.treetank.data.ElementNode;
 import org.treetank.data.TextNode;
-import org.treetank.data.interfaces.ITreeData;
 import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
 
 /**
- * Initialize data structures.
+ * Initialize data structures. Both are keyed by node keys, the order flags
+ * are kept in a {@link BitSet} and the descendant counts in a {@link KeyMap}.
  * 
  * @author Johannes Lichtenberger, University of Konstanz
  * 
@@ -49,11 +51,11 @@ public final class FMESVisitor {
     /** {@link IReadTransaction} reference. */
     private final INodeReadTrx mRtx;
 
-    /** Determines if nodes are in order. */
-    private final Map<ITreeData, Boolean> mInOrder;
+    /** Determines if nodes are in order, indexed by node key. */
+    private final BitSet mInOrder;
 
-    /** Descendant count per node. */
-    private final Map<ITreeData, Long> mDescendants;
+    /** Descendant count per node key. */
+    private final KeyMap mDescendants;
 
     /**
      * Constructor.
@@ -61,14 +63,14 @@ public final class FMESVisitor {
      * @param paramSession
      *            {@link ISession} implementation
      * @param paramInOrder
-     *            {@link Map} reference to track ordered nodes
+     *            {@link BitSet} reference to track ordered nodes
      * @param paramDescendants
-     *            {@link Map} reference to track descendants per node
+     *            {@link KeyMap} reference to track descendants per node
      * @throws TTException
      *             if setting up treetank fails
      */
-    public FMESVisitor(final ISession paramSession, final Map<ITreeData, Boolean> paramInOrder,
-        final Map<ITreeData, Long> paramDescendants) throws TTException {
+    public FMESVisitor(final ISession paramSession, final BitSet paramInOrder, final KeyMap paramDescendants)
+        throws TTException {
         assert paramSession != null;
         assert paramInOrder != null;
         assert paramDescendants != null;
@@ -104,9 +106,9 @@ public final class FMESVisitor {
      * Fill data structures.
      */
     private void fillDataStructures() {
-        final ITreeData treeData = mRtx.getNode();
-        mInOrder.put(treeData, true);
-        mDescendants.put(treeData, 1L);
+        final long nodeKey = mRtx.getNode().getDataKey();
+        mInOrder.set(index(nodeKey), true);
+        mDescendants.put(nodeKey, 1L);
     }
 
     /**
@@ -120,12 +122,12 @@ public final class FMESVisitor {
         if (((ITreeStructData)mRtx.getNode()).hasFirstChild()) {
             mRtx.moveTo(((ITreeStructData)mRtx.getNode()).getFirstChildKey());
             do {
-                descendants += mDescendants.get(mRtx.getNode());
+                descendants += mDescendants.get(mRtx.getNode().getDataKey());
             } while (((ITreeStructData)mRtx.getNode()).hasRightSibling()
                 && mRtx.moveTo(((ITreeStructData)mRtx.getNode()).getRightSiblingKey()));
         }
         mRtx.moveTo(nodeKey);
-        mDescendants.put(mRtx.getNode(), descendants);
+        mDescendants.put(nodeKey, descendants);
     }
 
     /**
@@ -138,7 +140,20 @@ public final class FMESVisitor {
     public void visit(final TextNode pNode) throws TTIOException {
         final long nodeKey = pNode.getDataKey();
         mRtx.moveTo(nodeKey);
-        mInOrder.put(mRtx.getNode(), false);
-        mDescendants.put(mRtx.getNode(), 1L);
+        mInOrder.set(index(nodeKey), false);
+        mDescendants.put(nodeKey, 1L);
+    }
+
+    /**
+     * Index of a node within the {@link BitSet}. Node keys are assigned
+     * densely, the size of the bitset therefore follows the number of nodes.
+     * 
+     * @param paramKey
+     *            node key
+     * @return the index
+     */
+    private static int index(final long paramKey) {
+        checkArgument(paramKey >= 0 && paramKey <= Integer.MAX_VALUE, "Node key out of range: %s", paramKey);
+        return (int)paramKey;
     }
 }
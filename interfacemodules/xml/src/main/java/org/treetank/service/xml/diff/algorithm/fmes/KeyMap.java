@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.treetank.service.xml.diff.algorithm.fmes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.treetank.data.IConstants.NULL_NODE;
+
+import java.util.Arrays;
+
+/**
+ * Maps node keys to long values. The entries are stored in two parallel
+ * arrays with open addressing and linear probing, neither the keys nor the
+ * values are boxed.
+ * 
+ */
+public final class KeyMap {
+
+    /** Initial capacity, must be a power of two. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Keys, {@link org.treetank.data.IConstants#NULL_NODE} denotes a free slot. */
+    private long[] mKeys;
+
+    /** Values at the same slots as their keys. */
+    private long[] mValues;
+
+    /** Number of entries. */
+    private int mSize;
+
+    /**
+     * Creates a new empty map.
+     */
+    public KeyMap() {
+        mKeys = new long[INITIAL_CAPACITY];
+        mValues = new long[INITIAL_CAPACITY];
+        Arrays.fill(mKeys, NULL_NODE);
+    }
+
+    /**
+     * Copy constructor.
+     * 
+     * @param paramMap
+     *            the original {@link KeyMap}
+     */
+    public KeyMap(final KeyMap paramMap) {
+        assert paramMap != null;
+        mKeys = paramMap.mKeys.clone();
+        mValues = paramMap.mValues.clone();
+        mSize = paramMap.mSize;
+    }
+
+    /**
+     * Associates a value with a node key.
+     * 
+     * @param paramKey
+     *            node key, must not be negative
+     * @param paramValue
+     *            value to store
+     */
+    public void put(final long paramKey, final long paramValue) {
+        checkArgument(paramKey >= 0, "Node key must not be negative: %s", paramKey);
+        int slot = slot(paramKey, mKeys.length);
+        while (mKeys[slot] != NULL_NODE && mKeys[slot] != paramKey) {
+            slot = (slot + 1) & (mKeys.length - 1);
+        }
+        if (mKeys[slot] == NULL_NODE) {
+            mKeys[slot] = paramKey;
+            mSize++;
+        }
+        mValues[slot] = paramValue;
+        // Keeping the load factor below 0.5.
+        if (mSize << 1 > mKeys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Returns the value associated with a node key.
+     * 
+     * @param paramKey
+     *            node key
+     * @return the value or {@link org.treetank.data.IConstants#NULL_NODE} if the key is unknown
+     */
+    public long get(final long paramKey) {
+        final int slot = find(paramKey);
+        return slot < 0 ? NULL_NODE : mValues[slot];
+    }
+
+    /**
+     * Checks if a value is associated with a node key.
+     * 
+     * @param paramKey
+     *            node key
+     * @return true iff put was invoked with this key
+     */
+    public boolean containsKey(final long paramKey) {
+        return find(paramKey) >= 0;
+    }
+
+    /**
+     * Returns the number of entries.
+     * 
+     * @return number of node keys stored
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Finds the slot of a node key.
+     * 
+     * @param paramKey
+     *            node key
+     * @return the slot or -1 if the key is unknown
+     */
+    private int find(final long paramKey) {
+        if (paramKey < 0) {
+            return -1;
+        }
+        int slot = slot(paramKey, mKeys.length);
+        while (mKeys[slot] != NULL_NODE) {
+            if (mKeys[slot] == paramKey) {
+                return slot;
+            }
+            slot = (slot + 1) & (mKeys.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Doubles the capacity and reinserts all entries.
+     */
+    private void resize() {
+        final long[] keys = mKeys;
+        final long[] values = mValues;
+        mKeys = new long[keys.length << 1];
+        mValues = new long[keys.length << 1];
+        Arrays.fill(mKeys, NULL_NODE);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != NULL_NODE) {
+                int slot = slot(keys[i], mKeys.length);
+                while (mKeys[slot] != NULL_NODE) {
+                    slot = (slot + 1) & (mKeys.length - 1);
+                }
+                mKeys[slot] = keys[i];
+                mValues[slot] = values[i];
+            }
+        }
+    }
+
+    /**
+     * Computes the home slot of a hash. Node keys are dense, the hash is
+     * therefore spread over the whole table.
+     * 
+     * @param paramHash
+     *            hash of the entry
+     * @param paramCapacity
+     *            capacity of the table, a power of two
+     * @return the home slot
+     */
+    static int slot(final long paramHash, final int paramCapacity) {
+        final long spread = paramHash * 0x9E3779B97F4A7C15L;
+        return (int)(spread ^ (spread >>> 32)) & (paramCapacity - 1);
+    }
+}
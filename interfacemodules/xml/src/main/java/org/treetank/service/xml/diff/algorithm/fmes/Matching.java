@@ -26,9 +26,6 @@
  */
 package org.treetank.service.xml.diff.algorithm.fmes;
 
-import java.util.IdentityHashMap;
-import java.util.Map;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.DescendantAxis;
@@ -37,7 +34,8 @@ import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTIOException;
 
 /**
- * Keeps track of nodes in a matching.
+ * Keeps track of nodes in a matching. Nodes are identified by their keys,
+ * neither node objects nor boxed keys are held.
  * 
  * @author Johannes Lichtenberger, University of Konstanz
  * 
@@ -45,17 +43,18 @@ import org.treetank.exception.TTIOException;
 public final class Matching {
 
     /** Forward matching. */
-    private final Map<ITreeData, ITreeData> mMapping;
+    private final KeyMap mMapping;
 
     /** Backward machting. */
-    private final Map<ITreeData, ITreeData> mReverseMapping;
+    private final KeyMap mReverseMapping;
 
     /**
-     * Tracks the (grand-)parent-child relation of nodes. We use this to speed
-     * up the calculation of the number of nodes in the subtree of two nodes
-     * that are in the matching.
+     * Tracks the (grand-)parent-child relation of the matched nodes in the new revision. We use this to
+     * speed up the calculation of the number of nodes in the subtree of two nodes that are in the matching.
+     * Only the new revision is tracked since a key denotes different nodes in both revisions once a subtree
+     * is moved.
      */
-    private final ConnectionMap<ITreeData> mIsInSubtree;
+    private final ConnectionMap mIsInSubtree;
 
     /** {@link IReadTransaction} reference on old revision. */
     private final INodeReadTrx mRtxOld;
@@ -72,9 +71,9 @@ public final class Matching {
      *            {@link INodeReadTrx} reference on new revision.
      */
     public Matching(final INodeReadTrx pRtxOld, final INodeReadTrx pRtxNew) {
-        mMapping = new IdentityHashMap<ITreeData, ITreeData>();
-        mReverseMapping = new IdentityHashMap<ITreeData, ITreeData>();
-        mIsInSubtree = new ConnectionMap<ITreeData>();
+        mMapping = new KeyMap();
+        mReverseMapping = new KeyMap();
+        mIsInSubtree = new ConnectionMap();
         mRtxOld = pRtxOld;
         mRtxNew = pRtxNew;
     }
@@ -87,9 +86,9 @@ public final class Matching {
      *            the original
      */
     public Matching(final Matching paramMatch) {
-        mMapping = new IdentityHashMap<ITreeData, ITreeData>(paramMatch.mMapping);
-        mReverseMapping = new IdentityHashMap<ITreeData, ITreeData>(paramMatch.mReverseMapping);
-        mIsInSubtree = new ConnectionMap<ITreeData>(paramMatch.mIsInSubtree);
+        mMapping = new KeyMap(paramMatch.mMapping);
+        mReverseMapping = new KeyMap(paramMatch.mReverseMapping);
+        mIsInSubtree = new ConnectionMap(paramMatch.mIsInSubtree);
         mRtxOld = paramMatch.mRtxOld;
         mRtxNew = paramMatch.mRtxNew;
     }
@@ -104,31 +103,42 @@ public final class Matching {
      * @throws TTIOException
      */
     public void add(final ITreeData paramNodeX, final ITreeData paramNodeY) throws TTIOException {
-        mMapping.put(paramNodeX, paramNodeY);
-        mReverseMapping.put(paramNodeY, paramNodeX);
-        updateSubtreeMap(paramNodeX, mRtxNew);
-        updateSubtreeMap(paramNodeY, mRtxOld);
+        add(paramNodeX.getDataKey(), paramNodeY.getDataKey());
+    }
+
+    /**
+     * Adds the matching x -> y.
+     * 
+     * @param paramKeyX
+     *            key of the source node in the old revision
+     * @param paramKeyY
+     *            key of the partner of paramKeyX in the new revision
+     * @throws TTIOException
+     */
+    public void add(final long paramKeyX, final long paramKeyY) throws TTIOException {
+        mMapping.put(paramKeyX, paramKeyY);
+        mReverseMapping.put(paramKeyY, paramKeyX);
+        updateSubtreeMap(paramKeyY, mRtxNew);
     }
 
     /**
-     * For each anchestor of n: n is in it's subtree.
+     * For each anchestor of n in the new revision: n is in it's subtree.
      * 
-     * @param paramNode
-     *            node in subtree
+     * @param paramKey
+     *            key of the node in subtree
      * @param paramRtx
      *            {@link IReadTransaction} reference
      * @throws TTIOException
      */
-    private void updateSubtreeMap(final ITreeData paramNode, final INodeReadTrx paramRtx) throws TTIOException {
-        assert paramNode != null;
+    private void updateSubtreeMap(final long paramKey, final INodeReadTrx paramRtx) throws TTIOException {
+        assert paramKey >= 0;
         assert paramRtx != null;
 
-        mIsInSubtree.set(paramNode, paramNode, true);
-        if (paramNode.hasParent()) {
-            paramRtx.moveTo(paramNode.getDataKey());
+        mIsInSubtree.set(paramKey, paramKey, true);
+        if (paramRtx.moveTo(paramKey)) {
             while (((ITreeStructData)paramRtx.getNode()).hasParent()) {
                 paramRtx.moveTo(paramRtx.getNode().getParentKey());
-                mIsInSubtree.set(paramRtx.getNode(), paramNode, true);
+                mIsInSubtree.set(paramRtx.getNode().getDataKey(), paramKey, true);
             }
         }
     }
@@ -143,7 +153,20 @@ public final class Matching {
      * @return true iff add(x, y) was invoked first
      */
     public boolean contains(final ITreeData paramNodeX, final ITreeData paramNodeY) {
-        return mMapping.get(paramNodeX) == paramNodeY;
+        return contains(paramNodeX.getDataKey(), paramNodeY.getDataKey());
+    }
+
+    /**
+     * Checks if the matching contains the pair (x, y).
+     * 
+     * @param paramKeyX
+     *            key of the source node
+     * @param paramKeyY
+     *            key of the partner of x
+     * @return true iff add(x, y) was invoked first
+     */
+    public boolean contains(final long paramKeyX, final long paramKeyY) {
+        return mMapping.containsKey(paramKeyX) && mMapping.get(paramKeyX) == paramKeyY;
     }
 
     /**
@@ -160,11 +183,26 @@ public final class Matching {
     public long containedChildren(final ITreeData paramNodeX, final ITreeData paramNodeY) throws TTIOException {
         assert paramNodeX != null;
         assert paramNodeY != null;
+        return containedChildren(paramNodeX.getDataKey(), paramNodeY.getDataKey());
+    }
+
+    /**
+     * Counts the number of child nodes in the subtrees of x and y that are also
+     * in the matching.
+     * 
+     * @param paramKeyX
+     *            key of the first subtree root node in the old revision
+     * @param paramKeyY
+     *            key of the second subtree root node in the new revision
+     * @return number of children which have been matched
+     * @throws TTIOException
+     */
+    public long containedChildren(final long paramKeyX, final long paramKeyY) throws TTIOException {
         long retVal = 0;
 
-        mRtxOld.moveTo(paramNodeX.getDataKey());
+        mRtxOld.moveTo(paramKeyX);
         for (final AbsAxis axis = new DescendantAxis(mRtxOld, true); axis.hasNext(); axis.next()) {
-            retVal += mIsInSubtree.get(paramNodeY, partner(mRtxOld.getNode())) ? 1 : 0;
+            retVal += mIsInSubtree.get(paramKeyY, partner(mRtxOld.getNode().getDataKey())) ? 1 : 0;
         }
 
         return retVal;
@@ -173,22 +211,23 @@ public final class Matching {
     /**
      * Returns the partner node of node according to mapping.
      * 
-     * @param paramNode
-     *            node for which a partner has to be found
-     * @return the other node or null
+     * @param paramKey
+     *            key of the node for which a partner has to be found
+     * @return the key of the other node or {@link org.treetank.data.IConstants#NULL_NODE}
      */
-    public ITreeData partner(final ITreeData paramNode) {
-        return mMapping.get(paramNode);
+    public long partner(final long paramKey) {
+        return mMapping.get(paramKey);
     }
 
     /**
      * Returns the node for which "node" is the partner.
      * 
-     * @param paramNode
-     *            node for which a reverse partner has to be found
-     * @return x iff add(x, node) was called before
+     * @param paramKey
+     *            key of the node for which a reverse partner has to be found
+     * @return key of x iff add(x, node) was called before, {@link org.treetank.data.IConstants#NULL_NODE}
+     *         otherwise
      */
-    public ITreeData reversePartner(final ITreeData paramNode) {
-        return mReverseMapping.get(paramNode);
+    public long reversePartner(final long paramKey) {
+        return mReverseMapping.get(paramKey);
     }
 }
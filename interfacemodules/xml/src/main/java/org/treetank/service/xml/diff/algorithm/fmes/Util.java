@@ -58,54 +58,245 @@ public final class Util {
      */
     public static <T> List<Pair<T, T>> longestCommonSubsequence(final List<T> paramX, final List<T> paramY,
         final IComparator<T> paramCmp) {
-        final List<T> x = paramX;
-        final List<T> y = paramY;
-        final int n = x.size();
-        final int m = y.size();
-        final int max = n + m;
-
         if (paramX == null || paramY == null) {
             return new ArrayList<Pair<T, T>>();
         }
 
-        if (paramX.size() == 0 && paramY.size() == 0) {
-            return new ArrayList<Pair<T, T>>();
+        final Common common = longestCommonSubsequence(paramX.size(), paramY.size(), new IIndexComparator() {
+            @Override
+            public boolean isEqual(final int paramIdxX, final int paramIdxY) {
+                return paramCmp.isEqual(paramX.get(paramIdxX), paramY.get(paramIdxY));
+            }
+        });
+        final List<Pair<T, T>> retVal = new ArrayList<Pair<T, T>>(common.mSize);
+        for (int i = 0; i < common.mSize; i++) {
+            retVal.add(new Pair<T, T>(paramX.get(common.mX[i]), paramY.get(common.mY[i])));
+        }
+        return retVal;
+    }
+
+    /**
+     * Longest common subsequence algorithm working on node keys. Only the two
+     * arrays of size N + M used by Myers' algorithm are allocated, the memory
+     * needed is therefore linear in the number of keys.
+     * 
+     * @param paramX
+     *            first array of node keys
+     * @param paramY
+     *            second array of node keys
+     * @param paramCmp
+     *            function to compare the keys in both arrays (equality)
+     * @return lcs as two arrays of the same length, the first one holding the
+     *         keys taken from x, the second one the equal keys taken from y.
+     */
+    public static long[][] longestCommonSubsequence(final long[] paramX, final long[] paramY,
+        final IKeyComparator paramCmp) {
+        if (paramX == null || paramY == null) {
+            return new long[2][0];
+        }
+
+        final Common common = longestCommonSubsequence(paramX.length, paramY.length, new IIndexComparator() {
+            @Override
+            public boolean isEqual(final int paramIdxX, final int paramIdxY) {
+                return paramCmp.isEqual(paramX[paramIdxX], paramY[paramIdxY]);
+            }
+        });
+        final long[][] retVal = new long[2][common.mSize];
+        for (int i = 0; i < common.mSize; i++) {
+            retVal[0][i] = paramX[common.mX[i]];
+            retVal[1][i] = paramY[common.mY[i]];
+        }
+        return retVal;
+    }
+
+    /**
+     * Linear space variant of Myers' algorithm, dividing the problem at the
+     * middle snake of an optimal path.
+     * 
+     * @param paramN
+     *            length of the first sequence
+     * @param paramM
+     *            length of the second sequence
+     * @param paramCmp
+     *            function to compare the items of both sequences by index
+     * @return indexes of the lcs in both sequences
+     */
+    private static Common longestCommonSubsequence(final int paramN, final int paramM,
+        final IIndexComparator paramCmp) {
+        final Common common = new Common(Math.min(paramN, paramM));
+        final int size = paramN + paramM + 3;
+        compare(paramCmp, 0, paramN, 0, paramM, new int[size], new int[size], new int[4], common);
+        return common;
+    }
+
+    /**
+     * Computing the lcs of the given ranges of both sequences.
+     * 
+     * @param paramCmp
+     *            function to compare the items of both sequences by index
+     * @param paramLowX
+     *            first index within x, inclusive
+     * @param paramHighX
+     *            last index within x, exclusive
+     * @param paramLowY
+     *            first index within y, inclusive
+     * @param paramHighY
+     *            last index within y, exclusive
+     * @param paramForward
+     *            furthest reaching x on each diagonal of the forward search
+     * @param paramBackward
+     *            furthest reaching x on each diagonal of the backward search
+     * @param paramSnake
+     *            holder for the bounds of the middle snake
+     * @param paramCommon
+     *            collecting the indexes of the lcs in ascending order
+     */
+    private static void compare(final IIndexComparator paramCmp, final int paramLowX, final int paramHighX,
+        final int paramLowY, final int paramHighY, final int[] paramForward, final int[] paramBackward,
+        final int[] paramSnake, final Common paramCommon) {
+        int lowX = paramLowX;
+        int lowY = paramLowY;
+        int highX = paramHighX;
+        int highY = paramHighY;
+
+        // Common prefix.
+        while (lowX < highX && lowY < highY && paramCmp.isEqual(lowX, lowY)) {
+            paramCommon.add(lowX++, lowY++);
+        }
+
+        // Common suffix, added after the middle part.
+        while (lowX < highX && lowY < highY && paramCmp.isEqual(highX - 1, highY - 1)) {
+            highX--;
+            highY--;
+        }
+
+        // Without common prefix and suffix, the distance is at least 2 if
+        // both ranges are not empty, each part therefore is smaller.
+        if (lowX < highX && lowY < highY) {
+            middleSnake(paramCmp, lowX, highX, lowY, highY, paramForward, paramBackward, paramSnake);
+            final int startX = paramSnake[0];
+            final int startY = paramSnake[1];
+            final int endX = paramSnake[2];
+            final int endY = paramSnake[3];
+            compare(paramCmp, lowX, startX, lowY, startY, paramForward, paramBackward, paramSnake,
+                paramCommon);
+            for (int i = 0; i < endX - startX; i++) {
+                paramCommon.add(startX + i, startY + i);
+            }
+            compare(paramCmp, endX, highX, endY, highY, paramForward, paramBackward, paramSnake,
+                paramCommon);
         }
 
-        final int v[] = new int[2 * max + 1];
-        final List<List<Pair<T, T>>> common = new ArrayList<List<Pair<T, T>>>(2 * max + 1);
-        for (int i = 0; i <= 2 * max; i++) {
-            v[i] = 0;
-            common.set(i, new ArrayList<Pair<T, T>>());
+        for (int i = 0; i < paramHighX - highX; i++) {
+            paramCommon.add(highX + i, highY + i);
         }
+    }
 
-        for (int i = 0; i <= max; i++) {
-            for (int j = -i; j <= i; j += 2) {
-                int idxX;
-                if (j == -i || j != i && v[max + j - 1] < v[max + j + 1]) {
-                    // System.err.printf("Array index: %d\n", max + j + 1);
-                    idxX = v[max + j + 1];
-                    common.set(max + j, new ArrayList<Pair<T, T>>(common.get(max + j + 1)));
+    /**
+     * Finding the middle snake of an optimal path by searching forward from
+     * the start and backward from the end until both searches overlap.
+     * 
+     * @param paramCmp
+     *            function to compare the items of both sequences by index
+     * @param paramLowX
+     *            first index within x, inclusive
+     * @param paramHighX
+     *            last index within x, exclusive
+     * @param paramLowY
+     *            first index within y, inclusive
+     * @param paramHighY
+     *            last index within y, exclusive
+     * @param paramForward
+     *            furthest reaching x on each diagonal of the forward search
+     * @param paramBackward
+     *            furthest reaching x on each diagonal of the backward search
+     * @param paramSnake
+     *            set to start x, start y, end x and end y of the snake
+     */
+    private static void middleSnake(final IIndexComparator paramCmp, final int paramLowX,
+        final int paramHighX, final int paramLowY, final int paramHighY, final int[] paramForward,
+        final int[] paramBackward, final int[] paramSnake) {
+        final int n = paramHighX - paramLowX;
+        final int m = paramHighY - paramLowY;
+        final int delta = n - m;
+        final boolean odd = (delta & 1) != 0;
+        final int max = (n + m + 1) / 2;
+        final int offset = max + 1;
+        paramForward[offset + 1] = 0;
+        paramBackward[offset + 1] = 0;
+
+        for (int d = 0; d <= max; d++) {
+            // Forward search on diagonals k = x - y.
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || k != d && paramForward[offset + k - 1] < paramForward[offset + k + 1]) {
+                    x = paramForward[offset + k + 1];
                 } else {
-                    idxX = v[max + j - 1] + 1;
-                    common.set(max + j, new ArrayList<Pair<T, T>>(common.get(max + j - 1)));
+                    x = paramForward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                final int startX = x;
+                final int startY = y;
+                while (x < n && y < m && paramCmp.isEqual(paramLowX + x, paramLowY + y)) {
+                    x++;
+                    y++;
                 }
-                int idxY = idxX - j;
-                while (idxX < n && idxY < m && paramCmp.isEqual(x.get(idxX), y.get(idxY))) {
-                    common.set(max + j, common.get(max + j)).add(new Pair<T, T>(x.get(idxX), y.get(idxY)));
-                    idxX++;
-                    idxY++;
+                paramForward[offset + k] = x;
+                if (odd && k >= delta - (d - 1) && k <= delta + (d - 1)
+                    && x + paramBackward[offset + delta - k] >= n) {
+                    setSnake(paramSnake, paramLowX + startX, paramLowY + startY, paramLowX + x, paramLowY + y);
+                    return;
                 }
+            }
 
-                v[max + j] = idxX;
-                if (idxX >= n && idxY >= m) {
-                    return common.get(max + j);
+            // Backward search on diagonals k = (n - x) - (m - y).
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || k != d && paramBackward[offset + k - 1] < paramBackward[offset + k + 1]) {
+                    x = paramBackward[offset + k + 1];
+                } else {
+                    x = paramBackward[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                final int startX = x;
+                final int startY = y;
+                while (x < n && y < m && paramCmp.isEqual(paramHighX - x - 1, paramHighY - y - 1)) {
+                    x++;
+                    y++;
+                }
+                paramBackward[offset + k] = x;
+                if (!odd && delta - k >= -d && delta - k <= d && x + paramForward[offset + delta - k] >= n) {
+                    setSnake(paramSnake, paramHighX - x, paramHighY - y, paramHighX - startX, paramHighY
+                        - startY);
+                    return;
                 }
             }
         }
         throw new IllegalStateException("We should never get to this point!");
     }
 
+    /**
+     * Setting the bounds of a snake.
+     * 
+     * @param paramSnake
+     *            holder for the bounds
+     * @param paramStartX
+     *            start index within x
+     * @param paramStartY
+     *            start index within y
+     * @param paramEndX
+     *            end index within x, exclusive
+     * @param paramEndY
+     *            end index within y, exclusive
+     */
+    private static void setSnake(final int[] paramSnake, final int paramStartX, final int paramStartY,
+        final int paramEndX, final int paramEndY) {
+        paramSnake[0] = paramStartX;
+        paramSnake[1] = paramStartY;
+        paramSnake[2] = paramEndX;
+        paramSnake[3] = paramEndY;
+    }
+
     /**
      * Calculates the similarity of two strings. This is done by comparing the
      * frequency each character occures in both strings.
@@ -142,4 +333,60 @@ public final class Util {
         return 2.0 * matches / (paramFirst.length() + paramSecond.length());
     }
 
+    /**
+     * Comparing the items of two sequences by their indexes.
+     */
+    private interface IIndexComparator {
+        /**
+         * Compares the items at the given indexes.
+         * 
+         * @param paramIdxX
+         *            index within the first sequence
+         * @param paramIdxY
+         *            index within the second sequence
+         * @return true iff both items are equal
+         */
+        boolean isEqual(int paramIdxX, int paramIdxY);
+    }
+
+    /**
+     * Indexes of the lcs in both sequences.
+     */
+    private static final class Common {
+
+        /** Indexes within x. */
+        private final int[] mX;
+
+        /** Indexes within y. */
+        private final int[] mY;
+
+        /** Length of the lcs. */
+        private int mSize;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramCapacity
+         *            maximum length of the lcs
+         */
+        private Common(final int paramCapacity) {
+            mX = new int[paramCapacity];
+            mY = new int[paramCapacity];
+        }
+
+        /**
+         * Adding a pair of equal items.
+         * 
+         * @param paramIdxX
+         *            index within x
+         * @param paramIdxY
+         *            index within y
+         */
+        private void add(final int paramIdxX, final int paramIdxY) {
+            mX[mSize] = paramIdxX;
+            mY[mSize] = paramIdxY;
+            mSize++;
+        }
+    }
+
 }
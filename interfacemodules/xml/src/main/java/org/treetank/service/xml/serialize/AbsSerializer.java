@@ -28,7 +28,6 @@
 package org.treetank.service.xml.serialize;
 
 import java.util.Arrays;
-import java.util.Stack;
 import java.util.concurrent.Callable;
 
 import org.treetank.access.NodeReadTrx;
@@ -40,6 +39,7 @@ import org.treetank.data.IConstants;
 import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
+import org.treetank.utils.LongStack;
 
 /**
  * Class implements main serialization algorithm. Other classes can extend it.
@@ -52,8 +52,8 @@ abstract class AbsSerializer implements Callable<Void> {
     /** Treetank session {@link ISession}. */
     protected final ISession mSession;
 
-    /** Stack for reading end element. */
-    protected final Stack<Long> mStack;
+    /** Stack with the keys of the elements whose end tags are pending. */
+    protected final LongStack mStack;
 
     /** Array with versions to print. */
     protected final long[] mVersions;
@@ -84,7 +84,7 @@ abstract class AbsSerializer implements Callable<Void> {
      *            versions which should be serialized: -
      */
     public AbsSerializer(final ISession paramSession, final long paramKey, final long... paramVersions) {
-        mStack = new Stack<Long>();
+        mStack = new LongStack();
         mVersions = paramVersions;
         mSession = paramSession;
         mNodeKey = paramKey;
@@ -100,6 +100,95 @@ abstract class AbsSerializer implements Callable<Void> {
     public Void call() throws TTException {
         emitStartDocument();
 
+        final long[] versionsToUse = getVersionsToUse();
+
+        for (int i = 0; i < versionsToUse.length; i++) {
+
+            INodeReadTrx rtx = new NodeReadTrx(mSession.beginBucketRtx(versionsToUse[i]));
+
+            if (versionsToUse == null || mVersions.length > 1) {
+                emitStartManualElement(i);
+            }
+
+            try {
+                rtx.moveTo(mNodeKey);
+                emitSubtree(rtx);
+            } finally {
+                rtx.close();
+            }
+
+            if (versionsToUse == null || mVersions.length > 1) {
+                emitEndManualElement(i);
+            }
+        }
+        emitEndDocument();
+
+        return null;
+    }
+
+    /**
+     * Emitting the subtree rooted at the node the transaction is located at, including the node itself.
+     * 
+     * @param rtx
+     *            Treetank reading transaction {@link INodeReadTrx} located at the root of the subtree.
+     * @throws TTException
+     *             if the subtree can't be read
+     */
+    protected final void emitSubtree(final INodeReadTrx rtx) throws TTException {
+        final AbsAxis descAxis = new DescendantAxis(rtx, true);
+
+        // Setup primitives.
+        boolean closeElements = false;
+        long key = rtx.getNode().getDataKey();
+
+        // Iterate over all nodes of the subtree including self.
+        while (descAxis.hasNext()) {
+            key = descAxis.nextKey();
+            ITreeStructData currentStruc = (ITreeStructData)rtx.getNode();
+
+            // Emit all pending end elements.
+            if (closeElements) {
+                while (!mStack.isEmpty() && mStack.peek() != currentStruc.getLeftSiblingKey()) {
+                    emitEndElement(rtx, mStack.pop());
+                }
+                if (!mStack.isEmpty()) {
+                    emitEndElement(rtx, mStack.pop());
+                }
+                if (rtx.getNode().getDataKey() != key) {
+                    rtx.moveTo(key);
+                }
+                closeElements = false;
+            }
+            // Emit node.
+            emitStartElement(rtx);
+            // Push end element to stack if we are a start element with
+            // children.
+            if (currentStruc.getKind() == IConstants.ELEMENT && currentStruc.hasFirstChild()) {
+                mStack.push(key);
+            }
+
+            // Remember to emit all pending end elements from stack if
+            // required.
+            if (!currentStruc.hasFirstChild() && !currentStruc.hasRightSibling()) {
+                closeElements = true;
+            }
+
+        }
+
+        // Finally emit all pending end elements.
+        while (!mStack.isEmpty()) {
+            emitEndElement(rtx, mStack.pop());
+        }
+    }
+
+    /**
+     * Determining the versions to serialize.
+     * 
+     * @return the versions to serialize, in ascending order
+     * @throws TTIOException
+     *             if the most recent version can not be determined
+     */
+    protected final long[] getVersionsToUse() throws TTIOException {
         long[] versionsToUse;
 
         // if there are no versions specified, take the last one, of not version==0
@@ -127,74 +216,14 @@ abstract class AbsSerializer implements Callable<Void> {
             }// otherwise take the versions as requested as params
             else {
                 int index = Arrays.binarySearch(mVersions, 1);
-                versionsToUse = Arrays.copyOfRange(mVersions, index, mVersions.length);
-            }
-        }
-
-        for (int i = 0; i < versionsToUse.length; i++) {
-
-            INodeReadTrx rtx = new NodeReadTrx(mSession.beginBucketRtx(versionsToUse[i]));
-
-            if (versionsToUse == null || mVersions.length > 1) {
-                emitStartManualElement(i);
-            }
-
-            rtx.moveTo(mNodeKey);
-
-            final AbsAxis descAxis = new DescendantAxis(rtx, true);
-
-            // Setup primitives.
-            boolean closeElements = false;
-            long key = rtx.getNode().getDataKey();
-
-            // Iterate over all nodes of the subtree including self.
-            while (descAxis.hasNext()) {
-                key = descAxis.next();
-                ITreeStructData currentStruc = (ITreeStructData)rtx.getNode();
-
-                // Emit all pending end elements.
-                if (closeElements) {
-                    while (!mStack.empty() && mStack.peek() != currentStruc.getLeftSiblingKey()) {
-                        rtx.moveTo(mStack.pop());
-                        emitEndElement(rtx);
-                        rtx.moveTo(key);
-                    }
-                    if (!mStack.empty()) {
-                        rtx.moveTo(mStack.pop());
-                        emitEndElement(rtx);
-                    }
-                    rtx.moveTo(key);
-                    closeElements = false;
-                }
-                // Emit node.
-                emitStartElement(rtx);
-                // Push end element to stack if we are a start element with
-                // children.
-                if (currentStruc.getKind() == IConstants.ELEMENT && currentStruc.hasFirstChild()) {
-                    mStack.push(rtx.getNode().getDataKey());
-                }
-
-                // Remember to emit all pending end elements from stack if
-                // required.
-                if (!currentStruc.hasFirstChild() && !currentStruc.hasRightSibling()) {
-                    closeElements = true;
+                // skip the bootstrapped revision even if revision 1 is not requested
+                if (index < 0) {
+                    index = -index - 1;
                 }
-
-            }
-
-            // Finally emit all pending end elements.
-            while (!mStack.empty()) {
-                rtx.moveTo(mStack.pop());
-                emitEndElement(rtx);
-            }
-
-            if (versionsToUse == null || mVersions.length > 1) {
-                emitEndManualElement(i);
+                versionsToUse = Arrays.copyOfRange(mVersions, index, mVersions.length);
             }
         }
-        emitEndDocument();
-
-        return null;
+        return versionsToUse;
     }
 
     /** Emit start document. */
@@ -216,6 +245,22 @@ abstract class AbsSerializer implements Callable<Void> {
      */
     protected abstract void emitEndElement(final INodeReadTrx paramRTX);
 
+    /**
+     * Emit end tag of an element which is not necessarily the current node. The transaction is moved to the
+     * element, serializers which know the name of the element can override this to avoid the move.
+     * 
+     * @param paramRTX
+     *            Treetank reading transaction {@link INodeReadTrx}.
+     * @param paramKey
+     *            key of the element
+     * @throws TTIOException
+     *             if the element can not be read
+     */
+    protected void emitEndElement(final INodeReadTrx paramRTX, final long paramKey) throws TTIOException {
+        paramRTX.moveTo(paramKey);
+        emitEndElement(paramRTX);
+    }
+
     /**
      * Emit a start tag, which specifies a revision.
      * 
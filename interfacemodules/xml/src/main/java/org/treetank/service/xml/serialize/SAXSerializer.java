@@ -33,6 +33,9 @@ import static org.treetank.data.IConstants.TEXT;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 
 import javax.xml.namespace.QName;
@@ -215,10 +218,15 @@ public final class SAXSerializer extends AbsSerializer implements XMLReader {
      *            Read Transaction.
      */
     private void generateText(final INodeReadTrx paramRtx) {
-        try {
-            mContHandler.characters(paramRtx.getValueOfCurrentNode().toCharArray(), 0, paramRtx
-                .getValueOfCurrentNode().length());
-        } catch (final SAXException exc) {
+        // large values are handed over in several chunks instead of one materialized string
+        final char[] buffer = new char[8192];
+        try (final Reader value =
+            new InputStreamReader(paramRtx.getValueStreamOfCurrentNode(), StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = value.read(buffer)) != -1) {
+                mContHandler.characters(buffer, 0, read);
+            }
+        } catch (final SAXException | IOException exc) {
             exc.printStackTrace();
         }
     }
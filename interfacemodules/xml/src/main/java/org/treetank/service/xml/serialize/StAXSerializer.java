@@ -236,7 +236,7 @@ public final class StAXSerializer implements XMLEventReader {
         final StringBuilder strBuilder = new StringBuilder();
 
         while (textFilterAxis.hasNext()) {
-            textFilterAxis.next();
+            textFilterAxis.nextKey();
             strBuilder.append(mRtx.getValueOfCurrentNode());
         }
 
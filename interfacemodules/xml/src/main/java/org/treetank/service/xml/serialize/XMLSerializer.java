@@ -28,6 +28,7 @@
 package org.treetank.service.xml.serialize;
 
 import static org.treetank.data.IConstants.ELEMENT;
+import static org.treetank.data.IConstants.NULL_NODE;
 import static org.treetank.data.IConstants.ROOT;
 import static org.treetank.data.IConstants.TEXT;
 import static org.treetank.service.xml.serialize.XMLSerializerProperties.S_ID;
@@ -36,15 +37,26 @@ import static org.treetank.service.xml.serialize.XMLSerializerProperties.S_INDEN
 import static org.treetank.service.xml.serialize.XMLSerializerProperties.S_REST;
 import static org.treetank.service.xml.serialize.XMLSerializerProperties.S_XMLDECL;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.treetank.access.NodeReadTrx;
 import org.treetank.access.Storage;
 import org.treetank.access.conf.ConstructorProps;
 import org.treetank.access.conf.ModuleSetter;
@@ -60,10 +72,14 @@ import org.treetank.data.NodeMetaPageFactory;
 import org.treetank.data.TreeNodeFactory;
 import org.treetank.data.interfaces.ITreeNameData;
 import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.data.interfaces.ITreeValData;
+import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.io.IBackend.IBackendFactory;
 import org.treetank.revisioning.IRevisioning;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
@@ -71,9 +87,16 @@ import com.google.inject.Injector;
  * <h1>XMLSerializer</h1>
  * 
  * <p>
- * Most efficient way to serialize a subtree into an OutputStream. The encoding always is UTF-8. Note that the
- * OutputStream internally is wrapped by a BufferedOutputStream. There is no need to buffer it again outside
- * of this class.
+ * Most efficient way to serialize a subtree into an OutputStream. The encoding always is UTF-8. Values are
+ * written as the raw bytes stored in the nodes, names are encoded once per serialization. Note that the
+ * output is buffered internally. There is no need to buffer it again outside of this class.
+ * </p>
+ * 
+ * <p>
+ * With more than one thread, several revisions are serialized concurrently, or, for a single revision, the
+ * subtrees of the children of the root element. Each part is written into its own buffer and the buffers
+ * are copied to the stream in document order. At most as many parts as threads are held in memory.
+ * Indented output is always serialized sequentially since the indentation depends on the ancestors.
  * </p>
  */
 public final class XMLSerializer extends AbsSerializer {
@@ -185,9 +208,35 @@ public final class XMLSerializer extends AbsSerializer {
         10000000000000000L, 100000000000000000L, 1000000000000000000L
     };
 
+    /** Size of the output buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Maximum number of bytes a part buffers, at most {@link #mThreads} parts are buffered at once. A part
+     * exceeding it is aborted and serialized directly to the stream when it is due.
+     */
+    static final int MAX_PART_BYTES = 1 << 22;
+
+    /** Escaped quote within attribute values. */
+    private static final byte[] QUOT = {
+        38, 113, 117, 111, 116, 59
+    };
+
     /** OutputStream to write to. */
     private final OutputStream mOut;
 
+    /** Output buffer, flushed to the stream when full. */
+    private final byte[] mBuffer;
+
+    /** Number of bytes in the output buffer. */
+    private int mPosition;
+
+    /** Encoded names by their keys. */
+    private final Map<Integer, byte[]> mNames;
+
+    /** Encoded names of the elements whose end tags are pending. */
+    private final Deque<byte[]> mEndNames;
+
     /** Indent output. */
     private final boolean mIndent;
 
@@ -203,6 +252,12 @@ public final class XMLSerializer extends AbsSerializer {
     /** Number of spaces to indent. */
     private final int mIndentSpaces;
 
+    /** Number of threads serializing parts of the output. */
+    private final int mThreads;
+
+    /** Serializing a part of the output only, without declaration and rest wrapper. */
+    private final boolean mFragment;
+
     /**
      * Initialize XMLStreamReader implementation with transaction. The cursor
      * points to the node the XMLStreamReader starts to read.
@@ -219,12 +274,252 @@ public final class XMLSerializer extends AbsSerializer {
     private XMLSerializer(final ISession paramSession, final long paramNodeKey,
         final XMLSerializerBuilder paramBuilder, final long... paramVersions) {
         super(paramSession, paramNodeKey, paramVersions);
-        mOut = new BufferedOutputStream(paramBuilder.mStream, 4096);
+        mOut = paramBuilder.mStream;
+        mBuffer = new byte[BUFFER_SIZE];
+        mNames = new HashMap<Integer, byte[]>();
+        mEndNames = new ArrayDeque<byte[]>();
         mIndent = paramBuilder.mIndent;
         mSerializeXMLDeclaration = paramBuilder.mDeclaration;
         mSerializeRest = paramBuilder.mREST;
         mSerializeId = paramBuilder.mID;
         mIndentSpaces = paramBuilder.mIndentSpaces;
+        mThreads = paramBuilder.mThreads;
+        mFragment = false;
+    }
+
+    /**
+     * Constructor for serializing a part of the output of another serializer.
+     * 
+     * @param paramParent
+     *            the serializer whose settings are used
+     * @param paramNodeKey
+     *            root node key of the part
+     * @param paramOut
+     *            the stream to write the part to
+     * @param paramVersion
+     *            version to serialize
+     */
+    private XMLSerializer(final XMLSerializer paramParent, final long paramNodeKey,
+        final OutputStream paramOut, final long paramVersion) {
+        super(paramParent.mSession, paramNodeKey, new long[] {
+            paramVersion
+        });
+        mOut = paramOut;
+        mBuffer = new byte[BUFFER_SIZE];
+        mNames = new HashMap<Integer, byte[]>();
+        mEndNames = new ArrayDeque<byte[]>();
+        mIndent = paramParent.mIndent;
+        mSerializeXMLDeclaration = false;
+        mSerializeRest = paramParent.mSerializeRest;
+        mSerializeId = paramParent.mSerializeId;
+        mIndentSpaces = paramParent.mIndentSpaces;
+        mThreads = 1;
+        mFragment = true;
+    }
+
+    /**
+     * Serialize the storage, in parallel if more than one thread is configured.
+     * 
+     * @return null.
+     * @throws TTException
+     *             if can't call serializer
+     */
+    @Override
+    public Void call() throws TTException {
+        if (mThreads <= 1 || mIndent) {
+            return super.call();
+        }
+        final long[] versionsToUse = getVersionsToUse();
+        final ExecutorService executor = Executors.newFixedThreadPool(mThreads);
+        try {
+            emitStartDocument();
+            if (versionsToUse.length > 1) {
+                serializeVersions(executor, versionsToUse);
+            } else if (versionsToUse.length == 1) {
+                serializeSubtrees(executor, versionsToUse[0]);
+            }
+            emitEndDocument();
+        } finally {
+            executor.shutdownNow();
+        }
+        return null;
+    }
+
+    /**
+     * Serializing the subtree of one node of a sequence, e.g. of a query result, over a transaction of the
+     * caller. The output is the same as of a serializer built for this node, but the names, the buffer and
+     * the transaction are reused and nothing is flushed before the buffer is full or {@link #flush()} is
+     * called. All nodes of one request can thereby be streamed by one serializer.
+     * 
+     * @param paramRTX
+     *            transaction on the revision to serialize, moved by this method
+     * @param paramNodeKey
+     *            root node key of the subtree
+     * @throws TTException
+     *             if the subtree can't be serialized
+     */
+    public void serializeItem(final INodeReadTrx paramRTX, final long paramNodeKey) throws TTException {
+        emitStartDocument();
+        if (paramRTX.moveTo(paramNodeKey)) {
+            emitSubtree(paramRTX);
+        }
+        try {
+            emitEndSequence();
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Writing all buffered output to the stream and flushing it.
+     * 
+     * @throws TTIOException
+     *             if the stream can't be written
+     */
+    public void flush() throws TTIOException {
+        try {
+            flushBuffer();
+            mOut.flush();
+        } catch (final IOException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Serializing each revision as a part of its own.
+     * 
+     * @param paramExecutor
+     *            executor running the parts
+     * @param paramVersions
+     *            the versions to serialize
+     * @throws TTException
+     *             if a part can't be serialized
+     */
+    private void serializeVersions(final ExecutorService paramExecutor, final long[] paramVersions)
+        throws TTException {
+        final Deque<Future<PartOutput>> pending = new ArrayDeque<Future<PartOutput>>();
+        int written = 0;
+        for (int i = 0; i < paramVersions.length; i++) {
+            if (pending.size() == mThreads) {
+                writeVersion(pending.poll(), written++);
+            }
+            pending.add(paramExecutor.submit(new Part(mNodeKey, paramVersions[i])));
+        }
+        while (!pending.isEmpty()) {
+            writeVersion(pending.poll(), written++);
+        }
+    }
+
+    /**
+     * Writing a serialized revision, wrapped if more than one revision was requested.
+     * 
+     * @param paramPart
+     *            the serialized revision
+     * @param paramIndex
+     *            index of the revision
+     * @throws TTException
+     *             if the part can't be serialized
+     */
+    private void writeVersion(final Future<PartOutput> paramPart, final int paramIndex)
+        throws TTException {
+        if (mVersions.length > 1) {
+            emitStartManualElement(paramIndex);
+        }
+        writePart(paramPart);
+        if (mVersions.length > 1) {
+            emitEndManualElement(paramIndex);
+        }
+    }
+
+    /**
+     * Serializing the subtrees of the children of the top-level elements as parts of their own.
+     * 
+     * @param paramExecutor
+     *            executor running the parts
+     * @param paramVersion
+     *            the version to serialize
+     * @throws TTException
+     *             if a part can't be serialized
+     */
+    private void serializeSubtrees(final ExecutorService paramExecutor, final long paramVersion)
+        throws TTException {
+        final INodeReadTrx rtx = new NodeReadTrx(mSession.beginBucketRtx(paramVersion));
+        try {
+            rtx.moveTo(mNodeKey);
+            if (rtx.getNode().getKind() != ROOT) {
+                serializeChildren(paramExecutor, rtx, paramVersion);
+                return;
+            }
+            emitStartElement(rtx);
+            long child = ((ITreeStructData)rtx.getNode()).getFirstChildKey();
+            while (child != NULL_NODE) {
+                rtx.moveTo(child);
+                serializeChildren(paramExecutor, rtx, paramVersion);
+                rtx.moveTo(child);
+                child = ((ITreeStructData)rtx.getNode()).getRightSiblingKey();
+            }
+        } finally {
+            rtx.close();
+        }
+    }
+
+    /**
+     * Serializing the node the transaction is located at, the subtrees of its children as parts of their
+     * own.
+     * 
+     * @param paramExecutor
+     *            executor running the parts
+     * @param paramRTX
+     *            transaction located at the node, moved by this method
+     * @param paramVersion
+     *            the version to serialize
+     * @throws TTException
+     *             if a part can't be serialized
+     */
+    private void serializeChildren(final ExecutorService paramExecutor, final INodeReadTrx paramRTX,
+        final long paramVersion) throws TTException {
+        final ITreeStructData element = (ITreeStructData)paramRTX.getNode();
+        emitStartElement(paramRTX);
+        if (element.getKind() != ELEMENT || !element.hasFirstChild()) {
+            return;
+        }
+        final Deque<Future<PartOutput>> pending = new ArrayDeque<Future<PartOutput>>();
+        long child = element.getFirstChildKey();
+        while (child != NULL_NODE) {
+            if (pending.size() == mThreads) {
+                writePart(pending.poll());
+            }
+            pending.add(paramExecutor.submit(new Part(child, paramVersion)));
+            paramRTX.moveTo(child);
+            child = ((ITreeStructData)paramRTX.getNode()).getRightSiblingKey();
+        }
+        while (!pending.isEmpty()) {
+            writePart(pending.poll());
+        }
+        emitEndElement(paramRTX, element.getDataKey());
+    }
+
+    /**
+     * Waiting for a part and copying it to the stream. A part exceeding {@link #MAX_PART_BYTES} is
+     * serialized directly to the stream instead.
+     * 
+     * @param paramPart
+     *            the part to write
+     * @throws TTException
+     *             if the part can't be serialized
+     */
+    private void writePart(final Future<PartOutput> paramPart) throws TTException {
+        try {
+            final PartOutput part = paramPart.get();
+            flushBuffer();
+            if (part.mOverflow) {
+                new XMLSerializer(this, part.mPartKey, mOut, part.mPartVersion).call();
+            } else {
+                part.mBytes.writeTo(mOut);
+            }
+        } catch (final InterruptedException | ExecutionException | IOException exc) {
+            throw new TTIOException(exc);
+        }
     }
 
     /**
@@ -238,70 +533,74 @@ public final class XMLSerializer extends AbsSerializer {
             switch (paramRTX.getNode().getKind()) {
             case ROOT:
                 if (mIndent) {
-                    mOut.write(ECharsForSerializing.NEWLINE.getBytes());
+                    write(ECharsForSerializing.NEWLINE.getBytes());
                 }
                 break;
             case ELEMENT:
                 // Emit start element.
                 indent();
-                final ITreeNameData namenode = (ITreeNameData)paramRTX.getNode();
-                mOut.write(ECharsForSerializing.OPEN.getBytes());
-                mOut.write(paramRTX.nameForKey(namenode.getNameKey()).getBytes());
-                final long key = paramRTX.getNode().getDataKey();
+                final ElementNode element = (ElementNode)paramRTX.getNode();
+                final byte[] name = nameForKey(paramRTX, element.getNameKey());
+                write(ECharsForSerializing.OPEN.getBytes());
+                write(name);
                 // Emit namespace declarations.
-                for (int index = 0, length = ((ElementNode)namenode).getNamespaceCount(); index < length; index++) {
-                    paramRTX.moveToNamespace(index);
-                    if (paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getNameKey()).length() == 0) {
-                        mOut.write(ECharsForSerializing.XMLNS.getBytes());
-                        write(paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getURIKey()));
-                        mOut.write(ECharsForSerializing.QUOTE.getBytes());
+                for (int index = 0, length = element.getNamespaceCount(); index < length; index++) {
+                    paramRTX.moveTo(element.getNamespaceKey(index));
+                    final ITreeNameData namespace = (ITreeNameData)paramRTX.getNode();
+                    final byte[] prefix = nameForKey(paramRTX, namespace.getNameKey());
+                    if (prefix.length == 0) {
+                        write(ECharsForSerializing.XMLNS.getBytes());
                     } else {
-                        mOut.write(ECharsForSerializing.XMLNS_COLON.getBytes());
-                        write(paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getNameKey()));
-                        mOut.write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
-                        write(paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getURIKey()));
-                        mOut.write(ECharsForSerializing.QUOTE.getBytes());
+                        write(ECharsForSerializing.XMLNS_COLON.getBytes());
+                        write(prefix);
+                        write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
                     }
-                    paramRTX.moveTo(key);
+                    write(nameForKey(paramRTX, namespace.getURIKey()));
+                    write(ECharsForSerializing.QUOTE.getBytes());
                 }
                 // Emit attributes.
                 // Add virtual rest:id attribute.
                 if (mSerializeId) {
                     if (mSerializeRest) {
-                        mOut.write(ECharsForSerializing.REST_PREFIX.getBytes());
+                        write(ECharsForSerializing.REST_PREFIX.getBytes());
                     } else {
-                        mOut.write(ECharsForSerializing.SPACE.getBytes());
+                        write(ECharsForSerializing.SPACE.getBytes());
                     }
-                    mOut.write(ECharsForSerializing.ID.getBytes());
-                    mOut.write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
-                    write(paramRTX.getNode().getDataKey());
-                    mOut.write(ECharsForSerializing.QUOTE.getBytes());
+                    write(ECharsForSerializing.ID.getBytes());
+                    write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
+                    write(element.getDataKey());
+                    write(ECharsForSerializing.QUOTE.getBytes());
                 }
 
                 // Iterate over all persistent attributes.
-                for (int index = 0; index < ((ElementNode)paramRTX.getNode()).getAttributeCount(); index++) {
-                    paramRTX.moveToAttribute(index);
-                    mOut.write(ECharsForSerializing.SPACE.getBytes());
-                    mOut.write(paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getNameKey()).getBytes());
-                    mOut.write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
-                    mOut.write(paramRTX.getValueOfCurrentNode().getBytes());
-                    mOut.write(ECharsForSerializing.QUOTE.getBytes());
-                    paramRTX.moveTo(key);
+                for (int index = 0, length = element.getAttributeCount(); index < length; index++) {
+                    paramRTX.moveTo(element.getAttributeKey(index));
+                    final ITreeNameData attribute = (ITreeNameData)paramRTX.getNode();
+                    write(ECharsForSerializing.SPACE.getBytes());
+                    write(nameForKey(paramRTX, attribute.getNameKey()));
+                    write(ECharsForSerializing.EQUAL_QUOTE.getBytes());
+                    writeAttributeValue((ITreeValData)attribute, paramRTX);
+                    write(ECharsForSerializing.QUOTE.getBytes());
                 }
-                if (((ITreeStructData)paramRTX.getNode()).hasFirstChild()) {
-                    mOut.write(ECharsForSerializing.CLOSE.getBytes());
+                if (element.getNamespaceCount() > 0 || element.getAttributeCount() > 0) {
+                    paramRTX.moveTo(element.getDataKey());
+                }
+                if (element.hasFirstChild()) {
+                    write(ECharsForSerializing.CLOSE.getBytes());
+                    // the end tag is emitted without moving back to the element
+                    mEndNames.push(name);
                 } else {
-                    mOut.write(ECharsForSerializing.SLASH_CLOSE.getBytes());
+                    write(ECharsForSerializing.SLASH_CLOSE.getBytes());
                 }
                 if (mIndent) {
-                    mOut.write(ECharsForSerializing.NEWLINE.getBytes());
+                    write(ECharsForSerializing.NEWLINE.getBytes());
                 }
                 break;
             case TEXT:
                 indent();
-                mOut.write(paramRTX.getValueOfCurrentNode().getBytes());
+                writeValue((ITreeValData)paramRTX.getNode(), paramRTX);
                 if (mIndent) {
-                    mOut.write(ECharsForSerializing.NEWLINE.getBytes());
+                    write(ECharsForSerializing.NEWLINE.getBytes());
                 }
                 break;
             }
@@ -318,13 +617,36 @@ public final class XMLSerializer extends AbsSerializer {
      */
     @Override
     protected void emitEndElement(final INodeReadTrx paramRTX) {
+        emitEndElement(nameForKey(paramRTX, ((ITreeNameData)paramRTX.getNode()).getNameKey()));
+    }
+
+    /**
+     * Emit end element with the name remembered while emitting the start element.
+     * 
+     * @param paramRTX
+     *            Read Transaction
+     * @param paramKey
+     *            key of the element
+     */
+    @Override
+    protected void emitEndElement(final INodeReadTrx paramRTX, final long paramKey) {
+        emitEndElement(mEndNames.pop());
+    }
+
+    /**
+     * Emit end element.
+     * 
+     * @param paramName
+     *            the encoded name of the element
+     */
+    private void emitEndElement(final byte[] paramName) {
         try {
             indent();
-            mOut.write(ECharsForSerializing.OPEN_SLASH.getBytes());
-            mOut.write(paramRTX.nameForKey(((ITreeNameData)paramRTX.getNode()).getNameKey()).getBytes());
-            mOut.write(ECharsForSerializing.CLOSE.getBytes());
+            write(ECharsForSerializing.OPEN_SLASH.getBytes());
+            write(paramName);
+            write(ECharsForSerializing.CLOSE.getBytes());
             if (mIndent) {
-                mOut.write(ECharsForSerializing.NEWLINE.getBytes());
+                write(ECharsForSerializing.NEWLINE.getBytes());
             }
         } catch (final IOException exc) {
             exc.printStackTrace();
@@ -334,6 +656,9 @@ public final class XMLSerializer extends AbsSerializer {
     /** {@inheritDoc} */
     @Override
     protected void emitStartDocument() {
+        if (mFragment) {
+            return;
+        }
         try {
             if (mSerializeXMLDeclaration) {
                 write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
@@ -350,9 +675,8 @@ public final class XMLSerializer extends AbsSerializer {
     @Override
     protected void emitEndDocument() {
         try {
-            if (mSerializeRest) {
-                write("</rest:item></rest:sequence>");
-            }
+            emitEndSequence();
+            flushBuffer();
             mOut.flush();
         } catch (final IOException exc) {
             exc.printStackTrace();
@@ -360,6 +684,18 @@ public final class XMLSerializer extends AbsSerializer {
 
     }
 
+    /**
+     * Closing the REST sequence opened by {@link #emitStartDocument()}.
+     * 
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void emitEndSequence() throws IOException {
+        if (mSerializeRest && !mFragment) {
+            write("</rest:item></rest:sequence>");
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void emitStartManualElement(final long mVersion) {
@@ -392,7 +728,7 @@ public final class XMLSerializer extends AbsSerializer {
     private void indent() throws IOException {
         if (mIndent) {
             for (int i = 0; i < mStack.size() * mIndentSpaces; i++) {
-                mOut.write(" ".getBytes());
+                write(ECharsForSerializing.SPACE.getBytes());
             }
         }
     }
@@ -408,7 +744,147 @@ public final class XMLSerializer extends AbsSerializer {
      *             if unsupport encoding
      */
     protected void write(final String mString) throws UnsupportedEncodingException, IOException {
-        mOut.write(mString.getBytes("UTF-8"));
+        write(mString.getBytes("UTF-8"));
+    }
+
+    /**
+     * Write bytes to the output buffer.
+     * 
+     * @param paramBytes
+     *            bytes to write
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void write(final byte[] paramBytes) throws IOException {
+        write(paramBytes, 0, paramBytes.length);
+    }
+
+    /**
+     * Write a range of bytes to the output buffer.
+     * 
+     * @param paramBytes
+     *            bytes to write
+     * @param paramOffset
+     *            offset of the range
+     * @param paramLength
+     *            length of the range
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void write(final byte[] paramBytes, final int paramOffset, final int paramLength)
+        throws IOException {
+        if (paramLength > mBuffer.length - mPosition) {
+            flushBuffer();
+            if (paramLength > mBuffer.length) {
+                mOut.write(paramBytes, paramOffset, paramLength);
+                return;
+            }
+        }
+        System.arraycopy(paramBytes, paramOffset, mBuffer, mPosition, paramLength);
+        mPosition += paramLength;
+    }
+
+    /**
+     * Write the content of the output buffer to the stream.
+     * 
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void flushBuffer() throws IOException {
+        if (mPosition > 0) {
+            mOut.write(mBuffer, 0, mPosition);
+            mPosition = 0;
+        }
+    }
+
+    /**
+     * Getting the encoded name for a key, names are encoded once.
+     * 
+     * @param paramRTX
+     *            Read Transaction
+     * @param paramKey
+     *            key of the name
+     * @return the UTF-8 bytes of the name
+     */
+    private byte[] nameForKey(final INodeReadTrx paramRTX, final int paramKey) {
+        byte[] name = mNames.get(paramKey);
+        if (name == null) {
+            name = paramRTX.nameForKey(paramKey).getBytes(Charsets.UTF_8);
+            mNames.put(paramKey, name);
+        }
+        return name;
+    }
+
+    /**
+     * Writing the value of a node. Values stored in chunks are streamed without materializing them, other
+     * values are written as stored.
+     * 
+     * @param paramNode
+     *            the node holding the value
+     * @param paramRTX
+     *            Read Transaction located at the node
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void writeValue(final ITreeValData paramNode, final INodeReadTrx paramRTX) throws IOException {
+        if (paramNode.getValueChunkKey() == NULL_NODE) {
+            write(paramNode.getRawValue());
+        } else {
+            flushBuffer();
+            try (final InputStream value = paramRTX.getValueStreamOfCurrentNode()) {
+                ByteStreams.copy(value, mOut);
+            }
+        }
+    }
+
+    /**
+     * Writing the value of an attribute. Values stored in chunks are streamed without materializing them
+     * like in {@link #writeValue(ITreeValData, INodeReadTrx)}.
+     * 
+     * @param paramNode
+     *            the attribute
+     * @param paramRTX
+     *            Read Transaction located at the attribute
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void writeAttributeValue(final ITreeValData paramNode, final INodeReadTrx paramRTX)
+        throws IOException {
+        if (paramNode.getValueChunkKey() == NULL_NODE) {
+            final byte[] value = paramNode.getRawValue();
+            writeAttributeValue(value, value.length);
+        } else {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            try (final InputStream value = paramRTX.getValueStreamOfCurrentNode()) {
+                int read;
+                while ((read = value.read(buffer)) != -1) {
+                    writeAttributeValue(buffer, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writing an attribute value. The stored value is already escaped except for quotes, which are escaped
+     * while copying the runs in between.
+     * 
+     * @param paramValue
+     *            the stored value
+     * @param paramLength
+     *            number of bytes of the value to write
+     * @throws IOException
+     *             if can't write to stream
+     */
+    private void writeAttributeValue(final byte[] paramValue, final int paramLength) throws IOException {
+        int start = 0;
+        for (int i = 0; i < paramLength; i++) {
+            if (paramValue[i] == '"') {
+                write(paramValue, start, i - start);
+                write(QUOT);
+                start = i + 1;
+            }
+        }
+        write(paramValue, start, paramLength - start);
     }
 
     /**
@@ -425,7 +901,10 @@ public final class XMLSerializer extends AbsSerializer {
         long remainder = mValue;
         for (int i = length; i >= 0; i--) {
             digit = (byte)(remainder / LONG_POWERS[i]);
-            mOut.write((byte)(digit + ASCII_OFFSET));
+            if (mPosition == mBuffer.length) {
+                flushBuffer();
+            }
+            mBuffer[mPosition++] = (byte)(digit + ASCII_OFFSET);
             remainder -= digit * LONG_POWERS[i];
         }
     }
@@ -478,6 +957,103 @@ public final class XMLSerializer extends AbsSerializer {
         System.out.println(" done [" + (System.currentTimeMillis() - time) + "ms].");
     }
 
+    /**
+     * Part of the output serialized on its own.
+     */
+    private final class Part implements Callable<PartOutput> {
+
+        /** Root node key of the part. */
+        private final long mPartKey;
+
+        /** Version of the part. */
+        private final long mPartVersion;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramKey
+         *            root node key of the part
+         * @param paramVersion
+         *            version of the part
+         */
+        Part(final long paramKey, final long paramVersion) {
+            mPartKey = paramKey;
+            mPartVersion = paramVersion;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PartOutput call() throws TTException {
+            final PartOutput out = new PartOutput(mPartKey, mPartVersion);
+            try {
+                new XMLSerializer(XMLSerializer.this, mPartKey, out, mPartVersion).call();
+            } catch (final PartOverflowException exc) {
+                out.mBytes.reset();
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Buffered output of a part, aborting the part once it exceeds {@link #MAX_PART_BYTES}.
+     */
+    private static final class PartOutput extends OutputStream {
+
+        /** Root node key of the part. */
+        private final long mPartKey;
+
+        /** Version of the part. */
+        private final long mPartVersion;
+
+        /** The buffered bytes. */
+        private final ByteArrayOutputStream mBytes;
+
+        /** The part exceeded the limit and must be serialized directly. */
+        private boolean mOverflow;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramKey
+         *            root node key of the part
+         * @param paramVersion
+         *            version of the part
+         */
+        PartOutput(final long paramKey, final long paramVersion) {
+            mPartKey = paramKey;
+            mPartVersion = paramVersion;
+            mBytes = new ByteArrayOutputStream();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final int paramByte) {
+            write(new byte[] {
+                (byte)paramByte
+            }, 0, 1);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(final byte[] paramBytes, final int paramOffset, final int paramLength) {
+            if (mBytes.size() + paramLength > MAX_PART_BYTES) {
+                mOverflow = true;
+                throw new PartOverflowException();
+            }
+            mBytes.write(paramBytes, paramOffset, paramLength);
+        }
+    }
+
+    /**
+     * Thrown by a {@link PartOutput} exceeding the limit, not caught by the {@link IOException} handlers of
+     * the serializer and thereby aborting the part.
+     */
+    private static final class PartOverflowException extends RuntimeException {
+
+        /** Generated ID. */
+        private static final long serialVersionUID = 1L;
+    }
+
     /**
      * XMLSerializerBuilder to setup the XMLSerializer.
      */
@@ -507,6 +1083,11 @@ public final class XMLSerializer extends AbsSerializer {
          */
         private transient int mIndentSpaces = 2;
 
+        /**
+         * Intermediate number of threads, not necessary.
+         */
+        private transient int mThreads = 1;
+
         /** Stream to pipe to. */
         private final OutputStream mStream;
 
@@ -626,6 +1207,18 @@ public final class XMLSerializer extends AbsSerializer {
             return this;
         }
 
+        /**
+         * Setting the number of threads serializing parts of the output.
+         * 
+         * @param paramThreads
+         *            to set
+         * @return XMLSerializerBuilder reference.
+         */
+        public XMLSerializerBuilder setThreads(final int paramThreads) {
+            mThreads = paramThreads;
+            return this;
+        }
+
         /**
          * Building new Serializer.
          * 
@@ -0,0 +1,864 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.shredder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.treetank.data.IConstants.NULL_NODE;
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.api.IBucketWriteTrx;
+import org.treetank.api.IData;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.data.AttributeNode;
+import org.treetank.data.DocumentRootNode;
+import org.treetank.data.ElementNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.NamespaceNode;
+import org.treetank.data.NodeMetaPageFactory;
+import org.treetank.data.TextNode;
+import org.treetank.data.delegates.NameNodeDelegate;
+import org.treetank.data.delegates.NodeDelegate;
+import org.treetank.data.delegates.StructNodeDelegate;
+import org.treetank.data.delegates.ValNodeDelegate;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.data.interfaces.ITreeValData;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.LongQueue;
+import org.treetank.utils.NamePageHash;
+import org.treetank.utils.TypedValue;
+
+/**
+ * This class shreds a complete document into an empty resource using multiple threads. The document is split
+ * at the subtrees below a given level. While the elements up to this level are inserted by the calling
+ * thread, the subtrees below are encoded into nodes concurrently. Each subtree gets a range of node keys
+ * reserved in document order, the resulting keys are therefore the same as with the {@link XMLShredder}. The
+ * encoded nodes are stored in document order by the calling thread, the sibling pointers between the
+ * subtrees are stitched at the end. Everything is stored within one write transaction and committed as one
+ * revision.
+ * 
+ * The document is parsed by the calling thread, the events of a subtree are buffered until its encoding is
+ * submitted. A subtree with more than {@link #MAX_SUBTREE_EVENTS} events is not buffered as a whole but
+ * inserted like the elements above the split level, its children are split again. The buffered events are
+ * thereby bounded by the number of pending subtrees times this limit, independent of the document.
+ * 
+ * The shredder works with {@link HashKind#None}, hashes are not computed.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class ParallelXMLShredder implements Callable<Void> {
+
+    /** Number of encoded subtrees per thread allowed to wait for being stored. */
+    private static final int PENDING_PER_THREAD = 4;
+
+    /** Maximum number of events buffered for one subtree, larger subtrees are split further. */
+    static final int MAX_SUBTREE_EVENTS = 1 << 14;
+
+    /** Session to shred in. */
+    private final ISession mSession;
+
+    /** {@link XMLEventReader}. */
+    private final XMLEventReader mReader;
+
+    /** Number of encoding threads. */
+    private final int mThreads;
+
+    /** Level of the elements whose children are encoded concurrently. */
+    private final int mSplitLevel;
+
+    /**
+     * Are descendant counts, levels and order labels maintained, see {@link ConstructorProps#STRUCTINDEX}?
+     * The order labels are derived from the keys which are assigned in document order.
+     */
+    private final boolean mStructIndex;
+
+    /** Encoded subtrees in document order not yet stored. */
+    private final Deque<Future<Encoded>> mPending;
+
+    /** Pairs of node key and right sibling key to be set after all subtrees are stored. */
+    private final LongQueue mSiblingPatches;
+
+    /** Names already stored in the meta bucket. */
+    private final Set<String> mNames;
+
+    /** Events of a subtree which exceeded the limit, read again before the reader. */
+    private final Deque<XMLEvent> mReplay;
+
+    /** Write transaction of the current run. */
+    private INodeWriteTrx mWtx;
+
+    /**
+     * Constructor.
+     * 
+     * @param pSession
+     *            session of an empty resource to shred in
+     * @param pReader
+     *            {@link XMLEventReader} to parse the document
+     * @param pThreads
+     *            number of encoding threads
+     * @param pSplitLevel
+     *            level of the elements whose child subtrees are encoded concurrently, 1 splits at the
+     *            children of the root element
+     */
+    public ParallelXMLShredder(final ISession pSession, final XMLEventReader pReader, final int pThreads,
+        final int pSplitLevel) {
+        checkNotNull(pSession);
+        checkNotNull(pReader);
+        checkArgument(pThreads > 0, "Number of threads must be positive but was %s", pThreads);
+        checkArgument(pSplitLevel >= 0, "Split level must not be negative but was %s", pSplitLevel);
+        mSession = pSession;
+        mReader = pReader;
+        mThreads = pThreads;
+        mSplitLevel = pSplitLevel;
+        mStructIndex =
+            Boolean.parseBoolean(pSession.getConfig().mProperties.getProperty(ConstructorProps.STRUCTINDEX));
+        mPending = new ArrayDeque<Future<Encoded>>();
+        mSiblingPatches = new LongQueue();
+        mNames = new HashSet<String>();
+        mReplay = new ArrayDeque<XMLEvent>();
+    }
+
+    /**
+     * Constructor splitting at the children of the root element.
+     * 
+     * @param pSession
+     *            session of an empty resource to shred in
+     * @param pReader
+     *            {@link XMLEventReader} to parse the document
+     * @param pThreads
+     *            number of encoding threads
+     */
+    public ParallelXMLShredder(final ISession pSession, final XMLEventReader pReader, final int pThreads) {
+        this(pSession, pReader, pThreads, 1);
+    }
+
+    /**
+     * Invoking the shredder.
+     * 
+     * @throws TTException
+     *             if the document could not be shredded
+     * @return null
+     */
+    @Override
+    public Void call() throws TTException {
+        final ExecutorService exec = Executors.newFixedThreadPool(mThreads);
+        mWtx = new NodeWriteTrx(mSession, mSession.beginBucketWtx(), HashKind.None);
+        try {
+            if (mWtx.getNode() == null) {
+                final NodeDelegate nodeDel = new NodeDelegate(getPtx().incrementDataKey(), NULL_NODE, 0);
+                mWtx.getPageWtx().setData(
+                    new DocumentRootNode(nodeDel, new StructNodeDelegate(nodeDel, NULL_NODE, NULL_NODE,
+                        NULL_NODE, 0)));
+                mWtx.moveTo(ROOT_NODE);
+            }
+            checkState(!((ITreeStructData)mWtx.getNode()).hasFirstChild(),
+                "Parallel shredding is only possible into an empty resource.");
+
+            shred(exec);
+
+            // storing the remaining subtrees
+            while (!mPending.isEmpty()) {
+                store(mPending.poll().get());
+            }
+            // stitching the siblings between the subtrees
+            while (!mSiblingPatches.isEmpty()) {
+                final ITreeStructData node = (ITreeStructData)getPtx().getData(mSiblingPatches.poll());
+                node.setRightSiblingKey(mSiblingPatches.poll());
+                getPtx().setData(node);
+            }
+            mWtx.moveTo(ROOT_NODE);
+            mWtx.commit();
+        } catch (final XMLStreamException | InterruptedException | ExecutionException exc) {
+            throw new TTIOException(exc);
+        } finally {
+            exec.shutdownNow();
+            mWtx.close();
+        }
+        return null;
+    }
+
+    /**
+     * Reading the document, inserting the elements up to the split level and handing the subtrees below over
+     * to the encoding threads.
+     * 
+     * @param pExec
+     *            executor for the encoding tasks
+     * @throws TTException
+     *             if the nodes could not be stored
+     * @throws XMLStreamException
+     *             if the document could not be parsed
+     * @throws InterruptedException
+     *             if interrupted while waiting for an encoded subtree
+     * @throws ExecutionException
+     *             if a subtree could not be encoded
+     */
+    private void shred(final ExecutorService pExec) throws TTException, XMLStreamException,
+        InterruptedException, ExecutionException {
+        final Deque<Frame> frames = new ArrayDeque<Frame>();
+        final Frame documentFrame = new Frame(null, ROOT_NODE, 0);
+        frames.push(documentFrame);
+        final StringBuilder text = new StringBuilder();
+
+        while (hasNextEvent()) {
+            final XMLEvent event = nextEvent();
+            switch (event.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                flushText(frames.peek(), text);
+                if (frames.peek().mLevel < mSplitLevel || !submitSubtree(pExec, frames.peek(), event)) {
+                    final Frame parent = frames.peek();
+                    final StartElement start = event.asStartElement();
+                    final long key = reserveKeys(countKeys(start));
+                    final Encoded encoded = new Encoded();
+                    final ElementNode element =
+                        encodeElement(start, key, parent.mKey, parent.mLastChild, parent.mLevel + 1,
+                            mStructIndex, encoded);
+                    parent.link(key, mSiblingPatches);
+                    final Frame frame = new Frame(element, key, parent.mLevel + 1);
+                    frame.mEncoded = encoded;
+                    frames.push(frame);
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                flushText(frames.peek(), text);
+                final Frame frame = frames.pop();
+                frame.mNode.setFirstChildKey(frame.mFirstChild);
+                for (long i = 0; i < frame.mChildCount; i++) {
+                    frame.mNode.incrementChildCount();
+                }
+                if (mStructIndex) {
+                    frame.mNode.setDescendantCount(frame.mDescendants);
+                }
+                frames.peek().mDescendants += 1 + frame.mDescendants;
+                store(frame.mEncoded);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+                text.append(event.asCharacters().getData().trim());
+                break;
+            default:
+                // Node kind not known.
+            }
+        }
+
+        // adapting the document root
+        final ITreeStructData root = (ITreeStructData)getPtx().getData(ROOT_NODE);
+        root.setFirstChildKey(documentFrame.mFirstChild);
+        for (long i = 0; i < documentFrame.mChildCount; i++) {
+            root.incrementChildCount();
+        }
+        if (mStructIndex) {
+            root.setDescendantCount(documentFrame.mDescendants);
+        }
+        getPtx().setData(root);
+    }
+
+    /**
+     * Collecting the events of a subtree below the split level and submitting its encoding. If the subtree
+     * exceeds {@link #MAX_SUBTREE_EVENTS}, nothing is submitted and the events following the start event are
+     * put back to be read again.
+     * 
+     * @param pExec
+     *            executor for the encoding tasks
+     * @param pParent
+     *            frame of the parent
+     * @param pStart
+     *            start event of the subtree
+     * @return true if the subtree was submitted, false if it is too large
+     * @throws TTException
+     *             if nodes could not be stored
+     * @throws XMLStreamException
+     *             if the document could not be parsed
+     * @throws InterruptedException
+     *             if interrupted while waiting for an encoded subtree
+     * @throws ExecutionException
+     *             if a subtree could not be encoded
+     */
+    private boolean submitSubtree(final ExecutorService pExec, final Frame pParent, final XMLEvent pStart)
+        throws TTException, XMLStreamException, InterruptedException, ExecutionException {
+        final List<XMLEvent> events = new ArrayList<XMLEvent>();
+        events.add(pStart);
+        long keys = countKeys(pStart.asStartElement());
+        long structNodes = 1;
+        boolean pendingText = false;
+        int depth = 1;
+        while (depth > 0) {
+            if (events.size() > MAX_SUBTREE_EVENTS) {
+                for (int i = events.size() - 1; i > 0; i--) {
+                    mReplay.addFirst(events.get(i));
+                }
+                return false;
+            }
+            final XMLEvent event = nextEvent();
+            switch (event.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                if (pendingText) {
+                    keys++;
+                    structNodes++;
+                    pendingText = false;
+                }
+                keys += countKeys(event.asStartElement());
+                structNodes++;
+                events.add(event);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                if (pendingText) {
+                    keys++;
+                    structNodes++;
+                    pendingText = false;
+                }
+                events.add(event);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+                if (!event.asCharacters().getData().trim().isEmpty()) {
+                    pendingText = true;
+                }
+                events.add(event);
+                break;
+            default:
+                // Node kind not known.
+            }
+        }
+
+        final long firstKey = reserveKeys(keys);
+        mPending.add(pExec.submit(new SubtreeEncoder(events, firstKey, pParent.mKey, pParent.mLastChild,
+            pParent.mLevel + 1, mStructIndex)));
+        pParent.link(firstKey, mSiblingPatches);
+        pParent.mDescendants += structNodes;
+
+        // storing the subtrees in order as soon as they are ready or too many are waiting
+        while (!mPending.isEmpty()
+            && (mPending.peek().isDone() || mPending.size() > mThreads * PENDING_PER_THREAD)) {
+            store(mPending.poll().get());
+        }
+        return true;
+    }
+
+    /**
+     * Checking for a further event, either put back or from the reader.
+     * 
+     * @return true if there is a further event
+     */
+    private boolean hasNextEvent() {
+        return !mReplay.isEmpty() || mReader.hasNext();
+    }
+
+    /**
+     * Reading the next event, events put back are read first.
+     * 
+     * @return the next event
+     * @throws XMLStreamException
+     *             if the document could not be parsed
+     */
+    private XMLEvent nextEvent() throws XMLStreamException {
+        return mReplay.isEmpty() ? mReader.nextEvent() : mReplay.poll();
+    }
+
+    /**
+     * Inserting text collected since the last element event as child of the given frame.
+     * 
+     * @param pParent
+     *            frame of the parent
+     * @param pText
+     *            collected text, reset afterwards
+     * @throws TTException
+     *             if the node could not be stored
+     */
+    private void flushText(final Frame pParent, final StringBuilder pText) throws TTException {
+        if (pText.length() > 0) {
+            final long key = reserveKeys(1);
+            final Encoded encoded = new Encoded();
+            encodeText(pText.toString(), key, pParent.mKey, pParent.mLastChild, pParent.mLevel + 1,
+                mStructIndex, encoded);
+            pParent.link(key, mSiblingPatches);
+            pParent.mDescendants++;
+            store(encoded);
+            pText.setLength(0);
+        }
+    }
+
+    /**
+     * Storing encoded nodes including their names.
+     * 
+     * @param pEncoded
+     *            the encoded nodes
+     * @throws TTException
+     *             if the nodes could not be stored
+     */
+    private void store(final Encoded pEncoded) throws TTException {
+        for (final String name : pEncoded.mNames) {
+            if (mNames.add(name)) {
+                getPtx().getMetaBucket().put(
+                    new NodeMetaPageFactory.MetaKey(NamePageHash.generateHashForString(name)),
+                    new NodeMetaPageFactory.MetaValue(name));
+            }
+        }
+        for (final IData node : pEncoded.mNodes) {
+            // values too large to be stored inline are moved to chunks before storing the node
+            if (node instanceof ITreeValData
+                && ((ITreeValData)node).getRawValue().length > IConstants.VALUE_INLINE_LIMIT) {
+                NodeWriteTrx.storeValueChunks(getPtx(), (ITreeValData)node, ((ITreeValData)node)
+                    .getRawValue());
+            }
+            getPtx().setData(node);
+        }
+    }
+
+    /**
+     * Reserving a range of consecutive node keys.
+     * 
+     * @param pCount
+     *            number of keys to reserve
+     * @return the first key of the range
+     * @throws TTException
+     *             if the keys could not be reserved
+     */
+    private long reserveKeys(final long pCount) throws TTException {
+        final long firstKey = getPtx().incrementDataKey();
+        for (long i = 1; i < pCount; i++) {
+            getPtx().incrementDataKey();
+        }
+        return firstKey;
+    }
+
+    /**
+     * Getter for the bucket transaction.
+     * 
+     * @return the bucket transaction of the current run
+     * @throws TTException
+     *             if the transaction is not accessible
+     */
+    private IBucketWriteTrx getPtx() throws TTException {
+        return mWtx.getPageWtx();
+    }
+
+    /**
+     * Counting the keys needed for an element including its namespaces and attributes.
+     * 
+     * @param pStart
+     *            the start event of the element
+     * @return the number of keys
+     */
+    private static long countKeys(final StartElement pStart) {
+        long keys = 1;
+        for (final Iterator<?> it = pStart.getNamespaces(); it.hasNext(); it.next()) {
+            keys++;
+        }
+        for (final Iterator<?> it = pStart.getAttributes(); it.hasNext(); it.next()) {
+            keys++;
+        }
+        return keys;
+    }
+
+    /**
+     * Encoding an element with its namespaces and attributes. The namespaces and attributes get the keys
+     * following the key of the element.
+     * 
+     * @param pStart
+     *            the start event of the element
+     * @param pKey
+     *            key of the element
+     * @param pParentKey
+     *            key of the parent
+     * @param pLeftSibKey
+     *            key of the left sibling
+     * @param pLevel
+     *            level of the element
+     * @param pStructIndex
+     *            are the level and the order label to be set
+     * @param pEncoded
+     *            to add the nodes to
+     * @return the encoded element
+     */
+    private static ElementNode encodeElement(final StartElement pStart, final long pKey,
+        final long pParentKey, final long pLeftSibKey, final long pLevel, final boolean pStructIndex,
+        final Encoded pEncoded) {
+        long key = pKey + 1;
+        final List<Long> namespaceKeys = new ArrayList<Long>();
+        for (final Iterator<?> it = pStart.getNamespaces(); it.hasNext();) {
+            final Namespace namespace = (Namespace)it.next();
+            final NodeDelegate nodeDel = new NodeDelegate(key, pKey, 0);
+            pEncoded.mNodes.add(new NamespaceNode(nodeDel, new NameNodeDelegate(nodeDel, pEncoded
+                .name(namespace.getPrefix()), pEncoded.name(namespace.getNamespaceURI()))));
+            namespaceKeys.add(key++);
+        }
+        final List<Long> attributeKeys = new ArrayList<Long>();
+        for (final Iterator<?> it = pStart.getAttributes(); it.hasNext();) {
+            final Attribute attribute = (Attribute)it.next();
+            final NodeDelegate nodeDel = new NodeDelegate(key, pKey, 0);
+            final NameNodeDelegate nameDel =
+                new NameNodeDelegate(nodeDel, pEncoded.name(NodeWriteTrx.buildName(attribute.getName())),
+                    pEncoded.name(attribute.getName().getNamespaceURI()));
+            pEncoded.mNodes.add(new AttributeNode(nodeDel, nameDel, new ValNodeDelegate(nodeDel, pEncoded
+                .value(attribute.getValue()))));
+            attributeKeys.add(key++);
+        }
+        final QName name = pStart.getName();
+        final NodeDelegate nodeDel = new NodeDelegate(pKey, pParentKey, 0);
+        final ElementNode element =
+            new ElementNode(nodeDel, encodeStruct(nodeDel, pLeftSibKey, pLevel, pStructIndex),
+                new NameNodeDelegate(nodeDel, pEncoded.name(NodeWriteTrx.buildName(name)), pEncoded.name(name
+                    .getNamespaceURI())), attributeKeys, namespaceKeys);
+        pEncoded.mNodes.add(element);
+        return element;
+    }
+
+    /**
+     * Encoding the structural part of a new node, including level and order label only if the structural
+     * index is maintained so that the nodes keep their former serialized form otherwise.
+     * 
+     * @param pNodeDel
+     *            common node data
+     * @param pLeftSibKey
+     *            key of the left sibling
+     * @param pLevel
+     *            level of the node
+     * @param pStructIndex
+     *            are the level and the order label to be set
+     * @return the structural delegate
+     */
+    private static StructNodeDelegate encodeStruct(final NodeDelegate pNodeDel, final long pLeftSibKey,
+        final long pLevel, final boolean pStructIndex) {
+        if (pStructIndex) {
+            return new StructNodeDelegate(pNodeDel, NULL_NODE, NULL_NODE, pLeftSibKey, 0, 0, pLevel,
+                pNodeDel.getDataKey() * NodeWriteTrx.ORDER_LABEL_GAP);
+        } else {
+            return new StructNodeDelegate(pNodeDel, NULL_NODE, NULL_NODE, pLeftSibKey, 0);
+        }
+    }
+
+    /**
+     * Encoding a text node.
+     * 
+     * @param pText
+     *            the text
+     * @param pKey
+     *            key of the text node
+     * @param pParentKey
+     *            key of the parent
+     * @param pLeftSibKey
+     *            key of the left sibling
+     * @param pLevel
+     *            level of the text node
+     * @param pStructIndex
+     *            are the level and the order label to be set
+     * @param pEncoded
+     *            to add the node to
+     * @return the encoded text node
+     */
+    private static TextNode encodeText(final String pText, final long pKey, final long pParentKey,
+        final long pLeftSibKey, final long pLevel, final boolean pStructIndex, final Encoded pEncoded) {
+        final NodeDelegate nodeDel = new NodeDelegate(pKey, pParentKey, 0);
+        final TextNode text =
+            new TextNode(nodeDel, encodeStruct(nodeDel, pLeftSibKey, pLevel, pStructIndex),
+                new ValNodeDelegate(nodeDel, pEncoded.value(pText)));
+        pEncoded.mNodes.add(text);
+        return text;
+    }
+
+    /**
+     * Nodes encoded in one go, including the names used.
+     */
+    private static final class Encoded {
+
+        /** Encoded nodes. */
+        private final List<IData> mNodes = new ArrayList<IData>();
+
+        /** Names used by the nodes. */
+        private final Set<String> mNames = new HashSet<String>();
+
+        /**
+         * Registering a name and computing its key.
+         * 
+         * @param pName
+         *            the name
+         * @return the key of the name
+         */
+        private int name(final String pName) {
+            final String name = pName == null ? "" : pName;
+            mNames.add(name);
+            return NamePageHash.generateHashForString(name);
+        }
+
+        /**
+         * Encoding a value. Values too large to be stored inline are moved to chunks when storing the node.
+         * 
+         * @param pValue
+         *            the value
+         * @return the encoded value
+         */
+        private byte[] value(final String pValue) {
+            return TypedValue.getBytes(pValue);
+        }
+    }
+
+    /**
+     * Encoding the nodes of one subtree. The keys are assigned in document order starting with the key
+     * reserved for the root of the subtree.
+     */
+    private static final class SubtreeEncoder implements Callable<Encoded> {
+
+        /** Events of the subtree. */
+        private final List<XMLEvent> mEvents;
+
+        /** Key of the root of the subtree. */
+        private final long mFirstKey;
+
+        /** Key of the parent of the subtree. */
+        private final long mParentKey;
+
+        /** Key of the left sibling of the subtree. */
+        private final long mLeftSibKey;
+
+        /** Level of the root of the subtree. */
+        private final long mLevel;
+
+        /** Are descendant counts, levels and order labels maintained? */
+        private final boolean mStructIndex;
+
+        /**
+         * Constructor.
+         * 
+         * @param pEvents
+         *            events of the subtree
+         * @param pFirstKey
+         *            key of the root of the subtree
+         * @param pParentKey
+         *            key of the parent of the subtree
+         * @param pLeftSibKey
+         *            key of the left sibling of the subtree
+         * @param pLevel
+         *            level of the root of the subtree
+         * @param pStructIndex
+         *            are descendant counts and levels maintained
+         */
+        private SubtreeEncoder(final List<XMLEvent> pEvents, final long pFirstKey, final long pParentKey,
+            final long pLeftSibKey, final long pLevel, final boolean pStructIndex) {
+            mEvents = pEvents;
+            mFirstKey = pFirstKey;
+            mParentKey = pParentKey;
+            mLeftSibKey = pLeftSibKey;
+            mLevel = pLevel;
+            mStructIndex = pStructIndex;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Encoded call() {
+            final Encoded encoded = new Encoded();
+            final Deque<Frame> frames = new ArrayDeque<Frame>();
+            // the parent of the subtree only serves as container for the root
+            final Frame parentFrame = new Frame(null, mParentKey, mLevel - 1);
+            parentFrame.mLastChild = mLeftSibKey;
+            frames.push(parentFrame);
+            final StringBuilder text = new StringBuilder();
+            long key = mFirstKey;
+
+            for (final XMLEvent event : mEvents) {
+                switch (event.getEventType()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    key = encodeText(frames, text, key, encoded);
+                    final Frame parent = frames.peek();
+                    final StartElement start = event.asStartElement();
+                    final ElementNode element =
+                        encodeElement(start, key, parent.mKey, parent.mLastChild, parent.mLevel + 1,
+                            mStructIndex, encoded);
+                    link(parent, element);
+                    frames.push(new Frame(element, key, parent.mLevel + 1));
+                    key += countKeys(start);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    key = encodeText(frames, text, key, encoded);
+                    final Frame frame = frames.pop();
+                    frame.mNode.setFirstChildKey(frame.mFirstChild);
+                    for (long i = 0; i < frame.mChildCount; i++) {
+                        frame.mNode.incrementChildCount();
+                    }
+                    if (mStructIndex) {
+                        frame.mNode.setDescendantCount(frame.mDescendants);
+                    }
+                    frames.peek().mDescendants += 1 + frame.mDescendants;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                    text.append(event.asCharacters().getData().trim());
+                    break;
+                default:
+                    // Node kind not known.
+                }
+            }
+            return encoded;
+        }
+
+        /**
+         * Encoding text collected since the last element event.
+         * 
+         * @param pFrames
+         *            frames of the open elements
+         * @param pText
+         *            collected text, reset afterwards
+         * @param pKey
+         *            next free key
+         * @param pEncoded
+         *            to add the node to
+         * @return the next free key
+         */
+        private long encodeText(final Deque<Frame> pFrames, final StringBuilder pText, final long pKey,
+            final Encoded pEncoded) {
+            if (pText.length() == 0) {
+                return pKey;
+            }
+            final Frame parent = pFrames.peek();
+            final TextNode node =
+                ParallelXMLShredder.encodeText(pText.toString(), pKey, parent.mKey, parent.mLastChild,
+                    parent.mLevel + 1, mStructIndex, pEncoded);
+            link(parent, node);
+            parent.mDescendants++;
+            pText.setLength(0);
+            return pKey + 1;
+        }
+
+        /**
+         * Linking a new last child with its left sibling within the subtree.
+         * 
+         * @param pParent
+         *            frame of the parent
+         * @param pChild
+         *            the new child
+         */
+        private static void link(final Frame pParent, final ITreeStructData pChild) {
+            if (pParent.mLastNode != null) {
+                pParent.mLastNode.setRightSiblingKey(pChild.getDataKey());
+            } else if (pParent.mLastChild == NULL_NODE) {
+                pParent.mFirstChild = pChild.getDataKey();
+            }
+            pParent.mLastChild = pChild.getDataKey();
+            pParent.mLastNode = pChild;
+            pParent.mChildCount++;
+        }
+    }
+
+    /**
+     * Element whose children are not yet complete.
+     */
+    private static final class Frame {
+
+        /** The element, null for the document root. */
+        private final ElementNode mNode;
+
+        /** Key of the node. */
+        private final long mKey;
+
+        /** Level of the node. */
+        private final long mLevel;
+
+        /** Encoded element including namespaces and attributes, stored when the element ends. */
+        private Encoded mEncoded;
+
+        /** Key of the first child. */
+        private long mFirstChild = NULL_NODE;
+
+        /** Key of the last child. */
+        private long mLastChild = NULL_NODE;
+
+        /** Last child if encoded together with its right siblings. */
+        private ITreeStructData mLastNode;
+
+        /** Number of children. */
+        private long mChildCount;
+
+        /** Number of structural descendants. */
+        private long mDescendants;
+
+        /**
+         * Constructor.
+         * 
+         * @param pNode
+         *            the element, null for the document root
+         * @param pKey
+         *            key of the node
+         * @param pLevel
+         *            level of the node
+         */
+        private Frame(final ElementNode pNode, final long pKey, final long pLevel) {
+            mNode = pNode;
+            mKey = pKey;
+            mLevel = pLevel;
+        }
+
+        /**
+         * Linking a new last child, the right sibling of the former last child is patched at the end.
+         * 
+         * @param pChildKey
+         *            key of the new child
+         * @param pPatches
+         *            to add the pair of former last child and new child to
+         */
+        private void link(final long pChildKey, final LongQueue pPatches) {
+            if (mLastChild == NULL_NODE) {
+                mFirstChild = pChildKey;
+            } else {
+                pPatches.add(mLastChild);
+                pPatches.add(pChildKey);
+            }
+            mLastChild = pChildKey;
+            mChildCount++;
+        }
+    }
+
+}
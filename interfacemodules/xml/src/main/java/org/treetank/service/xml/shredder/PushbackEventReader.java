@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.shredder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * <h1>PushbackEventReader</h1>
+ * 
+ * <p>
+ * Wraps an {@link XMLEventReader} and allows events which have already been read to be pushed back. Pushed
+ * back events are returned again before the events of the wrapped reader.
+ * </p>
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+final class PushbackEventReader implements XMLEventReader {
+
+    /** Wrapped reader. */
+    private final XMLEventReader mReader;
+
+    /** Events pushed back, to be returned first. */
+    private final Deque<XMLEvent> mPushedBack;
+
+    /**
+     * Constructor.
+     * 
+     * @param paramReader
+     *            the reader to wrap
+     */
+    PushbackEventReader(final XMLEventReader paramReader) {
+        mReader = paramReader;
+        mPushedBack = new ArrayDeque<XMLEvent>();
+    }
+
+    /**
+     * Pushing back events, they are returned again in the given order.
+     * 
+     * @param paramEvents
+     *            events to push back
+     */
+    void unread(final List<XMLEvent> paramEvents) {
+        final ListIterator<XMLEvent> it = paramEvents.listIterator(paramEvents.size());
+        while (it.hasPrevious()) {
+            mPushedBack.push(it.previous());
+        }
+    }
+
+    /**
+     * Getting the events pushed back in the order they are returned, without consuming them.
+     * 
+     * @return the events pushed back
+     */
+    Iterator<XMLEvent> pushedBack() {
+        return mPushedBack.iterator();
+    }
+
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException {
+        if (mPushedBack.isEmpty()) {
+            return mReader.nextEvent();
+        }
+        return mPushedBack.pop();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !mPushedBack.isEmpty() || mReader.hasNext();
+    }
+
+    @Override
+    public XMLEvent peek() throws XMLStreamException {
+        if (mPushedBack.isEmpty()) {
+            return mReader.peek();
+        }
+        return mPushedBack.peek();
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        if (mPushedBack.isEmpty()) {
+            return mReader.getElementText();
+        }
+        final StringBuilder buffer = new StringBuilder();
+        XMLEvent event = nextEvent();
+        while (!event.isEndElement()) {
+            if (event.isCharacters()) {
+                buffer.append(event.asCharacters().getData());
+            } else if (event.isStartElement()) {
+                throw new XMLStreamException("Element text must not contain elements!");
+            }
+            event = nextEvent();
+        }
+        return buffer.toString();
+    }
+
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException {
+        XMLEvent event = nextEvent();
+        while (event.getEventType() != XMLStreamConstants.START_ELEMENT
+            && event.getEventType() != XMLStreamConstants.END_ELEMENT) {
+            event = nextEvent();
+        }
+        return event;
+    }
+
+    @Override
+    public Object getProperty(final String paramName) {
+        return mReader.getProperty(paramName);
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        mReader.close();
+    }
+
+    /**
+     * Just calls nextEvent().
+     * 
+     * @return the next event
+     */
+    @Override
+    public Object next() {
+        try {
+            return nextEvent();
+        } catch (final XMLStreamException exc) {
+            throw new NoSuchElementException(exc.getMessage());
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Not supported!");
+    }
+
+}
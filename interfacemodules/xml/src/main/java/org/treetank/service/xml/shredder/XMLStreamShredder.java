@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.shredder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.treetank.data.IConstants.NULL_NODE;
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.data.DocumentRootNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.delegates.NodeDelegate;
+import org.treetank.data.delegates.StructNodeDelegate;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.utils.LongStack;
+
+/**
+ * This class appends the content of a cursor-based {@link XMLStreamReader} to a {@link INodeWriteTrx}. In
+ * contrast to the {@link XMLShredder}, no event objects are created: names and character data are taken
+ * directly from the reader and text is collected in one reused buffer. Names are reused from a small cache
+ * so that recurring element and namespace names do not create new {@link QName}s. The content is added as a
+ * subtree, either as first child or as right sibling of the current node.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class XMLStreamShredder implements Callable<Void> {
+
+    /** Number of cached names, a power of two. */
+    private static final int NAME_CACHE_SIZE = 256;
+
+    /** {@link INodeWriteTrx}-reference. */
+    private final INodeWriteTrx mWtx;
+
+    /** {@link XMLStreamReader}. */
+    private final XMLStreamReader mReader;
+
+    /** Append as first child or not. */
+    private EShredderInsert mFirstChildAppend;
+
+    /** Determines if changes are going to be commit right after shredding. */
+    private final EShredderCommit mCommit;
+
+    /** Keys of the left siblings of the open elements, {@link IConstants#NULL_NODE} for no sibling yet. */
+    private final LongStack mLeftSiblings;
+
+    /** Buffer for the trimmed character data of consecutive text events. */
+    private final StringBuilder mText;
+
+    /** Names used recently, slotted by the hash of their parts. */
+    private final QName[] mNames;
+
+    /**
+     * Constructor committing after shredding.
+     * 
+     * @param pWtx
+     *            where the new XML Fragment should be placed
+     * @param pReader
+     *            of the XML Fragment
+     * @param pAddAsFirstChild
+     *            if the subtree is added as first child or as right sibling
+     */
+    public XMLStreamShredder(final INodeWriteTrx pWtx, final XMLStreamReader pReader,
+        final EShredderInsert pAddAsFirstChild) {
+        this(pWtx, pReader, pAddAsFirstChild, EShredderCommit.COMMIT);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param pWtx
+     *            where the new XML Fragment should be placed
+     * @param pReader
+     *            of the XML Fragment
+     * @param pAddAsFirstChild
+     *            if the subtree is added as first child or as right sibling
+     * @param pCommit
+     *            determines if inserted nodes should be commited right afterwards
+     */
+    public XMLStreamShredder(final INodeWriteTrx pWtx, final XMLStreamReader pReader,
+        final EShredderInsert pAddAsFirstChild, final EShredderCommit pCommit) {
+        checkNotNull(pWtx);
+        checkNotNull(pReader);
+        checkNotNull(pAddAsFirstChild);
+        checkNotNull(pCommit);
+        mWtx = pWtx;
+        mReader = pReader;
+        mFirstChildAppend = pAddAsFirstChild;
+        mCommit = pCommit;
+        mLeftSiblings = new LongStack();
+        mText = new StringBuilder();
+        mNames = new QName[NAME_CACHE_SIZE];
+    }
+
+    /**
+     * Invoking the shredder.
+     * 
+     * @throws TTException
+     *             if any kind of Treetank exception which has occured
+     * @return null
+     */
+    @Override
+    public Void call() throws TTException {
+        if (mWtx.getNode() == null) {
+            final NodeDelegate nodeDel = new NodeDelegate(mWtx.getPageWtx().incrementDataKey(), NULL_NODE, 0);
+            mWtx.getPageWtx().setData(
+                new DocumentRootNode(nodeDel, new StructNodeDelegate(nodeDel, NULL_NODE, NULL_NODE,
+                    NULL_NODE, 0)));
+            mWtx.moveTo(ROOT_NODE);
+        }
+        insertNewContent();
+        if (mCommit == EShredderCommit.COMMIT) {
+            mWtx.commit();
+        }
+        return null;
+    }
+
+    /**
+     * Insert new content based on the cursor of the {@link XMLStreamReader}.
+     * 
+     * @throws TTException
+     *             if something went wrong while inserting
+     */
+    private void insertNewContent() throws TTException {
+        try {
+            mLeftSiblings.clear();
+            mLeftSiblings.push(NULL_NODE);
+            mText.setLength(0);
+            int level = 0;
+            boolean endElemReached = false;
+
+            // Iterate over all nodes.
+            while (mReader.hasNext() && !endElemReached) {
+                switch (mReader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    addText();
+                    level++;
+                    addElement();
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    addText();
+                    level--;
+                    endElemReached = level == 0;
+                    mLeftSiblings.pop();
+                    mWtx.moveTo(mLeftSiblings.peek());
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    appendTrimmed(mReader.getTextCharacters(), mReader.getTextStart(), mReader.getTextLength());
+                    break;
+                default:
+                    // Node kind not known.
+                }
+            }
+        } catch (final XMLStreamException exc) {
+            throw new TTIOException(exc);
+        }
+    }
+
+    /**
+     * Add a new element node including its namespaces and attributes at the current position of the
+     * reader.
+     * 
+     * @throws TTException
+     *             if adding the element fails
+     */
+    private void addElement() throws TTException {
+        final QName name = getName(mReader.getNamespaceURI(), mReader.getLocalName(), mReader.getPrefix());
+        final long key;
+        if (mFirstChildAppend == EShredderInsert.ADDASRIGHTSIBLING) {
+            checkState(mWtx.getNode().getKind() != IConstants.ROOT,
+                "Subtree can not be inserted as sibling of Root");
+            key = mWtx.insertElementAsRightSibling(name);
+            mFirstChildAppend = EShredderInsert.ADDASFIRSTCHILD;
+        } else if (mLeftSiblings.peek() == NULL_NODE) {
+            key = mWtx.insertElementAsFirstChild(name);
+        } else {
+            key = mWtx.insertElementAsRightSibling(name);
+        }
+        mLeftSiblings.pop();
+        mLeftSiblings.push(key);
+        mLeftSiblings.push(NULL_NODE);
+
+        // Parse namespaces.
+        for (int i = 0, count = mReader.getNamespaceCount(); i < count; i++) {
+            mWtx.insertNamespace(getName(mReader.getNamespaceURI(i), "", mReader.getNamespacePrefix(i)));
+            mWtx.moveTo(key);
+        }
+
+        // Parse attributes.
+        for (int i = 0, count = mReader.getAttributeCount(); i < count; i++) {
+            mWtx.insertAttribute(mReader.getAttributeName(i), mReader.getAttributeValue(i));
+            mWtx.moveTo(key);
+        }
+    }
+
+    /**
+     * Getting a name from the cache, creating and caching it if not present. The parts returned by the reader
+     * are usually interned, comparing them is cheap and does not allocate.
+     * 
+     * @param pURI
+     *            namespace URI, null for none
+     * @param pLocalName
+     *            local part
+     * @param pPrefix
+     *            prefix, null for none
+     * @return the name
+     */
+    private QName getName(final String pURI, final String pLocalName, final String pPrefix) {
+        final String uri = pURI == null ? "" : pURI;
+        final String prefix = pPrefix == null ? "" : pPrefix;
+        final int slot =
+            (31 * (31 * uri.hashCode() + pLocalName.hashCode()) + prefix.hashCode()) & (NAME_CACHE_SIZE - 1);
+        QName name = mNames[slot];
+        if (name == null || !name.getLocalPart().equals(pLocalName) || !name.getNamespaceURI().equals(uri)
+            || !name.getPrefix().equals(prefix)) {
+            name = new QName(uri, pLocalName, prefix);
+            mNames[slot] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Add a new text node with the collected character data, if any.
+     * 
+     * @throws TTException
+     *             if adding the text fails
+     */
+    private void addText() throws TTException {
+        if (mText.length() > 0) {
+            final long key;
+            if (mLeftSiblings.peek() == NULL_NODE) {
+                key = mWtx.insertTextAsFirstChild(mText.toString());
+            } else {
+                key = mWtx.insertTextAsRightSibling(mText.toString());
+            }
+            mLeftSiblings.pop();
+            mLeftSiblings.push(key);
+            mText.setLength(0);
+        }
+    }
+
+    /**
+     * Appending character data without its leading and trailing whitespaces to the text buffer.
+     * 
+     * @param pChars
+     *            buffer of the reader, only valid until the reader moves on
+     * @param pStart
+     *            offset of the character data
+     * @param pLength
+     *            length of the character data
+     */
+    private void appendTrimmed(final char[] pChars, final int pStart, final int pLength) {
+        int start = pStart;
+        int end = pStart + pLength;
+        while (start < end && pChars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && pChars[end - 1] <= ' ') {
+            end--;
+        }
+        mText.append(pChars, start, end - start);
+    }
+
+    /**
+     * Create a new cursor-based StAX reader on a file. Adjacent character data is coalesced by the reader.
+     * 
+     * @param pFile
+     *            the XML file to parse
+     * @return an {@link XMLStreamReader}
+     * @throws IOException
+     *             if I/O operation fails
+     * @throws XMLStreamException
+     *             if any parsing error occurs
+     */
+    public static synchronized XMLStreamReader createFileReader(final File pFile) throws IOException,
+        XMLStreamException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        final InputStream in = new FileInputStream(pFile);
+        return factory.createXMLStreamReader(in);
+    }
+
+}
@@ -29,13 +29,20 @@ package org.treetank.service.xml.shredder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static org.treetank.data.IConstants.HASH_PRIME;
+import static org.treetank.data.IConstants.NULL_NODE;
 import static org.treetank.data.IConstants.ROOT_NODE;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
 
@@ -61,16 +68,25 @@ import org.treetank.access.conf.StorageConfiguration;
 import org.treetank.api.INodeWriteTrx;
 import org.treetank.api.ISession;
 import org.treetank.api.IStorage;
+import org.treetank.data.AttributeNode;
 import org.treetank.data.ElementNode;
 import org.treetank.data.IConstants;
+import org.treetank.data.NamespaceNode;
 import org.treetank.data.NodeMetaPageFactory;
+import org.treetank.data.TextNode;
 import org.treetank.data.TreeNodeFactory;
+import org.treetank.data.delegates.NameNodeDelegate;
+import org.treetank.data.delegates.NodeDelegate;
+import org.treetank.data.delegates.StructNodeDelegate;
+import org.treetank.data.delegates.ValNodeDelegate;
 import org.treetank.data.interfaces.ITreeNameData;
 import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTException;
 import org.treetank.exception.TTIOException;
 import org.treetank.io.IBackend.IBackendFactory;
 import org.treetank.revisioning.IRevisioning;
+import org.treetank.utils.LongStack;
+import org.treetank.utils.NamePageHash;
 import org.treetank.utils.TypedValue;
 
 import com.google.inject.Guice;
@@ -89,6 +105,21 @@ import com.google.inject.Injector;
  */
 public final class XMLUpdateShredder extends XMLShredder implements Callable<Void> {
 
+    /**
+     * Maximum number of events read ahead to compare a subtree by its hash. Larger subtrees are compared node
+     * by node, their descendants are compared by their hashes again.
+     */
+    private static final int MAX_BUFFERED_EVENTS = 1 << 14;
+
+    /** Reader allowing to push back the events read ahead. */
+    private transient PushbackEventReader mPushbackReader;
+
+    /**
+     * Hashes of the subtrees within the events read ahead, mapped by their start tags. Subtrees not complete
+     * within these events are mapped to null.
+     */
+    private transient Map<XMLEvent, SubtreeHash> mSubtreeHashes;
+
     /** File to parse. */
     protected transient File mFile;
 
@@ -290,6 +321,9 @@ public final class XMLUpdateShredder extends XMLShredder implements Callable<Voi
             // mIsLastNode = false;
             mMovedToRightSibling = false;
             boolean firstEvent = true;
+            mPushbackReader = new PushbackEventReader(mReader);
+            mReader = mPushbackReader;
+            mSubtreeHashes = new IdentityHashMap<XMLEvent, SubtreeHash>();
 
             // // If structure already exists, make a sync against the current
             // // structure.
@@ -443,6 +477,9 @@ public final class XMLUpdateShredder extends XMLShredder implements Callable<Voi
             mLevelInToShredder++;
 
             insertElementNode(paramElem);
+        } else if (sameSubtree(paramElem)) {
+            // The whole subtree is unchanged, thus continue after its end tag.
+            sameSubtreeNode();
         } else if (mFound) {
             // Increment levels.
             mLevelInToShredder++;
@@ -549,30 +586,294 @@ public final class XMLUpdateShredder extends XMLShredder implements Callable<Voi
 
             }
 
-            mLastNodeKey = mWtx.getNode().getDataKey();
+            moveToRightSibling();
+        }
+    }
 
-            // Move cursor to right sibling if it has one.
-            if (((ITreeStructData)mWtx.getNode()).hasRightSibling()) {
-                mWtx.moveTo(((ITreeStructData)mWtx.getNode()).getRightSiblingKey());
-                mMovedToRightSibling = true;
+    /**
+     * Move cursor to the right sibling of a node whose end tag has been processed, if it has one.
+     * 
+     * @throws XMLStreamException
+     *             In case of any parsing error.
+     * @throws TTException
+     *             In case anything went wrong while moving/deleting nodes in
+     *             Treetank.
+     */
+    private void moveToRightSibling() throws XMLStreamException, TTException {
+        mLastNodeKey = mWtx.getNode().getDataKey();
 
-                skipWhitespaces(mReader);
-                if (mReader.peek().getEventType() == XMLStreamConstants.END_ELEMENT) {
-                    /*
-                     * Means next event is an end tag in StAX reader, but
-                     * something different where the Treetank transaction points
-                     * to, which also means it has to be deleted.
-                     */
-                    mKeyMatches = -1;
-                    mDelete = EDelete.ATBOTTOM;
-                    deleteNode();
+        // Move cursor to right sibling if it has one.
+        if (((ITreeStructData)mWtx.getNode()).hasRightSibling()) {
+            mWtx.moveTo(((ITreeStructData)mWtx.getNode()).getRightSiblingKey());
+            mMovedToRightSibling = true;
+
+            skipWhitespaces(mReader);
+            if (mReader.peek().getEventType() == XMLStreamConstants.END_ELEMENT) {
+                /*
+                 * Means next event is an end tag in StAX reader, but
+                 * something different where the Treetank transaction points
+                 * to, which also means it has to be deleted.
+                 */
+                mKeyMatches = -1;
+                mDelete = EDelete.ATBOTTOM;
+                deleteNode();
+            }
+        } else {
+            mMovedToRightSibling = false;
+        }
+    }
+
+    /**
+     * Check if the subtree of the current element equals the subtree stored in Treetank. The rolling hash
+     * of the subtree is computed from the parsed events, assuming the stored nodes got consecutive keys in
+     * document order when they were shreddered, and compared to the hash of the stored element. The events
+     * of the subtree are read ahead once, hashing all subtrees within in one pass. Descendants which are
+     * compared later on reuse these hashes, they are only computed again if their stored keys are shifted.
+     * If the subtree does not match, its events stay pushed back to be processed node by node.
+     * 
+     * @param paramElem
+     *            {@link StartElement} currently parsed, equal to the element the transaction is located at
+     * @return true if the subtree is unchanged and its events have been consumed, otherwise false
+     * @throws XMLStreamException
+     *             In case of any StAX parsing error.
+     */
+    private boolean sameSubtree(final StartElement paramElem) throws XMLStreamException {
+        final ElementNode element = (ElementNode)mWtx.getNode();
+        if (element.getHash() == 0) {
+            // Hashes are not maintained.
+            return false;
+        }
+
+        if (!mSubtreeHashes.containsKey(paramElem)) {
+            // The events read ahead before are consumed, read ahead the events of the subtree.
+            mSubtreeHashes.clear();
+            final List<XMLEvent> events = new ArrayList<XMLEvent>();
+            int level = 1;
+            while (level > 0 && events.size() < MAX_BUFFERED_EVENTS && mReader.hasNext()) {
+                final XMLEvent event = mReader.nextEvent();
+                events.add(event);
+                if (event.isStartElement()) {
+                    level++;
+                } else if (event.isEndElement()) {
+                    level--;
                 }
-            } else {
-                mMovedToRightSibling = false;
             }
+            mPushbackReader.unread(events);
+            hashSubtrees(paramElem, events.iterator(), element.getDataKey(), element.getParentKey(),
+                mSubtreeHashes);
+        }
+        SubtreeHash hash = mSubtreeHashes.remove(paramElem);
+        if (hash == null) {
+            // Not complete within the events read ahead.
+            return false;
+        }
+        if (hash.mKey != element.getDataKey() || hash.mParentKey != element.getParentKey()) {
+            // Preceding nodes have changed, the subtree is hashed again with its stored keys.
+            hash =
+                hashSubtrees(paramElem, mPushbackReader.pushedBack(), element.getDataKey(), element
+                    .getParentKey(), mSubtreeHashes);
+        }
+        if (hash.mHash != element.getHash()) {
+            return false;
+        }
+
+        // Consume the events of the unchanged subtree.
+        int level = 1;
+        while (level > 0) {
+            final XMLEvent event = mReader.nextEvent();
+            if (event.isStartElement()) {
+                level++;
+            } else if (event.isEndElement()) {
+                level--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the rolling hashes subtrees get when they are shreddered with consecutive node keys, starting
+     * with the given subtree. The nodes are built the same way the {@link INodeWriteTrx} builds them.
+     * 
+     * @param paramElem
+     *            {@link StartElement} of the subtree root
+     * @param paramEvents
+     *            events following the start tag, possibly ending before the end tag of the subtree root
+     * @param paramKey
+     *            key of the subtree root
+     * @param paramParentKey
+     *            key of the parent of the subtree root
+     * @param paramHashes
+     *            to put the hashes of all subtrees to, null for subtrees not complete within the events
+     * @return the hash of the subtree, null if it is not complete within the events
+     */
+    private static SubtreeHash hashSubtrees(final StartElement paramElem,
+        final Iterator<XMLEvent> paramEvents, final long paramKey, final long paramParentKey,
+        final Map<XMLEvent, SubtreeHash> paramHashes) {
+        // Per open element: its start tag, its key, its hash, and the key of its last child.
+        final Deque<XMLEvent> starts = new ArrayDeque<XMLEvent>();
+        final LongStack keys = new LongStack();
+        final LongStack hashes = new LongStack();
+        final LongStack lastChildren = new LongStack();
+        final StringBuilder text = new StringBuilder();
+
+        starts.push(paramElem);
+        keys.push(paramKey);
+        long nextKey = pushElement(paramElem, paramKey, paramParentKey, hashes);
+        lastChildren.push(NULL_NODE);
+
+        while (paramEvents.hasNext()) {
+            final XMLEvent event = paramEvents.next();
+            if (event.isCharacters()) {
+                text.append(event.asCharacters().getData());
+                continue;
+            }
+            final String value = text.toString().trim();
+            text.setLength(0);
+            final byte[] bytes = TypedValue.getBytes(new String(TypedValue.getBytes(value)));
+            if (bytes.length > 0) {
+                final NodeDelegate nodeDel = new NodeDelegate(nextKey, keys.peek(), 0);
+                final TextNode node =
+                    new TextNode(nodeDel, new StructNodeDelegate(nodeDel, NULL_NODE, NULL_NODE, lastChildren
+                        .peek(), 0), new ValNodeDelegate(nodeDel, bytes));
+                hashes.push(hashes.pop() + (long)node.hashCode() * HASH_PRIME);
+                lastChildren.pop();
+                lastChildren.push(nextKey++);
+            }
+            if (event.isStartElement()) {
+                final long key = nextKey;
+                nextKey = pushElement(event.asStartElement(), key, keys.peek(), hashes);
+                lastChildren.pop();
+                lastChildren.push(key);
+                starts.push(event);
+                keys.push(key);
+                lastChildren.push(NULL_NODE);
+            } else if (event.isEndElement()) {
+                final long key = keys.pop();
+                lastChildren.pop();
+                final SubtreeHash hash =
+                    new SubtreeHash(key, keys.isEmpty() ? paramParentKey : keys.peek(), hashes.pop());
+                paramHashes.put(starts.pop(), hash);
+                if (hashes.isEmpty()) {
+                    return hash;
+                }
+                hashes.push(hashes.pop() + hash.mHash * HASH_PRIME);
+            }
+        }
+        // The events end within the subtree.
+        for (final XMLEvent start : starts) {
+            paramHashes.put(start, null);
+        }
+        return null;
+    }
+
+    /**
+     * Push the hash of an element including its namespaces and attributes.
+     * 
+     * @param paramElem
+     *            the {@link StartElement}
+     * @param paramKey
+     *            key of the element
+     * @param paramParentKey
+     *            key of the parent
+     * @param paramHashes
+     *            stack to push the hash on
+     * @return the next free key
+     */
+    private static long pushElement(final StartElement paramElem, final long paramKey,
+        final long paramParentKey, final LongStack paramHashes) {
+        final QName name = paramElem.getName();
+        NodeDelegate nodeDel = new NodeDelegate(paramKey, paramParentKey, 0);
+        long hash =
+            new ElementNode(nodeDel, new StructNodeDelegate(nodeDel, NULL_NODE, NULL_NODE, NULL_NODE, 0),
+                new NameNodeDelegate(nodeDel, nameKey(NodeWriteTrx.buildName(name)), nameKey(name
+                    .getNamespaceURI())), new ArrayList<Long>(), new ArrayList<Long>()).hashCode();
+        long key = paramKey + 1;
+        for (final Iterator<?> it = paramElem.getNamespaces(); it.hasNext();) {
+            final Namespace namespace = (Namespace)it.next();
+            nodeDel = new NodeDelegate(key++, paramKey, 0);
+            hash +=
+                (long)new NamespaceNode(nodeDel, new NameNodeDelegate(nodeDel, nameKey(namespace.getPrefix()),
+                    nameKey(namespace.getNamespaceURI()))).hashCode()
+                    * HASH_PRIME;
+        }
+        for (final Iterator<?> it = paramElem.getAttributes(); it.hasNext();) {
+            final Attribute attribute = (Attribute)it.next();
+            nodeDel = new NodeDelegate(key++, paramKey, 0);
+            final NameNodeDelegate nameDel =
+                new NameNodeDelegate(nodeDel, nameKey(NodeWriteTrx.buildName(attribute.getName())),
+                    nameKey(attribute.getName().getNamespaceURI()));
+            hash +=
+                (long)new AttributeNode(nodeDel, nameDel, new ValNodeDelegate(nodeDel, TypedValue
+                    .getBytes(attribute.getValue()))).hashCode()
+                    * HASH_PRIME;
+        }
+        paramHashes.push(hash);
+        return key;
+    }
+
+    /**
+     * Key of a name as stored by the {@link INodeWriteTrx}.
+     * 
+     * @param paramName
+     *            the name
+     * @return its key
+     */
+    private static int nameKey(final String paramName) {
+        return NamePageHash.generateHashForString(paramName == null ? "" : paramName);
+    }
+
+    /**
+     * Hash of a subtree together with the keys it was computed for.
+     */
+    private static final class SubtreeHash {
+
+        /** Key of the subtree root. */
+        private final long mKey;
+
+        /** Key of the parent of the subtree root. */
+        private final long mParentKey;
+
+        /** Rolling hash of the subtree. */
+        private final long mHash;
+
+        /**
+         * Constructor.
+         * 
+         * @param paramKey
+         *            key of the subtree root
+         * @param paramParentKey
+         *            key of the parent of the subtree root
+         * @param paramHash
+         *            rolling hash of the subtree
+         */
+        private SubtreeHash(final long paramKey, final long paramParentKey, final long paramHash) {
+            mKey = paramKey;
+            mParentKey = paramParentKey;
+            mHash = paramHash;
         }
     }
 
+    /**
+     * The subtree of the current element is unchanged and has been consumed, thus update variables and move
+     * cursor as after its end tag.
+     * 
+     * @throws XMLStreamException
+     *             In case of any StAX parsing error.
+     * @throws TTException
+     *             In case anything went wrong while moving the Treetank
+     *             transaction.
+     */
+    private void sameSubtreeNode() throws XMLStreamException, TTException {
+        // Update variables.
+        mInsert = EInsert.ATMIDDLEBOTTOM;
+        mDelete = EDelete.NODELETE;
+        mInserted = false;
+        mInsertedEndTag = false;
+        mRemovedNode = false;
+
+        moveToRightSibling();
+    }
+
     /**
      * Main algorithm to determine if nodes are equal, have to be inserted, or
      * have to be removed.
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath;
+
+import java.io.InputStream;
+
+import javax.xml.namespace.QName;
+
+import org.treetank.api.INodeReadTrx;
+import org.treetank.axis.AbsAxis;
+import org.treetank.axis.AxisContext;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeData;
+import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
+import org.treetank.exception.TTXPathException;
+
+/**
+ * <h1>CompiledXPath</h1>
+ * <p>
+ * XPath query which is scanned and parsed once and evaluated on arbitrary transactions afterwards. The
+ * execution plan is built on a transaction delegating to the transaction the query is bound to. The plan
+ * owns the {@link AxisContext} of this delegate, hence the literals of the query stay valid while the items
+ * created during an evaluation are dropped when the query is bound again or handed back to its cache.
+ * Since the plan depends on the indexes of the resource, the query is compiled anew when it is bound to a
+ * transaction whose indexes differ.
+ * </p>
+ * <p>
+ * An instance can only be evaluated by one thread at a time, see {@link XPathCache} for sharing compiled
+ * queries.
+ * </p>
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class CompiledXPath {
+
+    /** The query. */
+    private final String mQuery;
+
+    /** Transaction the plan is built on. */
+    private BoundTrx mTrx;
+
+    /** The execution plan. */
+    private XPathAxis mAxis;
+
+    /** Number of items created while parsing, i.e. the literals of the query. */
+    private int mLiterals;
+
+    /** State of the indexes the plan is built for. */
+    private String mIndexState;
+
+    /**
+     * Constructor, compiling the query.
+     * 
+     * @param pRtx
+     *            transaction to bind the query to initially
+     * @param pQuery
+     *            the query
+     * @throws TTXPathException
+     *             if the query can't be parsed
+     */
+    public CompiledXPath(final INodeReadTrx pRtx, final String pQuery) throws TTXPathException {
+        mQuery = pQuery;
+        compile(pRtx);
+    }
+
+    /**
+     * Building the execution plan for the indexes available to a transaction.
+     * 
+     * @param pRtx
+     *            transaction to bind the query to
+     * @throws TTXPathException
+     *             if the query can't be parsed
+     */
+    private void compile(final INodeReadTrx pRtx) throws TTXPathException {
+        mTrx = new BoundTrx(pRtx);
+        mIndexState = StepRewriter.getIndexState(mTrx);
+        mAxis = new XPathAxis(mTrx, mQuery);
+        mLiterals = mTrx.getAxisContext().getItemList().size();
+    }
+
+    /**
+     * Binding the query to a transaction and resetting it to the current node of the transaction.
+     * 
+     * @param pRtx
+     *            transaction to evaluate the query on
+     * @return the axis iterating over the result sequence
+     */
+    public AbsAxis bind(final INodeReadTrx pRtx) {
+        if (!StepRewriter.getIndexState(pRtx).equals(mIndexState)) {
+            try {
+                compile(pRtx);
+            } catch (final TTXPathException exc) {
+                // the query was parsed before
+                throw new IllegalStateException(exc);
+            }
+        }
+        mTrx.mDelegate = pRtx;
+        final AxisContext context = mTrx.getAxisContext();
+        context.getItemList().truncate(mLiterals);
+        context.resetLastKey();
+        mAxis.reset(pRtx.getNode().getDataKey());
+        return mAxis;
+    }
+
+    /**
+     * Releasing the transaction the query is bound to together with the state of the last evaluation, i.e.
+     * the items created and the keys collected by the plan, so that an idle query only keeps its plan.
+     */
+    void unbind() {
+        if (mTrx.mDelegate != null) {
+            mTrx.getAxisContext().getItemList().truncate(mLiterals);
+            mAxis.reset(IConstants.ROOT_NODE);
+            mTrx.mDelegate = null;
+        }
+    }
+
+    /**
+     * Getting the state of the indexes the plan is built for.
+     * 
+     * @return the state of the indexes
+     */
+    String getIndexState() {
+        return mIndexState;
+    }
+
+    /**
+     * Getting the query.
+     * 
+     * @return the query
+     */
+    public String getQuery() {
+        return mQuery;
+    }
+
+    /**
+     * Transaction delegating to the transaction the query is bound to, owning an {@link AxisContext} of its
+     * own.
+     */
+    private static final class BoundTrx implements INodeReadTrx {
+
+        /** Context of the compiled query. */
+        private final AxisContext mContext;
+
+        /** Transaction the query is bound to. */
+        private INodeReadTrx mDelegate;
+
+        /**
+         * Constructor.
+         * 
+         * @param pDelegate
+         *            transaction to bind to initially
+         */
+        BoundTrx(final INodeReadTrx pDelegate) {
+            mContext = new AxisContext();
+            mDelegate = pDelegate;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean moveTo(final long pKey) throws TTIOException {
+            return mDelegate.moveTo(pKey);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean moveToAttribute(final int pIndex) throws TTIOException {
+            return mDelegate.moveToAttribute(pIndex);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean moveToNamespace(final int pIndex) throws TTIOException {
+            return mDelegate.moveToNamespace(pIndex);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getValueOfCurrentNode() {
+            return mDelegate.getValueOfCurrentNode();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public InputStream getValueStreamOfCurrentNode() {
+            return mDelegate.getValueStreamOfCurrentNode();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public QName getQNameOfCurrentNode() {
+            return mDelegate.getQNameOfCurrentNode();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getTypeOfCurrentNode() {
+            return mDelegate.getTypeOfCurrentNode();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String nameForKey(final int pKey) {
+            return mDelegate.nameForKey(pKey);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ITreeData getNode() {
+            return mDelegate.getNode();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public AxisContext getAxisContext() {
+            return mContext;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public INodeReadTrx getReadingTrx() {
+            return mDelegate.getReadingTrx();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws TTException {
+            mDelegate.close();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isClosed() {
+            return mDelegate.isClosed();
+        }
+
+    }
+
+}
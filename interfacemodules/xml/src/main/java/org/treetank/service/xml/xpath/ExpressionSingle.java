@@ -27,6 +27,9 @@
 
 package org.treetank.service.xml.xpath;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.AncestorAxis;
@@ -50,16 +53,10 @@ import org.treetank.service.xml.xpath.filter.DupFilterAxis;
  */
 public class ExpressionSingle {
 
-    /**
-     * Counts the number of added axis. This is used to handle the special
-     * behavior for the first and second axis that are added.
-     */
-    private int mNumber;
+    /** The added axis in syntactic order. */
+    private final List<AbsAxis> mSteps;
 
-    /** The first added axis has to be stored till a second one is added. */
-    private AbsAxis mFirstAxis;
-
-    /** Contains the execution chain consisting of nested NestedAxis. */
+    /** Contains the execution chain consisting of nested NestedAxis, null if not built yet. */
     private AbsAxis mExpr;
 
     /** Current ordering state. */
@@ -76,7 +73,7 @@ public class ExpressionSingle {
      */
     public ExpressionSingle(final INodeReadTrx pRtx) {
 
-        mNumber = 0;
+        mSteps = new ArrayList<AbsAxis>();
 
         mOrd = OrdState.MAX1;
         mOrd.init();
@@ -86,46 +83,50 @@ public class ExpressionSingle {
     }
 
     /**
-     * Adds a new Axis to the expression chain. The first axis that is added has
-     * to be stored till a second axis is added. When the second axis is added,
-     * it is nested with the first one and builds the execution chain.
+     * Adds a new Axis to the expression chain. The axis are collected and chained when the execution chain is
+     * requested, after the steps have been rewritten by the {@link StepRewriter}.
      * 
      * @param mAx
      *            ach The axis to add.
      */
     public void add(final AbsAxis mAx) {
-        AbsAxis axis = mAx;
-
-        if (isDupOrd(axis)) {
-            axis = new DupFilterAxis(mRtx, axis);
-            DupState.nodup = true;
-        }
-
-        switch (mNumber) {
-        case 0:
-            mFirstAxis = axis;
-            mNumber++;
-            break;
-        case 1:
-            mExpr = new NestedAxis(mFirstAxis, axis, mRtx);
-            mNumber++;
-            break;
-        default:
-            final AbsAxis cache = mExpr;
-            mExpr = new NestedAxis(cache, axis, mRtx);
-        }
-
+        mSteps.add(mAx);
+        mExpr = null;
     }
 
     /**
      * Returns a chain to execute the query. If there is only one axis added,
-     * the chain was not build yet, so only this axis is returned.
+     * only this axis is returned.
      * 
      * @return The query execution chain
      */
     public AbsAxis getExpr() {
 
-        return (mNumber == 1) ? mFirstAxis : mExpr;
+        if (mExpr == null && !mSteps.isEmpty()) {
+            build();
+        }
+        return mExpr;
+    }
+
+    /**
+     * Rewriting the steps and nesting them to the execution chain. Duplicates are eliminated where the
+     * rewritten steps may produce them.
+     */
+    private void build() {
+        mOrd = OrdState.MAX1;
+        mOrd.init();
+        mDup = DupState.MAX1;
+
+        AbsAxis expr = null;
+        for (final AbsAxis step : StepRewriter.rewrite(mRtx, mSteps)) {
+            AbsAxis axis = step;
+            if (isDupOrd(axis)) {
+                axis = new DupFilterAxis(mRtx, axis);
+                DupState.nodup = true;
+            }
+            expr = expr == null ? axis : new NestedAxis(expr, axis, mRtx);
+        }
+        mExpr = expr;
     }
 
     /**
@@ -135,7 +136,7 @@ public class ExpressionSingle {
      */
     public int getSize() {
 
-        return mNumber;
+        return mSteps.size();
     }
 
     /**
@@ -200,6 +201,8 @@ public class ExpressionSingle {
      */
     public boolean isOrdered() {
 
+        getExpr();
+
         // the result sequence is unordered, if the order rank is greater than
         // zero
         // or the order state is in state UNORD
@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.treetank.access.PathSummary;
+import org.treetank.access.ValueIndex;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.axis.AbsAxis;
+import org.treetank.axis.AttributeAxis;
+import org.treetank.axis.ChildAxis;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.axis.FilterAxis;
+import org.treetank.axis.PathSummaryAxis;
+import org.treetank.axis.filter.AbsFilter;
+import org.treetank.axis.filter.NameFilter;
+import org.treetank.data.AtomicValue;
+import org.treetank.exception.TTException;
+import org.treetank.service.xml.xpath.axis.ValueIndexAxis;
+import org.treetank.service.xml.xpath.comparators.AbsComparator;
+import org.treetank.service.xml.xpath.comparators.CompKind;
+import org.treetank.service.xml.xpath.comparators.GeneralComp;
+import org.treetank.service.xml.xpath.comparators.ValueComp;
+import org.treetank.service.xml.xpath.expr.LiteralExpr;
+import org.treetank.service.xml.xpath.filter.AttributeValueFilter;
+import org.treetank.service.xml.xpath.filter.DocumentNodeAxis;
+import org.treetank.service.xml.xpath.filter.PredicateFilterAxis;
+import org.treetank.utils.NamePageHash;
+
+/**
+ * <h1>StepRewriter</h1>
+ * <p>
+ * Rewrites the steps of an {@link ExpressionSingle} before they are chained to the execution pipeline:
+ * </p>
+ * <p>
+ * <li>Predicates comparing an attribute with a string literal, e.g. <code>[@a = 'v']</code>, are pushed
+ * down into the preceding step as an {@link AttributeValueFilter}.</li>
+ * <li><code>descendant-or-self::node()/child::x</code>, i.e. <code>//x</code>, is fused to
+ * <code>descendant::x</code> if the child step is not followed by a predicate, which might depend on the
+ * position. The fused step does not produce duplicates, hence no duplicate elimination is added for it.</li>
+ * <li>If the resource maintains a {@link ValueIndex} covering all attributes of a name, a step
+ * <code>//x[@a = 'v']</code> at the beginning of an absolute path is answered by a
+ * {@link ValueIndexAxis}.</li>
+ * <li>If the resource maintains a {@link PathSummary}, the leading child and descendant name tests of an
+ * absolute path, e.g. <code>/a//b</code>, are answered by a {@link PathSummaryAxis}. A name test followed by
+ * a predicate is kept, since the predicate might depend on the position within the context.</li>
+ * </p>
+ */
+final class StepRewriter {
+
+    /** Type key of string literals. */
+    private static final int STRING_TYPE = NamePageHash.generateHashForString("xs:string");
+
+    /**
+     * Utility class.
+     */
+    private StepRewriter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Rewriting the steps.
+     * 
+     * @param pRtx
+     *            transaction the steps are bound to
+     * @param pSteps
+     *            the steps in syntactic order, not modified
+     * @return the rewritten steps
+     */
+    static List<AbsAxis> rewrite(final INodeReadTrx pRtx, final List<AbsAxis> pSteps) {
+        final List<AbsAxis> steps = new ArrayList<AbsAxis>(pSteps.size());
+        for (final AbsAxis step : pSteps) {
+            if (!steps.isEmpty() && step instanceof PredicateFilterAxis) {
+                final AbsFilter filter = pushDown(pRtx, ((PredicateFilterAxis)step).getPredicate());
+                if (filter != null) {
+                    steps.add(addFilter(pRtx, steps.remove(steps.size() - 1), filter));
+                    continue;
+                }
+            }
+            steps.add(step);
+        }
+
+        for (int i = steps.size() - 2; i >= 0; i--) {
+            if (isDescendantOrSelf(steps.get(i)) && isChildStep(steps.get(i + 1))
+                && (i + 2 == steps.size() || !(steps.get(i + 2) instanceof PredicateFilterAxis))) {
+                final AbsFilter[] filters = ((FilterAxis)steps.remove(i + 1)).getFilters();
+                steps.set(i, new FilterAxis(new DescendantAxis(pRtx), pRtx, filters));
+            }
+        }
+
+        if (steps.size() > 1 && steps.get(0) instanceof DocumentNodeAxis) {
+            final AttributeValueFilter attribute = getIndexedAttribute(pRtx, steps.get(1));
+            if (attribute != null) {
+                final AbsFilter[] filters = ((FilterAxis)steps.remove(1)).getFilters();
+                steps.set(0, new ValueIndexAxis(pRtx, attribute, filters));
+            }
+        }
+
+        if (steps.get(0) instanceof DocumentNodeAxis && hasPathSummary(pRtx)) {
+            int end = 1;
+            while (end < steps.size() && getNameKey(steps.get(end)) != null) {
+                end++;
+            }
+            if (end < steps.size() && steps.get(end) instanceof PredicateFilterAxis) {
+                end--;
+            }
+            if (end > 1) {
+                final int[] nameKeys = new int[end - 1];
+                final boolean[] descendant = new boolean[end - 1];
+                for (int i = 1; i < end; i++) {
+                    nameKeys[i - 1] = getNameKey(steps.get(i));
+                    descendant[i - 1] = ((FilterAxis)steps.get(i)).getAxis() instanceof DescendantAxis;
+                }
+                steps.subList(0, end).clear();
+                steps.add(0, new PathSummaryAxis(pRtx, nameKeys, descendant));
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Getting the attribute comparison of a descendant step, if the attribute values are indexed.
+     * 
+     * @param pRtx
+     *            transaction the steps are bound to
+     * @param pStep
+     *            the step
+     * @return the filter comparing the attribute, null if there is none or it is not covered by the index
+     */
+    private static AttributeValueFilter getIndexedAttribute(final INodeReadTrx pRtx, final AbsAxis pStep) {
+        if (!(pStep instanceof FilterAxis) || ((FilterAxis)pStep).getAxis().getClass() != DescendantAxis.class
+            || ((FilterAxis)pStep).getAxis().isSelfIncluded()) {
+            return null;
+        }
+        for (final AbsFilter filter : ((FilterAxis)pStep).getFilters()) {
+            if (filter instanceof AttributeValueFilter) {
+                final ValueIndex index;
+                try {
+                    index = ValueIndex.getIndex(pRtx);
+                } catch (final TTException exc) {
+                    throw new RuntimeException(exc);
+                }
+                final AttributeValueFilter attribute = (AttributeValueFilter)filter;
+                return index != null && index.coversAttributes(attribute.getNameKey()) ? attribute : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checking if the resource of a transaction maintains a path summary.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return true if a {@link PathSummary} is available
+     */
+    private static boolean hasPathSummary(final INodeReadTrx pRtx) {
+        return PathSummary.isAvailable(pRtx);
+    }
+
+    /**
+     * Getting the indexes available for a transaction. Steps rewritten for one state must only be evaluated
+     * on transactions in the same state. The index of a revision is looked up once per transaction and a
+     * stale index of a writing transaction is not rebuilt for it.
+     * 
+     * @param pRtx
+     *            the transaction
+     * @return the state of the indexes
+     */
+    static String getIndexState(final INodeReadTrx pRtx) {
+        final String paths = ValueIndex.getIndexedPaths(pRtx);
+        return hasPathSummary(pRtx) + ":" + (paths == null ? "" : paths);
+    }
+
+    /**
+     * Getting the name key of a child or descendant step with a single name test.
+     * 
+     * @param pStep
+     *            the step
+     * @return the name key, null if the step is no such step
+     */
+    private static Integer getNameKey(final AbsAxis pStep) {
+        if (!(pStep instanceof FilterAxis)) {
+            return null;
+        }
+        final FilterAxis step = (FilterAxis)pStep;
+        final Class<?> axis = step.getAxis().getClass();
+        if ((axis == ChildAxis.class || axis == DescendantAxis.class && !step.getAxis().isSelfIncluded())
+            && step.getFilters().length == 1 && step.getFilters()[0] instanceof NameFilter) {
+            return ((NameFilter)step.getFilters()[0]).getNameKey();
+        }
+        return null;
+    }
+
+    /**
+     * Converting a predicate to a filter.
+     * 
+     * @param pRtx
+     *            transaction the steps are bound to
+     * @param pPredicate
+     *            the predicate
+     * @return the filter equivalent to the predicate, null if there is none
+     */
+    private static AbsFilter pushDown(final INodeReadTrx pRtx, final AbsAxis pPredicate) {
+        if (!(pPredicate instanceof GeneralComp || pPredicate instanceof ValueComp)) {
+            return null;
+        }
+        final AbsComparator comp = (AbsComparator)pPredicate;
+        if (comp.getCompKind() != CompKind.EQ) {
+            return null;
+        }
+        final AbsFilter filter = getValueFilter(pRtx, comp.getOperand1(), comp.getOperand2());
+        return filter == null ? getValueFilter(pRtx, comp.getOperand2(), comp.getOperand1()) : filter;
+    }
+
+    /**
+     * Building an {@link AttributeValueFilter} for an attribute step and a string literal.
+     * 
+     * @param pRtx
+     *            transaction the steps are bound to
+     * @param pAttribute
+     *            operand which has to be an attribute step with a name test
+     * @param pLiteral
+     *            operand which has to be a string literal
+     * @return the filter, null if the operands don't match
+     */
+    private static AbsFilter getValueFilter(final INodeReadTrx pRtx, final AbsAxis pAttribute,
+        final AbsAxis pLiteral) {
+        if (!(pAttribute instanceof FilterAxis) || !(pLiteral instanceof LiteralExpr)) {
+            return null;
+        }
+        final FilterAxis attribute = (FilterAxis)pAttribute;
+        final AbsFilter[] filters = attribute.getFilters();
+        if (!(attribute.getAxis() instanceof AttributeAxis) || filters.length != 1
+            || !(filters[0] instanceof NameFilter)) {
+            return null;
+        }
+        final AtomicValue literal =
+            pRtx.getAxisContext().getItemList().getItem(((LiteralExpr)pLiteral).getLiteralKey());
+        if (literal.getTypeKey() != STRING_TYPE) {
+            return null;
+        }
+        return new AttributeValueFilter(pRtx, ((NameFilter)filters[0]).getNameKey(), literal.getRawValue());
+    }
+
+    /**
+     * Adding a filter to a step.
+     * 
+     * @param pRtx
+     *            transaction the steps are bound to
+     * @param pStep
+     *            the step
+     * @param pFilter
+     *            the filter to add
+     * @return the filtered step
+     */
+    private static AbsAxis addFilter(final INodeReadTrx pRtx, final AbsAxis pStep, final AbsFilter pFilter) {
+        if (pStep instanceof FilterAxis) {
+            final FilterAxis step = (FilterAxis)pStep;
+            final AbsFilter[] filters = Arrays.copyOf(step.getFilters(), step.getFilters().length + 1);
+            filters[filters.length - 1] = pFilter;
+            return new FilterAxis(step.getAxis(), pRtx, filters);
+        } else {
+            return new FilterAxis(pStep, pRtx, pFilter);
+        }
+    }
+
+    /**
+     * Checking for a plain <code>descendant-or-self::node()</code> step.
+     * 
+     * @param pStep
+     *            the step
+     * @return true if the step is an unfiltered descendant axis including self
+     */
+    private static boolean isDescendantOrSelf(final AbsAxis pStep) {
+        return pStep.getClass() == DescendantAxis.class && pStep.isSelfIncluded();
+    }
+
+    /**
+     * Checking for a child step with a node test.
+     * 
+     * @param pStep
+     *            the step
+     * @return true if the step is a filtered child axis
+     */
+    private static boolean isChildStep(final AbsAxis pStep) {
+        return pStep instanceof FilterAxis && ((FilterAxis)pStep).getAxis().getClass() == ChildAxis.class;
+    }
+
+}
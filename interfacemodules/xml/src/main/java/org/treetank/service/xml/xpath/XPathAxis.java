@@ -113,6 +113,19 @@ public final class XPathAxis extends AbsAxis {
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset(final long mNodeKey) {
+
+        super.reset(mNodeKey);
+        // the pipeline is not built yet while the super constructor resets the axis
+        if (mPipeline != null) {
+            mPipeline.reset(mNodeKey);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.treetank.api.INodeReadTrx;
+import org.treetank.exception.TTXPathException;
+
+/**
+ * <h1>XPathCache</h1>
+ * <p>
+ * Bounded cache of {@link CompiledXPath} instances keyed by their query. The queries used least recently are
+ * evicted first. Since a compiled query is evaluated by one thread at a time, the cache holds the idle
+ * instances of a query, an instance is taken from the cache with {@link #acquire(INodeReadTrx, String)} and
+ * handed back with {@link #release(CompiledXPath)} after the evaluation.
+ * </p>
+ * 
+ * <pre>
+ *   final CompiledXPath query = cache.acquire(rtx, &quot;//b&quot;);
+ *   try {
+ *     for (final long key : query.bind(rtx)) {
+ *       ...
+ *     }
+ *   } finally {
+ *     cache.release(query);
+ *   }
+ * </pre>
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class XPathCache {
+
+    /** Maximal number of idle instances per query. */
+    private static final int MAX_IDLE = 16;
+
+    /** Idle instances by their query, in access order. */
+    private final Map<String, Deque<CompiledXPath>> mQueries;
+
+    /**
+     * Constructor.
+     * 
+     * @param pCapacity
+     *            maximal number of queries to cache
+     */
+    public XPathCache(final int pCapacity) {
+        mQueries = new LinkedHashMap<String, Deque<CompiledXPath>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Deque<CompiledXPath>> pEldest) {
+                return size() > pCapacity;
+            }
+        };
+    }
+
+    /**
+     * Taking a compiled query from the cache, compiling it if no idle instance is available.
+     * 
+     * @param pRtx
+     *            transaction to compile the query on
+     * @param pQuery
+     *            the query
+     * @return the compiled query, to be bound to a transaction
+     * @throws TTXPathException
+     *             if the query can't be parsed
+     */
+    public CompiledXPath acquire(final INodeReadTrx pRtx, final String pQuery) throws TTXPathException {
+        synchronized (mQueries) {
+            final Deque<CompiledXPath> idle = mQueries.get(pQuery);
+            if (idle != null && !idle.isEmpty()) {
+                return idle.pop();
+            }
+        }
+        // parsing outside of the lock
+        return new CompiledXPath(pRtx, pQuery);
+    }
+
+    /**
+     * Handing a compiled query back after its evaluation.
+     * 
+     * @param pQuery
+     *            the compiled query
+     */
+    public void release(final CompiledXPath pQuery) {
+        pQuery.unbind();
+        synchronized (mQueries) {
+            Deque<CompiledXPath> idle = mQueries.get(pQuery.getQuery());
+            if (idle == null) {
+                idle = new ArrayDeque<CompiledXPath>();
+                mQueries.put(pQuery.getQuery(), idle);
+            }
+            if (idle.size() < MAX_IDLE) {
+                idle.push(pQuery);
+            }
+        }
+    }
+
+}
@@ -27,13 +27,11 @@
 
 package org.treetank.service.xml.xpath.axis;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.service.xml.xpath.XPathError;
 import org.treetank.service.xml.xpath.XPathError.ErrorType;
+import org.treetank.utils.LongHashSet;
 
 /**
  * <h1>ExceptAxis</h1>
@@ -55,7 +53,7 @@ public class ExceptAxis extends AbsAxis {
      * Set that is used to determine, whether an item of the first operand is
      * also contained in the result set of the second operand.
      */
-    private final Set<Long> mDupSet;
+    private final LongHashSet mDupSet;
 
     /**
      * Constructor. Initializes the internal state.
@@ -72,7 +70,7 @@ public class ExceptAxis extends AbsAxis {
         super(rtx);
         mOp1 = mOperand1;
         mOp2 = mOperand2;
-        mDupSet = new HashSet<Long>();
+        mDupSet = new LongHashSet();
 
     }
 
@@ -112,7 +112,7 @@ public class ForAxis extends AbsAxis {
 
         // check for more items in the binding sequence
         while (mRange.hasNext()) {
-            mRange.next();
+            mRange.nextKey();
 
             // TODO: resetTo startKey would be better here, but not accessible
             // mReturn.resetToStartKey();
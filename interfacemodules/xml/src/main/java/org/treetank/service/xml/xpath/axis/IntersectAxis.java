@@ -27,13 +27,11 @@
 
 package org.treetank.service.xml.xpath.axis;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.service.xml.xpath.XPathError;
 import org.treetank.service.xml.xpath.XPathError.ErrorType;
+import org.treetank.utils.LongHashSet;
 
 /**
  * <h1>IntersectAxis</h1>
@@ -51,7 +49,7 @@ public class IntersectAxis extends AbsAxis {
     private final AbsAxis mOp2;
 
     /** Set to decide, if an item is contained in both sequences. */
-    private final Set<Long> mDupSet;
+    private final LongHashSet mDupSet;
 
     /**
      * Constructor. Initializes the internal state.
@@ -68,7 +66,7 @@ public class IntersectAxis extends AbsAxis {
         super(rtx);
         mOp1 = mOperand1;
         mOp2 = mOperand2;
-        mDupSet = new HashSet<Long>();
+        mDupSet = new LongHashSet();
 
     }
 
@@ -85,6 +85,22 @@ public class RangeAxis extends AbsAxis {
         mFirst = true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset(final long mNodeKey) {
+
+        super.reset(mNodeKey);
+        mFirst = true;
+        if (mFrom != null) {
+            mFrom.reset(mNodeKey);
+        }
+        if (mTo != null) {
+            mTo.reset(mNodeKey);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath.axis;
+
+import java.util.Arrays;
+
+import org.treetank.access.ValueIndex;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.axis.AbsAxis;
+import org.treetank.axis.filter.AbsFilter;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeNameData;
+import org.treetank.data.interfaces.ITreeValData;
+import org.treetank.exception.TTException;
+import org.treetank.service.xml.xpath.filter.AttributeValueFilter;
+
+/**
+ * <h1>ValueIndexAxis</h1>
+ * <p>
+ * Returns all elements of the document having an attribute with the name and value of an
+ * {@link AttributeValueFilter} and passing all given filters, i.e. it evaluates
+ * <code>//*[@name = 'value']</code>. The attributes are looked up in the {@link ValueIndex} instead of
+ * traversing the document, the elements are returned in document order.
+ * </p>
+ */
+public class ValueIndexAxis extends AbsAxis {
+
+    /** Transaction to look up the index for. */
+    private final INodeReadTrx mRtx;
+
+    /** Attribute to look up. */
+    private final AttributeValueFilter mAttribute;
+
+    /** Filters the elements have to pass. */
+    private final AbsFilter[] mFilters;
+
+    /** Keys of the candidate elements, null if not looked up yet. */
+    private long[] mKeys;
+
+    /** Index of the next candidate. */
+    private int mIndex;
+
+    /**
+     * Constructor initializing internal state.
+     * 
+     * @param rtx
+     *            Exclusive (immutable) trx to iterate with, the resource must maintain a {@link ValueIndex}.
+     * @param pAttribute
+     *            the attribute to look up
+     * @param pFilters
+     *            filters the elements have to pass
+     */
+    public ValueIndexAxis(final INodeReadTrx rtx, final AttributeValueFilter pAttribute,
+        final AbsFilter... pFilters) {
+        super(rtx);
+        mRtx = rtx;
+        mAttribute = pAttribute;
+        mFilters = pFilters;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void reset(final long mNodeKey) {
+        super.reset(mNodeKey);
+        mKeys = null;
+        mIndex = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean hasNext() {
+        resetToLastKey();
+        if (mKeys == null) {
+            mKeys = lookup();
+        }
+        while (mIndex < mKeys.length) {
+            moveTo(mKeys[mIndex++]);
+            boolean filterResult = true;
+            for (final AbsFilter filter : mFilters) {
+                filterResult = filterResult && filter.filter();
+            }
+            if (filterResult) {
+                return true;
+            }
+        }
+        resetToStartKey();
+        return false;
+    }
+
+    /**
+     * Looking up the elements carrying the attribute.
+     * 
+     * @return the keys of the elements in document order
+     */
+    private long[] lookup() {
+        final ValueIndex index;
+        final long[] candidates;
+        try {
+            index = ValueIndex.getIndex(mRtx);
+            candidates = index.getCandidates(mAttribute.getValue());
+        } catch (final TTException exc) {
+            throw new RuntimeException(exc);
+        }
+        final long[] keys = new long[candidates.length];
+        int size = 0;
+        for (final long candidate : candidates) {
+            if (moveTo(candidate) && getNode().getKind() == IConstants.ATTRIBUTE
+                && ((ITreeNameData)getNode()).getNameKey() == mAttribute.getNameKey()
+                && Arrays.equals(((ITreeValData)getNode()).getRawValue(), mAttribute.getValue())) {
+                keys[size++] = getNode().getParentKey();
+            }
+        }
+        try {
+            return index.toDocumentOrder(Arrays.copyOf(keys, size));
+        } catch (final TTException exc) {
+            throw new RuntimeException(exc);
+        }
+    }
+
+}
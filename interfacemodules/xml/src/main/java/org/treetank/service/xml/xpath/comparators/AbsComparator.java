@@ -209,6 +209,24 @@ public abstract class AbsComparator extends AbsAxis {
         return mComp;
     }
 
+    /**
+     * Getting the first operand.
+     * 
+     * @return the first operand
+     */
+    public final AbsAxis getOperand1() {
+        return mOperand1;
+    }
+
+    /**
+     * Getting the second operand.
+     * 
+     * @return the second operand
+     */
+    public final AbsAxis getOperand2() {
+        return mOperand2;
+    }
+
     /**
      * Factory method to implement the comparator.
      * 
@@ -30,7 +30,9 @@ package org.treetank.service.xml.xpath.comparators;
 import static org.treetank.service.xml.xpath.XPathAxis.XPATH_10_COMP;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
@@ -45,6 +47,11 @@ import org.treetank.exception.TTXPathException;
  * General comparisons are existentially quantified comparisons that may be applied to operand sequences of
  * any length.
  * </p>
+ * <p>
+ * If all items of each operand share one type, the values are converted once: equality is decided by hashing
+ * one operand and probing it with the other, relational comparisons by comparing the extreme values of both
+ * operands. Other comparisons are evaluated pairwise.
+ * </p>
  */
 public class GeneralComp extends AbsComparator {
 
@@ -75,11 +82,42 @@ public class GeneralComp extends AbsComparator {
 
         assert mOperand1.length >= 1 && mOperand2.length >= 1;
 
-        for (AtomicValue op1 : mOperand1) {
-            for (AtomicValue op2 : mOperand2) {
-                String value1 = new String(op1.getRawValue());
-                String value2 = new String(op2.getRawValue());
-                if (getCompKind().compare(value1, value2, getType(op1.getTypeKey(), op2.getTypeKey()))) {
+        final String[] values1 = getValues(mOperand1);
+        final String[] values2 = getValues(mOperand2);
+
+        if (isUniform(mOperand1) && isUniform(mOperand2)) {
+            final Type type = getType(mOperand1[0].getTypeKey(), mOperand2[0].getTypeKey());
+            switch (type) {
+            case FLOAT:
+            case DECIMAL:
+            case DOUBLE:
+            case INTEGER:
+            case BOOLEAN:
+            case STRING:
+            case ANY_URI:
+                switch (getCompKind()) {
+                case EQ:
+                    return values1.length < values2.length ? hashJoin(values1, values2, type) : hashJoin(
+                        values2, values1, type);
+                case LT:
+                case LE:
+                    return compareExtremes(values1, values2, type, false);
+                case GT:
+                case GE:
+                    return compareExtremes(values1, values2, type, true);
+                default:
+                    break;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        for (int i = 0; i < values1.length; i++) {
+            for (int j = 0; j < values2.length; j++) {
+                if (getCompKind().compare(values1[i], values2[j],
+                    getType(mOperand1[i].getTypeKey(), mOperand2[j].getTypeKey()))) {
                     return true;
                 }
             }
@@ -88,6 +126,189 @@ public class GeneralComp extends AbsComparator {
         return false;
     }
 
+    /**
+     * Checking for an equal pair by hashing the values of the smaller operand.
+     * 
+     * @param pBuild
+     *            values to hash
+     * @param pProbe
+     *            values to look up
+     * @param pType
+     *            comparison type
+     * @return true if any pair of values is equal
+     */
+    private static boolean hashJoin(final String[] pBuild, final String[] pProbe, final Type pType) {
+        final Set<Object> keys = new HashSet<Object>(pBuild.length * 2);
+        for (final String value : pBuild) {
+            final Object key = getHashKey(value, pType);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        for (final String value : pProbe) {
+            final Object key = getHashKey(value, pType);
+            if (key != null && keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converting a value to the key it is hashed with, equal values must result in equal keys.
+     * 
+     * @param pValue
+     *            the value
+     * @param pType
+     *            comparison type
+     * @return the key, null if the value is equal to no value at all
+     */
+    private static Object getHashKey(final String pValue, final Type pType) {
+        switch (pType) {
+        case FLOAT:
+            final float floatValue = Float.parseFloat(pValue);
+            // adding zero turns -0.0 into 0.0, NaN equals nothing
+            return Float.isNaN(floatValue) ? null : Float.valueOf(floatValue + 0.0f);
+        case DECIMAL:
+        case DOUBLE:
+            final double doubleValue = Double.parseDouble(pValue);
+            return Double.isNaN(doubleValue) ? null : Double.valueOf(doubleValue + 0.0d);
+        case INTEGER:
+            return Integer.valueOf((int)Double.parseDouble(pValue));
+        case BOOLEAN:
+            return Boolean.valueOf(Boolean.parseBoolean(pValue));
+        default:
+            return pValue;
+        }
+    }
+
+    /**
+     * Checking a relational comparison by comparing the smallest value of one operand with the largest value
+     * of the other operand.
+     * 
+     * @param pValues1
+     *            values of the first operand
+     * @param pValues2
+     *            values of the second operand
+     * @param pType
+     *            comparison type
+     * @param pGreater
+     *            true if the comparison is 'greater (or equal) than'
+     * @return true if any pair of values fulfills the comparison
+     * @throws TTXPathException
+     *             if the values can't be compared
+     */
+    private boolean compareExtremes(final String[] pValues1, final String[] pValues2, final Type pType,
+        final boolean pGreater) throws TTXPathException {
+        if (pType.isNumericType()) {
+            final double value1 = getNumericExtreme(pValues1, pType, pGreater);
+            final double value2 = getNumericExtreme(pValues2, pType, !pGreater);
+            switch (getCompKind()) {
+            case LT:
+                return value1 < value2;
+            case LE:
+                return value1 <= value2;
+            case GT:
+                return value1 > value2;
+            default:
+                return value1 >= value2;
+            }
+        } else {
+            final String value1 = getExtreme(pValues1, pType, pGreater);
+            final String value2 = getExtreme(pValues2, pType, !pGreater);
+            return getCompKind().compare(value1, value2, pType);
+        }
+    }
+
+    /**
+     * Getting the largest or smallest numeric value, NaN values are skipped.
+     * 
+     * @param pValues
+     *            the values
+     * @param pType
+     *            comparison type
+     * @param pMax
+     *            true for the largest, false for the smallest value
+     * @return the extreme value, NaN if there is no comparable value
+     */
+    private static double getNumericExtreme(final String[] pValues, final Type pType, final boolean pMax) {
+        double extreme = Double.NaN;
+        for (final String value : pValues) {
+            final double number;
+            switch (pType) {
+            case FLOAT:
+                number = Float.parseFloat(value);
+                break;
+            case INTEGER:
+                number = (int)Double.parseDouble(value);
+                break;
+            default:
+                number = Double.parseDouble(value);
+            }
+            if (Double.isNaN(extreme) || (pMax ? number > extreme : number < extreme)) {
+                extreme = number;
+            }
+        }
+        return extreme;
+    }
+
+    /**
+     * Getting the largest or smallest value with respect to the comparison type.
+     * 
+     * @param pValues
+     *            the values
+     * @param pType
+     *            comparison type
+     * @param pMax
+     *            true for the largest, false for the smallest value
+     * @return the extreme value
+     * @throws TTXPathException
+     *             if the values can't be compared
+     */
+    private static String getExtreme(final String[] pValues, final Type pType, final boolean pMax)
+        throws TTXPathException {
+        final CompKind order = pMax ? CompKind.GT : CompKind.LT;
+        String extreme = pValues[0];
+        for (int i = 1; i < pValues.length; i++) {
+            if (order.compare(pValues[i], extreme, pType)) {
+                extreme = pValues[i];
+            }
+        }
+        return extreme;
+    }
+
+    /**
+     * Converting the raw values of the items to strings.
+     * 
+     * @param pOperand
+     *            the items
+     * @return the values
+     */
+    private static String[] getValues(final AtomicValue[] pOperand) {
+        final String[] values = new String[pOperand.length];
+        for (int i = 0; i < pOperand.length; i++) {
+            values[i] = new String(pOperand[i].getRawValue());
+        }
+        return values;
+    }
+
+    /**
+     * Checking if all items share one type.
+     * 
+     * @param pOperand
+     *            the items
+     * @return true if all items are of the same type
+     */
+    private static boolean isUniform(final AtomicValue[] pOperand) {
+        final int typeKey = pOperand[0].getTypeKey();
+        for (int i = 1; i < pOperand.length; i++) {
+            if (pOperand[i].getTypeKey() != typeKey) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
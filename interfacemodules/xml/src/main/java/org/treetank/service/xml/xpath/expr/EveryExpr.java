@@ -98,7 +98,7 @@ public class EveryExpr extends AbsExpression {
 
         for (AbsAxis axis : mVars) {
             while (axis.hasNext()) {
-                axis.next();
+                axis.nextKey();
                 if (!mSatisfy.hasNext()) {
                     // condition is not satisfied for this item -> expression is
                     // false
@@ -65,4 +65,13 @@ public class LiteralExpr extends AbsExpression {
         return getItemList().getItem(mLiteralKey);
 
     }
+    /**
+     * Getting the key of the literal in the item list.
+     * 
+     * @return the item key
+     */
+    public long getLiteralKey() {
+        return mLiteralKey;
+    }
+
 }
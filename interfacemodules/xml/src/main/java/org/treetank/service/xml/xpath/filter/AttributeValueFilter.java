@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath.filter;
+
+import java.util.Arrays;
+
+import org.treetank.api.INodeReadTrx;
+import org.treetank.axis.filter.AbsFilter;
+import org.treetank.data.ElementNode;
+import org.treetank.data.interfaces.ITreeNameData;
+import org.treetank.data.interfaces.ITreeValData;
+
+/**
+ * <h1>AttributeValueFilter</h1>
+ * <p>
+ * Matches elements having an attribute with the given name and value. The filter replaces predicates of the
+ * form <code>[@name = 'value']</code>, the attributes are looked up by their keys without evaluating an
+ * attribute axis and a comparison for each candidate.
+ * </p>
+ */
+public class AttributeValueFilter extends AbsFilter {
+
+    /** Key of the attribute name. */
+    private final int mNameKey;
+
+    /** Raw value to match. */
+    private final byte[] mValue;
+
+    /**
+     * Default constructor.
+     * 
+     * @param rtx
+     *            Transaction this filter is bound to.
+     * @param pNameKey
+     *            key of the attribute name
+     * @param pValue
+     *            raw value to match
+     */
+    public AttributeValueFilter(final INodeReadTrx rtx, final int pNameKey, final byte[] pValue) {
+        super(rtx);
+        mNameKey = pNameKey;
+        mValue = pValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean filter() {
+        if (!(getNode() instanceof ElementNode)) {
+            return false;
+        }
+        final ElementNode element = (ElementNode)getNode();
+        boolean returnVal = false;
+        for (int i = 0, length = element.getAttributeCount(); i < length; i++) {
+            moveTo(element.getAttributeKey(i));
+            if (((ITreeNameData)getNode()).getNameKey() == mNameKey) {
+                returnVal = Arrays.equals(((ITreeValData)getNode()).getRawValue(), mValue);
+                break;
+            }
+        }
+        if (element.getAttributeCount() > 0) {
+            moveTo(element.getDataKey());
+        }
+        return returnVal;
+    }
+
+    /**
+     * Getting the key of the attribute name.
+     * 
+     * @return the name key
+     */
+    public final int getNameKey() {
+        return mNameKey;
+    }
+
+    /**
+     * Getting the raw value to match.
+     * 
+     * @return the value
+     */
+    public final byte[] getValue() {
+        return mValue;
+    }
+}
@@ -27,14 +27,12 @@
 
 package org.treetank.service.xml.xpath.filter;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.FilterAxis;
 import org.treetank.axis.NestedAxis;
 import org.treetank.service.xml.xpath.axis.UnionAxis;
+import org.treetank.utils.LongHashSet;
 
 /**
  * <h1>DupFilterAxis</h1>
@@ -53,7 +51,7 @@ public class DupFilterAxis extends AbsAxis {
     private final AbsAxis mAxis;
 
     /** Set that stores all already returned item keys. */
-    private final Set<Long> mDupSet;
+    private final LongHashSet mDupSet;
 
     /**
      * Defines whether next() has to be called for the dupAxis after calling
@@ -73,7 +71,7 @@ public class DupFilterAxis extends AbsAxis {
 
         super(rtx);
         mAxis = mDupAxis;
-        mDupSet = new HashSet<Long>();
+        mDupSet = new LongHashSet();
         // if the dupAxis is not one of the specified axis, 'next()' has
         // explicitly
         // be called for those axis after calling 'hasNext()'. For all other
@@ -91,11 +89,28 @@ public class DupFilterAxis extends AbsAxis {
     public final void reset(final long mNodeKey) {
 
         super.reset(mNodeKey);
+        if (mDupSet != null) {
+            mDupSet.clear();
+        }
         if (mAxis != null) {
             mAxis.reset(mNodeKey);
         }
     }
 
+    /**
+     * Resetting the axis to the next context node, the keys returned for the previous context nodes are
+     * kept since they are duplicates within the same evaluation.
+     * 
+     * @param mNodeKey
+     *            the nodekey of the context node
+     */
+    @Override
+    public final void resetContext(final long mNodeKey) {
+
+        super.reset(mNodeKey);
+        mAxis.reset(mNodeKey);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -108,7 +123,7 @@ public class DupFilterAxis extends AbsAxis {
 
             // call next(), if it was not already called for that axis.
             if (mCallNext) {
-                mAxis.next();
+                mAxis.nextKey();
             }
 
             // add current item key to the set. If true is returned the item is
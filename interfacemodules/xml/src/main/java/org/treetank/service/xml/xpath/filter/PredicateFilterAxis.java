@@ -109,6 +109,15 @@ public class PredicateFilterAxis extends AbsAxis {
 
     }
 
+    /**
+     * Getting the predicate expression.
+     * 
+     * @return the predicate
+     */
+    public final AbsAxis getPredicate() {
+        return mPredicate;
+    }
+
     /**
      * Tests whether current Item is an atomic value with boolean value "false".
      * 
@@ -47,7 +47,7 @@ public class Function {
             new FNBoolean(pRtx, param, ebv.getMin(), ebv.getMax(), NamePageHash.generateHashForString(ebv
                 .getReturnType()));
         if (bAxis.hasNext()) {
-            bAxis.next();
+            bAxis.nextKey();
             final boolean result =
                 Boolean.parseBoolean(new String(((ITreeValData)bAxis.getNode()).getRawValue()));
             if (!bAxis.hasNext()) {
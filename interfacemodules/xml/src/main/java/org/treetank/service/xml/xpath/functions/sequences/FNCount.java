@@ -31,6 +31,13 @@ import java.util.List;
 
 import org.treetank.api.INodeReadTrx;
 import org.treetank.axis.AbsAxis;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.axis.FilterAxis;
+import org.treetank.axis.filter.AbsFilter;
+import org.treetank.axis.filter.NodeFilter;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeData;
+import org.treetank.data.interfaces.ITreeStructData;
 import org.treetank.exception.TTXPathException;
 import org.treetank.service.xml.xpath.functions.AbsFunction;
 import org.treetank.utils.TypedValue;
@@ -80,14 +87,52 @@ public class FNCount extends AbsFunction {
 
         final AbsAxis axis = getArgs().get(0);
 
-        Integer count = 0;
-        while (axis.hasNext()) {
-            axis.next();
-            count++;
+        long count = countFromStructIndex(axis);
+        if (count < 0) {
+            count = 0;
+            while (axis.hasNext()) {
+                axis.nextKey();
+                count++;
+            }
         }
 
-        return TypedValue.getBytes(count.toString());
+        return TypedValue.getBytes(Long.toString(count));
+
+    }
 
+    /**
+     * Counting a plain descendant(-or-self)::node() step in constant time by the descendant count of the
+     * context node, if the structural index is maintained for it.
+     * 
+     * @param pAxis
+     *            the argument to count
+     * @return the number of nodes the argument yields or -1 if it must be iterated
+     */
+    private long countFromStructIndex(final AbsAxis pAxis) {
+        AbsAxis axis = pAxis;
+        final boolean filtered = axis instanceof FilterAxis;
+        if (filtered) {
+            for (final AbsFilter filter : ((FilterAxis)axis).getFilters()) {
+                if (!(filter instanceof NodeFilter)) {
+                    return -1;
+                }
+            }
+            axis = ((FilterAxis)axis).getAxis();
+        }
+        if (axis.getClass() != DescendantAxis.class) {
+            return -1;
+        }
+        moveTo(getStartKey());
+        final ITreeData node = getNode();
+        if (!(node instanceof ITreeStructData) || !((ITreeStructData)node).isIndexed()) {
+            return -1;
+        }
+        long count = ((ITreeStructData)node).getDescendantCount();
+        if (axis.isSelfIncluded()
+            && (!filtered || node.getKind() == IConstants.ELEMENT || node.getKind() == IConstants.TEXT)) {
+            count++;
+        }
+        return count;
     }
 
 }
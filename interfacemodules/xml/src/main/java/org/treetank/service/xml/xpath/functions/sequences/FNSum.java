@@ -82,7 +82,7 @@ public class FNSum extends AbsFunction {
 
         Integer count = 0;
         while (axis.hasNext()) {
-            axis.next();
+            axis.nextKey();
             count++;
         }
 
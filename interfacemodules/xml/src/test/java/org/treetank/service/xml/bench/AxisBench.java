@@ -0,0 +1,118 @@
+package org.treetank.service.xml.bench;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.AfterBenchClass;
+import org.perfidix.annotation.BeforeBenchClass;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.MemMeter;
+import org.perfidix.meter.Memory;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.axis.AbsAxis;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.data.IConstants;
+import org.treetank.exception.TTException;
+
+/**
+ * Benchmarking the traversal of ELEMENTS nodes with the {@link DescendantAxis}, once over the boxing
+ * {@link AbsAxis#next()} and once over the primitive {@link AbsAxis#nextKey()}.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class AxisBench {
+
+    /** Number of nodes to traverse. */
+    private static final int ELEMENTS = 10000000;
+
+    /** Number of children per node on the first level. */
+    private static final int FANOUT = 100;
+
+    private IStorage mStorage;
+    private ISession mSession;
+    private INodeReadTrx mRtx;
+
+    /** Sums of the traversed keys, compared after the runs so that the traversals can not be eliminated. */
+    private long mBoxedSum;
+    private long mPrimitiveSum;
+
+    @BeforeBenchClass
+    public void setUp() throws TTException {
+        mStorage = BenchHelper.createStorage();
+        mSession = BenchHelper.getSession(mStorage);
+        BenchHelper.generateDocument(mSession, ELEMENTS, FANOUT);
+        mRtx = new NodeReadTrx(mSession.beginBucketRtx(mSession.getMostRecentVersion()));
+    }
+
+    @Bench
+    public void descendantBoxed() throws TTException {
+        mRtx.moveTo(IConstants.ROOT_NODE);
+        long sum = 0;
+        for (final Long key : new DescendantAxis(mRtx)) {
+            sum += key;
+        }
+        mBoxedSum = sum;
+    }
+
+    @Bench
+    public void descendantPrimitive() throws TTException {
+        mRtx.moveTo(IConstants.ROOT_NODE);
+        final AbsAxis axis = new DescendantAxis(mRtx);
+        long sum = 0;
+        while (axis.hasNext()) {
+            sum += axis.nextKey();
+        }
+        mPrimitiveSum = sum;
+    }
+
+    @AfterBenchClass
+    public void tearDown() throws TTException {
+        checkState(mBoxedSum == mPrimitiveSum, "Traversals differ: %s vs %s", mBoxedSum, mPrimitiveSum);
+        mRtx.close();
+        mSession.close();
+        BenchHelper.deleteStorage(mStorage);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(AxisBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 5;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+            METERS.add(new MemMeter(Memory.Mebibyte));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
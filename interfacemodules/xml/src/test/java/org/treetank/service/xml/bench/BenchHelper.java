@@ -0,0 +1,134 @@
+package org.treetank.service.xml.bench;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+
+import javax.xml.namespace.QName;
+
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.Storage;
+import org.treetank.access.conf.ModuleSetter;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.access.conf.StorageConfiguration;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.data.NodeMetaPageFactory;
+import org.treetank.data.TreeNodeFactory;
+import org.treetank.exception.TTException;
+import org.treetank.io.IOUtils;
+import org.treetank.io.jclouds.JCloudsStorage;
+import org.treetank.testutil.NodeElementTestHelper;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/**
+ * Utility methods shared by the benchmarks, namely setting up a storage with one resource and generating
+ * synthetic documents.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public final class BenchHelper {
+
+    /** Location of the benchmarked storage. */
+    public static final File BENCHFILE = FileSystems.getDefault().getPath("tmp", "bench").toFile();
+
+    /** Name of the benchmarked resource. */
+    public static final String RESOURCENAME = "benchResource";
+
+    /** Number of nodes inserted per revision. */
+    private static final int COMMITINTERVAL = 262144;
+
+    private BenchHelper() {
+        // utility class
+    }
+
+    /**
+     * Recreating the benchmark storage including one resource.
+     * 
+     * @return the opened {@link IStorage}
+     * @throws TTException
+     */
+    public static IStorage createStorage() throws TTException {
+        IOUtils.recursiveDelete(BENCHFILE);
+        final Injector injector =
+            Guice.createInjector(new ModuleSetter().setDataFacClass(TreeNodeFactory.class).setMetaFacClass(
+                NodeMetaPageFactory.class).setBackendClass(JCloudsStorage.class).createModule());
+        final ResourceConfiguration resConfig =
+            injector.getInstance(IResourceConfigurationFactory.class).create(
+                StandardSettings.getProps(BENCHFILE.getAbsolutePath(), RESOURCENAME));
+        Storage.createStorage(new StorageConfiguration(BENCHFILE));
+        final IStorage storage = Storage.openStorage(BENCHFILE);
+        storage.createResource(resConfig);
+        return storage;
+    }
+
+    /**
+     * Opening a session on the benchmarked resource.
+     * 
+     * @param pStorage
+     *            storage created by {@link #createStorage()}
+     * @return the {@link ISession}
+     * @throws TTException
+     */
+    public static ISession getSession(final IStorage pStorage) throws TTException {
+        return pStorage.getSession(new SessionConfiguration(RESOURCENAME, StandardSettings.KEY));
+    }
+
+    /**
+     * Generating a document with the given number of elements. The elements are arranged in two levels,
+     * each element on the first level has pFanout - 1 children.
+     * 
+     * @param pSession
+     *            to insert the document in
+     * @param pElements
+     *            number of elements to generate
+     * @param pFanout
+     *            number of children per first-level element plus one
+     * @throws TTException
+     */
+    public static void generateDocument(final ISession pSession, final int pElements, final int pFanout)
+        throws TTException {
+        final INodeWriteTrx wtx = new NodeWriteTrx(pSession, pSession.beginBucketWtx(), HashKind.None);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        final QName name = new QName("e");
+        wtx.insertElementAsFirstChild(name);
+        int inserted = 1;
+        while (inserted < pElements) {
+            final long parentKey = wtx.insertElementAsRightSibling(name);
+            inserted++;
+            for (int i = 1; i < pFanout && inserted < pElements; i++, inserted++) {
+                if (i == 1) {
+                    wtx.insertElementAsFirstChild(name);
+                } else {
+                    wtx.insertElementAsRightSibling(name);
+                }
+                if (inserted % COMMITINTERVAL == 0) {
+                    wtx.commit();
+                }
+            }
+            wtx.moveTo(parentKey);
+        }
+        wtx.commit();
+        wtx.close();
+    }
+
+    /**
+     * Closing the storage and removing all data.
+     * 
+     * @param pStorage
+     *            to be closed
+     * @throws TTException
+     */
+    public static void deleteStorage(final IStorage pStorage) throws TTException {
+        pStorage.close();
+        IOUtils.recursiveDelete(BENCHFILE);
+    }
+
+}
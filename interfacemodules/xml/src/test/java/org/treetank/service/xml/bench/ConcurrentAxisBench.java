@@ -0,0 +1,138 @@
+package org.treetank.service.xml.bench;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.AfterBenchClass;
+import org.perfidix.annotation.BeforeBenchClass;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.axis.AbsAxis;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.data.IConstants;
+import org.treetank.exception.TTException;
+
+/**
+ * Benchmarking concurrent traversals with the {@link DescendantAxis}. Each thread works on its own
+ * {@link INodeReadTrx} over the same {@link ISession}; since the axes do not share any static state anymore,
+ * the throughput should grow with the number of threads.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class ConcurrentAxisBench {
+
+    /** Number of nodes to traverse. */
+    private static final int ELEMENTS = 1000000;
+
+    /** Number of children per node on the first level. */
+    private static final int FANOUT = 100;
+
+    private IStorage mStorage;
+    private ISession mSession;
+    private ExecutorService mExec;
+
+    @BeforeBenchClass
+    public void setUp() throws TTException {
+        mStorage = BenchHelper.createStorage();
+        mSession = BenchHelper.getSession(mStorage);
+        BenchHelper.generateDocument(mSession, ELEMENTS, FANOUT);
+        mExec = Executors.newFixedThreadPool(8);
+    }
+
+    @Bench
+    public void traverse1() throws Exception {
+        traverse(1);
+    }
+
+    @Bench
+    public void traverse2() throws Exception {
+        traverse(2);
+    }
+
+    @Bench
+    public void traverse4() throws Exception {
+        traverse(4);
+    }
+
+    @Bench
+    public void traverse8() throws Exception {
+        traverse(8);
+    }
+
+    private void traverse(final int pThreads) throws Exception {
+        final List<Future<Long>> results = new ArrayList<Future<Long>>(pThreads);
+        for (int i = 0; i < pThreads; i++) {
+            results.add(mExec.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws TTException {
+                    final INodeReadTrx rtx =
+                        new NodeReadTrx(mSession.beginBucketRtx(mSession.getMostRecentVersion()));
+                    rtx.moveTo(IConstants.ROOT_NODE);
+                    final AbsAxis axis = new DescendantAxis(rtx);
+                    long sum = 0;
+                    while (axis.hasNext()) {
+                        sum += axis.nextKey();
+                    }
+                    rtx.close();
+                    return sum;
+                }
+            }));
+        }
+        for (final Future<Long> result : results) {
+            result.get();
+        }
+    }
+
+    @AfterBenchClass
+    public void tearDown() throws TTException {
+        mExec.shutdown();
+        mSession.close();
+        BenchHelper.deleteStorage(mStorage);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(ConcurrentAxisBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 5;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
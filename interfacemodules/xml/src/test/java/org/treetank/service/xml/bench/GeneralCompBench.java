@@ -0,0 +1,132 @@
+package org.treetank.service.xml.bench;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.AfterBenchClass;
+import org.perfidix.annotation.BeforeBenchClass;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.MemMeter;
+import org.perfidix.meter.Memory;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.axis.AbsAxis;
+import org.treetank.data.IConstants;
+import org.treetank.exception.TTException;
+import org.treetank.service.xml.xpath.XPathAxis;
+import org.treetank.service.xml.xpath.comparators.GeneralComp;
+import org.treetank.testutil.NodeElementTestHelper;
+
+/**
+ * Benchmarking {@link GeneralComp} on two attribute sequences of ELEMENTS values each. The values of both
+ * sequences are disjoint, so that every comparison has to look at all values.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class GeneralCompBench {
+
+    /** Number of values per operand. */
+    private static final int ELEMENTS = Integer.getInteger("comp.elements", 100000);
+
+    private IStorage mStorage;
+    private ISession mSession;
+    private INodeReadTrx mRtx;
+
+    @BeforeBenchClass
+    public void setUp() throws TTException {
+        mStorage = BenchHelper.createStorage();
+        mSession = BenchHelper.getSession(mStorage);
+        final INodeWriteTrx wtx = new NodeWriteTrx(mSession, mSession.beginBucketWtx(), HashKind.None);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        wtx.insertElementAsFirstChild(new QName("r"));
+        wtx.insertElementAsFirstChild(new QName("a"));
+        wtx.insertAttribute(new QName("id"), Integer.toString(0));
+        wtx.moveTo(wtx.getNode().getParentKey());
+        for (int i = 1; i < ELEMENTS; i++) {
+            insert(wtx, "a", "id", i);
+        }
+        for (int i = 0; i < ELEMENTS; i++) {
+            insert(wtx, "b", "ref", ELEMENTS + i);
+        }
+        wtx.commit();
+        wtx.close();
+        mRtx = new NodeReadTrx(mSession.beginBucketRtx(mSession.getMostRecentVersion()));
+    }
+
+    private static void insert(final INodeWriteTrx pWtx, final String pName, final String pAttribute,
+        final int pValue) throws TTException {
+        final long key = pWtx.insertElementAsRightSibling(new QName(pName));
+        pWtx.insertAttribute(new QName(pAttribute), Integer.toString(pValue));
+        pWtx.moveTo(key);
+    }
+
+    @Bench
+    public void equal() throws TTException {
+        evaluate("//a/@id = //b/@ref");
+    }
+
+    @Bench
+    public void less() throws TTException {
+        evaluate("//b/@ref < //a/@id");
+    }
+
+    private void evaluate(final String pQuery) throws TTException {
+        mRtx.moveTo(IConstants.ROOT_NODE);
+        final AbsAxis axis = new XPathAxis(mRtx, pQuery);
+        while (axis.hasNext()) {
+            axis.nextKey();
+        }
+    }
+
+    @AfterBenchClass
+    public void tearDown() throws TTException {
+        mRtx.close();
+        mSession.close();
+        BenchHelper.deleteStorage(mStorage);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(GeneralCompBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 10;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+            METERS.add(new MemMeter(Memory.Mebibyte));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.treetank.service.xml.bench;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.BeforeBenchClass;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.MemMeter;
+import org.perfidix.meter.Memory;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.service.xml.diff.algorithm.fmes.IKeyComparator;
+import org.treetank.service.xml.diff.algorithm.fmes.Util;
+
+/**
+ * Benchmarking the longest common subsequence of {@link Util} on synthetic child lists of 10^3 up to 10^6
+ * node keys. The second list of each pair derives from the first one by EDITS random replacements,
+ * insertions and deletions.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class LCSBench {
+
+    /** Number of edits per pair of lists. */
+    private static final int EDITS = Integer.getInteger("lcs.edits", 100);
+
+    /** Comparing node keys by identity. */
+    private static final IKeyComparator CMP = new IKeyComparator() {
+        @Override
+        public boolean isEqual(final long paramX, final long paramY) {
+            return paramX == paramY;
+        }
+    };
+
+    private long[][] mOld;
+    private long[][] mNew;
+
+    @BeforeBenchClass
+    public void setUp() {
+        final Random random = new Random(0);
+        mOld = new long[4][];
+        mNew = new long[4][];
+        int size = 1000;
+        for (int i = 0; i < mOld.length; i++) {
+            mOld[i] = new long[size];
+            for (int j = 0; j < size; j++) {
+                mOld[i][j] = j;
+            }
+            mNew[i] = edit(mOld[i], random);
+            size *= 10;
+        }
+    }
+
+    private static long[] edit(final long[] pKeys, final Random pRandom) {
+        long[] keys = pKeys.clone();
+        for (int i = 0; i < EDITS; i++) {
+            final int pos = pRandom.nextInt(keys.length);
+            final long[] edited;
+            switch (i % 3) {
+            case 0:
+                keys[pos] = -1 - i;
+                break;
+            case 1:
+                edited = new long[keys.length + 1];
+                System.arraycopy(keys, 0, edited, 0, pos);
+                edited[pos] = -1 - i;
+                System.arraycopy(keys, pos, edited, pos + 1, keys.length - pos);
+                keys = edited;
+                break;
+            default:
+                edited = new long[keys.length - 1];
+                System.arraycopy(keys, 0, edited, 0, pos);
+                System.arraycopy(keys, pos + 1, edited, pos, keys.length - pos - 1);
+                keys = edited;
+            }
+        }
+        return keys;
+    }
+
+    @Bench
+    public void lcs1000() {
+        Util.longestCommonSubsequence(mOld[0], mNew[0], CMP);
+    }
+
+    @Bench
+    public void lcs10000() {
+        Util.longestCommonSubsequence(mOld[1], mNew[1], CMP);
+    }
+
+    @Bench
+    public void lcs100000() {
+        Util.longestCommonSubsequence(mOld[2], mNew[2], CMP);
+    }
+
+    @Bench
+    public void lcs1000000() {
+        Util.longestCommonSubsequence(mOld[3], mNew[3], CMP);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(LCSBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 10;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+            METERS.add(new MemMeter(Memory.Mebibyte));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.treetank.service.xml.bench;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.AfterBenchClass;
+import org.perfidix.annotation.BeforeBenchClass;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.exception.TTException;
+import org.treetank.service.xml.serialize.XMLSerializer;
+import org.treetank.service.xml.serialize.XMLSerializer.XMLSerializerBuilder;
+import org.treetank.service.xml.shredder.EShredderInsert;
+import org.treetank.service.xml.shredder.XMLStreamShredder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Benchmarking the throughput of the {@link XMLSerializer}. The document is given by the system property
+ * <code>serializer.file</code>, e.g. an XMark document, and shredded once. The size of the serialized
+ * document is determined before the runs, dividing it by the measured time gives the throughput in MB/s.
+ * Each run checks its output against this size, the parallel output must match the sequential one.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class SerializerBench {
+
+    /** Document to serialize. */
+    private static final File FILE = new File(System.getProperty("serializer.file", "src" + File.separator
+        + "test" + File.separator + "resources" + File.separator + "auction.xml"));
+
+    /** Threads of the parallel serializer. */
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private IStorage mStorage;
+    private ISession mSession;
+
+    /** Size of the serialized document in bytes. */
+    private long mSize;
+
+    @BeforeBenchClass
+    public void setUp() throws Exception {
+        mStorage = BenchHelper.createStorage();
+        mSession = BenchHelper.getSession(mStorage);
+        final INodeWriteTrx wtx = new NodeWriteTrx(mSession, mSession.beginBucketWtx(), HashKind.None);
+        new XMLStreamShredder(wtx, XMLStreamShredder.createFileReader(FILE), EShredderInsert.ADDASFIRSTCHILD)
+            .call();
+        wtx.close();
+        mSize = serialize(false);
+    }
+
+    @Bench
+    public void serialize() throws Exception {
+        checkState(serialize(false) == mSize);
+    }
+
+    @Bench
+    public void serializeIndented() throws Exception {
+        checkState(serialize(true) >= mSize);
+    }
+
+    @Bench
+    public void serializeParallel() throws Exception {
+        checkState(serialize(false, THREADS) == mSize);
+    }
+
+    private long serialize(final boolean pIndent) throws Exception {
+        return serialize(pIndent, 1);
+    }
+
+    private long serialize(final boolean pIndent, final int pThreads) throws Exception {
+        final CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+        new XMLSerializerBuilder(mSession, out).setIndend(pIndent).setThreads(pThreads).build().call();
+        return out.getCount();
+    }
+
+    @AfterBenchClass
+    public void tearDown() throws TTException {
+        mSession.close();
+        BenchHelper.deleteStorage(mStorage);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(SerializerBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 10;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.treetank.service.xml.bench;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.perfidix.AbstractConfig;
+import org.perfidix.Benchmark;
+import org.perfidix.annotation.AfterEachRun;
+import org.perfidix.annotation.BeforeEachRun;
+import org.perfidix.annotation.Bench;
+import org.perfidix.element.KindOfArrangement;
+import org.perfidix.meter.AbstractMeter;
+import org.perfidix.meter.MemMeter;
+import org.perfidix.meter.Memory;
+import org.perfidix.meter.Time;
+import org.perfidix.meter.TimeMeter;
+import org.perfidix.ouput.AbstractOutput;
+import org.perfidix.ouput.TabularSummaryOutput;
+import org.perfidix.result.BenchmarkResult;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.exception.TTException;
+import org.treetank.service.xml.shredder.EShredderInsert;
+import org.treetank.service.xml.shredder.ParallelXMLShredder;
+import org.treetank.service.xml.shredder.XMLShredder;
+import org.treetank.service.xml.shredder.XMLStreamShredder;
+
+/**
+ * Benchmarking the import of a document with the sequential {@link XMLShredder} against the cursor-based
+ * {@link XMLStreamShredder} and the {@link ParallelXMLShredder} with a growing number of threads. Besides the
+ * time, the memory allocated per run is measured. The document is given by the system property
+ * <code>shredder.file</code>, e.g. an XMark document generated with <code>xmlgen -f 1</code> (about 100MB) up
+ * to <code>xmlgen -f 100</code> (about 10GB). Since XMark documents consist of only six children of the root
+ * element, the split level is set by <code>shredder.level</code> and defaults to 2.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ * 
+ */
+public class ShredderBench {
+
+    /** Document to import. */
+    private static final File FILE = new File(System.getProperty("shredder.file", "src" + File.separator
+        + "test" + File.separator + "resources" + File.separator + "auction.xml"));
+
+    /** Level of the elements whose children are shredded concurrently. */
+    private static final int LEVEL = Integer.getInteger("shredder.level", 2);
+
+    private IStorage mStorage;
+    private ISession mSession;
+
+    @BeforeEachRun
+    public void setUp() throws TTException {
+        mStorage = BenchHelper.createStorage();
+        mSession = BenchHelper.getSession(mStorage);
+    }
+
+    @Bench
+    public void sequential() throws Exception {
+        final INodeWriteTrx wtx = new NodeWriteTrx(mSession, mSession.beginBucketWtx(), HashKind.None);
+        new XMLShredder(wtx, XMLShredder.createFileReader(FILE), EShredderInsert.ADDASFIRSTCHILD).call();
+        wtx.close();
+    }
+
+    @Bench
+    public void stream() throws Exception {
+        final INodeWriteTrx wtx = new NodeWriteTrx(mSession, mSession.beginBucketWtx(), HashKind.None);
+        new XMLStreamShredder(wtx, XMLStreamShredder.createFileReader(FILE), EShredderInsert.ADDASFIRSTCHILD)
+            .call();
+        wtx.close();
+    }
+
+    @Bench
+    public void parallel1() throws Exception {
+        shred(1);
+    }
+
+    @Bench
+    public void parallel2() throws Exception {
+        shred(2);
+    }
+
+    @Bench
+    public void parallel4() throws Exception {
+        shred(4);
+    }
+
+    @Bench
+    public void parallel8() throws Exception {
+        shred(8);
+    }
+
+    private void shred(final int pThreads) throws Exception {
+        new ParallelXMLShredder(mSession, XMLShredder.createFileReader(FILE), pThreads, LEVEL).call();
+    }
+
+    @AfterEachRun
+    public void tearDown() throws TTException {
+        mSession.close();
+        BenchHelper.deleteStorage(mStorage);
+    }
+
+    public static void main(String[] args) {
+        final Benchmark bench = new Benchmark(new Config());
+        bench.add(ShredderBench.class);
+        final BenchmarkResult res = bench.run();
+        new TabularSummaryOutput().visitBenchmark(res);
+    }
+
+    static class Config extends AbstractConfig {
+
+        private final static int RUNS = 3;
+        private final static Set<AbstractMeter> METERS = new HashSet<AbstractMeter>();
+        private final static Set<AbstractOutput> OUTPUT = new HashSet<AbstractOutput>();
+
+        private final static KindOfArrangement ARRAN = KindOfArrangement.SequentialMethodArrangement;
+        private final static double GCPROB = 1.0d;
+
+        static {
+            METERS.add(new TimeMeter(Time.MilliSeconds));
+            METERS.add(new MemMeter(Memory.Mebibyte));
+        }
+
+        public Config() {
+            super(RUNS, METERS.toArray(new AbstractMeter[METERS.size()]), OUTPUT
+                .toArray(new AbstractOutput[OUTPUT.size()]), ARRAN, GCPROB);
+
+        }
+    }
+}
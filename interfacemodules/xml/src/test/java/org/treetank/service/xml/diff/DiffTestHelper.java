@@ -34,7 +34,9 @@ import static org.mockito.Mockito.times;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.stream.XMLStreamException;
@@ -229,4 +231,33 @@ public final class DiffTestHelper {
             observers));
     }
 
+    static void checkParallel(final Holder paramHolder, final IDiffObserver paramObserver,
+        final int paramThreads) throws TTException, InterruptedException {
+        final Set<IDiffObserver> observers = new HashSet<IDiffObserver>();
+        observers.add(paramObserver);
+        DiffFactory.invokeFullDiff(new DiffFactory.Builder(paramHolder.getSession(), 0, 2, 1,
+            EDiffOptimized.HASHED, observers).setThreads(paramThreads));
+    }
+
+    /**
+     * Observer recording all diffs as strings, to compare diffs without a mock.
+     */
+    static final class DiffRecorder implements IDiffObserver {
+
+        /** The recorded diffs. */
+        final List<String> mDiffs = new ArrayList<String>();
+
+        @Override
+        public void diffListener(final EDiff paramDiff, final ITreeStructData paramNewNode,
+            final ITreeStructData paramOldNode, final DiffDepth paramDepth) {
+            mDiffs.add(paramDiff + " " + paramNewNode.getDataKey() + " " + paramOldNode.getDataKey() + " "
+                + paramDepth.getNewDepth() + " " + paramDepth.getOldDepth());
+        }
+
+        @Override
+        public void diffDone() {
+            mDiffs.add("done");
+        }
+    }
+
 }
@@ -27,6 +27,9 @@
 
 package org.treetank.service.xml.diff;
 
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
 import java.io.IOException;
 import java.util.Properties;
 
@@ -40,6 +43,7 @@ import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
 import org.treetank.exception.TTException;
+import org.treetank.service.xml.diff.DiffFactory.EDiff;
 import org.treetank.service.xml.diff.DiffFactory.EDiffOptimized;
 import org.treetank.testutil.CoreTestHelper;
 import org.treetank.testutil.CoreTestHelper.Holder;
@@ -133,4 +137,16 @@ public class FullDiffTest {
         DiffTestHelper.check(holder, mObserver, EDiffOptimized.NO);
         DiffTestHelper.verifyDiffSixth(mObserver);
     }
+
+    @Test
+    public void testParallelDiffSecond() throws Exception {
+        DiffTestHelper.setUpSecond(holder);
+        final DiffTestHelper.DiffRecorder sequential = new DiffTestHelper.DiffRecorder();
+        DiffTestHelper.checkParallel(holder, sequential, 1);
+        final DiffTestHelper.DiffRecorder parallel = new DiffTestHelper.DiffRecorder();
+        DiffTestHelper.checkParallel(holder, parallel, 4);
+        assertTrue(sequential.mDiffs.toString(), sequential.mDiffs.size() > 1);
+        assertTrue(sequential.mDiffs.toString(), sequential.mDiffs.toString().contains(EDiff.UPDATED.name()));
+        assertEquals(sequential.mDiffs, parallel.mDiffs);
+    }
 }
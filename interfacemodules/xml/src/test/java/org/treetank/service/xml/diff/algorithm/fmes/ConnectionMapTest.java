@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.diff.algorithm.fmes;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test {@link ConnectionMap} and {@link KeyMap}.
+ * 
+ */
+public class ConnectionMapTest {
+
+    /**
+     * Test setting and removing connections against a {@link Set}.
+     */
+    @Test
+    public void testSetAndGet() {
+        final Random random = new Random(0);
+        final ConnectionMap map = new ConnectionMap();
+        final Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 10000; i++) {
+            final long origin = random.nextInt(50);
+            final long destination = random.nextInt(50);
+            final boolean connected = random.nextInt(3) > 0;
+            map.set(origin, destination, connected);
+            if (connected) {
+                expected.add(origin + "/" + destination);
+            } else {
+                expected.remove(origin + "/" + destination);
+            }
+        }
+        final ConnectionMap copy = new ConnectionMap(map);
+        for (long origin = 0; origin < 55; origin++) {
+            for (long destination = 0; destination < 55; destination++) {
+                assertEquals(expected.contains(origin + "/" + destination), copy.get(origin, destination));
+            }
+        }
+    }
+
+    /**
+     * Test {@link KeyMap} with growing tables.
+     */
+    @Test
+    public void testKeyMap() {
+        final KeyMap map = new KeyMap();
+        for (long key = 0; key < 100000; key += 3) {
+            map.put(key, key * 2);
+        }
+        assertEquals(33334, map.size());
+        for (long key = 0; key < 100000; key++) {
+            assertEquals(key % 3 == 0, map.containsKey(key));
+            assertEquals(key % 3 == 0 ? key * 2 : -1, map.get(key));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.diff.algorithm.fmes;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Properties;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.data.IConstants;
+import org.treetank.exception.TTException;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.Holder;
+import org.treetank.testutil.ModuleFactory;
+import org.treetank.testutil.NodeElementTestHelper;
+
+import com.google.inject.Inject;
+
+/**
+ * Test {@link Matching}.
+ * 
+ */
+@Guice(moduleFactory = ModuleFactory.class)
+public class MatchingTest {
+
+    /** Name of the resource holding the new revision. */
+    private static final String MOVED = "moved";
+
+    private Holder holder;
+
+    @Inject
+    private IResourceConfigurationFactory mResourceConfig;
+
+    private ISession mMovedSession;
+
+    @BeforeMethod
+    public void setUp() throws TTException {
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final ResourceConfiguration resource =
+            mResourceConfig.create(StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile()
+                .getAbsolutePath(), CoreTestHelper.RESOURCENAME));
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateRtx(coreHolder, resource);
+
+        // the test document with the c of the first b moved to the root element, keeping all keys
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(), MOVED);
+        assertTrue(coreHolder.getStorage().createResource(mResourceConfig.create(props)));
+        mMovedSession =
+            coreHolder.getStorage().getSession(new SessionConfiguration(MOVED, StandardSettings.KEY));
+        final INodeWriteTrx wtx =
+            new NodeWriteTrx(mMovedSession, mMovedSession.beginBucketWtx(), HashKind.Rolling);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        wtx.insertElementAsFirstChild(new QName("ns", "a", "p"));
+        wtx.insertAttribute(new QName("i"), "j");
+        wtx.moveTo(1L);
+        wtx.insertNamespace(new QName("ns", "xmlns", "p"));
+        wtx.moveTo(1L);
+        wtx.insertTextAsFirstChild("oops1");
+        wtx.insertElementAsRightSibling(new QName("b"));
+        wtx.insertTextAsFirstChild("foo");
+        wtx.moveTo(5L);
+        assertEquals(7L, wtx.insertElementAsRightSibling(new QName("c")));
+        wtx.insertTextAsRightSibling("oops2");
+        wtx.insertElementAsRightSibling(new QName("b"));
+        wtx.insertAttribute(new QName("ns", "x", "p"), "y");
+        wtx.moveTo(9L);
+        assertEquals(11L, wtx.insertElementAsFirstChild(new QName("c")));
+        wtx.insertTextAsRightSibling("bar");
+        wtx.moveTo(9L);
+        assertEquals(13L, wtx.insertTextAsRightSibling("oops3"));
+        wtx.commit();
+        wtx.close();
+    }
+
+    @AfterMethod
+    public void tearDown() throws TTException {
+        CoreTestHelper.deleteEverything();
+    }
+
+    /**
+     * Test counting the matched nodes of subtrees when a subtree is moved.
+     * 
+     * @throws TTException
+     */
+    @Test
+    public void testMovedSubtree() throws TTException {
+        final INodeReadTrx rtxOld = holder.getNRtx();
+        final INodeReadTrx rtxNew =
+            new NodeReadTrx(mMovedSession.beginBucketRtx(mMovedSession.getMostRecentVersion()));
+        final Matching matching = new Matching(rtxOld, rtxNew);
+        for (final long key : new long[] {
+            IConstants.ROOT_NODE, 1L, 4L, 5L, 6L, 7L, 8L, 9L, 11L, 12L, 13L
+        }) {
+            matching.add(key, key);
+        }
+
+        // c left the first b, it is only counted for the root element
+        assertEquals(2, matching.containedChildren(5L, 5L));
+        assertEquals(10, matching.containedChildren(1L, 1L));
+        assertEquals(3, matching.containedChildren(9L, 9L));
+
+        // the copy keeps the relations
+        assertEquals(2, new Matching(matching).containedChildren(5L, 5L));
+        rtxNew.close();
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.diff.algorithm.fmes;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test {@link Util}.
+ * 
+ */
+public class UtilTest {
+
+    /** Comparing node keys by identity. */
+    private static final IKeyComparator CMP = new IKeyComparator() {
+        @Override
+        public boolean isEqual(final long paramX, final long paramY) {
+            return paramX == paramY;
+        }
+    };
+
+    /**
+     * Test the lcs on node keys against the quadratic dynamic programming solution.
+     */
+    @Test
+    public void testLongestCommonSubsequence() {
+        final Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            final long[] x = randomKeys(random, random.nextInt(40));
+            final long[] y = randomKeys(random, random.nextInt(40));
+            final long[][] lcs = Util.longestCommonSubsequence(x, y, CMP);
+            assertEquals(lcsLength(x, y), lcs[0].length);
+            assertTrue(Arrays.equals(lcs[0], lcs[1]));
+            assertTrue(isSubsequence(lcs[0], x));
+            assertTrue(isSubsequence(lcs[1], y));
+        }
+    }
+
+    /**
+     * Test the lcs on lists.
+     */
+    @Test
+    public void testLongestCommonSubsequenceOfLists() {
+        final List<Pair<String, String>> lcs =
+            Util.longestCommonSubsequence(Arrays.asList("a", "b", "c", "d", "e"), Arrays.asList("b", "x", "d",
+                "e", "a"), new IComparator<String>() {
+                @Override
+                public boolean isEqual(final String paramX, final String paramY) {
+                    return paramX.equals(paramY);
+                }
+            });
+        assertEquals(3, lcs.size());
+        assertEquals("b", lcs.get(0).mFirst);
+        assertEquals("d", lcs.get(1).mFirst);
+        assertEquals("e", lcs.get(2).mSecond);
+        assertEquals(0, Util.<String> longestCommonSubsequence(null, Arrays.asList("a"), null).size());
+    }
+
+    /**
+     * Test a wide child list with few edits.
+     */
+    @Test
+    public void testWideLists() {
+        final long[] x = new long[100000];
+        final long[] y = new long[100000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+            y[i] = i;
+        }
+        y[10] = -1;
+        y[50000] = -2;
+        y[99999] = -3;
+        assertEquals(x.length - 3, Util.longestCommonSubsequence(x, y, CMP)[0].length);
+    }
+
+    private static long[] randomKeys(final Random pRandom, final int pLength) {
+        final long[] keys = new long[pLength];
+        for (int i = 0; i < pLength; i++) {
+            keys[i] = pRandom.nextInt(4);
+        }
+        return keys;
+    }
+
+    private static int lcsLength(final long[] pX, final long[] pY) {
+        final int[][] lengths = new int[pX.length + 1][pY.length + 1];
+        for (int i = pX.length - 1; i >= 0; i--) {
+            for (int j = pY.length - 1; j >= 0; j--) {
+                lengths[i][j] =
+                    pX[i] == pY[j] ? lengths[i + 1][j + 1] + 1 : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+            }
+        }
+        return lengths[0][0];
+    }
+
+    private static boolean isSubsequence(final long[] pSub, final long[] pKeys) {
+        int i = 0;
+        for (final long key : pSub) {
+            while (i < pKeys.length && pKeys[i] != key) {
+                i++;
+            }
+            if (i++ == pKeys.length) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
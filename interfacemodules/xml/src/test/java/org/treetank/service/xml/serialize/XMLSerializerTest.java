@@ -30,8 +30,11 @@ package org.treetank.service.xml.serialize;
 import static org.testng.AssertJUnit.assertEquals;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
 import java.util.Properties;
 
+import javax.xml.namespace.QName;
+
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
@@ -42,6 +45,7 @@ import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
 import org.treetank.api.INodeWriteTrx;
+import org.treetank.data.IConstants;
 import org.treetank.exception.TTException;
 import org.treetank.service.xml.XMLTestHelper;
 import org.treetank.service.xml.serialize.XMLSerializer.XMLSerializerBuilder;
@@ -96,6 +100,43 @@ public class XMLSerializerTest {
         assertEquals(compareTo, out.toString());
     }
 
+    @Test
+    public void testAttributeQuotes() throws Exception {
+        final INodeWriteTrx wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        wtx.insertElementAsFirstChild(new QName("a"));
+        wtx.insertAttribute(new QName("q"), "say \"hi\" & bye");
+        wtx.commit();
+        wtx.close();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), out).setDeclaration(false).build().call();
+        assertEquals("<a q=\"say &quot;hi&quot; &amp; bye\"/>", out.toString());
+    }
+
+    @Test
+    public void testLargeValues() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() <= 2 * IConstants.VALUE_CHUNK_SIZE) {
+            builder.append("say \"hi\" ").append(builder.length());
+        }
+        final String value = builder.toString();
+        final INodeWriteTrx wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        final long element = wtx.insertElementAsFirstChild(new QName("a"));
+        wtx.insertAttribute(new QName("q"), value);
+        wtx.moveTo(element);
+        wtx.insertTextAsFirstChild(value);
+        wtx.commit();
+        wtx.close();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), out).setDeclaration(false).build().call();
+        assertEquals("<a q=\"" + value.replace("\"", "&quot;") + "\">" + value + "</a>", out.toString());
+    }
+
     @Test
     public void testRestSerializer() throws Exception {
 
@@ -156,6 +197,50 @@ public class XMLSerializerTest {
         assertEquals(XMLTestHelper.VERSIONEDXML, out.toString());
     }
 
+    @Test
+    public void testParallelSerializer() throws Exception {
+        final INodeWriteTrx wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLTestHelper.DocumentCreater.createVersioned(wtx);
+        wtx.commit();
+        wtx.close();
+
+        // one part per revision
+        new XMLSerializerBuilder(holder.getSession(), out, 0, 1, 2, 3).setThreads(2).build().call();
+        assertEquals(XMLTestHelper.VERSIONEDXML, out.toString());
+
+        // one part per child of the root element
+        final ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), sequential).setID(true).build().call();
+        out.reset();
+        new XMLSerializerBuilder(holder.getSession(), out).setID(true).setThreads(4).build().call();
+        assertEquals(sequential.toString(), out.toString());
+    }
+
+    @Test
+    public void testParallelSerializerLargePart() throws Exception {
+        final char[] chars = new char[XMLSerializer.MAX_PART_BYTES + 1];
+        Arrays.fill(chars, 'x');
+        final String value = new String(chars);
+        final INodeWriteTrx wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        NodeElementTestHelper.createDocumentRootNode(wtx);
+        wtx.insertElementAsFirstChild(new QName("a"));
+        wtx.insertElementAsFirstChild(new QName("b"));
+        wtx.insertElementAsRightSibling(new QName("c"));
+        wtx.insertTextAsFirstChild(value);
+        wtx.moveTo(wtx.getNode().getParentKey());
+        wtx.insertElementAsRightSibling(new QName("d"));
+        wtx.commit();
+        wtx.close();
+
+        // the part of c exceeds the limit and is written directly, in order with the other parts
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), out).setDeclaration(false).setThreads(2).build().call();
+        assertEquals("<a><b/><c>" + value + "</c><d/></a>", out.toString());
+    }
+
     /**
      * This test check the XPath //books expression and expects 6 books as
      * result. But the failure is, that only the children of the books will be
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.shredder;
+
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.data.ElementNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.data.interfaces.ITreeValData;
+import org.treetank.exception.TTException;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.CoreTestHelper.PATHS;
+import org.treetank.testutil.Holder;
+import org.treetank.testutil.ModuleFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import com.google.inject.Inject;
+
+@Guice(moduleFactory = ModuleFactory.class)
+public class ParallelXMLShredderTest {
+
+    public static final String AUCTION = "src" + File.separator + "test" + File.separator + "resources"
+        + File.separator + "auction.xml";
+
+    private Holder holder;
+
+    @Inject
+    private IResourceConfigurationFactory mResourceConfig;
+
+    private ResourceConfiguration mResource;
+
+    @BeforeMethod
+    public void setUp() throws TTException {
+        CoreTestHelper.deleteEverything();
+        CoreTestHelper.Holder holder = CoreTestHelper.Holder.generateStorage();
+        Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        mResource = mResourceConfig.create(props);
+        this.holder = Holder.generateWtx(holder, mResource);
+    }
+
+    @AfterMethod
+    public void tearDown() throws TTException {
+        CoreTestHelper.deleteEverything();
+    }
+
+    @Test
+    public void testSplitAtRootChildren() throws Exception {
+        check(XMLShredderTest.XML, 2, 1);
+    }
+
+    @Test
+    public void testSplitBelowRootChildren() throws Exception {
+        check(AUCTION, 4, 2);
+    }
+
+    @Test
+    public void testSplitAtDocument() throws Exception {
+        check(AUCTION, 1, 0);
+    }
+
+    /**
+     * A subtree exceeding the buffered events is split further, large values are stored in chunks.
+     */
+    @Test
+    public void testSplitLargeSubtree() throws Exception {
+        final File dir = Files.createTempDir();
+        final File file = new File(dir, "large.xml");
+        final StringBuilder doc = new StringBuilder("<root><big>");
+        for (int i = 0; i < ParallelXMLShredder.MAX_SUBTREE_EVENTS; i++) {
+            doc.append("<e a=\"").append(i).append("\"><f>text ").append(i).append("</f></e>");
+        }
+        final String large = Strings.repeat("value", IConstants.VALUE_INLINE_LIMIT);
+        doc.append("</big><large a=\"").append(large).append("\">").append(large).append("</large></root>");
+        Files.write(doc.toString(), file, Charsets.UTF_8);
+        try {
+            check(file.getPath(), 4, 1);
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    private void check(final String pFile, final int pThreads, final int pSplitLevel) throws Exception {
+        // Setup expected session.
+        final INodeWriteTrx expectedTrx = holder.getNWtx();
+        new XMLShredder(expectedTrx, XMLShredder.createFileReader(new File(pFile)),
+            EShredderInsert.ADDASFIRSTCHILD).call();
+        expectedTrx.moveTo(ROOT_NODE);
+
+        // Setup parallel shredded session.
+        final IStorage database2 = CoreTestHelper.getStorage(PATHS.PATH2.getFile());
+        Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH2.getFile().getAbsolutePath(), "shredded");
+        database2.createResource(mResourceConfig.create(props));
+        final ISession session =
+            database2.getSession(new SessionConfiguration("shredded", StandardSettings.KEY));
+        new ParallelXMLShredder(session, XMLShredder.createFileReader(new File(pFile)), pThreads, pSplitLevel)
+            .call();
+
+        // Verify.
+        final INodeReadTrx rtx = new NodeReadTrx(session.beginBucketRtx(session.getMostRecentVersion()));
+        rtx.moveTo(ROOT_NODE);
+        AssertJUnit.assertEquals(((ITreeStructData)expectedTrx.getNode()).getChildCount(),
+            ((ITreeStructData)rtx.getNode()).getChildCount());
+        final Iterator<Long> expectedDescendants = new DescendantAxis(expectedTrx);
+        final Iterator<Long> descendants = new DescendantAxis(rtx);
+
+        while (expectedDescendants.hasNext()) {
+            expectedDescendants.next();
+            AssertJUnit.assertTrue(descendants.hasNext());
+            descendants.next();
+            final ITreeStructData expDesc = ((ITreeStructData)expectedTrx.getNode());
+            final ITreeStructData desc = ((ITreeStructData)rtx.getNode());
+            AssertJUnit.assertEquals(expDesc.getDataKey(), desc.getDataKey());
+            AssertJUnit.assertEquals(expDesc.getParentKey(), desc.getParentKey());
+            AssertJUnit.assertEquals(expDesc.getFirstChildKey(), desc.getFirstChildKey());
+            AssertJUnit.assertEquals(expDesc.getLeftSiblingKey(), desc.getLeftSiblingKey());
+            AssertJUnit.assertEquals(expDesc.getRightSiblingKey(), desc.getRightSiblingKey());
+            AssertJUnit.assertEquals(expDesc.getChildCount(), desc.getChildCount());
+            AssertJUnit.assertEquals(expDesc.getKind(), desc.getKind());
+            if (expDesc.getKind() == IConstants.ELEMENT) {
+                AssertJUnit.assertEquals(((ElementNode)expDesc).getAttributeCount(), ((ElementNode)desc)
+                    .getAttributeCount());
+                AssertJUnit.assertEquals(((ElementNode)expDesc).getNamespaceCount(), ((ElementNode)desc)
+                    .getNamespaceCount());
+                for (int i = 0; i < ((ElementNode)expDesc).getAttributeCount(); i++) {
+                    expectedTrx.moveToAttribute(i);
+                    rtx.moveToAttribute(i);
+                    AssertJUnit.assertEquals(expectedTrx.getQNameOfCurrentNode(), rtx.getQNameOfCurrentNode());
+                    AssertJUnit.assertEquals(expectedTrx.getValueOfCurrentNode(), rtx.getValueOfCurrentNode());
+                    checkChunks((ITreeValData)expectedTrx.getNode(), (ITreeValData)rtx.getNode());
+                    expectedTrx.moveTo(expDesc.getDataKey());
+                    rtx.moveTo(desc.getDataKey());
+                }
+            }
+            AssertJUnit.assertEquals(expectedTrx.getQNameOfCurrentNode(), rtx.getQNameOfCurrentNode());
+            AssertJUnit.assertEquals(expectedTrx.getValueOfCurrentNode(), rtx.getValueOfCurrentNode());
+            if (desc.getKind() == IConstants.TEXT) {
+                checkChunks((ITreeValData)expDesc, (ITreeValData)desc);
+            }
+        }
+        AssertJUnit.assertFalse(descendants.hasNext());
+
+        rtx.close();
+        session.close();
+    }
+
+    private static void checkChunks(final ITreeValData pExpected, final ITreeValData pNode) {
+        AssertJUnit.assertEquals(pExpected.getValueChunkKey() == IConstants.NULL_NODE,
+            pNode.getValueChunkKey() == IConstants.NULL_NODE);
+        if (pNode.getValueChunkKey() != IConstants.NULL_NODE) {
+            AssertJUnit.assertTrue(pNode.getValueChunkKey() >= IConstants.VALUE_CHUNK_KEYS);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.shredder;
+
+import static org.treetank.data.IConstants.ROOT_NODE;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.SessionConfiguration;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.INodeWriteTrx;
+import org.treetank.api.ISession;
+import org.treetank.api.IStorage;
+import org.treetank.axis.DescendantAxis;
+import org.treetank.data.ElementNode;
+import org.treetank.data.IConstants;
+import org.treetank.data.interfaces.ITreeStructData;
+import org.treetank.exception.TTException;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.CoreTestHelper.PATHS;
+import org.treetank.testutil.Holder;
+import org.treetank.testutil.ModuleFactory;
+
+import com.google.inject.Inject;
+
+@Guice(moduleFactory = ModuleFactory.class)
+public class XMLStreamShredderTest {
+
+    private Holder holder;
+
+    @Inject
+    private IResourceConfigurationFactory mResourceConfig;
+
+    private ResourceConfiguration mResource;
+
+    @BeforeMethod
+    public void setUp() throws TTException {
+        CoreTestHelper.deleteEverything();
+        CoreTestHelper.Holder holder = CoreTestHelper.Holder.generateStorage();
+        Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        mResource = mResourceConfig.create(props);
+        this.holder = Holder.generateWtx(holder, mResource);
+    }
+
+    @AfterMethod
+    public void tearDown() throws TTException {
+        CoreTestHelper.deleteEverything();
+    }
+
+    @Test
+    public void testStreamShredder() throws Exception {
+        check(XMLShredderTest.XML);
+        check(ParallelXMLShredderTest.AUCTION);
+    }
+
+    @Test
+    public void testShredAsRightSibling() throws Exception {
+        final INodeWriteTrx wtx = holder.getNWtx();
+        new XMLStreamShredder(wtx, XMLStreamShredder.createFileReader(new File(XMLShredderTest.XML)),
+            EShredderInsert.ADDASFIRSTCHILD).call();
+        wtx.moveTo(ROOT_NODE);
+        wtx.moveTo(((ITreeStructData)wtx.getNode()).getFirstChildKey());
+        new XMLStreamShredder(wtx, XMLStreamShredder.createFileReader(new File(XMLShredderTest.XML)),
+            EShredderInsert.ADDASRIGHTSIBLING).call();
+        wtx.moveTo(ROOT_NODE);
+        AssertJUnit.assertEquals(2, ((ITreeStructData)wtx.getNode()).getChildCount());
+    }
+
+    private void check(final String pFile) throws Exception {
+        CoreTestHelper.deleteEverything();
+        // Setup expected session.
+        final IStorage database1 = CoreTestHelper.getStorage(PATHS.PATH1.getFile());
+        final IStorage database2 = CoreTestHelper.getStorage(PATHS.PATH2.getFile());
+        database1.createResource(mResourceConfig.create(StandardSettings.getProps(PATHS.PATH1.getFile()
+            .getAbsolutePath(), "expected")));
+        database2.createResource(mResourceConfig.create(StandardSettings.getProps(PATHS.PATH2.getFile()
+            .getAbsolutePath(), "shredded")));
+        final ISession expectedSession =
+            database1.getSession(new SessionConfiguration("expected", StandardSettings.KEY));
+        final ISession session =
+            database2.getSession(new SessionConfiguration("shredded", StandardSettings.KEY));
+        final INodeWriteTrx expectedTrx =
+            new NodeWriteTrx(expectedSession, expectedSession.beginBucketWtx(), HashKind.Rolling);
+        new XMLShredder(expectedTrx, XMLShredder.createFileReader(new File(pFile)),
+            EShredderInsert.ADDASFIRSTCHILD).call();
+        final INodeWriteTrx wtx = new NodeWriteTrx(session, session.beginBucketWtx(), HashKind.Rolling);
+        new XMLStreamShredder(wtx, XMLStreamShredder.createFileReader(new File(pFile)),
+            EShredderInsert.ADDASFIRSTCHILD).call();
+
+        // Verify.
+        expectedTrx.moveTo(ROOT_NODE);
+        wtx.moveTo(ROOT_NODE);
+        final Iterator<Long> expectedDescendants = new DescendantAxis(expectedTrx);
+        final Iterator<Long> descendants = new DescendantAxis(wtx);
+        while (expectedDescendants.hasNext()) {
+            expectedDescendants.next();
+            AssertJUnit.assertTrue(descendants.hasNext());
+            descendants.next();
+            final ITreeStructData expDesc = ((ITreeStructData)expectedTrx.getNode());
+            final ITreeStructData desc = ((ITreeStructData)wtx.getNode());
+            AssertJUnit.assertEquals(expDesc.getDataKey(), desc.getDataKey());
+            AssertJUnit.assertEquals(expDesc.getChildCount(), desc.getChildCount());
+            AssertJUnit.assertEquals(expDesc.getKind(), desc.getKind());
+            AssertJUnit.assertEquals(expDesc.hashCode(), desc.hashCode());
+            if (expDesc.getKind() == IConstants.ELEMENT) {
+                AssertJUnit.assertEquals(((ElementNode)expDesc).getAttributeCount(), ((ElementNode)desc)
+                    .getAttributeCount());
+                AssertJUnit.assertEquals(((ElementNode)expDesc).getNamespaceCount(), ((ElementNode)desc)
+                    .getNamespaceCount());
+            }
+            AssertJUnit.assertEquals(expectedTrx.getQNameOfCurrentNode(), wtx.getQNameOfCurrentNode());
+            AssertJUnit.assertEquals(expectedTrx.getValueOfCurrentNode(), wtx.getValueOfCurrentNode());
+        }
+        AssertJUnit.assertFalse(descendants.hasNext());
+
+        expectedTrx.close();
+        wtx.close();
+        expectedSession.close();
+        session.close();
+    }
+
+}
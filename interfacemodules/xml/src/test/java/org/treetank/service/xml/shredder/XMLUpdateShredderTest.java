@@ -27,12 +27,15 @@
 
 package org.treetank.service.xml.shredder;
 
+import static org.treetank.data.IConstants.ROOT_NODE;
+
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 
@@ -43,13 +46,16 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
+import org.treetank.access.BucketDiff;
 import org.treetank.access.NodeWriteTrx;
 import org.treetank.access.NodeWriteTrx.HashKind;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
 import org.treetank.api.INodeWriteTrx;
+import org.treetank.axis.DescendantAxis;
 import org.treetank.exception.TTException;
+import org.treetank.exception.TTIOException;
 import org.treetank.service.xml.XMLTestHelper;
 import org.treetank.service.xml.serialize.XMLSerializer;
 import org.treetank.service.xml.serialize.XMLSerializer.XMLSerializerBuilder;
@@ -185,6 +191,50 @@ public final class XMLUpdateShredderTest {
         check("src" + File.separator + "test" + File.separator + "resources" + File.separator + "revXMLsAll8");
     }
 
+    @Test
+    public void testSameSubtrees() throws Exception {
+        final File file = new File(ParallelXMLShredderTest.AUCTION);
+        INodeWriteTrx wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+        new XMLShredder(wtx, XMLShredder.createFileReader(file), EShredderInsert.ADDASFIRSTCHILD).call();
+        wtx.moveTo(ROOT_NODE);
+        final long hash = wtx.getNode().getHash();
+        long nodes = 0;
+        for (final Iterator<Long> it = new DescendantAxis(wtx); it.hasNext(); it.next()) {
+            nodes++;
+        }
+        wtx.close();
+        final OutputStream expected = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), expected).build().call();
+
+        // Unchanged subtrees are skipped by their hashes without moving to their nodes.
+        final long[] moves = new long[1];
+        wtx =
+            new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling) {
+                @Override
+                public boolean moveTo(final long pKey) throws TTIOException {
+                    moves[0]++;
+                    return super.moveTo(pKey);
+                }
+            };
+        new XMLUpdateShredder(wtx, XMLShredder.createFileReader(file), EShredderInsert.ADDASFIRSTCHILD, file,
+            EShredderCommit.COMMIT).call();
+        wtx.moveTo(ROOT_NODE);
+        AssertJUnit.assertEquals(hash, wtx.getNode().getHash());
+        wtx.close();
+        AssertJUnit.assertTrue("moved " + moves[0] + " times for " + nodes + " nodes", moves[0] < nodes / 10);
+
+        // Nothing is written, the new revision shares all data with the former one.
+        final long revision = holder.getSession().getMostRecentVersion();
+        final BucketDiff diff = BucketDiff.diff(holder.getSession(), revision - 1, revision);
+        AssertJUnit.assertEquals(0, diff.getOldKeys().length);
+        AssertJUnit.assertEquals(0, diff.getNewKeys().length);
+
+        final OutputStream out = new ByteArrayOutputStream();
+        new XMLSerializerBuilder(holder.getSession(), out).build().call();
+        AssertJUnit.assertEquals(expected.toString(), out.toString());
+    }
+
     // @Test
     // public void testLinguistics() throws Exception {
     // test(XMLLINGUISTICS);
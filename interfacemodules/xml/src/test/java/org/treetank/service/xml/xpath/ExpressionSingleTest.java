@@ -42,10 +42,12 @@ import org.treetank.access.conf.StandardSettings;
 import org.treetank.axis.AbsAxis;
 import org.treetank.axis.ChildAxis;
 import org.treetank.axis.DescendantAxis;
+import org.treetank.axis.FilterAxis;
 import org.treetank.axis.FollowingSiblingAxis;
 import org.treetank.axis.NestedAxis;
 import org.treetank.axis.ParentAxis;
 import org.treetank.axis.SelfAxis;
+import org.treetank.axis.filter.NameFilter;
 import org.treetank.exception.TTException;
 import org.treetank.service.xml.xpath.axis.UnionAxis;
 import org.treetank.service.xml.xpath.filter.DupFilterAxis;
@@ -142,4 +144,18 @@ public class ExpressionSingleTest {
         assertTrue(builder.getExpr() instanceof DupFilterAxis);
 
     }
+    @Test
+    public void testRewrite() throws TTException {
+        // descendant-or-self::node()/child::b is fused to descendant::b
+        final ExpressionSingle builder = new ExpressionSingle(holder.getNRtx());
+        builder.add(new DescendantAxis(holder.getNRtx(), true));
+        builder.add(new FilterAxis(new ChildAxis(holder.getNRtx()), holder.getNRtx(), new NameFilter(holder
+            .getNRtx(), "b")));
+        assertEquals(2, builder.getSize());
+        final AbsAxis expr = builder.getExpr();
+        assertTrue(expr instanceof FilterAxis);
+        assertTrue(((FilterAxis)expr).getAxis() instanceof DescendantAxis);
+        assertEquals(false, ((FilterAxis)expr).getAxis().isSelfIncluded());
+    }
+
 }
@@ -27,12 +27,15 @@
 
 package org.treetank.service.xml.xpath;
 
+import static org.treetank.data.IConstants.ROOT_NODE;
+
 import java.util.Properties;
 
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
@@ -138,6 +141,47 @@ public class FunctionsTest {
             });
     }
 
+    /**
+     * Test function count() on descendant steps answered by the structural index.
+     * 
+     * @throws TTException
+     */
+    @Test
+    public final void testCountStructIndex() throws TTException {
+        final String[] queries = {
+            "count(descendant::node())", "count(descendant-or-self::node())", "count(p:a/descendant::node())",
+            "count(//b/descendant-or-self::node())", "count(descendant::b)"
+        };
+        final String[] expected = {
+            "10", "10", "9", "6", "2"
+        };
+        for (int i = 0; i < queries.length; i++) {
+            holder.getNRtx().moveTo(ROOT_NODE);
+            XPathStringChecker.testIAxisConventions(holder.getNRtx(), new XPathAxis(holder.getNRtx(),
+                queries[i]), new String[] {
+                expected[i]
+            });
+        }
+
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.STRUCTINDEX, "true");
+        mResource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(mResource);
+        holder = Holder.generateRtx(coreHolder, mResource);
+        for (int i = 0; i < queries.length; i++) {
+            holder.getNRtx().moveTo(ROOT_NODE);
+            XPathStringChecker.testIAxisConventions(holder.getNRtx(), new XPathAxis(holder.getNRtx(),
+                queries[i]), new String[] {
+                expected[i]
+            });
+        }
+    }
+
     /**
      * Test function string().
      * 
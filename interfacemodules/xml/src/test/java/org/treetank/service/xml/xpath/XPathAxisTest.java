@@ -27,15 +27,25 @@
 
 package org.treetank.service.xml.xpath;
 
+import static org.treetank.data.IConstants.ROOT_NODE;
+
 import java.util.Properties;
 
+import javax.xml.namespace.QName;
+
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Guice;
 import org.testng.annotations.Test;
+import org.treetank.access.NodeReadTrx;
+import org.treetank.access.NodeWriteTrx;
+import org.treetank.access.NodeWriteTrx.HashKind;
+import org.treetank.access.conf.ConstructorProps;
 import org.treetank.access.conf.ResourceConfiguration;
 import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
 import org.treetank.access.conf.StandardSettings;
+import org.treetank.api.INodeReadTrx;
+import org.treetank.api.INodeWriteTrx;
 import org.treetank.exception.TTException;
 import org.treetank.testutil.CoreTestHelper;
 import org.treetank.testutil.Holder;
@@ -438,7 +448,7 @@ public class XPathAxisTest {
 
         AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(),
             "b/text(), //text(), descendant-or-self::element()"), new long[] {
-            6L, 12L, 4L, 8L, 13L, 6L, 12L, 1L, 5L, 7L, 9L, 11L
+            6L, 12L, 4L, 6L, 8L, 12L, 13L, 1L, 5L, 7L, 9L, 11L
         });
 
         holder.getNRtx().moveTo(5L);
@@ -459,4 +469,159 @@ public class XPathAxisTest {
         });
     }
 
+    @Test
+    public void testGeneralComp() throws TTException {
+        final String[][] queries = {
+            {
+                "(1, 2, 3) = (3, 4)", "true"
+            }, {
+                "(1, 2) = (3, 4)", "false"
+            }, {
+                "(1, 2) < (0, 3)", "true"
+            }, {
+                "(5, 6) < (1, 5)", "false"
+            }, {
+                "(5, 6) >= (6, 7)", "true"
+            }, {
+                "(\"a\", \"c\") > (\"b\", \"d\")", "true"
+            }, {
+                "(\"a\", \"b\") > (\"c\", \"d\")", "false"
+            }, {
+                "//@* = \"y\"", "true"
+            }
+        };
+        for (final String[] query : queries) {
+            holder.getNRtx().moveTo(1L);
+            XPathStringChecker.testIAxisConventions(holder.getNRtx(), new XPathAxis(holder.getNRtx(),
+                query[0]), new String[] {
+                query[1]
+            });
+        }
+    }
+
+    @Test
+    public void testRewrittenSteps() throws TTException {
+        holder.getNRtx().moveTo(ROOT_NODE);
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b"), new long[] {
+            5L, 9L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b[@p:x = 'y']"), new long[] {
+            9L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b[@p:x = 'z']"), new long[] {});
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b['y' = @p:x]/c"), new long[] {
+            11L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//*[@i = 'j']"), new long[] {
+            1L
+        });
+    }
+
+    @Test
+    public void testPathSummary() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.PATHSUMMARY, Boolean.TRUE.toString());
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateRtx(coreHolder, resource);
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "/p:a/b"), new long[] {
+            5L, 9L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//c"), new long[] {
+            7L, 11L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "/p:a//c"), new long[] {
+            7L, 11L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "/b//c"), new long[] {});
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "/p:a/b/text()"), new long[] {
+            6L, 12L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "/p:a/b[@p:x]/c"), new long[] {
+            11L
+        });
+    }
+
+    @Test
+    public void testValueIndex() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.VALUEINDEX, "//@*");
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateRtx(coreHolder, resource);
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//*[@i = 'j']"), new long[] {
+            1L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b[@p:x = 'y']"), new long[] {
+            9L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b[@p:x = 'z']"), new long[] {});
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//b[@p:x = 'y']/c"), new long[] {
+            11L
+        });
+
+        AxisTest.testIAxisConventions(new XPathAxis(holder.getNRtx(), "//p:a[@p:x = 'y']"), new long[] {});
+    }
+
+    @Test
+    public void testValueIndexOrder() throws TTException {
+        // once with order labels and once with a traversal ordering the elements
+        for (final boolean labels : new boolean[] {
+            false, true
+        }) {
+            holder.close();
+            CoreTestHelper.deleteEverything();
+            final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+            final Properties props =
+                StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                    CoreTestHelper.RESOURCENAME);
+            props.setProperty(ConstructorProps.VALUEINDEX, "//@*");
+            props.setProperty(ConstructorProps.STRUCTINDEX, Boolean.toString(labels));
+            final ResourceConfiguration resource = mResourceConfig.create(props);
+            NodeElementTestHelper.createTestDocument(resource);
+            holder = Holder.generateRtx(coreHolder, resource);
+
+            // the new element precedes the existing one although its key is greater
+            final INodeWriteTrx wtx =
+                new NodeWriteTrx(holder.getSession(), holder.getSession().beginBucketWtx(), HashKind.Rolling);
+            wtx.moveTo(1L);
+            final long key = wtx.insertElementAsFirstChild(new QName("b"));
+            wtx.insertAttribute(new QName("ns", "x", "p"), "y");
+            wtx.commit();
+            wtx.close();
+
+            final INodeReadTrx rtx =
+                new NodeReadTrx(holder.getSession().beginBucketRtx(
+                    holder.getSession().getMostRecentVersion()));
+            AxisTest.testIAxisConventions(new XPathAxis(rtx, "//b[@p:x = 'y']"), new long[] {
+                key, 9L
+            });
+            rtx.close();
+        }
+    }
+
 }
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2011, University of Konstanz, Distributed Systems Group
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ * * Neither the name of the University of Konstanz nor the
+ * names of its contributors may be used to endorse or promote products
+ * derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL <COPYRIGHT HOLDER> BE LIABLE FOR ANY
+ * DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.treetank.service.xml.xpath;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.util.Properties;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+import org.treetank.access.conf.ConstructorProps;
+import org.treetank.access.conf.ResourceConfiguration;
+import org.treetank.access.conf.ResourceConfiguration.IResourceConfigurationFactory;
+import org.treetank.access.conf.StandardSettings;
+import org.treetank.exception.TTException;
+import org.treetank.testutil.CoreTestHelper;
+import org.treetank.testutil.Holder;
+import org.treetank.testutil.ModuleFactory;
+import org.treetank.testutil.NodeElementTestHelper;
+
+import com.google.inject.Inject;
+
+/**
+ * Test class to test the reuse of compiled queries.
+ * 
+ * @author Sebastian Graf, University of Konstanz
+ */
+@Guice(moduleFactory = ModuleFactory.class)
+public class XPathCacheTest {
+
+    private Holder holder;
+
+    @Inject
+    private IResourceConfigurationFactory mResourceConfig;
+
+    private ResourceConfiguration mResource;
+
+    @BeforeMethod
+    public void setUp() throws TTException {
+        CoreTestHelper.deleteEverything();
+        CoreTestHelper.Holder holder = CoreTestHelper.Holder.generateStorage();
+        Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        mResource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(mResource);
+        this.holder = Holder.generateRtx(holder, mResource);
+    }
+
+    @AfterMethod
+    public void tearDown() throws TTException {
+        CoreTestHelper.deleteEverything();
+    }
+
+    @Test
+    public void testRebind() throws TTException {
+        final CompiledXPath steps = new CompiledXPath(holder.getNRtx(), "/p:a/b/c");
+        for (int i = 0; i < 3; i++) {
+            AxisTest.testIAxisConventions(steps.bind(holder.getNRtx()), new long[] {
+                7L, 11L
+            });
+        }
+
+        // the literal must survive the items created while evaluating
+        final CompiledXPath comp =
+            new CompiledXPath(holder.getNRtx(), "descendant-or-self::node()/@p:x = 'y'");
+        for (int i = 0; i < 3; i++) {
+            XPathStringChecker.testIAxisConventions(holder.getNRtx(), comp.bind(holder.getNRtx()),
+                new String[] {
+                    "true"
+                });
+        }
+
+        final CompiledXPath range = new CompiledXPath(holder.getNRtx(), "p:a[(1 to 3) = 2]");
+        for (int i = 0; i < 3; i++) {
+            AxisTest.testIAxisConventions(range.bind(holder.getNRtx()), new long[] {
+                1L
+            });
+        }
+
+        // the ancestor step returns p:a for each c, the duplicates are dropped within each evaluation only
+        final CompiledXPath dups = new CompiledXPath(holder.getNRtx(), "//c/ancestor::p:a");
+        for (int i = 0; i < 3; i++) {
+            AxisTest.testIAxisConventions(dups.bind(holder.getNRtx()), new long[] {
+                1L
+            });
+        }
+    }
+
+    @Test
+    public void testIndexes() throws TTException {
+        holder.close();
+        CoreTestHelper.deleteEverything();
+        final CoreTestHelper.Holder coreHolder = CoreTestHelper.Holder.generateStorage();
+        final Properties props =
+            StandardSettings.getProps(CoreTestHelper.PATHS.PATH1.getFile().getAbsolutePath(),
+                CoreTestHelper.RESOURCENAME);
+        props.setProperty(ConstructorProps.PATHSUMMARY, Boolean.TRUE.toString());
+        props.setProperty(ConstructorProps.VALUEINDEX, "//@*");
+        final ResourceConfiguration resource = mResourceConfig.create(props);
+        NodeElementTestHelper.createTestDocument(resource);
+        holder = Holder.generateRtx(coreHolder, resource);
+
+        // the indexes are looked up through the transaction the query is bound to
+        final CompiledXPath summary = new CompiledXPath(holder.getNRtx(), "/p:a//c");
+        assertEquals("true://@*", summary.getIndexState());
+        final CompiledXPath index = new CompiledXPath(holder.getNRtx(), "//b[@p:x = 'y']/c");
+        for (int i = 0; i < 3; i++) {
+            AxisTest.testIAxisConventions(summary.bind(holder.getNRtx()), new long[] {
+                7L, 11L
+            });
+            AxisTest.testIAxisConventions(index.bind(holder.getNRtx()), new long[] {
+                11L
+            });
+        }
+    }
+
+    @Test
+    public void testCache() throws TTException {
+        final XPathCache cache = new XPathCache(1);
+        final CompiledXPath first = cache.acquire(holder.getNRtx(), "/p:a/b");
+        AxisTest.testIAxisConventions(first.bind(holder.getNRtx()), new long[] {
+            5L, 9L
+        });
+        cache.release(first);
+
+        final CompiledXPath second = cache.acquire(holder.getNRtx(), "/p:a/b");
+        assertSame(first, second);
+        AxisTest.testIAxisConventions(second.bind(holder.getNRtx()), new long[] {
+            5L, 9L
+        });
+        cache.release(second);
+
+        // evicting the least recently used query
+        cache.release(cache.acquire(holder.getNRtx(), "/p:a"));
+        final CompiledXPath third = cache.acquire(holder.getNRtx(), "/p:a/b");
+        AxisTest.testIAxisConventions(third.bind(holder.getNRtx()), new long[] {
+            5L, 9L
+        });
+        cache.release(third);
+
+        // an idle query keeps no state of its last evaluation, the duplicates are dropped anew
+        for (int i = 0; i < 3; i++) {
+            final CompiledXPath dups = cache.acquire(holder.getNRtx(), "//c/ancestor::p:a");
+            AxisTest.testIAxisConventions(dups.bind(holder.getNRtx()), new long[] {
+                1L
+            });
+            cache.release(dups);
+        }
+    }
+
+}
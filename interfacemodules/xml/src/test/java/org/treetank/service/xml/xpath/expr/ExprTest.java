@@ -286,7 +286,7 @@ public class ExprTest {
 
                             AxisTest.testIAxisConventions(new XPathAxis(pRtx, "//node() except //text()"),
                                 new long[] {
-                                    1L, 5L, 9L, 7L, 11L
+                                    1L, 5L, 7L, 9L, 11L
                                 });
 
                             pRtx.moveTo(1L);
@@ -373,7 +373,7 @@ public class ExprTest {
 
                             final AbsAxis axis3 = new XPathAxis(pRtx, "fn:string(//node())");
                             assertEquals(true, axis3.hasNext());
-                            assertEquals("oops1 foo oops2 bar oops3 oops1 foo oops2 bar oops3 foo bar",
+                            assertEquals("oops1 foo oops2 bar oops3 oops1 foo foo oops2 bar bar oops3",
                                 new String(((ITreeValData)axis3.getNode()).getRawValue()));
                             ;
                             assertEquals(false, axis3.hasNext());
@@ -495,7 +495,7 @@ public class ExprTest {
 
                             AxisTest.testIAxisConventions(new XPathAxis(pRtx, "//node() intersect //text()"),
                                 new long[] {
-                                    4L, 8L, 13L, 6L, 12L
+                                    4L, 6L, 8L, 12L, 13L
                                 });
 
                             pRtx.moveTo(1L);
@@ -688,7 +688,7 @@ public class ExprTest {
 
                             AxisTest.testIAxisConventions(new XPathAxis(pRtx,
                                 "//c/ancestor::node() | //node()"), new long[] {
-                                5L, 1L, 9L, 4L, 8L, 13L, 6L, 7L, 11L, 12L
+                                5L, 1L, 9L, 4L, 6L, 7L, 8L, 11L, 12L, 13L
                             });
 
                         }